@@ -0,0 +1,46 @@
+package at.sfischer.synth.db.benchmark;
+
+import at.sfischer.synth.db.model.DBSchema;
+import at.sfischer.synth.db.model.Table;
+import net.sf.jsqlparser.JSQLParserException;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks parsing schemas and computing the insertion order of their tables.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DBSchemaBenchmark {
+
+    @Param({"10", "100", "500"})
+    public int tableCount;
+
+    @Param({"4", "16"})
+    public int columnCount;
+
+    private String ddl;
+
+    private Map<Table, Set<Table>> dependencies;
+
+    @Setup
+    public void setup() throws JSQLParserException {
+        ddl = SyntheticSchemas.ddl(tableCount, columnCount);
+        dependencies = DBSchema.parseSchema(ddl).getTableDependencies();
+    }
+
+    @Benchmark
+    public DBSchema parseSchema() throws JSQLParserException {
+        return DBSchema.parseSchema(ddl);
+    }
+
+    @Benchmark
+    public List<Table> computeInsertionOrder() {
+        return DBSchema.computeInsertionOrder(dependencies);
+    }
+}
@@ -0,0 +1,55 @@
+package at.sfischer.synth.db.benchmark;
+
+import at.sfischer.synth.db.generation.values.InsertDataGeneration;
+import at.sfischer.synth.db.model.Column;
+import at.sfischer.synth.db.model.DBSchema;
+import at.sfischer.synth.db.model.Table;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks building the prompts of {@link InsertDataGeneration} from example values.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class InsertDataGenerationBenchmark {
+
+    @Param({"2", "10", "100"})
+    public int rowCount;
+
+    @Param({"4", "16"})
+    public int columnCount;
+
+    @Param({"1", "8"})
+    public int tableCount;
+
+    private Table table;
+
+    private List<Map<Column, Object>> exampleValues;
+
+    private Map<Table, List<Map<Column, Object>>> dependentTableValues;
+
+    @Setup
+    public void setup() {
+        DBSchema schema = SyntheticSchemas.schema(tableCount, columnCount);
+        table = schema.getTable("table_0");
+        exampleValues = SyntheticSchemas.rows(table, rowCount);
+        dependentTableValues = SyntheticSchemas.otherTableRows(schema, table, rowCount);
+    }
+
+    @Benchmark
+    public String generateTableValues() {
+        return InsertDataGeneration.generateTableValues(exampleValues);
+    }
+
+    @Benchmark
+    public String generateUserMessage() {
+        String values = InsertDataGeneration.generateTableValues(exampleValues);
+        String otherTableValues = InsertDataGeneration.generateDependentTableValues(dependentTableValues);
+        return InsertDataGeneration.generateUserMessage(table, rowCount, values, otherTableValues);
+    }
+}
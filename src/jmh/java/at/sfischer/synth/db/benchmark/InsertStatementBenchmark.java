@@ -0,0 +1,55 @@
+package at.sfischer.synth.db.benchmark;
+
+import at.sfischer.synth.db.model.InsertStatement;
+import at.sfischer.synth.db.model.Table;
+import net.sf.jsqlparser.JSQLParserException;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks parsing, merging and generation of {@link InsertStatement}s.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class InsertStatementBenchmark {
+
+    @Param({"1", "100", "1000"})
+    public int rowCount;
+
+    @Param({"4", "16"})
+    public int columnCount;
+
+    private Table table;
+
+    private List<InsertStatement> singleRowStatements;
+
+    private InsertStatement mergedStatement;
+
+    private String mergedSql;
+
+    @Setup
+    public void setup() {
+        table = SyntheticSchemas.schema(1, columnCount).getTable("table_0");
+        singleRowStatements = SyntheticSchemas.insertStatements(table, rowCount);
+        mergedStatement = InsertStatement.mergeStatements(singleRowStatements);
+        mergedSql = mergedStatement.generateInsertStatement();
+    }
+
+    @Benchmark
+    public InsertStatement parseInsertStatement() throws JSQLParserException {
+        return InsertStatement.parseInsertStatement(table, mergedSql);
+    }
+
+    @Benchmark
+    public String generateInsertStatement() {
+        return mergedStatement.generateInsertStatement();
+    }
+
+    @Benchmark
+    public InsertStatement mergeStatements() {
+        return InsertStatement.mergeStatements(singleRowStatements);
+    }
+}
@@ -0,0 +1,229 @@
+package at.sfischer.synth.db.benchmark;
+
+import at.sfischer.synth.db.generation.columns.ColumnGenerators;
+import at.sfischer.synth.db.generation.mock.InsertDataGenerationStub;
+import at.sfischer.synth.db.generation.mock.LatencyDistribution;
+import at.sfischer.synth.db.generation.mock.MockLlmServer;
+import at.sfischer.synth.db.generation.mock.MockLlmSettings;
+import at.sfischer.synth.db.generation.ollama.OllamaStructuredHelper;
+import at.sfischer.synth.db.generation.values.InsertDataGeneration;
+import at.sfischer.synth.db.generation.values.InsertDataGenerationOllama;
+import at.sfischer.synth.db.generation.values.TableFiller;
+import at.sfischer.synth.db.generation.values.TableFillerSettings;
+import at.sfischer.synth.db.generation.values.TableFillerStatistics;
+import at.sfischer.synth.db.model.Column;
+import at.sfischer.synth.db.model.DBSchema;
+import at.sfischer.synth.db.model.Table;
+import picocli.CommandLine;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+
+import java.lang.management.ManagementFactory;
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Macro benchmark running {@link TableFiller#fillSchema} end to end against an in-memory H2
+ * database, with a fake {@link InsertDataGeneration} of configurable latency instead of an LLM.
+ * <p>
+ * For every schema it reports the throughput in rows per second, the time spent per
+ * {@link TableFillerStatistics.Stage} and the heap allocated per inserted row. Comparing runs
+ * with and without latency shows how much of a run is overhead of SynthDB itself.
+ * </p>
+ */
+@Command(name = "pipelineBenchmark", mixinStandardHelpOptions = true)
+public class PipelineBenchmark implements Callable<Integer> {
+
+    private static final AtomicInteger DATABASE_COUNTER = new AtomicInteger();
+
+    /**
+     * The fake generators the benchmark can run with.
+     */
+    public enum Generator {
+        /** {@link InsertDataGenerationStub}, synthesizes rows in process. */
+        STUB,
+        /** {@link InsertDataGenerationOllama} against a {@link MockLlmServer}, includes HTTP and JSON overhead. */
+        MOCK_OLLAMA
+    }
+
+    @Option(names = "--schema", description = "Schema files to benchmark, default: the example schemas")
+    private List<Path> schemaFilePaths = new ArrayList<>(List.of(
+            Path.of("src/test/resources/examples/small-schema.sql"),
+            Path.of("src/test/resources/examples/large-schema.sql")
+    ));
+
+    @Option(names = "--synthetic", description = "Synthetic schemas to benchmark as <tables>x<columns>, default: ${DEFAULT-VALUE}", split = ",")
+    private List<String> syntheticSchemas = new ArrayList<>(List.of("10x8", "50x8"));
+
+    @Option(names = "--generator", description = "Fake generator. Options: ${COMPLETION-CANDIDATES}, default: ${DEFAULT-VALUE}")
+    private Generator generator = Generator.STUB;
+
+    @Option(names = "--target-row-number", description = "Target row number for all tables, default: ${DEFAULT-VALUE}")
+    private int targetRowNumber = 100;
+
+    @Option(names = "--latency-ms", description = "Latency of every generation request in milliseconds, default: ${DEFAULT-VALUE}")
+    private long latency = 0;
+
+    @Option(names = "--row-latency-ms", description = "Additional latency of every generated row in milliseconds, default: ${DEFAULT-VALUE}")
+    private long rowLatency = 0;
+
+    @Option(names = "--examples-per-table", description = "Number of example values for prompt context, default: ${DEFAULT-VALUE}")
+    private int examplesPerTable = 2;
+
+    @Option(names = "--batch-size", description = "Number of rows requested per call, default: ${DEFAULT-VALUE}")
+    private int batchSize = 10;
+
+    @Option(names = "--concurrency", description = "Number of concurrent requests per table, default: ${DEFAULT-VALUE}")
+    private int concurrency = 4;
+
+    @Option(names = "--table-parallelism", description = "Number of independent tables filled at the same time, default: ${DEFAULT-VALUE}")
+    private int tableParallelism = 1;
+
+    @Option(names = "--local-columns", description = "Generate values of non-semantic columns locally")
+    private boolean localColumns = false;
+
+    @Option(names = "--warmup-runs", description = "Number of unreported runs per schema, default: ${DEFAULT-VALUE}")
+    private int warmupRuns = 1;
+
+    @Option(names = "--runs", description = "Number of reported runs per schema, default: ${DEFAULT-VALUE}")
+    private int runs = 3;
+
+    public static void main(String[] args) {
+        int exitCode = new CommandLine(new PipelineBenchmark()).execute(args);
+        System.exit(exitCode);
+    }
+
+    @Override
+    public Integer call() throws Exception {
+        System.out.printf("%-24s %-4s %10s %10s %10s %10s %10s %10s %10s %10s %12s%n",
+                "Schema", "Run", "Rows", "Rows/s", "Prompt ms", "Gen ms", "Parse ms", "Insert ms", "Sample ms", "Count ms", "Bytes/row");
+        for (Path schemaFilePath : schemaFilePaths) {
+            DBSchema schema = DBSchema.parseSchema(Files.readString(schemaFilePath));
+            benchmark(schemaFilePath.getFileName().toString(), schema);
+        }
+        for (String syntheticSchema : syntheticSchemas) {
+            String[] size = syntheticSchema.split("x");
+            if(size.length != 2){
+                throw new CommandLine.ParameterException(new CommandLine(this), "Invalid synthetic schema: " + syntheticSchema);
+            }
+            benchmark("synthetic-" + syntheticSchema, SyntheticSchemas.schema(Integer.parseInt(size[0].trim()), Integer.parseInt(size[1].trim())));
+        }
+        return 0;
+    }
+
+    private void benchmark(String name, DBSchema schema) throws Exception {
+        MockLlmSettings mockSettings = new MockLlmSettings()
+                .setLatency(LatencyDistribution.constant(Duration.ofMillis(latency)))
+                .setRowLatency(LatencyDistribution.constant(Duration.ofMillis(rowLatency)));
+        TableFillerStatistics statistics = new TableFillerStatistics();
+        TableFillerSettings settings = new TableFillerSettings()
+                .setDependentExampleNumber(examplesPerTable)
+                .setBatchSize(batchSize)
+                .setConcurrency(concurrency)
+                .setTableParallelism(tableParallelism)
+                .setStatistics(statistics);
+        if(localColumns){
+            settings.setColumnGenerators(ColumnGenerators.load());
+        }
+
+        for (int run = -warmupRuns; run < runs; run++) {
+            statistics.reset();
+            long allocatedBefore = allocatedBytes();
+            long start = System.nanoTime();
+            fill(schema, mockSettings, settings);
+            long elapsed = System.nanoTime() - start;
+            long allocated = allocatedBytes() - allocatedBefore;
+            if(run < 0){
+                continue;
+            }
+
+            long rows = statistics.getRows();
+            System.out.printf("%-24s %-4d %10d %10.0f %10.1f %10.1f %10.1f %10.1f %10.1f %10.1f %12d%n",
+                    name,
+                    run + 1,
+                    rows,
+                    rows / (elapsed / 1e9),
+                    millis(statistics, TableFillerStatistics.Stage.PROMPT),
+                    millis(statistics, TableFillerStatistics.Stage.GENERATION),
+                    millis(statistics, TableFillerStatistics.Stage.PARSE),
+                    millis(statistics, TableFillerStatistics.Stage.INSERT),
+                    millis(statistics, TableFillerStatistics.Stage.SAMPLING),
+                    millis(statistics, TableFillerStatistics.Stage.COUNT),
+                    rows == 0 ? 0 : allocated / rows
+            );
+        }
+    }
+
+    private void fill(DBSchema schema, MockLlmSettings mockSettings, TableFillerSettings settings) throws Exception {
+        String url = "jdbc:h2:mem:pipeline" + DATABASE_COUNTER.incrementAndGet() + ";MODE=MySQL";
+        try (Connection connection = DriverManager.getConnection(url)) {
+            TableFiller.createSchema(schema, connection);
+            if(generator == Generator.MOCK_OLLAMA){
+                try (MockLlmServer server = new MockLlmServer(schema, mockSettings)) {
+                    OllamaStructuredHelper helper = new OllamaStructuredHelper(null, Duration.ofSeconds(30), HttpClient.Version.HTTP_1_1);
+                    InsertDataGeneration generation = new InsertDataGenerationOllama(server.getOllamaUrl(), "mock", helper, false);
+                    TableFiller.fillSchema(schema, connection, generation, targetRowNumber, settings, null);
+                }
+            } else {
+                InsertDataGeneration generation = new PromptBuildingGeneration(new InsertDataGenerationStub(mockSettings), settings.getStatistics());
+                TableFiller.fillSchema(schema, connection, generation, targetRowNumber, settings, null);
+            }
+        }
+    }
+
+    private static double millis(TableFillerStatistics statistics, TableFillerStatistics.Stage stage) {
+        return statistics.getNanos(stage) / 1e6;
+    }
+
+    private static long allocatedBytes() {
+        if(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threadMXBean){
+            return threadMXBean.getTotalThreadAllocatedBytes();
+        }
+        return 0;
+    }
+
+    /**
+     * Builds the prompts an LLM based implementation would send before delegating, so that
+     * the in-process stub also accounts for {@link TableFillerStatistics.Stage#PROMPT}.
+     */
+    private record PromptBuildingGeneration(InsertDataGeneration delegate, TableFillerStatistics statistics) implements InsertDataGeneration {
+
+        @Override
+        public String generateInsertStatement(Table table, long rowCount, List<Map<Column, Object>> exampleValues, Map<Table, List<Map<Column, Object>>> dependentTableValues) {
+            buildPrompt(table, rowCount, 1, exampleValues, dependentTableValues);
+            return delegate.generateInsertStatement(table, rowCount, exampleValues, dependentTableValues);
+        }
+
+        @Override
+        public List<String> generateRows(Table table, long rowCount, int batchSize, List<Map<Column, Object>> exampleValues, Map<Table, List<Map<Column, Object>>> dependentTableValues) {
+            buildPrompt(table, rowCount, batchSize, exampleValues, dependentTableValues);
+            return delegate.generateRows(table, rowCount, batchSize, exampleValues, dependentTableValues);
+        }
+
+        @Override
+        public CompletableFuture<Void> streamRows(Table table, long rowCount, int batchSize, List<Map<Column, Object>> exampleValues, Map<Table, List<Map<Column, Object>>> dependentTableValues, Executor executor, Consumer<String> rowConsumer) {
+            buildPrompt(table, rowCount, batchSize, exampleValues, dependentTableValues);
+            return delegate.streamRows(table, rowCount, batchSize, exampleValues, dependentTableValues, executor, rowConsumer);
+        }
+
+        private void buildPrompt(Table table, long rowCount, int batchSize, List<Map<Column, Object>> exampleValues, Map<Table, List<Map<Column, Object>>> dependentTableValues) {
+            long start = System.nanoTime();
+            String values = InsertDataGeneration.generateTableValues(exampleValues);
+            String otherTableValues = InsertDataGeneration.generateDependentTableValues(dependentTableValues);
+            InsertDataGeneration.generateUserMessage(table, rowCount, batchSize, values, otherTableValues);
+            statistics.record(TableFillerStatistics.Stage.PROMPT, start);
+        }
+    }
+}
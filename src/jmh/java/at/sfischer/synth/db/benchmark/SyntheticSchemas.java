@@ -0,0 +1,128 @@
+package at.sfischer.synth.db.benchmark;
+
+import at.sfischer.synth.db.generation.mock.MockLlmSettings;
+import at.sfischer.synth.db.generation.mock.MockRowSynthesizer;
+import at.sfischer.synth.db.model.Column;
+import at.sfischer.synth.db.model.DBSchema;
+import at.sfischer.synth.db.model.InsertStatement;
+import at.sfischer.synth.db.model.Table;
+import net.sf.jsqlparser.JSQLParserException;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Creates synthetic schemas and rows of configurable size as benchmark inputs.
+ */
+public final class SyntheticSchemas {
+
+    private static final String[] COLUMN_TYPES = {"VARCHAR(50)", "INT", "DATE", "DECIMAL(10, 2)"};
+
+    private SyntheticSchemas() {
+    }
+
+    /**
+     * Creates the DDL of a schema with {@code tableCount} tables named {@code table_0} to
+     * {@code table_<n>}. Every table has an {@code id} primary key and {@code columnCount}
+     * value columns of different types. Every table except the first references a previous
+     * table, so that the tables form a tree of foreign key dependencies.
+     *
+     * @param tableCount the number of tables
+     * @param columnCount the number of value columns per table
+     * @return the CREATE TABLE statements
+     */
+    public static String ddl(int tableCount, int columnCount) {
+        StringBuilder ddl = new StringBuilder();
+        for (int i = 0; i < tableCount; i++) {
+            ddl.append("CREATE TABLE table_").append(i).append(" (\n");
+            ddl.append("    id INT PRIMARY KEY");
+            for (int j = 0; j < columnCount; j++) {
+                ddl.append(",\n    column_").append(j).append(' ').append(COLUMN_TYPES[j % COLUMN_TYPES.length]);
+            }
+            if(i > 0){
+                ddl.append(",\n    parent_id INT REFERENCES table_").append((i - 1) / 2).append("(id)");
+            }
+            ddl.append("\n);\n");
+        }
+        return ddl.toString();
+    }
+
+    /**
+     * Parses the schema created by {@link #ddl(int, int)}.
+     *
+     * @param tableCount the number of tables
+     * @param columnCount the number of value columns per table
+     * @return the parsed schema
+     */
+    public static DBSchema schema(int tableCount, int columnCount) {
+        try {
+            return DBSchema.parseSchema(ddl(tableCount, columnCount));
+        } catch (JSQLParserException e) {
+            throw new IllegalStateException("Invalid synthetic schema.", e);
+        }
+    }
+
+    /**
+     * Synthesizes {@code rowCount} single row INSERT statements for the given table.
+     * Foreign key columns reference the row with id 1.
+     *
+     * @param table the table to create rows for
+     * @param rowCount the number of rows
+     * @return the parsed single row INSERT statements
+     */
+    public static List<InsertStatement> insertStatements(Table table, int rowCount) {
+        Map<Table, List<Map<Column, Object>>> referencedRows = new LinkedHashMap<>();
+        for (Column column : table.getColumns()) {
+            Column reference = column.getReference();
+            if(reference != null){
+                referencedRows.computeIfAbsent(reference.getTable(), _ -> new ArrayList<>()).add(Map.of(reference, 1L));
+            }
+        }
+
+        MockRowSynthesizer synthesizer = new MockRowSynthesizer(new MockLlmSettings());
+        List<InsertStatement> statements = new ArrayList<>(rowCount);
+        for (String row : synthesizer.synthesize(table, 0, rowCount, referencedRows)) {
+            try {
+                statements.add(InsertStatement.parseInsertStatement(table, row));
+            } catch (JSQLParserException e) {
+                throw new IllegalStateException("Invalid synthetic row.", e);
+            }
+        }
+        return statements;
+    }
+
+    /**
+     * Synthesizes {@code rowCount} rows for the given table.
+     *
+     * @param table the table to create rows for
+     * @param rowCount the number of rows
+     * @return the rows as column value maps
+     */
+    public static List<Map<Column, Object>> rows(Table table, int rowCount) {
+        List<Map<Column, Object>> rows = new ArrayList<>(rowCount);
+        for (InsertStatement statement : insertStatements(table, rowCount)) {
+            rows.addAll(statement.getRows());
+        }
+        return rows;
+    }
+
+    /**
+     * Synthesizes {@code rowCount} rows for every table of the given schema except {@code table}.
+     *
+     * @param schema the schema
+     * @param table the table to exclude
+     * @param rowCount the number of rows per table
+     * @return the rows per table
+     */
+    public static Map<Table, List<Map<Column, Object>>> otherTableRows(DBSchema schema, Table table, int rowCount) {
+        Map<Table, List<Map<Column, Object>>> rows = new LinkedHashMap<>();
+        for (Table other : schema.getTables()) {
+            if(other != table){
+                rows.put(other, rows(other, rowCount));
+            }
+        }
+        return rows;
+    }
+}
@@ -1,32 +1,43 @@
 package at.sfischer.synth.db;
 
+import at.sfischer.synth.db.generation.cache.CachingInsertDataGeneration;
+import at.sfischer.synth.db.generation.cache.ResponseCache;
+import at.sfischer.synth.db.generation.columns.ColumnGenerators;
+import at.sfischer.synth.db.generation.ollama.OllamaStructuredHelper;
+import at.sfischer.synth.db.generation.profile.SchemaProfile;
 import at.sfischer.synth.db.generation.values.*;
 import at.sfischer.synth.db.model.DBSchema;
 import at.sfischer.synth.db.model.InsertStatement;
 import at.sfischer.synth.db.model.Table;
+import at.sfischer.synth.db.output.*;
 import ch.qos.logback.classic.Level;
 import ch.qos.logback.classic.Logger;
 import org.slf4j.LoggerFactory;
 import picocli.CommandLine;
 import picocli.CommandLine.Option;
 
-import java.io.FileReader;
-import java.io.PrintStream;
-import java.io.Reader;
+import java.io.*;
+import java.net.http.HttpClient;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.time.Duration;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
 import java.util.concurrent.Callable;
-import java.util.stream.Collectors;
 
 public class Main implements Callable<Integer> {
 
     private static final String OPENAI_API_KEY = "OPENAI_API_KEY";
 
+    private static final String SEED_ROWS_SUFFIX = ".seed-rows";
+
+    private static final String AMPLIFICATION_SUFFIX = ".amplification";
+
     @Option(
             names = "--provider",
             description = "LLM provider to use. Options: ${COMPLETION-CANDIDATES}, default: ${DEFAULT-VALUE} (For OPENAI you will need to set environment variable: " + OPENAI_API_KEY + ")"
@@ -45,18 +56,108 @@ public class Main implements Callable<Integer> {
     )
     private String model;
 
+    @Option(names = "--request-timeout", description = "Optional timeout in seconds for a single row requested from Ollama, default: ${DEFAULT-VALUE}")
+    private Integer requestTimeout = 5;
+
+    @Option(names = "--connect-timeout", description = "Optional timeout in seconds for connecting to Ollama, default: no timeout")
+    private Integer connectTimeout;
+
+    @Option(names = "--http-version", description = "HTTP version used for Ollama requests. Options: ${COMPLETION-CANDIDATES}, default: ${DEFAULT-VALUE}")
+    private HttpClient.Version httpVersion = HttpClient.Version.HTTP_2;
+
+    @Option(names = "--stream", description = "Stream Ollama responses and insert rows as soon as they are complete")
+    private boolean stream = false;
+
+    @Option(names = "--cache-dir", description = "Optional directory of a persistent cache for LLM responses, repeated runs with identical prompts replay cached responses")
+    private Path cacheDirectory;
+
+    @Option(names = "--cache-max-size", description = "Optional maximum size of the LLM response cache in MB, default: ${DEFAULT-VALUE}")
+    private Integer cacheMaxSize = 256;
+
     @Option(names = "--examples-per-table", description = "Optional number of value for prompt context, default: ${DEFAULT-VALUE}")
     private Integer examplesPerTable = 2;
 
+    @Option(names = "--example-sample-size", description = "Optional number of rows per table kept in memory to draw examples from, default: ${DEFAULT-VALUE}")
+    private Integer exampleSampleSize = 100;
+
+    @Option(names = "--example-refresh-interval", description = "Optional number of inserted rows after which the examples of a table are sampled from the database again (0 never refreshes), default: ${DEFAULT-VALUE}")
+    private Integer exampleRefreshInterval = 0;
+
+    @Option(names = "--batch-size", description = "Optional number of rows requested from the LLM per call, default: ${DEFAULT-VALUE}")
+    private Integer batchSize = 1;
+
+    @Option(names = "--concurrency", description = "Optional number of concurrent LLM requests per table, default: ${DEFAULT-VALUE}")
+    private Integer concurrency = 1;
+
+    @Option(names = "--table-parallelism", description = "Optional number of independent tables filled at the same time, default: ${DEFAULT-VALUE}")
+    private Integer tableParallelism = 1;
+
+    @Option(names = "--pipeline-threshold", description = "Optional number of rows referenced tables need before dependent tables are started (0 waits until referenced tables are complete, requires --table-parallelism > 1), default: ${DEFAULT-VALUE}")
+    private Integer pipelineThreshold = 0;
+
+    @Option(names = "--local-columns", description = "Generate values of non-semantic columns (keys, numbers, dates, timestamps, booleans, UUIDs, enums) locally and only prompt the LLM for the remaining columns")
+    private boolean localColumns = false;
+
+    @Option(names = "--local-foreign-keys", description = "Fill foreign key columns locally with keys drawn from an in-memory index of the referenced tables, the LLM neither generates them nor is shown example rows of the referenced tables")
+    private boolean localForeignKeys = false;
+
+    @Option(names = "--unique-key-guard", description = "Check generated rows for duplicate primary keys and unique values in memory and drop duplicates before they are inserted")
+    private boolean uniqueKeyGuard = false;
+
+    @Option(names = "--repair-unique-keys", description = "Replace duplicate integer primary key and unique values with the next unused value instead of dropping the row, requires --unique-key-guard")
+    private boolean repairUniqueKeys = false;
+
+    @Option(names = "--compile-column-specs", description = "Ask the LLM once per table for a generator spec per column (pattern, value list, range, date range, template) and generate columns with a valid spec locally, only free text columns are generated by the LLM row by row")
+    private boolean compileColumnSpecs = false;
+
+    @Option(names = "--text-model-after", description = "Optional number of LLM generated rows per table after which free-text columns are generated by local n-gram models trained on them (0 always uses the LLM), default: ${DEFAULT-VALUE}")
+    private Integer textModelAfter = 0;
+
+    @Option(names = "--seed-rows", description = "Optional number of rows per table generated by the LLM, the remaining rows are synthesized locally from them (0 generates all rows with the LLM), default: ${DEFAULT-VALUE}")
+    private Integer seedRows = 0;
+
+    @Option(names = "--profile-output", description = "Optional file path the profile of the example data is written to as JSON (null ratios, distinct counts, min/max, top values, histograms, foreign key fan-outs), requires --example-data-file")
+    private Path profileOutputPath;
+
+    @Option(names = "--generate-from-profile", description = "Synthesize all rows of tables with example data locally from the profile of the example data, without the LLM, requires --example-data-file")
+    private boolean generateFromProfile = false;
+
     @Option(names = "--schema", description = "Path to schema file in from of SQL CREATE TABLE statements", required = true)
     private Path schemaFilePath;
 
     @Option(names = "--example-data-file", description = "Optional example data file path of insert statements. Example data can help generating better further data.")
     private Path exampleDataFilePath;
 
-    @Option(names = "--target", description = "Optional target file path for outputs")
+    @Option(names = "--target", description = "Optional target file path for outputs, target directory for formats CSV and LOADDATA")
     private Path targetFilePath;
 
+    @Option(names = "--format", description = "Output format. Options: ${COMPLETION-CANDIDATES}, default: ${DEFAULT-VALUE} (COPY requires --database PostgreSQL, LOADDATA requires --database MySQL)")
+    private OutputFormat format = OutputFormat.INSERT;
+
+    @Option(names = "--chunk-rows", description = "Optional maximum number of rows per INSERT statement or COPY block written to the output, default: ${DEFAULT-VALUE}")
+    private Integer chunkRows = 1000;
+
+    @Option(names = "--chunk-bytes", description = "Optional maximum size in bytes of an INSERT statement or COPY block written to the output, e.g. to respect max_allowed_packet of MySQL, default: ${DEFAULT-VALUE}")
+    private Long chunkBytes = 1024L * 1024L;
+
+    @Option(names = "--target-jdbc-url", description = "Optional JDBC URL of a target database the generated rows are written to directly, the JDBC driver must be on the class path. Rows are also written to --target if set")
+    private String targetJdbcUrl;
+
+    @Option(names = "--target-jdbc-batch-size", description = "Optional number of rows per JDBC batch written to the target database, default: ${DEFAULT-VALUE}")
+    private Integer targetJdbcBatchSize = 1000;
+
+    @Option(names = "--target-jdbc-commit-size", description = "Optional number of rows per transaction in the target database, default: ${DEFAULT-VALUE}")
+    private Integer targetJdbcCommitSize = 10000;
+
+    @Option(names = "--target-jdbc-connections", description = "Optional maximum number of connections to the target database, tables are written in parallel over separate connections, default: ${DEFAULT-VALUE}")
+    private Integer targetJdbcConnections = 4;
+
+    @Option(names = "--target-jdbc-create-schema", description = "Create the tables of the schema in the target database before writing rows")
+    private boolean targetJdbcCreateSchema = false;
+
+    @Option(names = "--defer-foreign-keys", description = "Disable foreign key checks while writing to the target database (MySQL, MariaDB, PostgreSQL and H2), instead of writing referenced rows first")
+    private boolean deferForeignKeys = false;
+
     @Option(names = "--database", description = "Database type: ${COMPLETION-CANDIDATES}",
             defaultValue = "MySQL")
     private DatabaseType databaseType = DatabaseType.MySQL;
@@ -72,6 +173,8 @@ public class Main implements Callable<Integer> {
 
     private Map<String, Integer> tableTargetRowNumbers = null;
 
+    private final Map<String, Integer> tableSeedRows = new HashMap<>();
+
     public enum LlmProvider {
         OLLAMA,
         OPENAI
@@ -100,16 +203,50 @@ public class Main implements Callable<Integer> {
             }
         }
 
+        if ((format == OutputFormat.CSV || format == OutputFormat.LOADDATA) && targetFilePath == null) {
+            throw new IllegalStateException("Output format " + format + " requires a target directory, please set --target");
+        }
+        if (pipelineThreshold != null && pipelineThreshold > 0 && (tableParallelism == null || tableParallelism <= 1)) {
+            throw new IllegalStateException("A pipeline threshold requires --table-parallelism larger than 1");
+        }
+        if (repairUniqueKeys && !uniqueKeyGuard) {
+            throw new IllegalStateException("Repairing unique keys requires --unique-key-guard");
+        }
+        if ((profileOutputPath != null || generateFromProfile) && exampleDataFilePath == null) {
+            throw new IllegalStateException("Profiling requires example data, please set --example-data-file");
+        }
+        if (format == OutputFormat.COPY && databaseType != DatabaseType.PostgreSQL) {
+            throw new IllegalStateException("Output format COPY requires --database " + DatabaseType.PostgreSQL);
+        }
+        if (format == OutputFormat.LOADDATA && databaseType != DatabaseType.MySQL) {
+            throw new IllegalStateException("Output format LOADDATA requires --database " + DatabaseType.MySQL);
+        }
+
         if (targetRowNumbersFilePath != null) {
             Properties props = new Properties();
             try (Reader reader = Files.newBufferedReader(targetRowNumbersFilePath)) {
                 props.load(reader);
             }
-            tableTargetRowNumbers = props.entrySet().stream()
-                    .collect(Collectors.toMap(
-                            e -> e.getKey().toString(),
-                            e -> Integer.parseInt(e.getValue().toString())
-                    ));
+            tableTargetRowNumbers = new HashMap<>();
+            Map<String, Integer> amplifications = new HashMap<>();
+            for (String key : props.stringPropertyNames()) {
+                int value = Integer.parseInt(props.getProperty(key).trim());
+                if (key.endsWith(SEED_ROWS_SUFFIX)) {
+                    tableSeedRows.put(key.substring(0, key.length() - SEED_ROWS_SUFFIX.length()), value);
+                } else if (key.endsWith(AMPLIFICATION_SUFFIX)) {
+                    amplifications.put(key.substring(0, key.length() - AMPLIFICATION_SUFFIX.length()), value);
+                } else {
+                    tableTargetRowNumbers.put(key, value);
+                }
+            }
+            // Without an explicit target, a table gets its seed rows times its amplification ratio.
+            for (Map.Entry<String, Integer> amplification : amplifications.entrySet()) {
+                int tableSeeds = tableSeedRows.getOrDefault(amplification.getKey(), seedRows);
+                if (tableSeeds <= 0) {
+                    throw new IllegalStateException("Amplification of table " + amplification.getKey() + " requires seed rows, please set --seed-rows or " + amplification.getKey() + SEED_ROWS_SUFFIX);
+                }
+                tableTargetRowNumbers.putIfAbsent(amplification.getKey(), Math.multiplyExact(tableSeeds, amplification.getValue()));
+            }
         }
 
         fillTables();
@@ -118,12 +255,15 @@ public class Main implements Callable<Integer> {
     }
 
     public static void main(String[] args){
-        int exitCode = new CommandLine(new Main()).execute(args);
+        int exitCode = new CommandLine(new Main())
+                .setCaseInsensitiveEnumValuesAllowed(true)
+                .execute(args);
         System.exit(exitCode);
     }
 
     public void fillTables() throws Exception {
-        try (Connection conn = DriverManager.getConnection("jdbc:h2:mem:test;MODE=" + this.databaseType.name())) {
+        String stagingUrl = "jdbc:h2:mem:test;MODE=" + this.databaseType.name();
+        try (Connection conn = DriverManager.getConnection(stagingUrl)) {
             // 1. Set up schema in in-memory database.
             FileReader reader = new FileReader(String.valueOf(this.schemaFilePath));
             DBSchema schema = DBSchema.parseSchema(reader);
@@ -131,11 +271,18 @@ public class Main implements Callable<Integer> {
             TableFiller.createSchema(schema, conn);
 
             // 2. Fill tables with example data if given.
+            SchemaProfile profile = null;
             if (this.exampleDataFilePath != null) {
                 reader = new FileReader(String.valueOf(this.exampleDataFilePath));
                 List<InsertStatement> exampleDataStatements = InsertStatement.parseInsertStatements(schema, reader);
                 reader.close();
                 TableFiller.insertData(schema, exampleDataStatements, conn);
+                if (this.profileOutputPath != null || this.generateFromProfile) {
+                    profile = SchemaProfile.profile(schema, conn);
+                }
+                if (this.profileOutputPath != null) {
+                    Files.writeString(this.profileOutputPath, profile.toJson());
+                }
             }
 
             // 3. Generate insert statements.
@@ -147,14 +294,31 @@ public class Main implements Callable<Integer> {
                 }
                 insertDataGeneration = new InsertDataGenerationOpenAI(this.url, apiKey, this.model);
             } else {
-                insertDataGeneration = new InsertDataGenerationOllama(this.url, this.model);
+                OllamaStructuredHelper helper = new OllamaStructuredHelper(
+                        this.connectTimeout == null ? null : Duration.ofSeconds(this.connectTimeout),
+                        Duration.ofSeconds(this.requestTimeout),
+                        this.httpVersion
+                );
+                insertDataGeneration = new InsertDataGenerationOllama(this.url, this.model, helper, this.stream);
+            }
+            ResponseCache cache = null;
+            if(this.cacheDirectory != null){
+                cache = ResponseCache.open(this.cacheDirectory, this.cacheMaxSize * 1024L * 1024L);
+                insertDataGeneration = new CachingInsertDataGeneration(insertDataGeneration, cache);
+            }
+
+            // 4. Write generated rows to the output while tables are filled.
+            PrintStream progress = this.targetFilePath != null || this.targetJdbcUrl != null ? System.out : System.err;
+            if(this.targetJdbcUrl != null && this.targetJdbcCreateSchema){
+                try (Connection target = DriverManager.getConnection(this.targetJdbcUrl)) {
+                    TableFiller.createSchema(schema, target);
+                }
             }
-            Map<Table, List<InsertStatement>> insertStatements;
 
             TableFillerProgressListener listener = new TableFillerProgressListener() {
                 @Override
                 public void onProgress(Table table, long rowsGenerated, long totalRows, long tablesCompleted, long totalTables) {
-                    System.out.printf(
+                    progress.printf(
                             "\r%d/%d rows generated | Table progress: %d/%d | Current Table %-20s",
                             rowsGenerated,
                             totalRows,
@@ -162,51 +326,85 @@ public class Main implements Callable<Integer> {
                             totalTables,
                             table.getName()
                     );
-                    System.out.flush();
+                    progress.flush();
                 }
             };
-            if(tableTargetRowNumbers != null){
-                insertStatements = TableFiller.fillSchema(schema, conn, insertDataGeneration, tableTargetRowNumbers, examplesPerTable, listener);
-            } else {
-                insertStatements = TableFiller.fillSchema(schema, conn, insertDataGeneration, targetRowNumber, examplesPerTable, listener);
+            try (OutputSink outputSink = createOutputSink(schema)) {
+                TableFillerSettings settings = new TableFillerSettings()
+                        .setDependentExampleNumber(examplesPerTable)
+                        .setExampleSampleSize(exampleSampleSize)
+                        .setExampleRefreshInterval(exampleRefreshInterval)
+                        .setBatchSize(batchSize)
+                        .setConcurrency(concurrency)
+                        .setTableParallelism(tableParallelism)
+                        .setPipelineThreshold(pipelineThreshold)
+                        .setConnectionSupplier(() -> DriverManager.getConnection(stagingUrl))
+                        .setOutputSink(outputSink)
+                        .setColumnGenerators(localColumns ? ColumnGenerators.load() : null)
+                        .setLocalForeignKeys(localForeignKeys)
+                        .setUniqueKeyGuard(uniqueKeyGuard)
+                        .setRepairUniqueKeys(repairUniqueKeys)
+                        .setCompileColumnSpecs(compileColumnSpecs)
+                        .setTextModelThreshold(textModelAfter)
+                        .setSeedRows(seedRows)
+                        .setSeedRows(tableSeedRows)
+                        .setSchemaProfile(generateFromProfile ? profile : null);
+                if(tableTargetRowNumbers != null){
+                    TableFiller.fillSchema(schema, conn, insertDataGeneration, tableTargetRowNumbers, settings, listener);
+                } else {
+                    TableFiller.fillSchema(schema, conn, insertDataGeneration, targetRowNumber, settings, listener);
+                }
+            } finally {
+                if(cache != null){
+                    cache.close();
+                }
             }
 
-            // 4. Print results.
-            System.out.println("\n----------------------\n");
-            PrintStream out;
+            progress.println();
             if(this.targetFilePath != null){
-                out = new PrintStream(String.valueOf(this.targetFilePath));
-            } else {
-                out = System.out;
+                System.out.println("Data stored in: " + this.targetFilePath);
+            }
+            if(this.targetJdbcUrl != null){
+                System.out.println("Data written to: " + this.targetJdbcUrl);
             }
+        }
+    }
 
-            insertStatements.forEach((table, inserts) -> {
-                if(inserts == null || inserts.isEmpty()){
-                    return;
-                }
+    private OutputSink createOutputSink(DBSchema schema) throws IOException {
+        if(this.targetJdbcUrl == null){
+            return createFileOutputSink(schema);
+        }
 
-                try {
-                    InsertStatement merged = InsertStatement.mergeStatements(inserts);
-
-                    out.println("-- ==========================");
-                    out.println("-- Table data: " + table.getName());
-                    out.println("-- ==========================");
-                    out.println(merged.generateInsertStatement());
-                    out.println();
-                } catch (IllegalArgumentException e) {
-                    out.println("-- ==========================");
-                    out.println("-- Table data: " + table.getName());
-                    out.println("-- ==========================");
-                    inserts.forEach(insert -> out.println(insert.generateInsertStatement()));
-                    out.println();
-                }
-            });
+        OutputSink jdbcSink = new JdbcOutputSink(this.targetJdbcUrl, schema.getTableDependencies(),
+                targetJdbcBatchSize, targetJdbcCommitSize, deferForeignKeys, targetJdbcConnections);
+        if(this.targetFilePath == null){
+            return jdbcSink;
+        }
+        return new TeeOutputSink(List.of(createFileOutputSink(schema), jdbcSink));
+    }
 
-            out.flush();
-            if(this.targetFilePath != null){
-                System.out.println("Data stored in: " + this.targetFilePath);
-            }
+    private OutputSink createFileOutputSink(DBSchema schema) throws IOException {
+        Map<Table, Set<Table>> tableDependencies = schema.getTableDependencies();
+        return switch (this.format) {
+            case INSERT -> new InsertOutputSink(createOutputWriter(), tableDependencies, chunkRows, chunkBytes);
+            case COPY -> new CopyOutputSink(createOutputWriter(), tableDependencies, chunkRows, chunkBytes);
+            case CSV -> new CsvOutputSink(this.targetFilePath, this.databaseType, tableDependencies, chunkRows, chunkBytes);
+            case LOADDATA -> new LoadDataOutputSink(this.targetFilePath, tableDependencies, chunkRows, chunkBytes);
+        };
+    }
+
+    private Writer createOutputWriter() throws IOException {
+        if(this.targetFilePath != null){
+            return Files.newBufferedWriter(this.targetFilePath);
         }
+
+        // Do not close STDOUT together with the output sink.
+        return new BufferedWriter(new OutputStreamWriter(new FilterOutputStream(System.out) {
+            @Override
+            public void close() throws IOException {
+                flush();
+            }
+        }));
     }
 
 }
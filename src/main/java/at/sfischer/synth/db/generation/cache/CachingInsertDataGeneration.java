@@ -0,0 +1,188 @@
+package at.sfischer.synth.db.generation.cache;
+
+import at.sfischer.synth.db.generation.values.InsertDataGeneration;
+import at.sfischer.synth.db.model.Column;
+import at.sfischer.synth.db.model.Table;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Decorator for an {@link InsertDataGeneration} that stores generated rows in a {@link ResponseCache}.
+ * <p>
+ * Requests are identified by {@link InsertDataGeneration#describeRequest}, which covers model,
+ * system prompt, user message and output format. Since identical requests are expected to
+ * return different rows, the key also contains how often the same request was already issued
+ * by this instance. A repeated run with identical prompts therefore replays the rows of the
+ * previous run in the same order, and only requests that were not seen before reach the LLM.
+ * Empty responses, e.g. from failed requests, are not cached.
+ * </p>
+ */
+public class CachingInsertDataGeneration implements InsertDataGeneration {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CachingInsertDataGeneration.class);
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    private static final TypeReference<List<String>> ROWS_TYPE = new TypeReference<>() {
+    };
+
+    private static final String COLUMN_SPEC_KEY = "column-specs";
+
+    private final InsertDataGeneration delegate;
+
+    private final ResponseCache cache;
+
+    private final Map<String, AtomicInteger> occurrences = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs a new caching decorator.
+     *
+     * @param delegate the {@link InsertDataGeneration} generating rows that are not cached
+     * @param cache the cache storing generated rows
+     */
+    public CachingInsertDataGeneration(InsertDataGeneration delegate, ResponseCache cache) {
+        this.delegate = delegate;
+        this.cache = cache;
+    }
+
+    @Override
+    public String generateInsertStatement(Table table, long rowCount, List<Map<Column, Object>> exampleValues, Map<Table, List<Map<Column, Object>>> dependentTableValues) {
+        List<String> rows = generateRows(table, rowCount, 1, exampleValues, dependentTableValues);
+        return rows.isEmpty() ? "" : rows.getFirst();
+    }
+
+    @Override
+    public List<String> generateRows(Table table, long rowCount, int batchSize, List<Map<Column, Object>> exampleValues, Map<Table, List<Map<Column, Object>>> dependentTableValues) {
+        String key = cacheKey(table, rowCount, batchSize, exampleValues, dependentTableValues);
+        List<String> cached = read(key);
+        if(cached != null){
+            return cached;
+        }
+
+        List<String> rows = delegate.generateRows(table, rowCount, batchSize, exampleValues, dependentTableValues);
+        write(key, rows);
+        return rows;
+    }
+
+    @Override
+    public CompletableFuture<List<String>> generateRowsAsync(Table table, long rowCount, int batchSize, List<Map<Column, Object>> exampleValues, Map<Table, List<Map<Column, Object>>> dependentTableValues, Executor executor) {
+        String key = cacheKey(table, rowCount, batchSize, exampleValues, dependentTableValues);
+        List<String> cached = read(key);
+        if(cached != null){
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        return delegate.generateRowsAsync(table, rowCount, batchSize, exampleValues, dependentTableValues, executor)
+                .thenApply(rows -> {
+                    write(key, rows);
+                    return rows;
+                });
+    }
+
+    @Override
+    public CompletableFuture<Void> streamRows(Table table, long rowCount, int batchSize, List<Map<Column, Object>> exampleValues, Map<Table, List<Map<Column, Object>>> dependentTableValues, Executor executor, Consumer<String> rowConsumer) {
+        String key = cacheKey(table, rowCount, batchSize, exampleValues, dependentTableValues);
+        List<String> cached = read(key);
+        if(cached != null){
+            cached.forEach(rowConsumer);
+            return CompletableFuture.completedFuture(null);
+        }
+
+        List<String> rows = Collections.synchronizedList(new ArrayList<>());
+        return delegate.streamRows(table, rowCount, batchSize, exampleValues, dependentTableValues, executor, row -> {
+                    rows.add(row);
+                    rowConsumer.accept(row);
+                })
+                .thenRun(() -> write(key, rows));
+    }
+
+    /**
+     * Compiles the column specs with the delegate, or returns the specs cached for the same table,
+     * example values and model.
+     */
+    @Override
+    public String compileColumnSpecs(Table table, List<Map<Column, Object>> exampleValues) {
+        String request = delegate.describeRequest(table, 0, 1, exampleValues, null);
+        if(request == null){
+            return delegate.compileColumnSpecs(table, exampleValues);
+        }
+
+        // The row request identifies model and table, the spec message the rest of the request.
+        String key = String.join("\u0000", COLUMN_SPEC_KEY, request,
+                InsertDataGeneration.generateColumnSpecMessage(table, InsertDataGeneration.generateTableValues(exampleValues)));
+        try {
+            String cached = cache.get(key);
+            if(cached != null){
+                return cached;
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Reading cached response failed.", e);
+        }
+
+        String specs = delegate.compileColumnSpecs(table, exampleValues);
+        if(specs != null){
+            try {
+                cache.put(key, specs);
+            } catch (IOException e) {
+                LOGGER.warn("Caching response failed.", e);
+            }
+        }
+        return specs;
+    }
+
+    @Override
+    public String describeRequest(Table table, long rowCount, int batchSize, List<Map<Column, Object>> exampleValues, Map<Table, List<Map<Column, Object>>> dependentTableValues) {
+        return delegate.describeRequest(table, rowCount, batchSize, exampleValues, dependentTableValues);
+    }
+
+    private String cacheKey(Table table, long rowCount, int batchSize, List<Map<Column, Object>> exampleValues, Map<Table, List<Map<Column, Object>>> dependentTableValues) {
+        String request = delegate.describeRequest(table, rowCount, batchSize, exampleValues, dependentTableValues);
+        if(request == null){
+            return null;
+        }
+
+        int occurrence = occurrences.computeIfAbsent(request, _ -> new AtomicInteger()).getAndIncrement();
+        return request + "\u0000" + occurrence;
+    }
+
+    private List<String> read(String key) {
+        if(key == null){
+            return null;
+        }
+
+        try {
+            String value = cache.get(key);
+            return value == null ? null : mapper.readValue(value, ROWS_TYPE);
+        } catch (IOException e) {
+            LOGGER.warn("Reading cached response failed.", e);
+            return null;
+        }
+    }
+
+    private void write(String key, List<String> rows) {
+        if(key == null || rows.isEmpty()){
+            return;
+        }
+
+        try {
+            synchronized (rows) {
+                cache.put(key, mapper.writeValueAsString(rows));
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Caching response failed.", e);
+        }
+    }
+}
@@ -0,0 +1,336 @@
+package at.sfischer.synth.db.generation.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A persistent, size-bounded key-value store for LLM responses.
+ * <p>
+ * Keys are addressed by their SHA-256 hash. Values are appended to a data file, and every
+ * change is recorded in an append-only index file that is accessed through a memory mapping.
+ * The index records insertions, removals and accesses, so replaying it on startup restores
+ * both the entries and their least recently used order. If the total size of all values
+ * exceeds the configured maximum, the least recently used entries are evicted. Once the
+ * data file contains more evicted than live data, both files are compacted. Independently,
+ * the index alone is rewritten once it holds many more access and removal records than live
+ * entries, so a cache that is mostly read does not grow its index without bound.
+ * </p>
+ */
+public class ResponseCache implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ResponseCache.class);
+
+    private static final String DATA_FILE = "responses.dat";
+    private static final String INDEX_FILE = "responses.idx";
+
+    private static final int HASH_SIZE = 32;
+    private static final int RECORD_SIZE = HASH_SIZE + Long.BYTES + Integer.BYTES + Integer.BYTES;
+    private static final int INITIAL_INDEX_RECORDS = 1024;
+
+    private static final int RECORD_PUT = 1;
+    private static final int RECORD_REMOVE = 2;
+    private static final int RECORD_TOUCH = 3;
+
+    private static final long MIN_COMPACTION_SIZE = 1024 * 1024;
+
+    private static final int INDEX_COMPACTION_FACTOR = 4;
+
+    private final Path directory;
+
+    private final long maxSize;
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private FileChannel data;
+
+    private FileChannel indexChannel;
+
+    private MappedByteBuffer index;
+
+    private int indexRecords;
+
+    private long dataSize;
+
+    private long liveSize;
+
+    private record Entry(long offset, int length) {
+    }
+
+    private ResponseCache(Path directory, long maxSize) {
+        this.directory = directory;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Opens the cache stored in the given directory, creating it if it does not exist.
+     *
+     * @param directory the directory containing the cache files
+     * @param maxSize the maximum total size of all cached values in bytes
+     * @return the opened cache
+     * @throws IOException if the cache files cannot be read or created
+     */
+    public static ResponseCache open(Path directory, long maxSize) throws IOException {
+        Files.createDirectories(directory);
+        ResponseCache cache = new ResponseCache(directory, maxSize);
+        cache.openFiles();
+        cache.replayIndex();
+        return cache;
+    }
+
+    private void openFiles() throws IOException {
+        data = FileChannel.open(directory.resolve(DATA_FILE), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        dataSize = data.size();
+        openIndex();
+    }
+
+    private void openIndex() throws IOException {
+        indexChannel = FileChannel.open(directory.resolve(INDEX_FILE), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long capacity = Math.max(INITIAL_INDEX_RECORDS, indexChannel.size() / RECORD_SIZE);
+        index = indexChannel.map(FileChannel.MapMode.READ_WRITE, 0, capacity * RECORD_SIZE);
+        indexRecords = 0;
+    }
+
+    private void replayIndex() {
+        entries.clear();
+        liveSize = 0;
+        byte[] hash = new byte[HASH_SIZE];
+        int capacity = index.capacity() / RECORD_SIZE;
+        while (indexRecords < capacity) {
+            int position = indexRecords * RECORD_SIZE;
+            index.get(position, hash);
+            long offset = index.getLong(position + HASH_SIZE);
+            int length = index.getInt(position + HASH_SIZE + Long.BYTES);
+            int type = index.getInt(position + HASH_SIZE + Long.BYTES + Integer.BYTES);
+            if(type == 0){
+                break;
+            }
+
+            String key = HexFormat.of().formatHex(hash);
+            switch (type) {
+                case RECORD_PUT -> {
+                    if(offset + length <= dataSize){
+                        removeEntry(key);
+                        entries.put(key, new Entry(offset, length));
+                        liveSize += length;
+                    }
+                }
+                case RECORD_REMOVE -> removeEntry(key);
+                case RECORD_TOUCH -> entries.get(key);
+                default -> LOGGER.warn("Unknown record type {} in response cache index.", type);
+            }
+            indexRecords++;
+        }
+    }
+
+    private void removeEntry(String key) {
+        Entry removed = entries.remove(key);
+        if(removed != null){
+            liveSize -= removed.length();
+        }
+    }
+
+    /**
+     * Returns the cached value for the given key and marks it as recently used.
+     *
+     * @param key the key of the value
+     * @return the cached value, or {@code null} if there is none
+     * @throws IOException if the value cannot be read
+     */
+    public synchronized String get(String key) throws IOException {
+        String hashKey = hash(key);
+        Entry entry = entries.get(hashKey);
+        if(entry == null){
+            return null;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(entry.length());
+        while (buffer.hasRemaining()) {
+            if(data.read(buffer, entry.offset() + buffer.position()) < 0){
+                throw new IOException("Unexpected end of response cache data.");
+            }
+        }
+        appendRecord(hashKey, 0, 0, RECORD_TOUCH);
+        compactIndexIfNeeded();
+        return new String(buffer.array(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Stores the given value for the given key, evicting least recently used values if
+     * the cache exceeds its maximum size.
+     *
+     * @param key the key of the value
+     * @param value the value to store
+     * @throws IOException if the value cannot be written
+     */
+    public synchronized void put(String key, String value) throws IOException {
+        String hashKey = hash(key);
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if(bytes.length > maxSize){
+            return;
+        }
+
+        long offset = dataSize;
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining()) {
+            data.write(buffer, offset + buffer.position());
+        }
+        dataSize += bytes.length;
+
+        removeEntry(hashKey);
+        entries.put(hashKey, new Entry(offset, bytes.length));
+        liveSize += bytes.length;
+        appendRecord(hashKey, offset, bytes.length, RECORD_PUT);
+
+        evict();
+    }
+
+    /**
+     * Returns the number of cached values.
+     *
+     * @return the number of cached values
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private void evict() throws IOException {
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while (liveSize > maxSize && iterator.hasNext()) {
+            Map.Entry<String, Entry> eldest = iterator.next();
+            iterator.remove();
+            liveSize -= eldest.getValue().length();
+            appendRecord(eldest.getKey(), 0, 0, RECORD_REMOVE);
+        }
+
+        if(dataSize > MIN_COMPACTION_SIZE && dataSize > 2 * liveSize){
+            compact();
+        } else {
+            compactIndexIfNeeded();
+        }
+    }
+
+    private void compactIndexIfNeeded() throws IOException {
+        long obsoleteRecords = indexRecords - entries.size();
+        if(obsoleteRecords > INDEX_COMPACTION_FACTOR * (long) Math.max(entries.size(), INITIAL_INDEX_RECORDS)){
+            compactIndex();
+        }
+    }
+
+    private void appendRecord(String hashKey, long offset, int length, int type) throws IOException {
+        if((indexRecords + 1) * RECORD_SIZE > index.capacity()){
+            index.force();
+            index = indexChannel.map(FileChannel.MapMode.READ_WRITE, 0, 2L * index.capacity());
+        }
+
+        int position = indexRecords * RECORD_SIZE;
+        index.put(position, HexFormat.of().parseHex(hashKey));
+        index.putLong(position + HASH_SIZE, offset);
+        index.putInt(position + HASH_SIZE + Long.BYTES, length);
+        index.putInt(position + HASH_SIZE + Long.BYTES + Integer.BYTES, type);
+        indexRecords++;
+    }
+
+    /**
+     * Rewrites data and index files so that they only contain live entries, in least recently used order.
+     */
+    private void compact() throws IOException {
+        Path compactedData = directory.resolve(DATA_FILE + ".tmp");
+        Path compactedIndex = directory.resolve(INDEX_FILE + ".tmp");
+        Files.deleteIfExists(compactedIndex);
+
+        LinkedHashMap<String, Entry> compacted = new LinkedHashMap<>();
+        try (FileChannel target = FileChannel.open(compactedData, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            long offset = 0;
+            for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+                Entry value = entry.getValue();
+                data.transferTo(value.offset(), value.length(), target);
+                compacted.put(entry.getKey(), new Entry(offset, value.length()));
+                offset += value.length();
+            }
+        }
+
+        closeFiles();
+        Files.move(compactedData, directory.resolve(DATA_FILE), StandardCopyOption.REPLACE_EXISTING);
+        Files.move(directory.resolve(INDEX_FILE), compactedIndex, StandardCopyOption.REPLACE_EXISTING);
+        openFiles();
+        for (Map.Entry<String, Entry> entry : compacted.entrySet()) {
+            appendRecord(entry.getKey(), entry.getValue().offset(), entry.getValue().length(), RECORD_PUT);
+        }
+        Files.deleteIfExists(compactedIndex);
+
+        entries.clear();
+        entries.putAll(compacted);
+        LOGGER.debug("Compacted response cache to {} entries.", entries.size());
+    }
+
+    /**
+     * Rewrites the index file so that it only contains a record for every live entry, in least
+     * recently used order. The data file is left unchanged.
+     */
+    private void compactIndex() throws IOException {
+        Path compactedIndex = directory.resolve(INDEX_FILE + ".tmp");
+        try (FileChannel target = FileChannel.open(compactedIndex, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+            for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+                record.clear();
+                record.put(HexFormat.of().parseHex(entry.getKey()));
+                record.putLong(entry.getValue().offset());
+                record.putInt(entry.getValue().length());
+                record.putInt(RECORD_PUT);
+                record.flip();
+                while (record.hasRemaining()) {
+                    target.write(record);
+                }
+            }
+        }
+
+        long records = indexRecords;
+        index.force();
+        index = null;
+        indexChannel.close();
+        Files.move(compactedIndex, directory.resolve(INDEX_FILE), StandardCopyOption.REPLACE_EXISTING);
+        openIndex();
+        indexRecords = entries.size();
+        LOGGER.debug("Compacted response cache index from {} to {} records.", records, indexRecords);
+    }
+
+    private void closeFiles() throws IOException {
+        index.force();
+        index = null;
+        indexChannel.close();
+        data.close();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if(data.isOpen()){
+            closeFiles();
+        }
+    }
+
+    private static String hash(String key) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(key.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available.", e);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package at.sfischer.synth.db.generation.columns;
+
+import at.sfischer.synth.db.model.Column;
+
+/**
+ * Generates random booleans for {@code BOOLEAN}, {@code BOOL} and {@code BIT} columns,
+ * and 0 or 1 for MySQL {@code TINYINT(1)} columns.
+ */
+public class BooleanColumnGenerator implements ColumnGenerator {
+
+    @Override
+    public boolean supports(Column column) {
+        return switch (ColumnGenerators.getBaseType(column)) {
+            case "BOOLEAN", "BOOL", "BIT" -> true;
+            default -> ColumnGenerators.isTinyIntBoolean(column) && !column.isPrimaryKey();
+        };
+    }
+
+    @Override
+    public Object generate(Column column, ColumnGeneratorContext context) {
+        boolean value = context.random().nextBoolean();
+        if(ColumnGenerators.isTinyIntBoolean(column)){
+            return value ? 1L : 0L;
+        }
+        return value;
+    }
+}
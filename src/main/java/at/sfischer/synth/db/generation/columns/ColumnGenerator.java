@@ -0,0 +1,47 @@
+package at.sfischer.synth.db.generation.columns;
+
+import at.sfischer.synth.db.model.Column;
+
+/**
+ * Service provider interface for generating values of columns locally, without prompting the LLM.
+ * <p>
+ * Implementations are discovered with {@link java.util.ServiceLoader} by {@link ColumnGenerators#load()},
+ * so additional generators can be registered in a {@code META-INF/services} file named after this interface.
+ * Generators are selected by the type of a column, see {@link Column#getType()}, and must be thread-safe.
+ * </p>
+ */
+public interface ColumnGenerator {
+
+    /**
+     * Indicates whether this generator can produce values for the given column.
+     * <p>
+     * Only columns that do not need semantic realism should be supported, such as keys, counters,
+     * timestamps or flags. Columns referencing other tables and auto-increment columns are never
+     * passed to generators.
+     * </p>
+     *
+     * @param column the column
+     * @return true if this generator produces values for the column, false otherwise
+     */
+    boolean supports(Column column);
+
+    /**
+     * Generates a value for the given column.
+     *
+     * @param column a column {@link #supports(Column) supported} by this generator
+     * @param context the context of the generated row
+     * @return the value, in the representation of parsed {@link at.sfischer.synth.db.model.InsertStatement}s,
+     *         e.g. {@link Long} for integers and {@link String} for dates
+     */
+    Object generate(Column column, ColumnGeneratorContext context);
+
+    /**
+     * Returns the priority of this generator. If several generators support a column,
+     * the one with the highest priority is used. Built-in generators have priority 0.
+     *
+     * @return the priority
+     */
+    default int getPriority() {
+        return 0;
+    }
+}
@@ -0,0 +1,13 @@
+package at.sfischer.synth.db.generation.columns;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * The context a value is generated in by a {@link ColumnGenerator}.
+ *
+ * @param rowIndex the index of the generated row in its table, starting after the rows and key values
+ *                 already in the table, unique for every generated row of the table
+ * @param random the random generator to use
+ */
+public record ColumnGeneratorContext(long rowIndex, RandomGenerator random) {
+}
@@ -0,0 +1,130 @@
+package at.sfischer.synth.db.generation.columns;
+
+import at.sfischer.synth.db.model.Column;
+
+import java.util.*;
+
+/**
+ * The {@link ColumnGenerator}s available to generate column values locally.
+ * <p>
+ * Columns referencing other tables and auto-increment columns are never generated locally,
+ * their values come from the LLM and the database respectively.
+ * </p>
+ */
+public class ColumnGenerators {
+
+    private final List<ColumnGenerator> generators;
+
+    /**
+     * Constructs a new instance from the given generators.
+     *
+     * @param generators the generators, if several support a column the one with the highest
+     *                   priority is used, or the first one on equal priority
+     */
+    public ColumnGenerators(List<ColumnGenerator> generators) {
+        List<ColumnGenerator> sorted = new ArrayList<>(generators);
+        sorted.sort(Comparator.comparingInt(ColumnGenerator::getPriority).reversed());
+        this.generators = List.copyOf(sorted);
+    }
+
+    /**
+     * Loads all generators registered for {@link ColumnGenerator} with {@link ServiceLoader},
+     * including the built-in generators.
+     *
+     * @return the loaded generators
+     */
+    public static ColumnGenerators load() {
+        List<ColumnGenerator> generators = new ArrayList<>();
+        ServiceLoader.load(ColumnGenerator.class).forEach(generators::add);
+        return new ColumnGenerators(generators);
+    }
+
+    /**
+     * Returns the generators, ordered by descending priority.
+     *
+     * @return the generators
+     */
+    public List<ColumnGenerator> getGenerators() {
+        return generators;
+    }
+
+    /**
+     * Returns the generator used for the given column.
+     *
+     * @param column the column
+     * @return the generator, or {@code null} if the column has to be generated by the LLM or the database
+     */
+    public ColumnGenerator getGenerator(Column column) {
+        if(column.getReference() != null || column.isAutoIncrement()){
+            return null;
+        }
+
+        for (ColumnGenerator generator : generators) {
+            if(generator.supports(column)){
+                return generator;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the SQL data type of a column in upper case and without type arguments,
+     * e.g. {@code VARCHAR} for {@code varchar(20)}.
+     *
+     * @param column the column
+     * @return the base type
+     */
+    public static String getBaseType(Column column) {
+        String type = column.getType().toUpperCase(Locale.ROOT);
+        int parenthesis = type.indexOf('(');
+        if(parenthesis >= 0){
+            type = type.substring(0, parenthesis);
+        }
+        return type.trim();
+    }
+
+    /**
+     * Indicates whether a column has an integer type.
+     *
+     * @param column the column
+     * @return true for integer types, false otherwise
+     */
+    public static boolean isInteger(Column column) {
+        return switch (getBaseType(column)) {
+            case "TINYINT", "SMALLINT", "MEDIUMINT", "INT", "INTEGER", "BIGINT" -> true;
+            default -> false;
+        };
+    }
+
+    /**
+     * Returns the maximum length of values of a character column, e.g. 20 for {@code VARCHAR(20)}.
+     *
+     * @param column the column
+     * @return the declared length, or {@link Integer#MAX_VALUE} if the column has no declared length
+     */
+    public static int getMaxLength(Column column) {
+        switch (getBaseType(column)) {
+            case "CHAR", "VARCHAR", "CHARACTER", "NCHAR", "NVARCHAR" -> {
+                List<String> arguments = column.getTypeArguments();
+                try {
+                    return arguments.isEmpty() ? Integer.MAX_VALUE : Integer.parseInt(arguments.getFirst().trim());
+                } catch (NumberFormatException e) {
+                    return Integer.MAX_VALUE;
+                }
+            }
+            default -> {
+                return Integer.MAX_VALUE;
+            }
+        }
+    }
+
+    /**
+     * Indicates whether a column is a MySQL {@code TINYINT(1)}, which is commonly used for booleans.
+     *
+     * @param column the column
+     * @return true for {@code TINYINT(1)}, false otherwise
+     */
+    static boolean isTinyIntBoolean(Column column) {
+        return "TINYINT".equals(getBaseType(column)) && column.getTypeArguments().equals(List.of("1"));
+    }
+}
@@ -0,0 +1,128 @@
+package at.sfischer.synth.db.generation.columns;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A declarative description of how the values of a column are generated, compiled by the LLM
+ * once per table and executed locally by a {@link ColumnSpecGenerator}.
+ * <p>
+ * Depending on the {@link Kind}, a spec uses the following properties:
+ * </p>
+ * <ul>
+ *     <li>{@link Kind#PATTERN}: {@code pattern}, a regular expression values match, e.g. {@code [A-Z]{3}-\d{4}}.</li>
+ *     <li>{@link Kind#VALUES}: {@code values}, the list of values to choose from.</li>
+ *     <li>{@link Kind#RANGE}: {@code min} and {@code max}, the bounds of numeric values.</li>
+ *     <li>{@link Kind#DATE_RANGE}: {@code min} and {@code max}, ISO dates or timestamps.</li>
+ *     <li>{@link Kind#TEMPLATE}: {@code template} and {@code parts}, e.g. {@code {first}.{last}@example.com}
+ *         with lists of values for {@code first} and {@code last}. {@code {#}} stands for a random digit,
+ *         {@code {A}} and {@code {a}} for random upper and lower case letters.</li>
+ *     <li>{@link Kind#FREE_TEXT}: values are generated by the LLM.</li>
+ * </ul>
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ColumnSpec {
+
+    /**
+     * The kinds of column specs.
+     */
+    public enum Kind {
+        PATTERN,
+        VALUES,
+        RANGE,
+        DATE_RANGE,
+        TEMPLATE,
+        FREE_TEXT
+    }
+
+    @JsonProperty("column")
+    private String column;
+
+    @JsonProperty("kind")
+    private Kind kind;
+
+    @JsonProperty("pattern")
+    private String pattern;
+
+    @JsonProperty("values")
+    private List<String> values;
+
+    @JsonProperty("min")
+    private String min;
+
+    @JsonProperty("max")
+    private String max;
+
+    @JsonProperty("template")
+    private String template;
+
+    @JsonProperty("parts")
+    private Map<String, List<String>> parts;
+
+    public String getColumn() {
+        return column;
+    }
+
+    public void setColumn(String column) {
+        this.column = column;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public void setKind(Kind kind) {
+        this.kind = kind;
+    }
+
+    public String getPattern() {
+        return pattern;
+    }
+
+    public void setPattern(String pattern) {
+        this.pattern = pattern;
+    }
+
+    public List<String> getValues() {
+        return values;
+    }
+
+    public void setValues(List<String> values) {
+        this.values = values;
+    }
+
+    public String getMin() {
+        return min;
+    }
+
+    public void setMin(String min) {
+        this.min = min;
+    }
+
+    public String getMax() {
+        return max;
+    }
+
+    public void setMax(String max) {
+        this.max = max;
+    }
+
+    public String getTemplate() {
+        return template;
+    }
+
+    public void setTemplate(String template) {
+        this.template = template;
+    }
+
+    public Map<String, List<String>> getParts() {
+        return parts;
+    }
+
+    public void setParts(Map<String, List<String>> parts) {
+        this.parts = parts;
+    }
+}
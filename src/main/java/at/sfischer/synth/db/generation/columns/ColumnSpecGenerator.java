@@ -0,0 +1,337 @@
+package at.sfischer.synth.db.generation.columns;
+
+import at.sfischer.synth.db.model.Column;
+import at.sfischer.synth.db.model.Table;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.random.RandomGenerator;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Generates the values of the columns of a table from {@link ColumnSpec}s compiled by the LLM.
+ * <p>
+ * Specs are validated against the column definitions when they are compiled: the column has to
+ * exist, the spec has to fit the column type, and sample values have to fit the declared length
+ * and, for patterns, match the pattern. Invalid specs are dropped with a warning, so their
+ * columns are generated by the LLM. Specs of primary key, unique, foreign key and auto-increment
+ * columns are dropped as well, since a spec cannot keep values unique or valid references.
+ * </p>
+ * <p>
+ * A compiled generator only supports the columns of the table it was compiled for, and takes
+ * precedence over the built-in generators.
+ * </p>
+ */
+public class ColumnSpecGenerator implements ColumnGenerator {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ColumnSpecGenerator.class);
+
+    private static final ObjectMapper mapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+            .configure(DeserializationFeature.READ_UNKNOWN_ENUM_VALUES_AS_NULL, true);
+
+    private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private static final Pattern PLACEHOLDER = Pattern.compile("\\{([^{}]+)}");
+
+    private static final String UPPER_CASE = "ABCDEFGHIJKLMNOPQRSTUVWXYZ";
+
+    private static final String LOWER_CASE = "abcdefghijklmnopqrstuvwxyz";
+
+    static final int VALIDATION_SAMPLES = 32;
+
+    /**
+     * A compiled spec generating values of a single column.
+     */
+    private interface CompiledSpec {
+        Object generate(RandomGenerator random);
+    }
+
+    private final Map<Column, CompiledSpec> specs;
+
+    private ColumnSpecGenerator(Map<Column, CompiledSpec> specs) {
+        this.specs = specs;
+    }
+
+    /**
+     * Compiles the specs of a table, given as JSON object with a {@code columns} array of
+     * {@link ColumnSpec}s, or as the array itself.
+     *
+     * @param table the table the specs describe
+     * @param json the specs as JSON
+     * @return the generator for the columns with valid specs
+     * @throws IllegalArgumentException if the JSON cannot be read
+     */
+    public static ColumnSpecGenerator compile(Table table, String json) {
+        try {
+            JsonNode node = mapper.readTree(json);
+            JsonNode columns = node.isArray() ? node : node.path("columns");
+            List<ColumnSpec> specs = new ArrayList<>();
+            for (JsonNode column : columns) {
+                specs.add(mapper.treeToValue(column, ColumnSpec.class));
+            }
+            return compile(table, specs);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Invalid column specs of table " + table.getName(), e);
+        }
+    }
+
+    /**
+     * Compiles the specs of a table.
+     *
+     * @param table the table the specs describe
+     * @param specs the specs
+     * @return the generator for the columns with valid specs
+     */
+    public static ColumnSpecGenerator compile(Table table, List<ColumnSpec> specs) {
+        Map<Column, CompiledSpec> compiled = new LinkedHashMap<>();
+        for (ColumnSpec spec : specs) {
+            if(spec == null || spec.getColumn() == null || spec.getKind() == null || spec.getKind() == ColumnSpec.Kind.FREE_TEXT){
+                continue;
+            }
+
+            Column column = table.getColumn(spec.getColumn());
+            if(column == null){
+                LOGGER.warn("Ignoring spec of unknown column {}.{}.", table.getName(), spec.getColumn());
+                continue;
+            }
+            if(column.isPrimaryKey() || column.isUnique() || column.getReference() != null || column.isAutoIncrement()){
+                LOGGER.debug("Ignoring spec of key column {}.{}.", table.getName(), column.getName());
+                continue;
+            }
+
+            try {
+                CompiledSpec compiledSpec = compile(column, spec);
+                validate(column, spec, compiledSpec);
+                compiled.put(column, compiledSpec);
+            } catch (IllegalArgumentException | ArithmeticException | DateTimeParseException e) {
+                LOGGER.warn("Ignoring invalid {} spec of column {}.{}: {}", spec.getKind(), table.getName(), column.getName(), e.getMessage());
+            }
+        }
+        return new ColumnSpecGenerator(compiled);
+    }
+
+    /**
+     * Returns the columns generated from specs.
+     *
+     * @return the columns with valid specs
+     */
+    public Set<Column> getColumns() {
+        return Collections.unmodifiableSet(specs.keySet());
+    }
+
+    @Override
+    public boolean supports(Column column) {
+        return specs.containsKey(column);
+    }
+
+    @Override
+    public Object generate(Column column, ColumnGeneratorContext context) {
+        return specs.get(column).generate(context.random());
+    }
+
+    @Override
+    public int getPriority() {
+        return 10;
+    }
+
+    private static CompiledSpec compile(Column column, ColumnSpec spec) {
+        CompiledSpec compiled = switch (spec.getKind()) {
+            case PATTERN -> {
+                PatternGenerator pattern = new PatternGenerator(require(spec.getPattern(), "pattern"));
+                yield pattern::generate;
+            }
+            case VALUES -> {
+                List<String> values = require(spec.getValues(), "values");
+                if(values.isEmpty()){
+                    throw new IllegalArgumentException("No values");
+                }
+                Object[] converted = values.stream().map(value -> convert(column, value)).toArray();
+                yield random -> converted[random.nextInt(converted.length)];
+            }
+            case RANGE -> range(column, spec);
+            case DATE_RANGE -> dateRange(column, spec);
+            case TEMPLATE -> template(spec);
+            case FREE_TEXT -> throw new IllegalArgumentException("Free text cannot be generated locally");
+        };
+        if(isNumeric(column) && (spec.getKind() == ColumnSpec.Kind.PATTERN || spec.getKind() == ColumnSpec.Kind.TEMPLATE)){
+            CompiledSpec text = compiled;
+            return random -> convert(column, text.generate(random).toString());
+        }
+        return compiled;
+    }
+
+    private static CompiledSpec range(Column column, ColumnSpec spec) {
+        BigDecimal min = new BigDecimal(require(spec.getMin(), "min").trim());
+        BigDecimal max = new BigDecimal(require(spec.getMax(), "max").trim());
+        if(min.compareTo(max) > 0){
+            throw new IllegalArgumentException("Minimum " + min + " is larger than maximum " + max);
+        }
+
+        String type = ColumnGenerators.getBaseType(column);
+        if(ColumnGenerators.isInteger(column)){
+            long lower = min.setScale(0, RoundingMode.CEILING).longValueExact();
+            long upper = max.setScale(0, RoundingMode.FLOOR).longValueExact();
+            if(lower > upper){
+                throw new IllegalArgumentException("No integer between " + min + " and " + max);
+            }
+            return random -> lower == upper ? lower : random.nextLong(lower, upper + 1);
+        }
+        return switch (type) {
+            case "DECIMAL", "NUMERIC" -> {
+                List<String> arguments = column.getTypeArguments();
+                int scale = arguments.size() > 1 ? Integer.parseInt(arguments.get(1).trim()) : Math.max(min.scale(), max.scale());
+                double lower = min.doubleValue();
+                double upper = max.doubleValue();
+                yield random -> BigDecimal.valueOf(lower == upper ? lower : random.nextDouble(lower, upper)).setScale(scale, RoundingMode.DOWN);
+            }
+            case "FLOAT", "DOUBLE", "REAL" -> {
+                double lower = min.doubleValue();
+                double upper = max.doubleValue();
+                yield random -> Math.round((lower == upper ? lower : random.nextDouble(lower, upper)) * 100) / 100.0;
+            }
+            default -> throw new IllegalArgumentException("Numeric range for column of type " + column.getType());
+        };
+    }
+
+    private static CompiledSpec dateRange(Column column, ColumnSpec spec) {
+        LocalDateTime min = parseDateTime(require(spec.getMin(), "min"));
+        LocalDateTime max = parseDateTime(require(spec.getMax(), "max"));
+        if(min.isAfter(max)){
+            throw new IllegalArgumentException("Minimum " + min + " is after maximum " + max);
+        }
+
+        long seconds = ChronoUnit.SECONDS.between(min, max);
+        return switch (ColumnGenerators.getBaseType(column)) {
+            case "DATE" -> random -> min.plusSeconds(seconds == 0 ? 0 : random.nextLong(seconds + 1)).toLocalDate().toString();
+            case "DATETIME", "TIMESTAMP" -> random -> min.plusSeconds(seconds == 0 ? 0 : random.nextLong(seconds + 1)).format(TIMESTAMP_FORMAT);
+            default -> throw new IllegalArgumentException("Date range for column of type " + column.getType());
+        };
+    }
+
+    private static LocalDateTime parseDateTime(String value) {
+        String trimmed = value.trim();
+        if(trimmed.length() == 10){
+            return LocalDate.parse(trimmed).atStartOfDay();
+        }
+        return LocalDateTime.parse(trimmed.replace(' ', 'T'));
+    }
+
+    private static CompiledSpec template(ColumnSpec spec) {
+        String template = require(spec.getTemplate(), "template");
+        Map<String, List<String>> parts = spec.getParts() == null ? Map.of() : spec.getParts();
+
+        // Split the template into literal text and generators for the placeholders once.
+        List<CompiledSpec> pieces = new ArrayList<>();
+        Matcher matcher = PLACEHOLDER.matcher(template);
+        int start = 0;
+        while (matcher.find()) {
+            String literal = template.substring(start, matcher.start());
+            if(!literal.isEmpty()){
+                pieces.add(_ -> literal);
+            }
+            String name = matcher.group(1);
+            switch (name) {
+                case "#" -> pieces.add(random -> (char) ('0' + random.nextInt(10)));
+                case "A" -> pieces.add(random -> UPPER_CASE.charAt(random.nextInt(UPPER_CASE.length())));
+                case "a" -> pieces.add(random -> LOWER_CASE.charAt(random.nextInt(LOWER_CASE.length())));
+                default -> {
+                    List<String> values = parts.get(name);
+                    if(values == null || values.isEmpty()){
+                        throw new IllegalArgumentException("No values for placeholder {" + name + "}");
+                    }
+                    String[] array = values.toArray(String[]::new);
+                    pieces.add(random -> array[random.nextInt(array.length)]);
+                }
+            }
+            start = matcher.end();
+        }
+        String tail = template.substring(start);
+        if(!tail.isEmpty()){
+            pieces.add(_ -> tail);
+        }
+
+        return random -> {
+            StringBuilder sb = new StringBuilder();
+            for (CompiledSpec piece : pieces) {
+                sb.append(piece.generate(random));
+            }
+            return sb.toString();
+        };
+    }
+
+    private static Object convert(Column column, String value) {
+        if(value == null){
+            return null;
+        }
+        if(ColumnGenerators.isInteger(column)){
+            return Long.parseLong(value.trim());
+        }
+        return switch (ColumnGenerators.getBaseType(column)) {
+            case "DECIMAL", "NUMERIC" -> new BigDecimal(value.trim());
+            case "FLOAT", "DOUBLE", "REAL" -> Double.parseDouble(value.trim());
+            default -> value;
+        };
+    }
+
+    private static void validate(Column column, ColumnSpec spec, CompiledSpec compiledSpec) {
+        Pattern pattern = spec.getKind() == ColumnSpec.Kind.PATTERN ? Pattern.compile(spec.getPattern()) : null;
+        boolean numeric = isNumeric(column);
+        int maxLength = ColumnGenerators.getMaxLength(column);
+
+        // Listed values are all checked, generated values only on samples.
+        if(spec.getKind() == ColumnSpec.Kind.VALUES){
+            for (String value : spec.getValues()) {
+                validateValue(convert(column, value), numeric, maxLength, pattern);
+            }
+            return;
+        }
+
+        RandomGenerator random = new SplittableRandom(0);
+        for (int i = 0; i < VALIDATION_SAMPLES; i++) {
+            validateValue(compiledSpec.generate(random), numeric, maxLength, pattern);
+        }
+    }
+
+    private static void validateValue(Object value, boolean numeric, int maxLength, Pattern pattern) {
+        if(!(value instanceof String string)){
+            return;
+        }
+        if(numeric){
+            throw new IllegalArgumentException("Text value '" + string + "' for numeric column");
+        }
+        if(string.length() > maxLength){
+            throw new IllegalArgumentException("Value '" + string + "' exceeds length " + maxLength);
+        }
+        if(pattern != null && !pattern.matcher(string).matches()){
+            throw new IllegalArgumentException("Value '" + string + "' does not match the pattern");
+        }
+    }
+
+    private static boolean isNumeric(Column column) {
+        return ColumnGenerators.isInteger(column) || switch (ColumnGenerators.getBaseType(column)) {
+            case "DECIMAL", "NUMERIC", "FLOAT", "DOUBLE", "REAL" -> true;
+            default -> false;
+        };
+    }
+
+    private static <T> T require(T value, String property) {
+        if(value == null){
+            throw new IllegalArgumentException("Missing property " + property);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,29 @@
+package at.sfischer.synth.db.generation.columns;
+
+import at.sfischer.synth.db.model.Column;
+
+import java.util.List;
+
+/**
+ * Picks a random value of a MySQL {@code ENUM} column from the values listed in its type.
+ */
+public class EnumColumnGenerator implements ColumnGenerator {
+
+    @Override
+    public boolean supports(Column column) {
+        return "ENUM".equals(ColumnGenerators.getBaseType(column)) && !column.getTypeArguments().isEmpty();
+    }
+
+    @Override
+    public Object generate(Column column, ColumnGeneratorContext context) {
+        List<String> values = column.getTypeArguments();
+        return unquote(values.get(context.random().nextInt(values.size())));
+    }
+
+    private static String unquote(String value) {
+        if(value.length() >= 2 && value.startsWith("'") && value.endsWith("'")){
+            return value.substring(1, value.length() - 1).replace("''", "'");
+        }
+        return value;
+    }
+}
@@ -0,0 +1,92 @@
+package at.sfischer.synth.db.generation.columns;
+
+import at.sfischer.synth.db.model.Column;
+
+import java.util.*;
+
+/**
+ * Generates the values of free-text columns of a table with {@link NgramTextModel}s trained on
+ * values the LLM generated for these columns, so the LLM is not needed for them any more.
+ * <p>
+ * Every column is generated {@code NULL} with the ratio of {@code NULL} values among its
+ * training values. A generator only supports the columns it was trained for, and takes
+ * precedence over the built-in generators.
+ * </p>
+ */
+public class NgramColumnGenerator implements ColumnGenerator {
+
+    private record ColumnModel(NgramTextModel model, double nullRatio) {
+    }
+
+    private final Map<Column, ColumnModel> models;
+
+    private NgramColumnGenerator(Map<Column, ColumnModel> models) {
+        this.models = models;
+    }
+
+    /**
+     * Trains a model for every given column.
+     *
+     * @param values the training values of every column, may contain {@code null} values;
+     *               columns without a non-{@code NULL} value are not supported by the generator
+     * @return the generator
+     */
+    public static NgramColumnGenerator train(Map<Column, List<String>> values) {
+        Map<Column, ColumnModel> models = new LinkedHashMap<>();
+        for (Map.Entry<Column, List<String>> entry : values.entrySet()) {
+            List<String> columnValues = entry.getValue();
+            long nulls = columnValues.stream().filter(Objects::isNull).count();
+            if(nulls == columnValues.size()){
+                continue;
+            }
+
+            NgramTextModel model = NgramTextModel.train(columnValues, ColumnGenerators.getMaxLength(entry.getKey()));
+            models.put(entry.getKey(), new ColumnModel(model, (double) nulls / columnValues.size()));
+        }
+        return new NgramColumnGenerator(models);
+    }
+
+    /**
+     * Returns the columns generated by text models.
+     *
+     * @return the columns
+     */
+    public Set<Column> getColumns() {
+        return Collections.unmodifiableSet(models.keySet());
+    }
+
+    /**
+     * Indicates whether a column is a text column a model can be trained for.
+     *
+     * @param column the column
+     * @return true for character columns that are neither keys nor references, false otherwise
+     */
+    public static boolean isTextColumn(Column column) {
+        if(column.isPrimaryKey() || column.isUnique() || column.getReference() != null || column.isAutoIncrement()){
+            return false;
+        }
+        return switch (ColumnGenerators.getBaseType(column)) {
+            case "CHAR", "VARCHAR", "CHARACTER", "NCHAR", "NVARCHAR", "TEXT", "TINYTEXT", "MEDIUMTEXT", "LONGTEXT", "CLOB" -> true;
+            default -> false;
+        };
+    }
+
+    @Override
+    public boolean supports(Column column) {
+        return models.containsKey(column);
+    }
+
+    @Override
+    public Object generate(Column column, ColumnGeneratorContext context) {
+        ColumnModel model = models.get(column);
+        if(model.nullRatio() > 0 && context.random().nextDouble() < model.nullRatio()){
+            return null;
+        }
+        return model.model().generate(context.random());
+    }
+
+    @Override
+    public int getPriority() {
+        return 10;
+    }
+}
@@ -0,0 +1,188 @@
+package at.sfischer.synth.db.generation.columns;
+
+import java.util.*;
+import java.util.random.RandomGenerator;
+
+/**
+ * A Markov model of order {@code n - 1} over the characters or words of the values of a text
+ * column, generating new strings that look like the values it was trained on.
+ * <p>
+ * Short values such as names and locations are modelled by characters, longer values such as
+ * descriptions by words, see {@link #train(Collection, int)}. A model is immutable once trained:
+ * the successors of every context are stored as arrays with cumulative weights, so generating
+ * a value only needs a hash lookup and a binary search per token, and models can be used by
+ * many threads concurrently.
+ * </p>
+ */
+public final class NgramTextModel {
+
+    /** The order of character models, i.e. the next character depends on the three previous ones. */
+    static final int CHARACTER_ORDER = 4;
+
+    /** The order of word models, i.e. the next word depends on the previous word. */
+    static final int WORD_ORDER = 2;
+
+    /** The average number of words from which values are modelled by words instead of characters. */
+    static final double WORD_MODEL_MIN_WORDS = 4;
+
+    static final int MAX_ATTEMPTS = 10;
+
+    private static final String START = "\u0002";
+
+    private static final String END = "\u0003";
+
+    private static final char SEPARATOR = '\u0000';
+
+    /**
+     * The successors of a context with cumulative weights.
+     */
+    private record Successors(String[] tokens, int[] cumulativeWeights) {
+        String sample(RandomGenerator random) {
+            int total = cumulativeWeights[cumulativeWeights.length - 1];
+            int index = Arrays.binarySearch(cumulativeWeights, random.nextInt(total) + 1);
+            return tokens[index >= 0 ? index : -index - 1];
+        }
+    }
+
+    private final boolean words;
+
+    private final int order;
+
+    private final int maxLength;
+
+    private final Map<String, Successors> transitions;
+
+    private final Set<String> trainingValues;
+
+    private NgramTextModel(boolean words, int order, int maxLength, Map<String, Successors> transitions, Set<String> trainingValues) {
+        this.words = words;
+        this.order = order;
+        this.maxLength = maxLength;
+        this.transitions = transitions;
+        this.trainingValues = trainingValues;
+    }
+
+    /**
+     * Trains a model on the given values.
+     *
+     * @param values the values, {@code null} values are ignored
+     * @param maxLength the maximum length of generated values, e.g. the declared length of the column
+     * @return the trained model
+     * @throws IllegalArgumentException if there are no values or {@code maxLength} is smaller than 1
+     */
+    public static NgramTextModel train(Collection<String> values, int maxLength) {
+        if(maxLength < 1){
+            throw new IllegalArgumentException("Maximum length must be at least 1, but was: " + maxLength);
+        }
+        List<String> training = values.stream().filter(Objects::nonNull).toList();
+        if(training.isEmpty()){
+            throw new IllegalArgumentException("Cannot train a text model without values.");
+        }
+
+        double averageWords = training.stream().mapToInt(value -> tokenize(value, true).size()).average().orElse(0);
+        boolean words = averageWords >= WORD_MODEL_MIN_WORDS;
+        int order = words ? WORD_ORDER : CHARACTER_ORDER;
+
+        Map<String, Map<String, Integer>> counts = new HashMap<>();
+        for (String value : training) {
+            Deque<String> context = new ArrayDeque<>(Collections.nCopies(order - 1, START));
+            List<String> tokens = new ArrayList<>(tokenize(value, words));
+            tokens.add(END);
+            for (String token : tokens) {
+                counts.computeIfAbsent(key(context), _ -> new HashMap<>()).merge(token, 1, Integer::sum);
+                context.removeFirst();
+                context.addLast(token);
+            }
+        }
+
+        Map<String, Successors> transitions = new HashMap<>();
+        for (Map.Entry<String, Map<String, Integer>> entry : counts.entrySet()) {
+            String[] tokens = new String[entry.getValue().size()];
+            int[] cumulativeWeights = new int[tokens.length];
+            int i = 0;
+            int total = 0;
+            for (Map.Entry<String, Integer> successor : entry.getValue().entrySet()) {
+                total += successor.getValue();
+                tokens[i] = successor.getKey();
+                cumulativeWeights[i++] = total;
+            }
+            transitions.put(entry.getKey(), new Successors(tokens, cumulativeWeights));
+        }
+
+        return new NgramTextModel(words, order, maxLength, transitions, new HashSet<>(training));
+    }
+
+    /**
+     * Indicates whether this model generates values word by word instead of character by character.
+     *
+     * @return true for a word model, false for a character model
+     */
+    public boolean isWordModel() {
+        return words;
+    }
+
+    /**
+     * Generates a value of at most the maximum length of this model. Values that were not part of
+     * the training values are preferred, but may not exist for small or very regular training sets.
+     *
+     * @param random the source of randomness
+     * @return the generated value
+     */
+    public String generate(RandomGenerator random) {
+        String value = null;
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            value = generateOnce(random);
+            if(value.length() <= maxLength && !trainingValues.contains(value)){
+                return value;
+            }
+        }
+        return truncate(value);
+    }
+
+    private String generateOnce(RandomGenerator random) {
+        StringBuilder sb = new StringBuilder();
+        Deque<String> context = new ArrayDeque<>(Collections.nCopies(order - 1, START));
+        // A value longer than the maximum length is discarded anyway, so generation stops early.
+        while (sb.length() <= maxLength) {
+            Successors successors = transitions.get(key(context));
+            String token = successors.sample(random);
+            if(token.equals(END)){
+                break;
+            }
+            if(words && !sb.isEmpty()){
+                sb.append(' ');
+            }
+            sb.append(token);
+            context.removeFirst();
+            context.addLast(token);
+        }
+        return sb.toString();
+    }
+
+    private String truncate(String value) {
+        if(value.length() <= maxLength){
+            return value;
+        }
+        String truncated = value.substring(0, maxLength);
+        int space = truncated.lastIndexOf(' ');
+        return words && space > 0 ? truncated.substring(0, space) : truncated.strip();
+    }
+
+    private static List<String> tokenize(String value, boolean words) {
+        if(words){
+            String stripped = value.strip();
+            return stripped.isEmpty() ? List.of() : List.of(stripped.split("\\s+"));
+        }
+        List<String> characters = new ArrayList<>(value.length());
+        value.codePoints().forEach(c -> characters.add(Character.toString(c)));
+        return characters;
+    }
+
+    private static String key(Deque<String> context) {
+        StringBuilder sb = new StringBuilder();
+        for (String token : context) {
+            sb.append(token).append(SEPARATOR);
+        }
+        return sb.toString();
+    }
+}
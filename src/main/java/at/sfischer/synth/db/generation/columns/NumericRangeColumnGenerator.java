@@ -0,0 +1,61 @@
+package at.sfischer.synth.db.generation.columns;
+
+import at.sfischer.synth.db.model.Column;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+
+/**
+ * Generates random numbers within the range of the column type for numeric columns that are not unique.
+ * <p>
+ * Integers are drawn from {@code [0, 10000]}, limited by the type, e.g. to 127 for {@code TINYINT}.
+ * Decimals respect precision and scale, e.g. {@code DECIMAL(5,2)} values are below 1000 with two
+ * decimal places. Floating point numbers have two decimal places.
+ * </p>
+ */
+public class NumericRangeColumnGenerator implements ColumnGenerator {
+
+    private static final long MAX_VALUE = 10000;
+
+    @Override
+    public boolean supports(Column column) {
+        if(column.isPrimaryKey() || column.isUnique() || ColumnGenerators.isTinyIntBoolean(column)){
+            return false;
+        }
+        return switch (ColumnGenerators.getBaseType(column)) {
+            case "TINYINT", "SMALLINT", "MEDIUMINT", "INT", "INTEGER", "BIGINT",
+                 "DECIMAL", "NUMERIC", "FLOAT", "DOUBLE", "REAL" -> true;
+            default -> false;
+        };
+    }
+
+    @Override
+    public Object generate(Column column, ColumnGeneratorContext context) {
+        return switch (ColumnGenerators.getBaseType(column)) {
+            case "TINYINT" -> context.random().nextLong(128);
+            case "DECIMAL", "NUMERIC" -> decimal(column, context);
+            case "FLOAT", "DOUBLE", "REAL" -> Math.round(context.random().nextDouble(MAX_VALUE) * 100) / 100.0;
+            default -> context.random().nextLong(MAX_VALUE + 1);
+        };
+    }
+
+    private static BigDecimal decimal(Column column, ColumnGeneratorContext context) {
+        List<String> arguments = column.getTypeArguments();
+        int precision = 10;
+        int scale = 0;
+        try {
+            if(!arguments.isEmpty()){
+                precision = Integer.parseInt(arguments.get(0));
+            }
+            if(arguments.size() > 1){
+                scale = Integer.parseInt(arguments.get(1));
+            }
+        } catch (NumberFormatException e) {
+            // Keep the defaults for unusual arguments.
+        }
+
+        double max = Math.min(Math.pow(10, Math.max(0, precision - scale)), MAX_VALUE);
+        return BigDecimal.valueOf(context.random().nextDouble(max)).setScale(scale, RoundingMode.DOWN);
+    }
+}
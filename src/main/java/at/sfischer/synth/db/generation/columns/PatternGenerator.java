@@ -0,0 +1,321 @@
+package at.sfischer.synth.db.generation.columns;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+/**
+ * Generates random strings matching a regular expression.
+ * <p>
+ * The expression is parsed once into a tree of nodes, so generating a value only walks the tree.
+ * Supported are literals, escaped characters, {@code .}, the classes {@code \d}, {@code \w} and
+ * {@code \s}, character classes such as {@code [A-Za-z0-9_-]}, groups with alternatives
+ * {@code (a|b)} and the quantifiers {@code ?}, {@code *}, {@code +}, {@code {n}}, {@code {n,}} and
+ * {@code {n,m}}. Unbounded quantifiers repeat at most {@value #MAX_UNBOUNDED_REPEAT} times more than
+ * their minimum. Anchors are ignored, everything else, e.g. negated classes or lookarounds, is rejected.
+ * </p>
+ * <p>
+ * Expressions come from the LLM, so counts above {@value #MAX_REPEAT} and expressions that can
+ * generate strings longer than {@value #MAX_LENGTH} characters, e.g. through nested quantifiers,
+ * are rejected instead of allocating huge strings.
+ * </p>
+ */
+class PatternGenerator {
+
+    static final int MAX_UNBOUNDED_REPEAT = 8;
+
+    static final int MAX_REPEAT = 1000;
+
+    static final int MAX_LENGTH = 10_000;
+
+    private static final String DIGITS = "0123456789";
+
+    private static final String WORD = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789_";
+
+    private static final String ANY = WORD + " -.";
+
+    private interface Node {
+        void append(StringBuilder sb, RandomGenerator random);
+
+        /**
+         * Returns the maximum length of the strings generated by this node, capped at {@code MAX_LENGTH + 1}.
+         */
+        long maxLength();
+    }
+
+    private record Literal(char c) implements Node {
+        @Override
+        public void append(StringBuilder sb, RandomGenerator random) {
+            sb.append(c);
+        }
+
+        @Override
+        public long maxLength() {
+            return 1;
+        }
+    }
+
+    private record CharacterClass(String characters) implements Node {
+        @Override
+        public void append(StringBuilder sb, RandomGenerator random) {
+            sb.append(characters.charAt(random.nextInt(characters.length())));
+        }
+
+        @Override
+        public long maxLength() {
+            return 1;
+        }
+    }
+
+    private record Sequence(List<Node> nodes) implements Node {
+        @Override
+        public void append(StringBuilder sb, RandomGenerator random) {
+            for (Node node : nodes) {
+                node.append(sb, random);
+            }
+        }
+
+        @Override
+        public long maxLength() {
+            long length = 0;
+            for (Node node : nodes) {
+                length = Math.min(MAX_LENGTH + 1, length + node.maxLength());
+            }
+            return length;
+        }
+    }
+
+    private record Alternatives(List<Node> alternatives) implements Node {
+        @Override
+        public void append(StringBuilder sb, RandomGenerator random) {
+            alternatives.get(random.nextInt(alternatives.size())).append(sb, random);
+        }
+
+        @Override
+        public long maxLength() {
+            long length = 0;
+            for (Node alternative : alternatives) {
+                length = Math.max(length, alternative.maxLength());
+            }
+            return length;
+        }
+    }
+
+    private record Repeat(Node node, int min, int max) implements Node {
+        @Override
+        public void append(StringBuilder sb, RandomGenerator random) {
+            int count = min == max ? min : random.nextInt(min, max + 1);
+            for (int i = 0; i < count; i++) {
+                node.append(sb, random);
+            }
+        }
+
+        @Override
+        public long maxLength() {
+            return Math.min(MAX_LENGTH + 1, node.maxLength() * max);
+        }
+    }
+
+    private final String pattern;
+
+    private final Node root;
+
+    private int position;
+
+    /**
+     * Parses a regular expression.
+     *
+     * @param pattern the regular expression
+     * @throws IllegalArgumentException if the expression is invalid or uses unsupported constructs
+     */
+    PatternGenerator(String pattern) {
+        this.pattern = pattern;
+        this.root = parseAlternatives();
+        if(position < pattern.length()){
+            throw error("Unexpected character '" + pattern.charAt(position) + "'");
+        }
+        if(root.maxLength() > MAX_LENGTH){
+            throw new IllegalArgumentException("Pattern generates values longer than " + MAX_LENGTH + " characters: " + pattern);
+        }
+    }
+
+    /**
+     * Generates a random string matching the expression.
+     *
+     * @param random the source of randomness
+     * @return the generated string
+     */
+    String generate(RandomGenerator random) {
+        StringBuilder sb = new StringBuilder();
+        root.append(sb, random);
+        return sb.toString();
+    }
+
+    private Node parseAlternatives() {
+        List<Node> alternatives = new ArrayList<>();
+        alternatives.add(parseSequence());
+        while (position < pattern.length() && pattern.charAt(position) == '|') {
+            position++;
+            alternatives.add(parseSequence());
+        }
+        return alternatives.size() == 1 ? alternatives.getFirst() : new Alternatives(alternatives);
+    }
+
+    private Node parseSequence() {
+        List<Node> nodes = new ArrayList<>();
+        while (position < pattern.length()) {
+            char c = pattern.charAt(position);
+            if(c == '|' || c == ')'){
+                break;
+            }
+            if(c == '^' || c == '$'){
+                position++;
+                continue;
+            }
+            nodes.add(parseQuantifier(parseAtom()));
+        }
+        return nodes.size() == 1 ? nodes.getFirst() : new Sequence(nodes);
+    }
+
+    private Node parseAtom() {
+        char c = pattern.charAt(position++);
+        switch (c) {
+            case '(' -> {
+                if(pattern.startsWith("?:", position)){
+                    position += 2;
+                } else if(position < pattern.length() && pattern.charAt(position) == '?'){
+                    throw error("Unsupported group");
+                }
+                Node group = parseAlternatives();
+                if(position >= pattern.length() || pattern.charAt(position) != ')'){
+                    throw error("Unclosed group");
+                }
+                position++;
+                return group;
+            }
+            case '[' -> {
+                return parseClass();
+            }
+            case '\\' -> {
+                return new CharacterClass(parseEscape());
+            }
+            case '.' -> {
+                return new CharacterClass(ANY);
+            }
+            case '*', '+', '?', '{' -> throw error("Dangling quantifier");
+            default -> {
+                return new Literal(c);
+            }
+        }
+    }
+
+    private String parseEscape() {
+        if(position >= pattern.length()){
+            throw error("Incomplete escape");
+        }
+        char c = pattern.charAt(position++);
+        return switch (c) {
+            case 'd' -> DIGITS;
+            case 'w' -> WORD;
+            case 's' -> " ";
+            case 't' -> "\t";
+            case 'n' -> "\n";
+            default -> {
+                if(Character.isLetterOrDigit(c)){
+                    throw error("Unsupported escape \\" + c);
+                }
+                yield String.valueOf(c);
+            }
+        };
+    }
+
+    private Node parseClass() {
+        if(position < pattern.length() && pattern.charAt(position) == '^'){
+            throw error("Negated character classes are not supported");
+        }
+
+        StringBuilder characters = new StringBuilder();
+        boolean first = true;
+        while (position < pattern.length() && (pattern.charAt(position) != ']' || first)) {
+            first = false;
+            char c = pattern.charAt(position++);
+            if(c == '\\'){
+                characters.append(parseEscape());
+                continue;
+            }
+            if(position + 1 < pattern.length() && pattern.charAt(position) == '-' && pattern.charAt(position + 1) != ']'){
+                char end = pattern.charAt(position + 1);
+                if(end < c){
+                    throw error("Invalid range " + c + "-" + end);
+                }
+                for (char range = c; range <= end; range++) {
+                    characters.append(range);
+                }
+                position += 2;
+                continue;
+            }
+            characters.append(c);
+        }
+        if(position >= pattern.length()){
+            throw error("Unclosed character class");
+        }
+        position++;
+        if(characters.isEmpty()){
+            throw error("Empty character class");
+        }
+        return new CharacterClass(characters.toString());
+    }
+
+    private Node parseQuantifier(Node node) {
+        if(position >= pattern.length()){
+            return node;
+        }
+
+        int min;
+        int max;
+        char c = pattern.charAt(position);
+        switch (c) {
+            case '?' -> { min = 0; max = 1; position++; }
+            case '*' -> { min = 0; max = MAX_UNBOUNDED_REPEAT; position++; }
+            case '+' -> { min = 1; max = 1 + MAX_UNBOUNDED_REPEAT; position++; }
+            case '{' -> {
+                int end = pattern.indexOf('}', position);
+                if(end < 0){
+                    throw error("Unclosed quantifier");
+                }
+                String[] bounds = pattern.substring(position + 1, end).split(",", -1);
+                try {
+                    min = Integer.parseInt(bounds[0].trim());
+                    if(bounds.length == 1){
+                        max = min;
+                    } else if(bounds[1].isBlank()){
+                        max = min + MAX_UNBOUNDED_REPEAT;
+                    } else {
+                        max = Integer.parseInt(bounds[1].trim());
+                    }
+                } catch (NumberFormatException e) {
+                    throw error("Invalid quantifier");
+                }
+                if(bounds.length > 2 || min < 0 || max < min){
+                    throw error("Invalid quantifier");
+                }
+                if(max > MAX_REPEAT){
+                    throw error("Quantifier exceeds " + MAX_REPEAT + " repetitions");
+                }
+                position = end + 1;
+            }
+            default -> {
+                return node;
+            }
+        }
+        // Lazy and possessive modifiers do not change the generated strings.
+        if(position < pattern.length() && (pattern.charAt(position) == '?' || pattern.charAt(position) == '+')){
+            position++;
+        }
+        return new Repeat(node, min, max);
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(message + " at index " + position + " of pattern: " + pattern);
+    }
+}
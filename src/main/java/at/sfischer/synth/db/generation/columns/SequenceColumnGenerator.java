@@ -0,0 +1,20 @@
+package at.sfischer.synth.db.generation.columns;
+
+import at.sfischer.synth.db.model.Column;
+
+/**
+ * Generates consecutive values for integer primary key and unique columns that are not auto-incremented.
+ */
+public class SequenceColumnGenerator implements ColumnGenerator {
+
+    @Override
+    public boolean supports(Column column) {
+        return ColumnGenerators.isInteger(column) && !ColumnGenerators.isTinyIntBoolean(column)
+                && (column.isPrimaryKey() || column.isUnique());
+    }
+
+    @Override
+    public Object generate(Column column, ColumnGeneratorContext context) {
+        return context.rowIndex() + 1;
+    }
+}
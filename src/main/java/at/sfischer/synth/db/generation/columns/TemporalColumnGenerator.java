@@ -0,0 +1,45 @@
+package at.sfischer.synth.db.generation.columns;
+
+import at.sfischer.synth.db.model.Column;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Generates random dates, times and timestamps within the last five years.
+ * <p>
+ * Values are strings in ISO format, {@code yyyy-MM-dd}, {@code HH:mm:ss} and
+ * {@code yyyy-MM-dd HH:mm:ss}, which all supported databases accept. {@code YEAR} values are integers.
+ * </p>
+ */
+public class TemporalColumnGenerator implements ColumnGenerator {
+
+    private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private static final int YEARS = 5;
+
+    @Override
+    public boolean supports(Column column) {
+        return switch (ColumnGenerators.getBaseType(column)) {
+            case "DATE", "TIME", "DATETIME", "TIMESTAMP", "YEAR" -> true;
+            default -> false;
+        };
+    }
+
+    @Override
+    public Object generate(Column column, ColumnGeneratorContext context) {
+        LocalDateTime end = LocalDate.now().atStartOfDay();
+        LocalDateTime start = end.minusYears(YEARS);
+        long seconds = ChronoUnit.SECONDS.between(start, end);
+        LocalDateTime value = start.plusSeconds(context.random().nextLong(seconds));
+        return switch (ColumnGenerators.getBaseType(column)) {
+            case "DATE" -> value.toLocalDate().toString();
+            case "TIME" -> value.toLocalTime().withNano(0).format(DateTimeFormatter.ISO_LOCAL_TIME);
+            case "YEAR" -> (long) value.getYear();
+            default -> value.format(TIMESTAMP_FORMAT);
+        };
+    }
+}
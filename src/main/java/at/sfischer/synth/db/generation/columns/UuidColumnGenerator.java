@@ -0,0 +1,49 @@
+package at.sfischer.synth.db.generation.columns;
+
+import at.sfischer.synth.db.model.Column;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * Generates random version 4 UUIDs for {@code UUID} and {@code UNIQUEIDENTIFIER} columns, and for
+ * character columns of at least 36 characters whose name contains {@code uuid} or {@code guid}.
+ */
+public class UuidColumnGenerator implements ColumnGenerator {
+
+    private static final int UUID_LENGTH = 36;
+
+    @Override
+    public boolean supports(Column column) {
+        return switch (ColumnGenerators.getBaseType(column)) {
+            case "UUID", "UNIQUEIDENTIFIER" -> true;
+            case "CHAR", "VARCHAR" -> hasUuidName(column) && hasUuidLength(column);
+            default -> false;
+        };
+    }
+
+    @Override
+    public Object generate(Column column, ColumnGeneratorContext context) {
+        long mostSignificantBits = context.random().nextLong();
+        long leastSignificantBits = context.random().nextLong();
+        // Set version 4 and the IETF variant.
+        mostSignificantBits = (mostSignificantBits & ~0xF000L) | 0x4000L;
+        leastSignificantBits = (leastSignificantBits & ~(0xC000L << 48)) | (0x8000L << 48);
+        return new UUID(mostSignificantBits, leastSignificantBits).toString();
+    }
+
+    private static boolean hasUuidName(Column column) {
+        String name = column.getName().toLowerCase(Locale.ROOT);
+        return name.contains("uuid") || name.contains("guid");
+    }
+
+    private static boolean hasUuidLength(Column column) {
+        List<String> arguments = column.getTypeArguments();
+        try {
+            return !arguments.isEmpty() && Integer.parseInt(arguments.getFirst()) >= UUID_LENGTH;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package at.sfischer.synth.db.generation.mock;
+
+import at.sfischer.synth.db.generation.values.InsertDataGeneration;
+import at.sfischer.synth.db.model.Column;
+import at.sfischer.synth.db.model.Table;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+/**
+ * Implementation of {@link InsertDataGeneration} that synthesizes rows locally instead of
+ * calling an LLM, for testing and benchmarking without an LLM server.
+ * <p>
+ * Rows are synthesized by a {@link MockRowSynthesizer}. Latencies are simulated by sleeping
+ * on the executing thread. Like the LLM based implementations, failed requests return no rows
+ * when called synchronously and complete the future exceptionally when streamed.
+ * </p>
+ */
+public class InsertDataGenerationStub implements InsertDataGeneration {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(InsertDataGenerationStub.class);
+
+    private final MockRowSynthesizer synthesizer;
+
+    /**
+     * Constructs a new stub with default settings, i.e. without latency and failures.
+     */
+    public InsertDataGenerationStub() {
+        this(new MockLlmSettings());
+    }
+
+    /**
+     * Constructs a new stub.
+     *
+     * @param settings the settings controlling latencies, failures and malformed rows
+     */
+    public InsertDataGenerationStub(MockLlmSettings settings) {
+        this.synthesizer = new MockRowSynthesizer(settings);
+    }
+
+    @Override
+    public String generateInsertStatement(Table table, long rowCount, List<Map<Column, Object>> exampleValues, Map<Table, List<Map<Column, Object>>> dependentTableValues) {
+        List<String> rows = generateRows(table, rowCount, 1, exampleValues, dependentTableValues);
+        return rows.isEmpty() ? "" : rows.getFirst();
+    }
+
+    @Override
+    public List<String> generateRows(Table table, long rowCount, int batchSize, List<Map<Column, Object>> exampleValues, Map<Table, List<Map<Column, Object>>> dependentTableValues) {
+        if(!sleep(synthesizer.nextLatency())){
+            return List.of();
+        }
+        if(synthesizer.nextRequestFails()){
+            LOGGER.debug("Simulated insert statement generation failure.");
+            return List.of();
+        }
+
+        List<String> rows = synthesizer.synthesize(table, rowCount, batchSize, dependentTableValues);
+        for (int i = 0; i < rows.size(); i++) {
+            if(!sleep(synthesizer.nextRowLatency())){
+                return List.of();
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Generates rows like {@link #generateRows} on the given executor, but passes on every
+     * row as soon as its simulated row latency has passed.
+     */
+    @Override
+    public CompletableFuture<Void> streamRows(Table table, long rowCount, int batchSize, List<Map<Column, Object>> exampleValues, Map<Table, List<Map<Column, Object>>> dependentTableValues, Executor executor, Consumer<String> rowConsumer) {
+        return CompletableFuture.runAsync(() -> {
+            if(!sleep(synthesizer.nextLatency())){
+                return;
+            }
+            if(synthesizer.nextRequestFails()){
+                throw new IllegalStateException("Simulated insert statement generation failure.");
+            }
+
+            for (String row : synthesizer.synthesize(table, rowCount, batchSize, dependentTableValues)) {
+                if(!sleep(synthesizer.nextRowLatency())){
+                    return;
+                }
+                rowConsumer.accept(row);
+            }
+        }, executor);
+    }
+
+    private static boolean sleep(Duration duration) {
+        if(duration.isZero() || duration.isNegative()){
+            return true;
+        }
+
+        try {
+            Thread.sleep(duration);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package at.sfischer.synth.db.generation.mock;
+
+import java.time.Duration;
+import java.util.Random;
+
+/**
+ * Distribution of simulated response latencies of a mock LLM.
+ */
+@FunctionalInterface
+public interface LatencyDistribution {
+
+    /**
+     * A distribution without any latency.
+     */
+    LatencyDistribution NONE = constant(Duration.ZERO);
+
+    /**
+     * Samples the next latency.
+     *
+     * @param random the source of randomness
+     * @return the sampled latency, never negative
+     */
+    Duration next(Random random);
+
+    /**
+     * Returns a distribution that always yields the same latency.
+     *
+     * @param latency the latency
+     * @return the distribution
+     */
+    static LatencyDistribution constant(Duration latency) {
+        return _ -> latency;
+    }
+
+    /**
+     * Returns a distribution of latencies uniformly distributed between {@code min} and {@code max}.
+     *
+     * @param min the minimum latency
+     * @param max the maximum latency
+     * @return the distribution
+     */
+    static LatencyDistribution uniform(Duration min, Duration max) {
+        long minNanos = min.toNanos();
+        long maxNanos = max.toNanos();
+        if(maxNanos < minNanos){
+            throw new IllegalArgumentException("Maximum latency must not be smaller than minimum latency.");
+        }
+        return random -> Duration.ofNanos(minNanos + (long) (random.nextDouble() * (maxNanos - minNanos)));
+    }
+
+    /**
+     * Returns an exponential distribution of latencies with the given mean.
+     *
+     * @param mean the mean latency
+     * @return the distribution
+     */
+    static LatencyDistribution exponential(Duration mean) {
+        long meanNanos = mean.toNanos();
+        return random -> Duration.ofNanos((long) (-Math.log(1.0 - random.nextDouble()) * meanNanos));
+    }
+
+    /**
+     * Returns a log-normal distribution of latencies, which resembles the long tail
+     * of response times of real LLM servers.
+     *
+     * @param median the median latency
+     * @param sigma the standard deviation of the logarithm of the latency
+     * @return the distribution
+     */
+    static LatencyDistribution logNormal(Duration median, double sigma) {
+        long medianNanos = median.toNanos();
+        return random -> Duration.ofNanos((long) (medianNanos * Math.exp(sigma * random.nextGaussian())));
+    }
+}
@@ -0,0 +1,375 @@
+package at.sfischer.synth.db.generation.mock;
+
+import at.sfischer.synth.db.model.Column;
+import at.sfischer.synth.db.model.DBSchema;
+import at.sfischer.synth.db.model.Row;
+import at.sfischer.synth.db.model.Table;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import net.sf.jsqlparser.JSQLParserException;
+import net.sf.jsqlparser.parser.CCJSqlParserUtil;
+import net.sf.jsqlparser.statement.create.table.CreateTable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * An in-process HTTP server that imitates an LLM server for testing and benchmarking.
+ * <p>
+ * The server answers Ollama chat requests on {@code /api/chat}, including streaming requests,
+ * and OpenAI chat completion requests with tool calls on {@code /v1/chat/completions}.
+ * The table to generate rows for, the number of requested rows and the values of referenced
+ * tables are read from the user message created by
+ * {@link at.sfischer.synth.db.generation.values.InsertDataGeneration#generateUserMessage}.
+ * The {@code CREATE TABLE} statement of the message may only contain some of the columns of
+ * the schema table, e.g. if the other columns are generated locally, and rows are then only
+ * synthesized for these columns.
+ * Rows are synthesized by a {@link MockRowSynthesizer}, so they are valid for the given schema
+ * apart from the configured share of malformed rows. Failed requests are answered with status 500.
+ * </p>
+ */
+public class MockLlmServer implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MockLlmServer.class);
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    private static final Pattern ROW_COUNT = Pattern.compile("There are already (\\d+) rows in the table\\.");
+
+    private static final Pattern BATCH_SIZE = Pattern.compile("Generate (\\d+) new rows");
+
+    private static final Pattern CREATE_TABLE = Pattern.compile("```\\s*(CREATE TABLE .*?)\\s*```", Pattern.DOTALL | Pattern.CASE_INSENSITIVE);
+
+    private static final int STREAM_CHUNK_SIZE = 16;
+
+    private final DBSchema schema;
+
+    private final MockRowSynthesizer synthesizer;
+
+    private final HttpServer server;
+
+    private final ExecutorService executor;
+
+    private final AtomicLong requestCount = new AtomicLong();
+
+    private final Map<String, Table> promptTables = new ConcurrentHashMap<>();
+
+    private record Request(String model, Table table, long rowCount, int batchSize, Map<Table, List<Map<Column, Object>>> dependentTableValues) {
+    }
+
+    /**
+     * Starts a new server on a free port of the loopback interface.
+     *
+     * @param schema the schema of the tables rows are requested for
+     * @param settings the settings controlling latencies, failures and malformed rows
+     * @throws IOException if the server cannot be started
+     */
+    public MockLlmServer(DBSchema schema, MockLlmSettings settings) throws IOException {
+        this.schema = schema;
+        this.synthesizer = new MockRowSynthesizer(settings);
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        this.server.setExecutor(executor);
+        this.server.createContext("/api/chat", exchange -> handle(exchange, this::handleOllama));
+        this.server.createContext("/v1/chat/completions", exchange -> handle(exchange, this::handleOpenAI));
+        this.server.start();
+    }
+
+    /**
+     * Returns the URL of the Ollama chat endpoint of this server.
+     *
+     * @return the Ollama chat URL
+     */
+    public String getOllamaUrl() {
+        return "http://" + getAddress() + "/api/chat";
+    }
+
+    /**
+     * Returns the base URL of the OpenAI API of this server.
+     *
+     * @return the OpenAI base URL
+     */
+    public String getOpenAIUrl() {
+        return "http://" + getAddress() + "/v1";
+    }
+
+    /**
+     * Returns the number of requests received so far.
+     *
+     * @return the number of requests
+     */
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    private String getAddress() {
+        InetSocketAddress address = server.getAddress();
+        return address.getHostString() + ":" + address.getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        void handle(HttpExchange exchange, JsonNode body) throws IOException, InterruptedException;
+    }
+
+    private void handle(HttpExchange exchange, Handler handler) throws IOException {
+        requestCount.incrementAndGet();
+        try {
+            JsonNode body;
+            try (InputStream in = exchange.getRequestBody()) {
+                body = mapper.readTree(in);
+            }
+
+            sleep(synthesizer.nextLatency());
+            if(synthesizer.nextRequestFails()){
+                send(exchange, 500, "{\"error\":{\"message\":\"Simulated failure\",\"type\":\"server_error\"}}");
+                return;
+            }
+
+            handler.handle(exchange, body);
+        } catch (IOException e) {
+            LOGGER.debug("Mock LLM request aborted.", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            LOGGER.warn("Mock LLM request failed.", e);
+            send(exchange, 400, "{\"error\":{\"message\":" + mapper.writeValueAsString(String.valueOf(e.getMessage())) + "}}");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handleOllama(HttpExchange exchange, JsonNode body) throws IOException, InterruptedException {
+        Request request = readRequest(body);
+        boolean multiRow = body.path("format").path("properties").has("queries");
+        List<String> rows = synthesizer.synthesize(request.table(), request.rowCount(), multiRow ? request.batchSize() : 1, request.dependentTableValues());
+
+        if(!body.path("stream").asBoolean(true)){
+            for (int i = 0; i < rows.size(); i++) {
+                sleep(synthesizer.nextRowLatency());
+            }
+            ObjectNode response = ollamaChunk(request.model(), content(rows, multiRow), true);
+            send(exchange, 200, mapper.writeValueAsString(response));
+            return;
+        }
+
+        exchange.getResponseHeaders().add("Content-Type", "application/x-ndjson");
+        exchange.sendResponseHeaders(200, 0);
+        OutputStream out = exchange.getResponseBody();
+        streamContent(out, request.model(), multiRow ? "{\"queries\":[" : "{\"query\":");
+        for (int i = 0; i < rows.size(); i++) {
+            sleep(synthesizer.nextRowLatency());
+            streamContent(out, request.model(), (i > 0 ? "," : "") + mapper.writeValueAsString(rows.get(i)));
+        }
+        streamContent(out, request.model(), multiRow ? "]}" : "}");
+        writeLine(out, ollamaChunk(request.model(), "", true));
+    }
+
+    private void streamContent(OutputStream out, String model, String content) throws IOException {
+        for (int i = 0; i < content.length(); i += STREAM_CHUNK_SIZE) {
+            writeLine(out, ollamaChunk(model, content.substring(i, Math.min(content.length(), i + STREAM_CHUNK_SIZE)), false));
+        }
+    }
+
+    private static void writeLine(OutputStream out, JsonNode node) throws IOException {
+        out.write(mapper.writeValueAsBytes(node));
+        out.write('\n');
+        out.flush();
+    }
+
+    private static ObjectNode ollamaChunk(String model, String content, boolean done) {
+        ObjectNode chunk = mapper.createObjectNode();
+        chunk.put("model", model);
+        chunk.put("created_at", Instant.now().toString());
+        chunk.putObject("message")
+                .put("role", "assistant")
+                .put("content", content);
+        chunk.put("done", done);
+        return chunk;
+    }
+
+    private void handleOpenAI(HttpExchange exchange, JsonNode body) throws IOException, InterruptedException {
+        Request request = readRequest(body);
+        JsonNode function = body.path("tools").path(0).path("function");
+        boolean multiRow = function.path("parameters").path("properties").has("queries");
+        List<String> rows = synthesizer.synthesize(request.table(), request.rowCount(), multiRow ? request.batchSize() : 1, request.dependentTableValues());
+        for (int i = 0; i < rows.size(); i++) {
+            sleep(synthesizer.nextRowLatency());
+        }
+
+        ObjectNode response = mapper.createObjectNode();
+        response.put("id", "chatcmpl-mock-" + requestCount.get());
+        response.put("object", "chat.completion");
+        response.put("created", Instant.now().getEpochSecond());
+        response.put("model", request.model());
+        ObjectNode choice = response.putArray("choices").addObject();
+        choice.put("index", 0);
+        choice.put("finish_reason", "tool_calls");
+        choice.putNull("logprobs");
+        ObjectNode message = choice.putObject("message");
+        message.put("role", "assistant");
+        message.putNull("content");
+        message.putNull("refusal");
+        ObjectNode toolCall = message.putArray("tool_calls").addObject();
+        toolCall.put("id", "call-mock-" + requestCount.get());
+        toolCall.put("type", "function");
+        toolCall.putObject("function")
+                .put("name", function.path("name").asText())
+                .put("arguments", content(rows, multiRow));
+
+        send(exchange, 200, mapper.writeValueAsString(response));
+    }
+
+    private static String content(List<String> rows, boolean multiRow) throws IOException {
+        ObjectNode content = mapper.createObjectNode();
+        if(multiRow){
+            ArrayNode queries = content.putArray("queries");
+            rows.forEach(queries::add);
+        } else {
+            content.put("query", rows.getFirst());
+        }
+        return mapper.writeValueAsString(content);
+    }
+
+    private Request readRequest(JsonNode body) {
+        String userMessage = "";
+        for (JsonNode message : body.path("messages")) {
+            if("user".equals(message.path("role").asText())){
+                userMessage = message.path("content").asText();
+            }
+        }
+
+        Matcher createTable = CREATE_TABLE.matcher(userMessage);
+        if(!createTable.find()){
+            throw new IllegalArgumentException("User message does not contain a CREATE TABLE statement.");
+        }
+        Table table = promptTables.computeIfAbsent(createTable.group(1), this::readPromptTable);
+
+        Matcher rowCount = ROW_COUNT.matcher(userMessage);
+        Matcher batchSize = BATCH_SIZE.matcher(userMessage);
+        return new Request(
+                body.path("model").asText(),
+                table,
+                rowCount.find() ? Long.parseLong(rowCount.group(1)) : 0,
+                batchSize.find() ? Integer.parseInt(batchSize.group(1)) : 1,
+                readDependentTableValues(userMessage)
+        );
+    }
+
+    /**
+     * Parses the {@code CREATE TABLE} statement of a prompt and projects the schema table of the
+     * same name to the columns of the statement, so the columns keep their foreign key references.
+     * Projections are cached, so the row sequences of {@link MockRowSynthesizer} are kept per table.
+     */
+    private Table readPromptTable(String createTableStatement) {
+        Table promptTable;
+        try {
+            if(!(CCJSqlParserUtil.parse(createTableStatement) instanceof CreateTable createTable)){
+                throw new IllegalArgumentException("User message does not contain a CREATE TABLE statement.");
+            }
+            promptTable = new Table(createTable);
+        } catch (JSQLParserException e) {
+            throw new IllegalArgumentException("Invalid CREATE TABLE statement in user message.", e);
+        }
+        Table table = schema.getTable(promptTable.getName());
+        if(table == null){
+            throw new IllegalArgumentException("User message does not contain a table of the schema: " + promptTable.getName());
+        }
+
+        List<Column> columns = new ArrayList<>();
+        for (Column column : promptTable.getColumns()) {
+            Column schemaColumn = table.getColumn(column.getName());
+            if(schemaColumn == null){
+                throw new IllegalArgumentException("Table " + table.getName() + " has no column: " + column.getName());
+            }
+            columns.add(schemaColumn);
+        }
+        return columns.size() == table.getColumnCount() ? table : table.project(columns);
+    }
+
+    /**
+     * Reads the values of the tables following a {@code Table: <name>} line, in the Markdown
+     * table format of {@link at.sfischer.synth.db.generation.values.InsertDataGeneration#generateTableValues}.
+     */
+    private Map<Table, List<Map<Column, Object>>> readDependentTableValues(String userMessage) {
+        Map<Table, List<Map<Column, Object>>> values = new LinkedHashMap<>();
+        Table table = null;
+        List<Column> header = null;
+        for (String line : userMessage.split("\n")) {
+            if(line.startsWith("Table: ")){
+                table = schema.getTable(line.substring("Table: ".length()).trim());
+                header = null;
+                continue;
+            }
+            if(table == null || !line.startsWith("|")){
+                continue;
+            }
+
+            String[] cells = line.substring(1).split("\\|", -1);
+            if(header == null){
+                header = new ArrayList<>();
+                for (int i = 0; i < cells.length - 1; i++) {
+                    header.add(table.getColumn(cells[i].trim()));
+                }
+                continue;
+            }
+            if(cells[0].trim().equals("---")){
+                continue;
+            }
+
+            Row row = new Row(table);
+            for (int i = 0; i < header.size() && i < cells.length; i++) {
+                String value = cells[i].trim();
+                if(header.get(i) != null && !value.isEmpty()){
+                    row.put(header.get(i), value);
+                }
+            }
+            values.computeIfAbsent(table, _ -> new ArrayList<>()).add(row);
+        }
+        return values;
+    }
+
+    private static void send(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static void sleep(Duration duration) throws InterruptedException {
+        if(!duration.isZero() && !duration.isNegative()){
+            Thread.sleep(duration);
+        }
+    }
+}
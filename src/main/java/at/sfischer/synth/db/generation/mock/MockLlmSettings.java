@@ -0,0 +1,130 @@
+package at.sfischer.synth.db.generation.mock;
+
+/**
+ * Settings controlling the simulated behavior of {@link MockLlmServer} and {@link InsertDataGenerationStub}.
+ * <p>
+ * All setters return this instance, so settings can be configured in a chained manner:
+ * {@code new MockLlmSettings().setLatency(LatencyDistribution.exponential(Duration.ofMillis(200))).setErrorRate(0.05)}.
+ * </p>
+ */
+public class MockLlmSettings {
+
+    private LatencyDistribution latency = LatencyDistribution.NONE;
+
+    private LatencyDistribution rowLatency = LatencyDistribution.NONE;
+
+    private double errorRate = 0;
+
+    private double malformedRate = 0;
+
+    private long seed = 0;
+
+    /**
+     * Returns the distribution of the latency until the first row of a response is available.
+     *
+     * @return the request latency distribution
+     */
+    public LatencyDistribution getLatency() {
+        return latency;
+    }
+
+    /**
+     * Sets the distribution of the latency until the first row of a response is available.
+     *
+     * @param latency the request latency distribution
+     * @return this settings instance
+     */
+    public MockLlmSettings setLatency(LatencyDistribution latency) {
+        this.latency = latency;
+        return this;
+    }
+
+    /**
+     * Returns the distribution of the additional latency of every generated row.
+     *
+     * @return the row latency distribution
+     */
+    public LatencyDistribution getRowLatency() {
+        return rowLatency;
+    }
+
+    /**
+     * Sets the distribution of the additional latency of every generated row.
+     *
+     * @param rowLatency the row latency distribution
+     * @return this settings instance
+     */
+    public MockLlmSettings setRowLatency(LatencyDistribution rowLatency) {
+        this.rowLatency = rowLatency;
+        return this;
+    }
+
+    /**
+     * Returns the probability that a request fails.
+     *
+     * @return the error rate between 0 and 1
+     */
+    public double getErrorRate() {
+        return errorRate;
+    }
+
+    /**
+     * Sets the probability that a request fails.
+     *
+     * @param errorRate the error rate between 0 and 1
+     * @return this settings instance
+     * @throws IllegalArgumentException if {@code errorRate} is not between 0 and 1
+     */
+    public MockLlmSettings setErrorRate(double errorRate) {
+        if(errorRate < 0 || errorRate > 1){
+            throw new IllegalArgumentException("Error rate must be between 0 and 1.");
+        }
+        this.errorRate = errorRate;
+        return this;
+    }
+
+    /**
+     * Returns the probability that a generated row is malformed and cannot be parsed.
+     *
+     * @return the malformed output rate between 0 and 1
+     */
+    public double getMalformedRate() {
+        return malformedRate;
+    }
+
+    /**
+     * Sets the probability that a generated row is malformed and cannot be parsed.
+     *
+     * @param malformedRate the malformed output rate between 0 and 1
+     * @return this settings instance
+     * @throws IllegalArgumentException if {@code malformedRate} is not between 0 and 1
+     */
+    public MockLlmSettings setMalformedRate(double malformedRate) {
+        if(malformedRate < 0 || malformedRate > 1){
+            throw new IllegalArgumentException("Malformed rate must be between 0 and 1.");
+        }
+        this.malformedRate = malformedRate;
+        return this;
+    }
+
+    /**
+     * Returns the seed of the random number generator used for values, latencies and failures.
+     *
+     * @return the seed
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Sets the seed of the random number generator used for values, latencies and failures.
+     * With a single request in flight, equal seeds produce equal responses.
+     *
+     * @param seed the seed
+     * @return this settings instance
+     */
+    public MockLlmSettings setSeed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+}
@@ -0,0 +1,204 @@
+package at.sfischer.synth.db.generation.mock;
+
+import at.sfischer.synth.db.model.Column;
+import at.sfischer.synth.db.model.Table;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Synthesizes single row SQL INSERT statements from a {@link Table} definition, as a stand-in
+ * for the output of an LLM.
+ * <p>
+ * Values are chosen based on the column types. Primary key and unique columns receive values
+ * from a sequence per table, foreign key columns receive values of the given dependent tables
+ * and auto-increment columns are omitted. The simulated latencies, failures and malformed rows
+ * are controlled by {@link MockLlmSettings}. This class is thread-safe.
+ * </p>
+ */
+public class MockRowSynthesizer {
+
+    private static final LocalDate FIRST_DATE = LocalDate.of(2000, 1, 1);
+
+    private final MockLlmSettings settings;
+
+    private final Random random;
+
+    private final Map<Table, AtomicLong> sequences = new HashMap<>();
+
+    /**
+     * Constructs a new synthesizer.
+     *
+     * @param settings the settings controlling latencies, failures and malformed rows
+     */
+    public MockRowSynthesizer(MockLlmSettings settings) {
+        this.settings = settings;
+        this.random = new Random(settings.getSeed());
+    }
+
+    /**
+     * Synthesizes single row SQL INSERT statements for the given table.
+     * Every statement is malformed with the configured probability.
+     *
+     * @param table the {@link Table} to generate rows for
+     * @param rowCount the current number of rows already present in the table
+     * @param batchSize the number of rows to generate
+     * @param dependentTableValues a map of referenced {@link Table}s to their example values,
+     *                             used for foreign key columns
+     * @return a list of {@code batchSize} single row SQL INSERT statements
+     */
+    public synchronized List<String> synthesize(Table table, long rowCount, int batchSize, Map<Table, List<Map<Column, Object>>> dependentTableValues) {
+        AtomicLong sequence = sequences.computeIfAbsent(table, _ -> new AtomicLong());
+        List<String> rows = new ArrayList<>(batchSize);
+        for (int i = 0; i < Math.max(1, batchSize); i++) {
+            long id = sequence.updateAndGet(value -> Math.max(value, rowCount) + 1);
+            String row = synthesizeRow(table, id, dependentTableValues);
+            if(random.nextDouble() < settings.getMalformedRate()){
+                row = row.substring(0, row.length() / 2);
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    /**
+     * Decides whether the next request fails.
+     *
+     * @return {@code true} with the configured error rate
+     */
+    public synchronized boolean nextRequestFails() {
+        return random.nextDouble() < settings.getErrorRate();
+    }
+
+    /**
+     * Samples the latency until the first row of the next response is available.
+     *
+     * @return the sampled latency
+     */
+    public synchronized Duration nextLatency() {
+        return settings.getLatency().next(random);
+    }
+
+    /**
+     * Samples the additional latency of the next generated row.
+     *
+     * @return the sampled latency
+     */
+    public synchronized Duration nextRowLatency() {
+        return settings.getRowLatency().next(random);
+    }
+
+    private String synthesizeRow(Table table, long id, Map<Table, List<Map<Column, Object>>> dependentTableValues) {
+        List<String> columns = new ArrayList<>();
+        List<String> values = new ArrayList<>();
+        for (Column column : table.getColumns()) {
+            if(column.isAutoIncrement()){
+                continue;
+            }
+
+            columns.add(column.getName());
+            if(column.getReference() != null){
+                values.add(referencedValue(column.getReference(), dependentTableValues));
+            } else {
+                values.add(value(column, id));
+            }
+        }
+
+        return "INSERT INTO " + table.getName() + " (" + String.join(", ", columns) + ") VALUES (" + String.join(", ", values) + ");";
+    }
+
+    private String referencedValue(Column reference, Map<Table, List<Map<Column, Object>>> dependentTableValues) {
+        List<Map<Column, Object>> rows = dependentTableValues == null ? null : dependentTableValues.get(reference.getTable());
+        if(rows == null || rows.isEmpty()){
+            return "NULL";
+        }
+
+        Object value = rows.get(random.nextInt(rows.size())).get(reference);
+        if(value == null){
+            return "NULL";
+        }
+        if(value instanceof Number || isNumeric(reference.getType().split("\\(")[0].trim())){
+            return value.toString();
+        }
+        return quote(value.toString());
+    }
+
+    private String value(Column column, long id) {
+        String type = column.getType().toUpperCase(Locale.ROOT);
+        if(type.indexOf('(') >= 0){
+            type = type.substring(0, type.indexOf('(')).trim();
+        }
+        boolean unique = column.isUnique() || column.isPrimaryKey();
+        List<String> arguments = column.getTypeArguments();
+
+        if(isNumeric(type)){
+            if(isInteger(type)){
+                return Long.toString(unique ? id : random.nextInt(1000));
+            }
+
+            int digits = 6;
+            if(arguments.size() >= 2){
+                try {
+                    digits = Math.min(digits, Integer.parseInt(arguments.get(0).trim()) - Integer.parseInt(arguments.get(1).trim()));
+                } catch (NumberFormatException _) {
+                }
+            }
+            double max = Math.pow(10, Math.max(0, digits)) - 1;
+            double value = unique ? id : random.nextDouble() * max;
+            return String.format(Locale.ROOT, "%.2f", Math.min(value, max));
+        }
+        if(type.startsWith("BOOL") || type.equals("BIT")){
+            return random.nextBoolean() ? "TRUE" : "FALSE";
+        }
+        if(type.equals("DATE")){
+            return quote(FIRST_DATE.plusDays(unique ? id : random.nextInt(9000)).toString());
+        }
+        if(type.equals("TIME")){
+            return quote(LocalTime.ofSecondOfDay(random.nextInt(86400)).toString());
+        }
+        if(type.startsWith("TIMESTAMP") || type.equals("DATETIME")){
+            return quote(FIRST_DATE.plusDays(unique ? id : random.nextInt(9000)) + " " + LocalTime.ofSecondOfDay(random.nextInt(86400)));
+        }
+        if(type.equals("ENUM") && !arguments.isEmpty()){
+            return arguments.get(random.nextInt(arguments.size())).trim();
+        }
+
+        String value = column.getName() + "_" + (unique ? id : random.nextInt(1000));
+        if(!arguments.isEmpty()){
+            try {
+                int length = Integer.parseInt(arguments.getFirst().trim());
+                if(value.length() > length){
+                    value = value.substring(value.length() - length);
+                }
+            } catch (NumberFormatException _) {
+            }
+        }
+        return quote(value);
+    }
+
+    private static boolean isInteger(String type) {
+        return type.contains("INT") || type.contains("SERIAL");
+    }
+
+    private static boolean isNumeric(String type) {
+        String upperType = type.toUpperCase(Locale.ROOT);
+        return isInteger(upperType)
+                || upperType.equals("DECIMAL")
+                || upperType.equals("NUMERIC")
+                || upperType.equals("FLOAT")
+                || upperType.startsWith("DOUBLE")
+                || upperType.equals("REAL");
+    }
+
+    private static String quote(String value) {
+        return "'" + value.replace("'", "''") + "'";
+    }
+}
@@ -4,17 +4,76 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
 
+/**
+ * Sends chat requests with structured output definitions to an Ollama server.
+ * <p>
+ * Instances can be configured with a connect timeout, a request timeout and the HTTP
+ * version to use. Requests are sent with {@link HttpClient#sendAsync}, so a single thread
+ * can keep many requests in flight. The static {@code callOllama} methods use a shared
+ * instance with default settings.
+ * </p>
+ */
 public class OllamaStructuredHelper {
 
-    private static final HttpClient client = HttpClient.newHttpClient();
     private static final ObjectMapper mapper = new ObjectMapper();
 
+    private static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(5);
+
+    private static final OllamaStructuredHelper DEFAULT = new OllamaStructuredHelper(null, DEFAULT_TIMEOUT, HttpClient.Version.HTTP_2);
+
+    private final HttpClient client;
+
+    private final Duration requestTimeout;
+
+    /**
+     * Constructs a new helper with its own {@link HttpClient}.
+     *
+     * @param connectTimeout the timeout for establishing connections, or {@code null} for no timeout
+     * @param requestTimeout the default timeout for a single request
+     * @param version the preferred HTTP version
+     */
+    public OllamaStructuredHelper(Duration connectTimeout, Duration requestTimeout, HttpClient.Version version) {
+        HttpClient.Builder builder = HttpClient.newBuilder().version(version);
+        if(connectTimeout != null){
+            builder.connectTimeout(connectTimeout);
+        }
+        this.client = builder.build();
+        this.requestTimeout = requestTimeout;
+    }
+
+    /**
+     * Returns a helper with default settings, shared by the static {@code callOllama} methods.
+     *
+     * @return the default helper
+     */
+    public static OllamaStructuredHelper getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Returns the default timeout for a single request.
+     *
+     * @return the request timeout
+     */
+    public Duration getRequestTimeout() {
+        return requestTimeout;
+    }
+
     public static JsonNode callOllama(
             String url,
             String model,
@@ -22,14 +81,263 @@ public class OllamaStructuredHelper {
             String userMessage,
             JsonNode formatDefinition
     ) throws IOException, InterruptedException {
+        return callOllama(url, model, systemPrompt, userMessage, formatDefinition, DEFAULT_TIMEOUT);
+    }
+
+    public static JsonNode callOllama(
+            String url,
+            String model,
+            String systemPrompt,
+            String userMessage,
+            JsonNode formatDefinition,
+            Duration timeout
+    ) throws IOException, InterruptedException {
+        try {
+            return DEFAULT.callAsync(url, model, systemPrompt, userMessage, formatDefinition, timeout).get();
+        } catch (ExecutionException e) {
+            if(e.getCause() instanceof IOException ioException){
+                throw ioException;
+            }
+            if(e.getCause() instanceof UncheckedIOException uncheckedIOException){
+                throw uncheckedIOException.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * Sends a chat request to Ollama without blocking the calling thread.
+     * <p>
+     * The returned future completes with the parsed structured content of the response message,
+     * or exceptionally if the request fails, times out or the server does not respond with status 200.
+     * </p>
+     *
+     * @param url the chat endpoint URL of the Ollama server
+     * @param model the model to use
+     * @param systemPrompt the system prompt
+     * @param userMessage the user message
+     * @param formatDefinition the JSON schema of the structured output
+     * @param timeout the timeout for this request
+     * @return a future completing with the structured content of the response
+     */
+    public CompletableFuture<JsonNode> callAsync(
+            String url,
+            String model,
+            String systemPrompt,
+            String userMessage,
+            JsonNode formatDefinition,
+            Duration timeout
+    ) {
+        HttpRequest request;
+        try {
+            request = createRequest(url, model, systemPrompt, userMessage, formatDefinition, timeout);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        // The body is received asynchronously and only parsed once it is complete, so no thread waits for it.
+        return client.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                .thenApply(response -> {
+                    try {
+                        if(response.statusCode() != 200){
+                            throw new IOException("Ollama responded with status " + response.statusCode() + ": " + new String(response.body(), StandardCharsets.UTF_8));
+                        }
+
+                        JsonNode root = mapper.readTree(response.body());
+                        return mapper.readTree(root.path("message").path("content").asText());
+                    } catch (IOException e) {
+                        throw new CompletionException(e);
+                    }
+                });
+    }
+
+    /**
+     * Sends a streaming chat request to Ollama and hands every fragment of the response
+     * message content to {@code contentConsumer} as soon as it arrives.
+     * <p>
+     * Ollama answers streaming requests with one JSON object per line. Reading stops and the
+     * request is cancelled as soon as {@code contentConsumer} returns {@code false}, the server
+     * reports that it is done, or the returned future is cancelled by the caller.
+     * </p>
+     * <p>
+     * The timeout also applies while the response is streamed: if no line arrives for longer
+     * than the timeout, the request is cancelled and the future completes exceptionally with an
+     * {@link HttpTimeoutException}.
+     * </p>
+     *
+     * @param url the chat endpoint URL of the Ollama server
+     * @param model the model to use
+     * @param systemPrompt the system prompt
+     * @param userMessage the user message
+     * @param formatDefinition the JSON schema of the structured output
+     * @param timeout the timeout for receiving the response headers and for each following line
+     * @param contentConsumer receives the content fragments, returns {@code false} to stop the request
+     * @return a future completing once the response was read or the request was stopped
+     */
+    public CompletableFuture<Void> streamAsync(
+            String url,
+            String model,
+            String systemPrompt,
+            String userMessage,
+            JsonNode formatDefinition,
+            Duration timeout,
+            Predicate<String> contentConsumer
+    ) {
+        HttpRequest request;
+        try {
+            request = createRequest(url, model, systemPrompt, userMessage, formatDefinition, timeout, true);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        ContentSubscriber subscriber = new ContentSubscriber(result, contentConsumer, timeout);
+        result.whenComplete((_, _) -> subscriber.cancel());
+        subscriber.scheduleIdleCheck(timeout.toNanos());
+
+        client.sendAsync(request, responseInfo -> {
+                    if(responseInfo.statusCode() != 200){
+                        return HttpResponse.BodySubscribers.<String, Void>mapping(
+                                HttpResponse.BodySubscribers.ofString(StandardCharsets.UTF_8),
+                                body -> {
+                                    result.completeExceptionally(new IOException("Ollama responded with status " + responseInfo.statusCode() + ": " + body));
+                                    return null;
+                                }
+                        );
+                    }
+                    return HttpResponse.BodySubscribers.fromLineSubscriber(subscriber);
+                })
+                .whenComplete((_, throwable) -> {
+                    if(throwable != null){
+                        result.completeExceptionally(throwable);
+                    } else {
+                        result.complete(null);
+                    }
+                });
 
+        return result;
+    }
+
+    /**
+     * Reads the NDJSON lines of a streaming response and forwards the message content.
+     * Fails the request if no line arrives within the idle timeout.
+     */
+    private static class ContentSubscriber implements Flow.Subscriber<String> {
+
+        private final CompletableFuture<Void> result;
+
+        private final Predicate<String> contentConsumer;
+
+        private final Duration idleTimeout;
+
+        private volatile long lastActivity = System.nanoTime();
+
+        private volatile Flow.Subscription subscription;
+
+        private volatile boolean cancelled;
+
+        private ContentSubscriber(CompletableFuture<Void> result, Predicate<String> contentConsumer, Duration idleTimeout) {
+            this.result = result;
+            this.contentConsumer = contentConsumer;
+            this.idleTimeout = idleTimeout;
+        }
+
+        /**
+         * Checks for a stalled response once the given delay has passed, instead of scheduling
+         * a new check for every line.
+         */
+        private void scheduleIdleCheck(long delayNanos) {
+            CompletableFuture.delayedExecutor(delayNanos, TimeUnit.NANOSECONDS).execute(() -> {
+                if(result.isDone()){
+                    return;
+                }
+                long idle = System.nanoTime() - lastActivity;
+                if(idle >= idleTimeout.toNanos()){
+                    result.completeExceptionally(new HttpTimeoutException("No response from Ollama for " + idleTimeout.toMillis() + " ms"));
+                } else {
+                    scheduleIdleCheck(idleTimeout.toNanos() - idle);
+                }
+            });
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            if(cancelled){
+                subscription.cancel();
+            } else {
+                subscription.request(Long.MAX_VALUE);
+            }
+        }
+
+        @Override
+        public void onNext(String line) {
+            lastActivity = System.nanoTime();
+            if(cancelled || line.isBlank()){
+                return;
+            }
+
+            try {
+                JsonNode chunk = mapper.readTree(line);
+                String content = chunk.path("message").path("content").asText();
+                if(!content.isEmpty() && !contentConsumer.test(content)){
+                    result.complete(null);
+                    return;
+                }
+                if(chunk.path("done").asBoolean(false)){
+                    result.complete(null);
+                }
+            } catch (IOException | RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            result.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            result.complete(null);
+        }
+
+        private void cancel() {
+            cancelled = true;
+            Flow.Subscription subscription = this.subscription;
+            if(subscription != null){
+                subscription.cancel();
+            }
+        }
+    }
+
+    private static HttpRequest createRequest(
+            String url,
+            String model,
+            String systemPrompt,
+            String userMessage,
+            JsonNode formatDefinition,
+            Duration timeout
+    ) throws IOException {
+        return createRequest(url, model, systemPrompt, userMessage, formatDefinition, timeout, false);
+    }
+
+    private static HttpRequest createRequest(
+            String url,
+            String model,
+            String systemPrompt,
+            String userMessage,
+            JsonNode formatDefinition,
+            Duration timeout,
+            boolean stream
+    ) throws IOException {
         String requestBody = String.format("""
         {
           "model": "%s",
           "temperature": 1.2,
           "top_p": 0.9,
           "repeat_penalty": 1.2,
-          "stream": false,
+          "stream": %s,
           "messages": [
             { "role": "system", "content": %s },
             { "role": "user", "content": %s }
@@ -38,21 +346,17 @@ public class OllamaStructuredHelper {
         }
         """,
                 model,
+                stream,
                 mapper.writeValueAsString(systemPrompt),
                 mapper.writeValueAsString(userMessage),
                 mapper.writeValueAsString(formatDefinition)
         );
 
-        HttpRequest request = HttpRequest.newBuilder()
-                .timeout(Duration.ofSeconds(5))
+        return HttpRequest.newBuilder()
+                .timeout(timeout)
                 .uri(URI.create(url))
                 .header("Content-Type", "application/json")
                 .POST(HttpRequest.BodyPublishers.ofString(requestBody))
                 .build();
-
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
-
-        JsonNode root = mapper.readTree(response.body());
-        return mapper.readTree(root.path("message").path("content").asText());
     }
 }
@@ -0,0 +1,146 @@
+package at.sfischer.synth.db.generation.ollama;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.function.Consumer;
+
+/**
+ * Incrementally scans structured output that arrives in fragments while it is streamed.
+ * <p>
+ * The scanner expects a JSON object in the form of {@code {"query": "..."}} or
+ * {@code {"queries": ["...", "..."]}} and reports every complete string value of the
+ * {@code query} field and of the items of the {@code queries} array as soon as its
+ * closing quote was read, without waiting for the rest of the document. Once the
+ * top-level object is closed, {@link #isComplete()} returns {@code true}.
+ * </p>
+ */
+public class StructuredOutputScanner {
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    private final Consumer<String> valueConsumer;
+
+    private final Deque<Container> containers = new ArrayDeque<>();
+
+    private final StringBuilder string = new StringBuilder();
+
+    private boolean inString;
+
+    private boolean escaped;
+
+    private boolean complete;
+
+    private static class Container {
+        private final boolean object;
+        private boolean expectKey;
+        private String key;
+
+        private Container(boolean object) {
+            this.object = object;
+            this.expectKey = object;
+        }
+    }
+
+    /**
+     * Constructs a new scanner.
+     *
+     * @param valueConsumer receives every complete {@code query} value and {@code queries} item
+     */
+    public StructuredOutputScanner(Consumer<String> valueConsumer) {
+        this.valueConsumer = valueConsumer;
+    }
+
+    /**
+     * Returns whether the top-level JSON object has been closed.
+     *
+     * @return {@code true} if the structured output is complete
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * Feeds the next fragment of the structured output into the scanner.
+     * Characters after the end of the top-level object are ignored.
+     *
+     * @param fragment the next fragment of the output
+     */
+    public void accept(String fragment) {
+        for (int i = 0; i < fragment.length() && !complete; i++) {
+            accept(fragment.charAt(i));
+        }
+    }
+
+    private void accept(char c) {
+        if(inString){
+            if(escaped){
+                escaped = false;
+            } else if(c == '\\'){
+                escaped = true;
+            } else if(c == '"'){
+                inString = false;
+                stringCompleted();
+                return;
+            }
+            string.append(c);
+            return;
+        }
+
+        Container container = containers.peek();
+        switch (c) {
+            case '"' -> {
+                inString = true;
+                string.setLength(0);
+            }
+            case '{' -> containers.push(new Container(true));
+            case '[' -> containers.push(new Container(false));
+            case '}', ']' -> {
+                containers.pop();
+                if(containers.isEmpty()){
+                    complete = true;
+                }
+            }
+            case ':' -> {
+                if(container != null){
+                    container.expectKey = false;
+                }
+            }
+            case ',' -> {
+                if(container != null && container.object){
+                    container.expectKey = true;
+                }
+            }
+            default -> {
+            }
+        }
+    }
+
+    private void stringCompleted() {
+        Container container = containers.peek();
+        if(container == null){
+            return;
+        }
+
+        if(container.object && container.expectKey){
+            container.key = string.toString();
+            return;
+        }
+
+        boolean queryValue = containers.size() == 1 && "query".equals(container.key);
+        boolean queriesItem = containers.size() == 2 && !container.object && "queries".equals(containers.peekLast().key);
+        if(queryValue || queriesItem){
+            valueConsumer.accept(decode(string));
+        }
+    }
+
+    private static String decode(CharSequence raw) {
+        try {
+            return mapper.readValue("\"" + raw + "\"", String.class);
+        } catch (JsonProcessingException e) {
+            return raw.toString();
+        }
+    }
+}
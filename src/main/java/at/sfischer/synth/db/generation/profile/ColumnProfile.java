@@ -0,0 +1,255 @@
+package at.sfischer.synth.db.generation.profile;
+
+import at.sfischer.synth.db.generation.columns.ColumnGenerators;
+import at.sfischer.synth.db.model.Column;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+
+/**
+ * Statistics of the values of a single column: null ratio, distinct values, minimum and maximum,
+ * the most frequent values, a histogram of numeric and temporal values, and for foreign key
+ * columns the distribution of the number of rows referencing the same key.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public final class ColumnProfile {
+
+    /** The number of most frequent values reported. */
+    static final int TOP_VALUES = 10;
+
+    /** The number of histogram buckets. */
+    static final int HISTOGRAM_BUCKETS = 20;
+
+    /** The maximum number of distinct values whose frequencies are kept to generate values from. */
+    static final int MAX_TRACKED_VALUES = 10000;
+
+    private final String column;
+
+    private final String type;
+
+    private final long rowCount;
+
+    private final long nullCount;
+
+    private final long distinctCount;
+
+    private final Object min;
+
+    private final Object max;
+
+    private final Integer scale;
+
+    private final List<ValueCount> frequencies;
+
+    private final Histogram histogram;
+
+    private final SortedMap<Long, Long> fanOut;
+
+    private ColumnProfile(String column, String type, long rowCount, long nullCount, long distinctCount, Object min, Object max, Integer scale, List<ValueCount> frequencies, Histogram histogram, SortedMap<Long, Long> fanOut) {
+        this.column = column;
+        this.type = type;
+        this.rowCount = rowCount;
+        this.nullCount = nullCount;
+        this.distinctCount = distinctCount;
+        this.min = min;
+        this.max = max;
+        this.scale = scale;
+        this.frequencies = frequencies;
+        this.histogram = histogram;
+        this.fanOut = fanOut;
+    }
+
+    /**
+     * Computes the profile of a column.
+     *
+     * @param column the column
+     * @param values the values of all rows, {@code null} for SQL {@code NULL}; numbers as {@link Long},
+     *               {@link Double} or {@link BigDecimal}, dates and timestamps as ISO strings
+     * @param referencedKeys the keys of the referenced column if the column is a foreign key, {@code null} otherwise
+     * @return the profile
+     */
+    static ColumnProfile of(Column column, List<Object> values, List<Object> referencedKeys) {
+        Map<Object, Long> counts = new HashMap<>();
+        long nullCount = 0;
+        Integer scale = null;
+        for (Object value : values) {
+            if(value == null){
+                nullCount++;
+                continue;
+            }
+            counts.merge(value, 1L, Long::sum);
+            if(value instanceof BigDecimal decimal){
+                scale = Math.max(scale == null ? 0 : scale, decimal.scale());
+            }
+        }
+
+        List<ValueCount> frequencies = counts.entrySet().stream()
+                .map(entry -> new ValueCount(entry.getKey(), entry.getValue()))
+                .sorted(Comparator.comparingLong(ValueCount::count).reversed().thenComparing(count -> String.valueOf(count.value())))
+                .limit(MAX_TRACKED_VALUES)
+                .toList();
+
+        Object min = null;
+        Object max = null;
+        for (Object value : counts.keySet()) {
+            if(min == null || compare(value, min) < 0){
+                min = value;
+            }
+            if(max == null || compare(value, max) > 0){
+                max = value;
+            }
+        }
+
+        Histogram histogram = null;
+        TemporalType temporal = TemporalType.of(column);
+        if(!counts.isEmpty() && (isNumeric(column) || temporal != null)){
+            double[] numbers = values.stream().filter(Objects::nonNull).mapToDouble(value -> toDouble(value, temporal)).toArray();
+            histogram = Histogram.of(numbers, HISTOGRAM_BUCKETS);
+        }
+
+        SortedMap<Long, Long> fanOut = null;
+        if(referencedKeys != null){
+            fanOut = new TreeMap<>();
+            for (Object key : referencedKeys) {
+                fanOut.merge(counts.getOrDefault(key, 0L), 1L, Long::sum);
+            }
+        }
+
+        return new ColumnProfile(column.getName(), column.getType(), values.size(), nullCount, counts.size(), min, max, scale, frequencies, histogram, fanOut);
+    }
+
+    /**
+     * The temporal column types, whose values are stored as ISO strings and counted in the histogram
+     * as days respectively seconds since the epoch.
+     */
+    enum TemporalType {
+        DATE,
+        TIMESTAMP;
+
+        static TemporalType of(Column column) {
+            return switch (ColumnGenerators.getBaseType(column)) {
+                case "DATE" -> DATE;
+                case "DATETIME", "TIMESTAMP" -> TIMESTAMP;
+                default -> null;
+            };
+        }
+    }
+
+    static boolean isNumeric(Column column) {
+        return ColumnGenerators.isInteger(column) || switch (ColumnGenerators.getBaseType(column)) {
+            case "DECIMAL", "NUMERIC", "FLOAT", "DOUBLE", "REAL" -> true;
+            default -> false;
+        };
+    }
+
+    private static double toDouble(Object value, TemporalType temporal) {
+        if(temporal == TemporalType.DATE){
+            return LocalDate.parse(value.toString()).toEpochDay();
+        }
+        if(temporal == TemporalType.TIMESTAMP){
+            return LocalDateTime.parse(value.toString().replace(' ', 'T')).toEpochSecond(ZoneOffset.UTC);
+        }
+        return ((Number) value).doubleValue();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static int compare(Object a, Object b) {
+        if(a instanceof Number x && b instanceof Number y){
+            return Double.compare(x.doubleValue(), y.doubleValue());
+        }
+        if(a instanceof Comparable<?> && a.getClass() == b.getClass()){
+            return ((Comparable<Object>) a).compareTo(b);
+        }
+        return a.toString().compareTo(b.toString());
+    }
+
+    public String getColumn() {
+        return column;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    public long getNullCount() {
+        return nullCount;
+    }
+
+    /**
+     * Returns the ratio of {@code NULL} values.
+     *
+     * @return the ratio between 0 and 1, 0 if there are no rows
+     */
+    public double getNullRatio() {
+        return rowCount == 0 ? 0 : (double) nullCount / rowCount;
+    }
+
+    public long getDistinctCount() {
+        return distinctCount;
+    }
+
+    public Object getMin() {
+        return min;
+    }
+
+    public Object getMax() {
+        return max;
+    }
+
+    /**
+     * Returns the largest number of decimal places of decimal values.
+     *
+     * @return the scale, or {@code null} if the column has no decimal values
+     */
+    public Integer getScale() {
+        return scale;
+    }
+
+    /**
+     * Returns the most frequent values, most frequent first.
+     *
+     * @return up to {@value #TOP_VALUES} values with their counts
+     */
+    public List<ValueCount> getTopValues() {
+        return frequencies.subList(0, Math.min(TOP_VALUES, frequencies.size()));
+    }
+
+    /**
+     * Returns the frequencies of the values, most frequent first.
+     *
+     * @return up to {@value #MAX_TRACKED_VALUES} values with their counts
+     */
+    @JsonIgnore
+    public List<ValueCount> getFrequencies() {
+        return frequencies;
+    }
+
+    /**
+     * Returns the histogram of numeric and temporal values.
+     *
+     * @return the histogram, or {@code null} for other columns or if all values are {@code NULL}
+     */
+    public Histogram getHistogram() {
+        return histogram;
+    }
+
+    /**
+     * Returns the distribution of the number of rows referencing the same key of the referenced
+     * column, including keys that are not referenced at all.
+     *
+     * @return the number of referenced keys by the number of referencing rows, or {@code null}
+     *         if the column is not a foreign key
+     */
+    public SortedMap<Long, Long> getFanOut() {
+        return fanOut;
+    }
+}
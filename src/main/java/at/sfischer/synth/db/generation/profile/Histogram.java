@@ -0,0 +1,68 @@
+package at.sfischer.synth.db.generation.profile;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * An equi-width histogram of numeric values. Dates are counted as days and timestamps as seconds
+ * since the epoch.
+ *
+ * @param min the smallest value, the lower bound of the first bucket
+ * @param max the largest value, the upper bound of the last bucket
+ * @param counts the number of values per bucket
+ */
+public record Histogram(double min, double max, long[] counts) {
+
+    /**
+     * Builds a histogram of the given values.
+     *
+     * @param values the values, at least one
+     * @param buckets the maximum number of buckets
+     * @return the histogram
+     */
+    static Histogram of(double[] values, int buckets) {
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        for (double value : values) {
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+
+        int bucketCount = min == max ? 1 : buckets;
+        long[] counts = new long[bucketCount];
+        for (double value : values) {
+            counts[bucket(value, min, max, bucketCount)]++;
+        }
+        return new Histogram(min, max, counts);
+    }
+
+    private static int bucket(double value, double min, double max, int bucketCount) {
+        if(min == max){
+            return 0;
+        }
+        return Math.min(bucketCount - 1, (int) ((value - min) / (max - min) * bucketCount));
+    }
+
+    /**
+     * Draws a value: a bucket is chosen with a probability proportional to its count, and the
+     * value is drawn uniformly within the bucket.
+     *
+     * @param random the source of randomness
+     * @return the value, within {@code [min, max]}
+     */
+    public double sample(RandomGenerator random) {
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        long target = random.nextLong(total);
+        int bucket = 0;
+        while (target >= counts[bucket]) {
+            target -= counts[bucket];
+            bucket++;
+        }
+
+        double width = (max - min) / counts.length;
+        double lower = min + bucket * width;
+        return width == 0 ? lower : Math.min(max, lower + random.nextDouble() * width);
+    }
+}
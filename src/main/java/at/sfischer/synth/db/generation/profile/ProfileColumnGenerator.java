@@ -0,0 +1,185 @@
+package at.sfischer.synth.db.generation.profile;
+
+import at.sfischer.synth.db.generation.columns.ColumnGenerator;
+import at.sfischer.synth.db.generation.columns.ColumnGeneratorContext;
+import at.sfischer.synth.db.generation.columns.ColumnGenerators;
+import at.sfischer.synth.db.generation.columns.NgramColumnGenerator;
+import at.sfischer.synth.db.generation.columns.NgramTextModel;
+import at.sfischer.synth.db.model.Column;
+import at.sfischer.synth.db.model.Table;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.random.RandomGenerator;
+
+/**
+ * Generates the values of the columns of a table with the distributions of their {@link ColumnProfile}s.
+ * <p>
+ * Every column is {@code NULL} with its profiled null ratio. Otherwise, values are drawn
+ * </p>
+ * <ul>
+ *     <li>from the histogram for numeric and temporal columns with more than {@value #CATEGORICAL_LIMIT}
+ *         distinct values, keeping the decimal places of the profiled values,</li>
+ *     <li>from an {@link NgramTextModel} trained on the profiled values for text columns with more than
+ *         {@value #CATEGORICAL_LIMIT} mostly distinct values,</li>
+ *     <li>from the profiled values with their frequencies for all other columns.</li>
+ * </ul>
+ * <p>
+ * Unique text columns get a profiled value with the row index as suffix. Unique columns of other
+ * types, foreign key and auto-increment columns are not supported.
+ * </p>
+ */
+public class ProfileColumnGenerator implements ColumnGenerator {
+
+    /** The maximum number of distinct values of columns generated from the profiled value frequencies. */
+    static final int CATEGORICAL_LIMIT = 64;
+
+    private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private interface Sampler {
+        Object sample(RandomGenerator random, long rowIndex);
+    }
+
+    private final Map<Column, Sampler> samplers;
+
+    /**
+     * Prepares the samplers of all columns of a table that have a profile with at least one row.
+     *
+     * @param table the table to generate values for
+     * @param profile the profile of the table
+     */
+    public ProfileColumnGenerator(Table table, TableProfile profile) {
+        this.samplers = new LinkedHashMap<>();
+        long primaryKeyColumns = table.getColumns().stream().filter(Column::isPrimaryKey).count();
+        for (Column column : table.getColumns()) {
+            ColumnProfile columnProfile = profile.getColumn(column.getName());
+            if(columnProfile == null || columnProfile.getRowCount() == 0 || column.getReference() != null || column.isAutoIncrement()){
+                continue;
+            }
+
+            boolean unique = column.isPrimaryKey() ? primaryKeyColumns == 1 : column.isUnique();
+            Sampler sampler = unique ? uniqueSampler(column, columnProfile) : sampler(column, columnProfile);
+            if(sampler != null){
+                samplers.put(column, sampler);
+            }
+        }
+    }
+
+    private static Sampler sampler(Column column, ColumnProfile profile) {
+        double nullRatio = profile.getNullRatio();
+        Sampler values = valueSampler(column, profile);
+        if(values == null){
+            return (_, _) -> null;
+        }
+        if(nullRatio == 0){
+            return values;
+        }
+        return (random, rowIndex) -> random.nextDouble() < nullRatio ? null : values.sample(random, rowIndex);
+    }
+
+    private static Sampler valueSampler(Column column, ColumnProfile profile) {
+        List<ValueCount> frequencies = profile.getFrequencies();
+        if(frequencies.isEmpty()){
+            return null;
+        }
+
+        ColumnProfile.TemporalType temporal = ColumnProfile.TemporalType.of(column);
+        if(profile.getDistinctCount() > CATEGORICAL_LIMIT && profile.getHistogram() != null){
+            return histogramSampler(column, profile, temporal);
+        }
+        if(profile.getDistinctCount() > CATEGORICAL_LIMIT && NgramColumnGenerator.isTextColumn(column)
+                && profile.getDistinctCount() * 2 > profile.getRowCount() - profile.getNullCount()){
+            NgramTextModel model = NgramTextModel.train(frequencies.stream().map(count -> count.value().toString()).toList(), ColumnGenerators.getMaxLength(column));
+            return (random, _) -> model.generate(random);
+        }
+        return frequencySampler(frequencies);
+    }
+
+    private static Sampler frequencySampler(List<ValueCount> frequencies) {
+        Object[] values = new Object[frequencies.size()];
+        long[] cumulativeCounts = new long[frequencies.size()];
+        long total = 0;
+        for (int i = 0; i < values.length; i++) {
+            total += frequencies.get(i).count();
+            values[i] = frequencies.get(i).value();
+            cumulativeCounts[i] = total;
+        }
+
+        long totalCount = total;
+        return (random, _) -> {
+            int index = Arrays.binarySearch(cumulativeCounts, random.nextLong(totalCount) + 1);
+            return values[index >= 0 ? index : -index - 1];
+        };
+    }
+
+    private static Sampler histogramSampler(Column column, ColumnProfile profile, ColumnProfile.TemporalType temporal) {
+        Histogram histogram = profile.getHistogram();
+        if(temporal == ColumnProfile.TemporalType.DATE){
+            return (random, _) -> LocalDate.ofEpochDay(Math.round(histogram.sample(random))).toString();
+        }
+        if(temporal == ColumnProfile.TemporalType.TIMESTAMP){
+            return (random, _) -> LocalDateTime.ofEpochSecond(Math.round(histogram.sample(random)), 0, ZoneOffset.UTC).format(TIMESTAMP_FORMAT);
+        }
+        if(ColumnGenerators.isInteger(column)){
+            return (random, _) -> Math.round(histogram.sample(random));
+        }
+        if(profile.getScale() != null){
+            int scale = profile.getScale();
+            return (random, _) -> BigDecimal.valueOf(histogram.sample(random)).setScale(scale, RoundingMode.HALF_UP);
+        }
+        return (random, _) -> Math.round(histogram.sample(random) * 100) / 100.0;
+    }
+
+    private static Sampler uniqueSampler(Column column, ColumnProfile profile) {
+        if(!NgramColumnGenerator.isTextColumn(column) && !isCharacter(column)){
+            return null;
+        }
+        Sampler values = valueSampler(column, profile);
+        if(values == null){
+            return null;
+        }
+
+        int maxLength = ColumnGenerators.getMaxLength(column);
+        return (random, rowIndex) -> {
+            String suffix = "-" + (rowIndex + 1);
+            String value = values.sample(random, rowIndex).toString();
+            return value.substring(0, Math.max(0, Math.min(value.length(), maxLength - suffix.length()))) + suffix;
+        };
+    }
+
+    private static boolean isCharacter(Column column) {
+        return switch (ColumnGenerators.getBaseType(column)) {
+            case "CHAR", "VARCHAR", "CHARACTER", "TEXT" -> true;
+            default -> false;
+        };
+    }
+
+    /**
+     * Returns the columns generated from the profile.
+     *
+     * @return the supported columns
+     */
+    public Set<Column> getColumns() {
+        return Collections.unmodifiableSet(samplers.keySet());
+    }
+
+    @Override
+    public boolean supports(Column column) {
+        return samplers.containsKey(column);
+    }
+
+    @Override
+    public Object generate(Column column, ColumnGeneratorContext context) {
+        return samplers.get(column).sample(context.random(), context.rowIndex());
+    }
+
+    @Override
+    public int getPriority() {
+        return 10;
+    }
+}
@@ -0,0 +1,148 @@
+package at.sfischer.synth.db.generation.profile;
+
+import at.sfischer.synth.db.model.Column;
+import at.sfischer.synth.db.model.DBSchema;
+import at.sfischer.synth.db.model.Table;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+
+/**
+ * The {@link TableProfile}s of the tables of a schema, computed from the rows in a database,
+ * e.g. the example data, to generate further rows with the same distributions.
+ */
+public final class SchemaProfile {
+
+    private static final ObjectMapper mapper = new ObjectMapper()
+            .enable(SerializationFeature.INDENT_OUTPUT);
+
+    private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final Map<String, TableProfile> tables;
+
+    private SchemaProfile(Map<String, TableProfile> tables) {
+        this.tables = Collections.unmodifiableMap(tables);
+    }
+
+    /**
+     * Profiles all tables of a schema by scanning their rows.
+     *
+     * @param schema the schema
+     * @param connection the {@link Connection} to the database containing the rows
+     * @return the profile of the schema
+     * @throws SQLException if a database access error occurs
+     */
+    public static SchemaProfile profile(DBSchema schema, Connection connection) throws SQLException {
+        Map<String, TableProfile> tables = new LinkedHashMap<>();
+        for (Table table : schema.getTables()) {
+            tables.put(table.getName(), profile(table, connection));
+        }
+        return new SchemaProfile(tables);
+    }
+
+    /**
+     * Profiles a single table by scanning its rows.
+     *
+     * @param table the table
+     * @param connection the {@link Connection} to the database containing the rows
+     * @return the profile of the table
+     * @throws SQLException if a database access error occurs
+     */
+    public static TableProfile profile(Table table, Connection connection) throws SQLException {
+        List<Column> columns = table.getColumns();
+        List<List<Object>> values = new ArrayList<>();
+        for (int i = 0; i < columns.size(); i++) {
+            values.add(new ArrayList<>());
+        }
+
+        long rowCount = 0;
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery(table.generateSelectAll())) {
+            while (rs.next()) {
+                for (int i = 0; i < columns.size(); i++) {
+                    values.get(i).add(normalize(rs.getObject(i + 1)));
+                }
+                rowCount++;
+            }
+        }
+
+        Map<String, ColumnProfile> profiles = new LinkedHashMap<>();
+        for (int i = 0; i < columns.size(); i++) {
+            Column column = columns.get(i);
+            List<Object> referencedKeys = column.getReference() == null ? null : getKeys(connection, column.getReference());
+            profiles.put(column.getName(), ColumnProfile.of(column, values.get(i), referencedKeys));
+        }
+        return new TableProfile(table.getName(), rowCount, profiles);
+    }
+
+    private static List<Object> getKeys(Connection connection, Column column) throws SQLException {
+        String sql = "SELECT DISTINCT " + column.getName() + " FROM " + column.getTable().getName() +
+                " WHERE " + column.getName() + " IS NOT NULL";
+        List<Object> keys = new ArrayList<>();
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) {
+                keys.add(normalize(rs.getObject(1)));
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Converts a JDBC value to the representation used in profiles: integers as {@link Long},
+     * floating point numbers as {@link Double}, dates and timestamps as ISO strings.
+     *
+     * @param value the JDBC value
+     * @return the converted value
+     */
+    public static Object normalize(Object value) {
+        return switch (value) {
+            case Integer i -> i.longValue();
+            case Short s -> s.longValue();
+            case Byte b -> b.longValue();
+            case Float f -> f.doubleValue();
+            case java.sql.Date date -> date.toString();
+            case java.sql.Timestamp timestamp -> timestamp.toLocalDateTime().format(TIMESTAMP_FORMAT);
+            case null, default -> value;
+        };
+    }
+
+    /**
+     * Returns the profiles of all tables.
+     *
+     * @return the profiles by table name
+     */
+    public Map<String, TableProfile> getTables() {
+        return tables;
+    }
+
+    /**
+     * Returns the profile of a table.
+     *
+     * @param table the name of the table
+     * @return the profile, or {@code null} if the table was not profiled
+     */
+    public TableProfile getTable(String table) {
+        return tables.get(table);
+    }
+
+    /**
+     * Renders this profile as JSON report.
+     *
+     * @return the JSON representation
+     */
+    public String toJson() {
+        try {
+            return mapper.writeValueAsString(this);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Profile cannot be rendered as JSON.", e);
+        }
+    }
+}
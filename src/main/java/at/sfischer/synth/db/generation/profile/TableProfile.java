@@ -0,0 +1,49 @@
+package at.sfischer.synth.db.generation.profile;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * The {@link ColumnProfile}s of the columns of a table.
+ */
+public final class TableProfile {
+
+    private final String table;
+
+    private final long rowCount;
+
+    private final Map<String, ColumnProfile> columns;
+
+    TableProfile(String table, long rowCount, Map<String, ColumnProfile> columns) {
+        this.table = table;
+        this.rowCount = rowCount;
+        this.columns = Collections.unmodifiableMap(columns);
+    }
+
+    public String getTable() {
+        return table;
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Returns the profiles of all columns.
+     *
+     * @return the profiles by column name, in column order
+     */
+    public Map<String, ColumnProfile> getColumns() {
+        return columns;
+    }
+
+    /**
+     * Returns the profile of a column.
+     *
+     * @param column the name of the column
+     * @return the profile, or {@code null} if the column was not profiled
+     */
+    public ColumnProfile getColumn(String column) {
+        return columns.get(column);
+    }
+}
@@ -0,0 +1,10 @@
+package at.sfischer.synth.db.generation.profile;
+
+/**
+ * A value of a column and the number of rows containing it.
+ *
+ * @param value the value
+ * @param count the number of rows
+ */
+public record ValueCount(Object value, long count) {
+}
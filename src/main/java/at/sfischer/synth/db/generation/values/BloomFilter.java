@@ -0,0 +1,103 @@
+package at.sfischer.synth.db.generation.values;
+
+/**
+ * A Bloom filter over arbitrary keys, answering whether a key was possibly added before without
+ * comparing keys. Keys not added before are usually recognized after hashing them once, so an
+ * exact set behind the filter is only queried for keys that are likely duplicates.
+ * This class is not thread-safe.
+ */
+class BloomFilter {
+
+    private static final double LN2 = Math.log(2);
+
+    private final long[] bits;
+
+    private final int bitCount;
+
+    private final int hashCount;
+
+    private final int capacity;
+
+    private int size;
+
+    /**
+     * Constructs an empty filter.
+     *
+     * @param capacity the number of keys the false positive probability is guaranteed for
+     * @param falsePositiveProbability the probability that a key not added is reported as possibly added
+     */
+    BloomFilter(int capacity, double falsePositiveProbability) {
+        this.capacity = Math.max(1, capacity);
+        long optimalBits = (long) Math.ceil(-this.capacity * Math.log(falsePositiveProbability) / (LN2 * LN2));
+        this.bitCount = (int) Math.min(Integer.MAX_VALUE - 63, Math.max(64, optimalBits));
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / this.capacity * LN2));
+        this.bits = new long[(bitCount + 63) / 64];
+    }
+
+    /**
+     * Adds a key.
+     *
+     * @param key the key, not {@code null}
+     */
+    void add(Object key) {
+        long hash = hash(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < hashCount; i++) {
+            int bit = Math.floorMod(h1 + i * h2, bitCount);
+            bits[bit >>> 6] |= 1L << bit;
+        }
+        size++;
+    }
+
+    /**
+     * Indicates whether a key was possibly added before.
+     *
+     * @param key the key, not {@code null}
+     * @return false if the key was definitely not added, true if it possibly was
+     */
+    boolean mightContain(Object key) {
+        long hash = hash(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < hashCount; i++) {
+            int bit = Math.floorMod(h1 + i * h2, bitCount);
+            if((bits[bit >>> 6] & (1L << bit)) == 0){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Indicates whether more keys than the capacity were added, so the false positive
+     * probability is no longer guaranteed.
+     *
+     * @return true if the filter is over capacity, false otherwise
+     */
+    boolean isFull() {
+        return size > capacity;
+    }
+
+    int getCapacity() {
+        return capacity;
+    }
+
+    private static long hash(Object key) {
+        long hash;
+        if(key instanceof CharSequence chars){
+            // 64 bit FNV-1a, String.hashCode alone collides too often for two independent hashes.
+            hash = 0xcbf29ce484222325L;
+            for (int i = 0; i < chars.length(); i++) {
+                hash ^= chars.charAt(i);
+                hash *= 0x100000001b3L;
+            }
+        } else {
+            hash = key.hashCode() * 0x9E3779B97F4A7C15L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
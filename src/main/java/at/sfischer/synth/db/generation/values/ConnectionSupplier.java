@@ -0,0 +1,20 @@
+package at.sfischer.synth.db.generation.values;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Opens additional connections to the staging database, used to fill several tables in parallel.
+ */
+@FunctionalInterface
+public interface ConnectionSupplier {
+
+    /**
+     * Opens a new connection to the staging database, with the same credentials and settings
+     * as the connection passed to {@link TableFiller}.
+     *
+     * @return a new connection, closed by the caller
+     * @throws SQLException if the connection cannot be opened
+     */
+    Connection get() throws SQLException;
+}
@@ -1,5 +1,7 @@
 package at.sfischer.synth.db.generation.values;
 
+import at.sfischer.synth.db.generation.columns.ColumnSpec;
+import at.sfischer.synth.db.generation.columns.ColumnSpecGenerator;
 import at.sfischer.synth.db.model.Column;
 import at.sfischer.synth.db.model.Table;
 import org.jetbrains.annotations.NotNull;
@@ -7,6 +9,9 @@ import org.jetbrains.annotations.NotNull;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
 
 /**
  * Interface for generating SQL INSERT statements for a given table.
@@ -14,6 +19,11 @@ import java.util.Map;
  * Implementations provide logic for creating insert statements, potentially using
  * example values from the table itself and values from dependent tables.
  * </p>
+ * <p>
+ * {@link TableFiller} may issue several generation requests concurrently
+ * (see {@link TableFillerSettings#setConcurrency(int)}), in which case implementations
+ * have to be thread-safe.
+ * </p>
  */
 public interface InsertDataGeneration {
 
@@ -29,6 +39,142 @@ public interface InsertDataGeneration {
      */
     String generateInsertStatement(Table table, long rowCount, List<Map<Column, Object>> exampleValues, Map<Table, List<Map<Column, Object>>> dependentTableValues);
 
+    /**
+     * Generates multiple rows for the specified table in a single call.
+     * <p>
+     * Every returned statement is expected to insert exactly one row, so that callers can
+     * accept the rows that are valid and only discard the ones that fail to parse or insert.
+     * The result may contain fewer than {@code batchSize} statements.
+     * The default implementation falls back to a single call of
+     * {@link #generateInsertStatement(Table, long, List, Map)}.
+     * </p>
+     *
+     * @param table the {@link Table} to generate rows for
+     * @param rowCount the current number of rows already present in the table
+     * @param batchSize the number of rows to request
+     * @param exampleValues a list of example row values from the table to guide generation
+     * @param dependentTableValues a map of dependent {@link Table}s to their example values,
+     *                             used to satisfy foreign key or other constraints
+     * @return a list of single row SQL INSERT statements, never {@code null}
+     */
+    default List<String> generateRows(Table table, long rowCount, int batchSize, List<Map<Column, Object>> exampleValues, Map<Table, List<Map<Column, Object>>> dependentTableValues) {
+        String insertStatement = generateInsertStatement(table, rowCount, exampleValues, dependentTableValues);
+        if(insertStatement == null || insertStatement.isBlank()){
+            return List.of();
+        }
+
+        return List.of(insertStatement);
+    }
+
+    /**
+     * Asynchronously generates multiple rows for the specified table.
+     * <p>
+     * The default implementation runs {@link #generateRows(Table, long, int, List, Map)} on
+     * the given {@link Executor}. Implementations with a non-blocking transport can override
+     * this method and ignore the executor.
+     * </p>
+     *
+     * @param table the {@link Table} to generate rows for
+     * @param rowCount the current number of rows already present in the table
+     * @param batchSize the number of rows to request
+     * @param exampleValues a list of example row values from the table to guide generation
+     * @param dependentTableValues a map of dependent {@link Table}s to their example values,
+     *                             used to satisfy foreign key or other constraints
+     * @param executor the executor to run blocking generation on
+     * @return a future completing with a list of single row SQL INSERT statements
+     */
+    default CompletableFuture<List<String>> generateRowsAsync(Table table, long rowCount, int batchSize, List<Map<Column, Object>> exampleValues, Map<Table, List<Map<Column, Object>>> dependentTableValues, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> generateRows(table, rowCount, batchSize, exampleValues, dependentTableValues), executor);
+    }
+
+    /**
+     * Asynchronously generates multiple rows for the specified table and hands every
+     * generated single row SQL INSERT statement to {@code rowConsumer} as soon as it is available.
+     * <p>
+     * All rows are passed to {@code rowConsumer} before the returned future completes.
+     * The default implementation forwards the result of
+     * {@link #generateRowsAsync(Table, long, int, List, Map, Executor)} once it is complete.
+     * Streaming implementations can override this method to pass on rows while the
+     * response is still being received.
+     * </p>
+     *
+     * @param table the {@link Table} to generate rows for
+     * @param rowCount the current number of rows already present in the table
+     * @param batchSize the number of rows to request
+     * @param exampleValues a list of example row values from the table to guide generation
+     * @param dependentTableValues a map of dependent {@link Table}s to their example values,
+     *                             used to satisfy foreign key or other constraints
+     * @param executor the executor to run blocking generation on
+     * @param rowConsumer receives every generated single row SQL INSERT statement
+     * @return a future completing once all rows of the request were passed on
+     */
+    default CompletableFuture<Void> streamRows(Table table, long rowCount, int batchSize, List<Map<Column, Object>> exampleValues, Map<Table, List<Map<Column, Object>>> dependentTableValues, Executor executor, Consumer<String> rowConsumer) {
+        return generateRowsAsync(table, rowCount, batchSize, exampleValues, dependentTableValues, executor)
+                .thenAccept(rows -> rows.forEach(rowConsumer));
+    }
+
+    /**
+     * Describes the request that {@link #generateRows(Table, long, int, List, Map)} would send
+     * for the given arguments.
+     * <p>
+     * The description must contain everything that determines the response, such as model,
+     * system prompt, user message and output format, so that equal descriptions identify
+     * equal requests. It is used to cache responses. The default implementation returns
+     * {@code null}, which means that responses cannot be cached.
+     * </p>
+     *
+     * @param table the {@link Table} to generate rows for
+     * @param rowCount the current number of rows already present in the table
+     * @param batchSize the number of rows to request
+     * @param exampleValues a list of example row values from the table to guide generation
+     * @param dependentTableValues a map of dependent {@link Table}s to their example values
+     * @return a description of the request, or {@code null} if responses cannot be cached
+     */
+    default String describeRequest(Table table, long rowCount, int batchSize, List<Map<Column, Object>> exampleValues, Map<Table, List<Map<Column, Object>>> dependentTableValues) {
+        return null;
+    }
+
+    /**
+     * Compiles a {@link ColumnSpec} for every column of the specified table, describing how its
+     * values can be generated locally, e.g. by a pattern, a list of values or a range.
+     * <p>
+     * The specs are requested once per table and returned as a JSON object with a {@code columns}
+     * array, see {@link ColumnSpecGenerator#compile(Table, String)}. Columns whose values cannot be
+     * described by a spec are marked {@link ColumnSpec.Kind#FREE_TEXT}. The default implementation
+     * returns {@code null}, which means that all columns are generated row by row.
+     * </p>
+     *
+     * @param table the {@link Table} to compile specs for
+     * @param exampleValues a list of example row values from the table to derive the specs from
+     * @return the specs as JSON, or {@code null} if no specs could be compiled
+     */
+    default String compileColumnSpecs(Table table, List<Map<Column, Object>> exampleValues) {
+        return null;
+    }
+
+    @NotNull
+    static String generateColumnSpecMessage(Table table, String values) {
+        String userMessageTemplate = """
+        This is the table to describe:
+        ```
+        %s
+        ```
+        Here are some example values already in the table:
+        %s
+
+        For every column, describe how realistic values can be generated without you, using one of these kinds:
+        - PATTERN: values match the regular expression in `pattern`, e.g. postal codes or SKUs like `[A-Z]{3}-\\d{4}`.
+        - VALUES: values are taken from the list `values`, e.g. categories or countries.
+        - RANGE: numbers between `min` and `max`.
+        - DATE_RANGE: dates or timestamps between the ISO dates `min` and `max`.
+        - TEMPLATE: values fill the `template`, in which `{name}` is replaced by a value of the list `parts.name`, `{#}` by a digit and `{A}` or `{a}` by a letter, e.g. `{first}.{last}@{domain}` for e-mail addresses.
+        - FREE_TEXT: values need to be written individually, e.g. names, titles or descriptions.
+        Provide long lists with many different realistic values for VALUES and TEMPLATE.
+        """;
+
+        return String.format(userMessageTemplate, table.getCreateTableStatement(), values).trim();
+    }
+
     @NotNull
     static String generateUserMessage(Table table, long rowCount, String values, String otherTableValues) {
         String userMessageTemplate = """
@@ -46,6 +192,12 @@ public interface InsertDataGeneration {
         return String.format(userMessageTemplate, table.getCreateTableStatement(), rowCount, values, otherTableValues).trim();
     }
 
+    @NotNull
+    static String generateUserMessage(Table table, long rowCount, int batchSize, String values, String otherTableValues) {
+        String userMessage = generateUserMessage(table, rowCount, values, otherTableValues);
+        return userMessage + String.format("\n\nGenerate %d new rows, each as its own single row INSERT statement.", batchSize);
+    }
+
     static String generateTableValues(List<Map<Column, Object>> rows) {
         if(rows == null || rows.isEmpty()){
             return "";
@@ -1,27 +1,109 @@
 package at.sfischer.synth.db.generation.values;
 
 import at.sfischer.synth.db.generation.ollama.OllamaStructuredHelper;
+import at.sfischer.synth.db.generation.ollama.StructuredOutputScanner;
 import at.sfischer.synth.db.model.Column;
 import at.sfischer.synth.db.model.Table;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.net.http.HttpTimeoutException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
 
 /**
  * Implementation of {@link InsertDataGeneration} that generates SQL INSERT statements
  * using the Ollama AI service.
+ * <p>
+ * Requests are sent asynchronously through an {@link OllamaStructuredHelper}, so many
+ * requests can be in flight without blocking a thread per request. Optionally, responses
+ * are streamed and rows are passed on as soon as they are complete.
+ * </p>
  */
 public class InsertDataGenerationOllama implements InsertDataGeneration {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(InsertDataGenerationOllama.class);
 
+    private static final String SINGLE_ROW_SYSTEM_PROMPT = """
+        You are an assistant to generate realistic row of data for the given table in form of a single SQL INSERT statement including the generated single row of data.
+        Please try to generate fitting original data not too simple placeholder.
+        """;
+
+    private static final String MULTI_ROW_SYSTEM_PROMPT = """
+        You are an assistant to generate realistic rows of data for the given table in form of SQL INSERT statements.
+        Each SQL INSERT statement must only include a single generated row of data.
+        Please try to generate fitting original data not too simple placeholder and make the rows differ from each other.
+        """;
+
+    private static final JsonNode SINGLE_ROW_FORMAT = readFormat("""
+        {
+          "type": "object",
+          "properties": {
+            "query": { "type": "string" }
+          },
+          "required": ["query"]
+        }
+        """);
+
+    private static final JsonNode MULTI_ROW_FORMAT = readFormat("""
+        {
+          "type": "object",
+          "properties": {
+            "queries": {
+              "type": "array",
+              "items": { "type": "string" }
+            }
+          },
+          "required": ["queries"]
+        }
+        """);
+
+    private static final String COLUMN_SPEC_SYSTEM_PROMPT = """
+        You are an assistant to describe how realistic data for the columns of the given table can be generated.
+        Describe every column by exactly one spec.
+        """;
+
+    private static final JsonNode COLUMN_SPEC_FORMAT = readFormat("""
+        {
+          "type": "object",
+          "properties": {
+            "columns": {
+              "type": "array",
+              "items": {
+                "type": "object",
+                "properties": {
+                  "column": { "type": "string" },
+                  "kind": { "type": "string", "enum": ["PATTERN", "VALUES", "RANGE", "DATE_RANGE", "TEMPLATE", "FREE_TEXT"] },
+                  "pattern": { "type": "string" },
+                  "values": { "type": "array", "items": { "type": "string" } },
+                  "min": { "type": "string" },
+                  "max": { "type": "string" },
+                  "template": { "type": "string" },
+                  "parts": {
+                    "type": "object",
+                    "additionalProperties": { "type": "array", "items": { "type": "string" } }
+                  }
+                },
+                "required": ["column", "kind"]
+              }
+            }
+          },
+          "required": ["columns"]
+        }
+        """);
+
     private final String url;
     private final String model;
+    private final OllamaStructuredHelper helper;
+    private final boolean stream;
 
     /**
      * Constructs a new InsertDataGenerationOllama instance.
@@ -30,8 +112,48 @@ public class InsertDataGenerationOllama implements InsertDataGeneration {
      * @param model the AI model name to use for generating insert statements
      */
     public InsertDataGenerationOllama(String url, String model) {
+        this(url, model, OllamaStructuredHelper.getDefault());
+    }
+
+    /**
+     * Constructs a new InsertDataGenerationOllama instance using the given helper
+     * to communicate with the Ollama AI service.
+     *
+     * @param url    the endpoint URL of the Ollama AI service
+     * @param model  the AI model name to use for generating insert statements
+     * @param helper the {@link OllamaStructuredHelper} configuring timeouts and HTTP version
+     */
+    public InsertDataGenerationOllama(String url, String model, OllamaStructuredHelper helper) {
+        this(url, model, helper, false);
+    }
+
+    /**
+     * Constructs a new InsertDataGenerationOllama instance using the given helper
+     * to communicate with the Ollama AI service.
+     * <p>
+     * In streaming mode, {@link #streamRows} reads the response while it is generated, passes
+     * on every row as soon as its statement is complete and stops the request once the
+     * structured output is complete, without waiting for trailing tokens.
+     * </p>
+     *
+     * @param url    the endpoint URL of the Ollama AI service
+     * @param model  the AI model name to use for generating insert statements
+     * @param helper the {@link OllamaStructuredHelper} configuring timeouts and HTTP version
+     * @param stream whether responses are streamed
+     */
+    public InsertDataGenerationOllama(String url, String model, OllamaStructuredHelper helper, boolean stream) {
         this.url = url;
         this.model = model;
+        this.helper = helper;
+        this.stream = stream;
+    }
+
+    private static JsonNode readFormat(String format) {
+        try {
+            return new ObjectMapper().readTree(format);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Invalid format definition.", e);
+        }
     }
 
     /**
@@ -45,46 +167,178 @@ public class InsertDataGenerationOllama implements InsertDataGeneration {
      */
     @Override
     public String generateInsertStatement(Table table, long rowCount, List<Map<Column, Object>> exampleValues, Map<Table, List<Map<Column, Object>>> dependentTableValues) {
+        List<String> rows = generateRows(table, rowCount, 1, exampleValues, dependentTableValues);
+        return rows.isEmpty() ? "" : rows.getFirst();
+    }
 
-        String systemPrompt = """
-        You are an assistant to generate realistic row of data for the given table in form of a single SQL INSERT statement including the generated single row of data.
-        Please try to generate fitting original data not too simple placeholder.
-        """;
+    /**
+     * Generates multiple single row SQL INSERT statements for the specified table using
+     * a single request to the Ollama AI model.
+     * <p>
+     * The structured output format requests an array of statements, so a malformed
+     * statement only invalidates its own row and not the whole response.
+     * </p>
+     *
+     * @param table the {@link Table} to generate the INSERT statements for
+     * @param rowCount the current number of rows already present in the table
+     * @param batchSize the number of rows to request
+     * @param exampleValues a list of example row values from the table
+     * @param dependentTableValues a map of dependent {@link Table}s to their example values
+     * @return a list of single row SQL INSERT statements
+     */
+    @Override
+    public List<String> generateRows(Table table, long rowCount, int batchSize, List<Map<Column, Object>> exampleValues, Map<Table, List<Map<Column, Object>>> dependentTableValues) {
+        return generateRowsAsync(table, rowCount, batchSize, exampleValues, dependentTableValues, Runnable::run)
+                .exceptionally(throwable -> {
+                    logFailure(throwable);
+                    return List.of();
+                })
+                .join();
+    }
+
+    /**
+     * Asynchronously generates multiple single row SQL INSERT statements for the specified table.
+     * <p>
+     * The request is sent without blocking, the given executor is not used.
+     * Failed requests complete the returned future exceptionally, so callers can tell them
+     * apart from responses without rows.
+     * </p>
+     *
+     * @param table the {@link Table} to generate the INSERT statements for
+     * @param rowCount the current number of rows already present in the table
+     * @param batchSize the number of rows to request
+     * @param exampleValues a list of example row values from the table
+     * @param dependentTableValues a map of dependent {@link Table}s to their example values
+     * @param executor not used
+     * @return a future completing with a list of single row SQL INSERT statements
+     */
+    @Override
+    public CompletableFuture<List<String>> generateRowsAsync(Table table, long rowCount, int batchSize, List<Map<Column, Object>> exampleValues, Map<Table, List<Map<Column, Object>>> dependentTableValues, Executor executor) {
+        boolean singleRow = batchSize <= 1;
+
+        return helper.callAsync(
+                        url,
+                        model,
+                        singleRow ? SINGLE_ROW_SYSTEM_PROMPT : MULTI_ROW_SYSTEM_PROMPT,
+                        createUserMessage(table, rowCount, batchSize, exampleValues, dependentTableValues),
+                        singleRow ? SINGLE_ROW_FORMAT : MULTI_ROW_FORMAT,
+                        helper.getRequestTimeout().multipliedBy(Math.max(1, batchSize))
+                )
+                .thenApply(InsertDataGenerationOllama::readQueries);
+    }
+
+    /**
+     * Generates multiple single row SQL INSERT statements for the specified table and passes
+     * them on to {@code rowConsumer}.
+     * <p>
+     * If streaming is enabled, every statement is passed on as soon as it was received and the
+     * request is stopped once the structured output is complete or {@code batchSize} statements
+     * were received. Failed requests complete exceptionally after passing on the statements received so far.
+     * </p>
+     *
+     * @param table the {@link Table} to generate the INSERT statements for
+     * @param rowCount the current number of rows already present in the table
+     * @param batchSize the number of rows to request
+     * @param exampleValues a list of example row values from the table
+     * @param dependentTableValues a map of dependent {@link Table}s to their example values
+     * @param executor not used
+     * @param rowConsumer receives every generated single row SQL INSERT statement
+     * @return a future completing once all rows of the request were passed on
+     */
+    @Override
+    public CompletableFuture<Void> streamRows(Table table, long rowCount, int batchSize, List<Map<Column, Object>> exampleValues, Map<Table, List<Map<Column, Object>>> dependentTableValues, Executor executor, Consumer<String> rowConsumer) {
+        if(!stream){
+            return InsertDataGeneration.super.streamRows(table, rowCount, batchSize, exampleValues, dependentTableValues, executor, rowConsumer);
+        }
+
+        boolean singleRow = batchSize <= 1;
+        int[] received = new int[1];
+        StructuredOutputScanner scanner = new StructuredOutputScanner(query -> {
+            if(!query.isBlank()){
+                received[0]++;
+                rowConsumer.accept(query);
+            }
+        });
+
+        CompletableFuture<Void> response = helper.streamAsync(
+                        url,
+                        model,
+                        singleRow ? SINGLE_ROW_SYSTEM_PROMPT : MULTI_ROW_SYSTEM_PROMPT,
+                        createUserMessage(table, rowCount, batchSize, exampleValues, dependentTableValues),
+                        singleRow ? SINGLE_ROW_FORMAT : MULTI_ROW_FORMAT,
+                        helper.getRequestTimeout().multipliedBy(Math.max(1, batchSize)),
+                        content -> {
+                            scanner.accept(content);
+                            return !scanner.isComplete() && received[0] < batchSize;
+                        }
+                );
 
+        return response;
+    }
+
+    /**
+     * Compiles the column specs of the specified table with a single request to the Ollama AI model.
+     *
+     * @param table the {@link Table} to compile specs for
+     * @param exampleValues a list of example row values from the table
+     * @return the specs as JSON, or {@code null} if the request failed
+     */
+    @Override
+    public String compileColumnSpecs(Table table, List<Map<Column, Object>> exampleValues) {
+        return helper.callAsync(
+                        url,
+                        model,
+                        COLUMN_SPEC_SYSTEM_PROMPT,
+                        InsertDataGeneration.generateColumnSpecMessage(table, InsertDataGeneration.generateTableValues(exampleValues)),
+                        COLUMN_SPEC_FORMAT,
+                        helper.getRequestTimeout().multipliedBy(Math.max(1, table.getColumnCount()))
+                )
+                .thenApply(JsonNode::toString)
+                .exceptionally(throwable -> {
+                    logFailure(throwable);
+                    return null;
+                })
+                .join();
+    }
+
+    @Override
+    public String describeRequest(Table table, long rowCount, int batchSize, List<Map<Column, Object>> exampleValues, Map<Table, List<Map<Column, Object>>> dependentTableValues) {
+        boolean singleRow = batchSize <= 1;
+        return String.join("\u0000",
+                model,
+                singleRow ? SINGLE_ROW_SYSTEM_PROMPT : MULTI_ROW_SYSTEM_PROMPT,
+                createUserMessage(table, rowCount, batchSize, exampleValues, dependentTableValues),
+                (singleRow ? SINGLE_ROW_FORMAT : MULTI_ROW_FORMAT).toString()
+        );
+    }
+
+    private static String createUserMessage(Table table, long rowCount, int batchSize, List<Map<Column, Object>> exampleValues, Map<Table, List<Map<Column, Object>>> dependentTableValues) {
         String values = InsertDataGeneration.generateTableValues(exampleValues);
         String otherTableValues = InsertDataGeneration.generateDependentTableValues(dependentTableValues);
 
-        String userMessage = InsertDataGeneration.generateUserMessage(table, rowCount, values, otherTableValues);
+        return batchSize <= 1
+                ? InsertDataGeneration.generateUserMessage(table, rowCount, values, otherTableValues)
+                : InsertDataGeneration.generateUserMessage(table, rowCount, batchSize, values, otherTableValues);
+    }
 
-        String format = """
-        {
-          "type": "object",
-          "properties": {
-            "query": { "type": "string" }
-          },
-          "required": ["query"]
+    private static void logFailure(Throwable throwable) {
+        Throwable cause = throwable instanceof CompletionException ? throwable.getCause() : throwable;
+        if(cause instanceof HttpTimeoutException){
+            LOGGER.debug("Insert statement generation timed out.");
+        } else {
+            LOGGER.warn("Insert statement generation failed.", cause);
         }
-        """;
+    }
 
-        try {
-            ObjectMapper mapper = new ObjectMapper();
-            JsonNode formatNode = mapper.readTree(format);
-
-            JsonNode response = OllamaStructuredHelper.callOllama(
-                    url,
-                    model,
-                    systemPrompt,
-                    userMessage,
-                    formatNode
-            );
-
-            return response.path("query").asText();
-        } catch (HttpTimeoutException e) {
-            LOGGER.debug("Insert statement generation timed out.");
-            return "";
-        } catch (Exception e) {
-            LOGGER.warn("Insert statement generation failed.", e);
-            return "";
+    private static List<String> readQueries(JsonNode response) {
+        List<String> queries = new ArrayList<>();
+        String query = response.path("query").asText();
+        if(!query.isBlank()){
+            queries.add(query);
+        }
+        for (JsonNode node : response.path("queries")) {
+            queries.add(node.asText());
         }
+        return queries;
     }
 }
@@ -1,5 +1,6 @@
 package at.sfischer.synth.db.generation.values;
 
+import at.sfischer.synth.db.generation.columns.ColumnSpec;
 import at.sfischer.synth.db.model.Column;
 import at.sfischer.synth.db.model.Table;
 import com.fasterxml.jackson.annotation.JsonProperty;
@@ -12,6 +13,7 @@ import com.openai.models.chat.completions.ChatCompletionToolChoiceOption;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -19,6 +21,25 @@ public class InsertDataGenerationOpenAI implements InsertDataGeneration {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(InsertDataGenerationOpenAI.class);
 
+    private static final String SINGLE_ROW_SYSTEM_PROMPT = """
+        You are an assistant to generate realistic row of data for the given table in form of a single SQL INSERT statement including the generated single row of data.
+        Please try to generate fitting original data not too simple placeholder.
+        Return the INSERT inside the `query` field only.
+        """;
+
+    private static final String MULTI_ROW_SYSTEM_PROMPT = """
+        You are an assistant to generate realistic rows of data for the given table in form of SQL INSERT statements.
+        Each SQL INSERT statement must only include a single generated row of data.
+        Please try to generate fitting original data not too simple placeholder and make the rows differ from each other.
+        Return the INSERT statements inside the `queries` field only.
+        """;
+
+    private static final String COLUMN_SPEC_SYSTEM_PROMPT = """
+        You are an assistant to describe how realistic data for the columns of the given table can be generated.
+        Describe every column by exactly one spec.
+        Return the specs inside the `columns` field only.
+        """;
+
     private final String model;
 
     private final OpenAIClient client;
@@ -45,27 +66,44 @@ public class InsertDataGenerationOpenAI implements InsertDataGeneration {
         }
     }
 
+    public static class InsertRowsFunction {
+        @JsonProperty("queries")
+        private List<String> queries;
+
+        public List<String> getQueries() {
+            return queries;
+        }
+
+        public void setQueries(List<String> queries) {
+            this.queries = queries;
+        }
+    }
+
+    public static class ColumnSpecsFunction {
+        @JsonProperty("columns")
+        private List<ColumnSpec> columns;
+
+        public List<ColumnSpec> getColumns() {
+            return columns;
+        }
+
+        public void setColumns(List<ColumnSpec> columns) {
+            this.columns = columns;
+        }
+    }
+
     @Override
     public String generateInsertStatement(Table table,
                                           long rowCount,
                                           List<Map<Column, Object>> exampleValues,
                                           Map<Table, List<Map<Column, Object>>> dependentTableValues) {
 
-        String systemPrompt = """
-        You are an assistant to generate realistic row of data for the given table in form of a single SQL INSERT statement including the generated single row of data.
-        Please try to generate fitting original data not too simple placeholder.
-        Return the INSERT inside the `query` field only.
-        """;
-
-        String values = InsertDataGeneration.generateTableValues(exampleValues);
-        String otherTableValues = InsertDataGeneration.generateDependentTableValues(dependentTableValues);
-
-        String userMessage = InsertDataGeneration.generateUserMessage(table, rowCount, values, otherTableValues);
+        String userMessage = createUserMessage(table, rowCount, 1, exampleValues, dependentTableValues);
 
         try {
             ChatCompletionCreateParams.Builder builder = ChatCompletionCreateParams.builder()
                     .model(model)
-                    .addSystemMessage(systemPrompt)
+                    .addSystemMessage(SINGLE_ROW_SYSTEM_PROMPT)
                     .addUserMessage(userMessage)
                     .addTool(InsertRowFunction.class)
                     .toolChoice(ChatCompletionToolChoiceOption.Auto.REQUIRED);
@@ -88,4 +126,104 @@ public class InsertDataGenerationOpenAI implements InsertDataGeneration {
             return "";
         }
     }
+
+    @Override
+    public List<String> generateRows(Table table,
+                                     long rowCount,
+                                     int batchSize,
+                                     List<Map<Column, Object>> exampleValues,
+                                     Map<Table, List<Map<Column, Object>>> dependentTableValues) {
+        if(batchSize <= 1){
+            return InsertDataGeneration.super.generateRows(table, rowCount, batchSize, exampleValues, dependentTableValues);
+        }
+
+        String userMessage = createUserMessage(table, rowCount, batchSize, exampleValues, dependentTableValues);
+
+        try {
+            ChatCompletionCreateParams.Builder builder = ChatCompletionCreateParams.builder()
+                    .model(model)
+                    .addSystemMessage(MULTI_ROW_SYSTEM_PROMPT)
+                    .addUserMessage(userMessage)
+                    .addTool(InsertRowsFunction.class)
+                    .toolChoice(ChatCompletionToolChoiceOption.Auto.REQUIRED);
+
+            List<String> queries = new ArrayList<>();
+            ChatCompletion completion = client.chat().completions().create(builder.build());
+            for (ChatCompletion.Choice choice : completion.choices()) {
+                if (choice.message().toolCalls().isPresent()) {
+                    for (ChatCompletionMessageToolCall toolCall : choice.message().toolCalls().get()) {
+                        if (toolCall.function().name().equals("InsertRowsFunction")) {
+                            InsertRowsFunction parsed = toolCall.function().arguments(InsertRowsFunction.class);
+                            if (parsed.getQueries() != null) {
+                                queries.addAll(parsed.getQueries());
+                            }
+                        }
+                    }
+                }
+            }
+
+            return queries;
+        } catch (Exception e) {
+            LOGGER.warn("Insert statements generation failed.", e);
+            return List.of();
+        }
+    }
+
+    @Override
+    public String compileColumnSpecs(Table table, List<Map<Column, Object>> exampleValues) {
+        String userMessage = InsertDataGeneration.generateColumnSpecMessage(table, InsertDataGeneration.generateTableValues(exampleValues));
+
+        try {
+            ChatCompletionCreateParams.Builder builder = ChatCompletionCreateParams.builder()
+                    .model(model)
+                    .addSystemMessage(COLUMN_SPEC_SYSTEM_PROMPT)
+                    .addUserMessage(userMessage)
+                    .addTool(ColumnSpecsFunction.class)
+                    .toolChoice(ChatCompletionToolChoiceOption.Auto.REQUIRED);
+
+            ChatCompletion completion = client.chat().completions().create(builder.build());
+            for (ChatCompletion.Choice choice : completion.choices()) {
+                if (choice.message().toolCalls().isPresent()) {
+                    for (ChatCompletionMessageToolCall toolCall : choice.message().toolCalls().get()) {
+                        if (toolCall.function().name().equals("ColumnSpecsFunction")) {
+                            return toolCall.function().arguments();
+                        }
+                    }
+                }
+            }
+
+            return null;
+        } catch (Exception e) {
+            LOGGER.warn("Column spec compilation failed.", e);
+            return null;
+        }
+    }
+
+    @Override
+    public String describeRequest(Table table,
+                                  long rowCount,
+                                  int batchSize,
+                                  List<Map<Column, Object>> exampleValues,
+                                  Map<Table, List<Map<Column, Object>>> dependentTableValues) {
+        boolean singleRow = batchSize <= 1;
+        return String.join("\u0000",
+                model,
+                singleRow ? SINGLE_ROW_SYSTEM_PROMPT : MULTI_ROW_SYSTEM_PROMPT,
+                createUserMessage(table, rowCount, batchSize, exampleValues, dependentTableValues),
+                singleRow ? InsertRowFunction.class.getSimpleName() : InsertRowsFunction.class.getSimpleName()
+        );
+    }
+
+    private static String createUserMessage(Table table,
+                                            long rowCount,
+                                            int batchSize,
+                                            List<Map<Column, Object>> exampleValues,
+                                            Map<Table, List<Map<Column, Object>>> dependentTableValues) {
+        String values = InsertDataGeneration.generateTableValues(exampleValues);
+        String otherTableValues = InsertDataGeneration.generateDependentTableValues(dependentTableValues);
+
+        return batchSize <= 1
+                ? InsertDataGeneration.generateUserMessage(table, rowCount, values, otherTableValues)
+                : InsertDataGeneration.generateUserMessage(table, rowCount, batchSize, values, otherTableValues);
+    }
 }
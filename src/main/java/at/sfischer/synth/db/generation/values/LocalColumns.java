@@ -0,0 +1,226 @@
+package at.sfischer.synth.db.generation.values;
+
+import at.sfischer.synth.db.generation.columns.ColumnGenerator;
+import at.sfischer.synth.db.generation.columns.ColumnGeneratorContext;
+import at.sfischer.synth.db.generation.columns.ColumnGenerators;
+import at.sfischer.synth.db.model.Column;
+import at.sfischer.synth.db.model.InsertStatement;
+import at.sfischer.synth.db.model.Row;
+import at.sfischer.synth.db.model.Table;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The columns of a table whose values are generated locally by {@link ColumnGenerator}s while
+ * the table is filled, so the LLM is only prompted for the remaining columns.
+ * <p>
+ * The LLM is given a {@link #getPromptTable() projection} of the table without the local and
+ * auto-increment columns. The local values are merged into every parsed row. Foreign key
+ * columns are local if {@link ReferenceKeys} are given, they are filled with existing keys.
+ * </p>
+ */
+class LocalColumns {
+
+    private static final int PARALLEL_THRESHOLD = 256;
+
+    private final Table table;
+
+    private final Table promptTable;
+
+    private final Map<Column, ColumnGenerator> generators;
+
+    private final AtomicLong rowIndex;
+
+    private LocalColumns(Table table, Table promptTable, Map<Column, ColumnGenerator> generators, long firstRowIndex) {
+        this.table = table;
+        this.promptTable = promptTable;
+        this.generators = generators;
+        this.rowIndex = new AtomicLong(firstRowIndex);
+    }
+
+    /**
+     * Selects the local columns of a table.
+     * <p>
+     * Row indices passed to the generators start after the number of rows in the table and after
+     * the largest value of local integer key columns, so generated keys do not collide with existing ones.
+     * </p>
+     *
+     * @param table the table to fill
+     * @param columnGenerators the available generators, {@code null} if all columns are generated by the LLM
+     * @param referenceKeys the keys foreign key columns are filled with, {@code null} if foreign keys are generated by the LLM
+     * @param connection the {@link Connection} to the database
+     * @param rowCount the number of rows in the table
+     * @return the local columns of the table
+     * @throws SQLException if a database access error occurs
+     */
+    static LocalColumns plan(Table table, ColumnGenerators columnGenerators, ReferenceKeys referenceKeys, Connection connection, long rowCount) throws SQLException {
+        if(columnGenerators == null && referenceKeys == null){
+            return new LocalColumns(table, table, Map.of(), rowCount);
+        }
+
+        Map<Column, ColumnGenerator> generators = new LinkedHashMap<>();
+        List<Column> promptColumns = new ArrayList<>();
+        for (Column column : table.getColumns()) {
+            ColumnGenerator generator = columnGenerators == null ? null : columnGenerators.getGenerator(column);
+            if(generator == null && referenceKeys != null && column.getReference() != null){
+                generator = referenceKeys.getGenerator(connection, column);
+            }
+            if(generator != null){
+                generators.put(column, generator);
+            } else if(!column.isAutoIncrement()){
+                promptColumns.add(column);
+            }
+        }
+        if(generators.isEmpty() && promptColumns.size() == table.getColumnCount()){
+            return new LocalColumns(table, table, Map.of(), rowCount);
+        }
+
+        long firstRowIndex = rowCount;
+        for (Column column : generators.keySet()) {
+            if(ColumnGenerators.isInteger(column) && (column.isPrimaryKey() || column.isUnique())){
+                firstRowIndex = Math.max(firstRowIndex, getMaxValue(connection, column));
+            }
+        }
+
+        return new LocalColumns(table, table.project(promptColumns), generators, firstRowIndex);
+    }
+
+    private static long getMaxValue(Connection connection, Column column) throws SQLException {
+        String sql = "SELECT MAX(" + column.getName() + ") FROM " + column.getTable().getName();
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    /**
+     * Returns the table given to the LLM, the table itself if no column is generated locally.
+     *
+     * @return the table to prompt for
+     */
+    Table getPromptTable() {
+        return promptTable;
+    }
+
+    /**
+     * Restricts the tables the example rows of the prompt are drawn from to the tables still
+     * referenced by a column of the {@link #getPromptTable() prompt table}.
+     *
+     * @param dependencies the tables referenced by the table, may be {@code null}
+     * @return the tables referenced by the prompt table
+     */
+    Set<Table> getPromptDependencies(Set<Table> dependencies) {
+        if(promptTable == table || dependencies == null){
+            return dependencies;
+        }
+
+        Set<Table> referenced = new LinkedHashSet<>();
+        for (Column column : promptTable.getColumns()) {
+            if(column.getReference() != null){
+                referenced.add(column.getReference().getTable());
+            }
+        }
+        referenced.retainAll(dependencies);
+        return referenced;
+    }
+
+    /**
+     * Indicates whether the LLM is not needed, as all columns are generated locally or by the database.
+     *
+     * @return true if the prompt table has no columns, false otherwise
+     */
+    boolean coversAllColumns() {
+        return promptTable.getColumnCount() == 0;
+    }
+
+    /**
+     * Returns a column that cannot be filled anymore: a column that is not nullable and whose
+     * {@link ReferenceKeys referenced keys} are exhausted, so every further row would be rejected.
+     *
+     * @return the column, or {@code null} if all columns can be filled
+     */
+    Column getExhaustedColumn() {
+        for (Map.Entry<Column, ColumnGenerator> entry : generators.entrySet()) {
+            if(entry.getValue() instanceof ReferenceKeys.KeyGenerator keys && !entry.getKey().isNullable() && keys.isExhausted()){
+                return entry.getKey();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Restricts example rows to the columns of the {@link #getPromptTable() prompt table}.
+     *
+     * @param rows rows of the table
+     * @return the projected rows, or the given rows if no column is generated locally
+     */
+    List<Map<Column, Object>> project(List<Map<Column, Object>> rows) {
+        if(promptTable == table || rows == null){
+            return rows;
+        }
+
+        List<Map<Column, Object>> projected = new ArrayList<>(rows.size());
+        int columnCount = promptTable.getColumnCount();
+        for (Map<Column, Object> row : rows) {
+            Row values = new Row(promptTable);
+            for (int i = 0; i < columnCount; i++) {
+                values.set(i, row.get(table.getColumn(promptTable.getColumn(i).getName())));
+            }
+            projected.add(values);
+        }
+        return projected;
+    }
+
+    /**
+     * Sets the locally generated values in all rows of a parsed statement, replacing values of
+     * local columns the LLM may have generated anyway.
+     *
+     * @param insert a parsed statement of the table
+     */
+    void apply(InsertStatement insert) {
+        if(generators.isEmpty()){
+            return;
+        }
+
+        for (Map<Column, Object> row : insert.getRows()) {
+            apply(row);
+        }
+    }
+
+    private void apply(Map<Column, Object> row) {
+        ColumnGeneratorContext context = new ColumnGeneratorContext(rowIndex.getAndIncrement(), ThreadLocalRandom.current());
+        for (Map.Entry<Column, ColumnGenerator> entry : generators.entrySet()) {
+            row.put(entry.getKey(), entry.getValue().generate(entry.getKey(), context));
+        }
+    }
+
+    /**
+     * Generates rows consisting of local values only, used if the LLM is not needed.
+     * Large numbers of rows are generated in parallel.
+     * <p>
+     * Every row is returned as a statement of its own, so a row rejected by the database does
+     * not discard the other rows of the batch it is inserted with.
+     * </p>
+     *
+     * @param rowCount the number of rows
+     * @return a single-row statement for every generated row
+     */
+    List<InsertStatement> generate(int rowCount) {
+        List<InsertStatement> statements = new ArrayList<>(rowCount);
+        for (int i = 0; i < rowCount; i++) {
+            statements.add(new InsertStatement(table, new ArrayList<>(List.of(new Row(table)))));
+        }
+        if(rowCount >= PARALLEL_THRESHOLD){
+            statements.parallelStream().forEach(this::apply);
+        } else {
+            statements.forEach(this::apply);
+        }
+        return statements;
+    }
+}
@@ -0,0 +1,123 @@
+package at.sfischer.synth.db.generation.values;
+
+/**
+ * A set of primitive {@code long} values with open addressing and linear probing, avoiding a
+ * boxed {@link Long} and a map entry per value. This class is not thread-safe.
+ */
+class LongHashSet {
+
+    private static final long EMPTY = 0L;
+
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private long[] slots;
+
+    private boolean containsEmpty;
+
+    private int size;
+
+    /**
+     * Constructs an empty set.
+     *
+     * @param expectedSize the number of values the set is sized for without growing
+     */
+    LongHashSet(int expectedSize) {
+        this.slots = new long[tableSize(expectedSize)];
+    }
+
+    /**
+     * Constructs an empty set sized for a small number of values.
+     */
+    LongHashSet() {
+        this(16);
+    }
+
+    private static int tableSize(int expectedSize) {
+        int size = Integer.highestOneBit(Math.max(8, (int) Math.min(1 << 30, (long) (expectedSize / LOAD_FACTOR))) - 1) << 1;
+        return Math.max(16, size);
+    }
+
+    /**
+     * Adds a value.
+     *
+     * @param value the value
+     * @return true if the value was added, false if it was contained already
+     */
+    boolean add(long value) {
+        if(value == EMPTY){
+            if(containsEmpty){
+                return false;
+            }
+            containsEmpty = true;
+            size++;
+            return true;
+        }
+
+        int mask = slots.length - 1;
+        int index = hash(value) & mask;
+        while (slots[index] != EMPTY) {
+            if(slots[index] == value){
+                return false;
+            }
+            index = (index + 1) & mask;
+        }
+        slots[index] = value;
+        size++;
+        if(size > slots.length * LOAD_FACTOR){
+            grow();
+        }
+        return true;
+    }
+
+    /**
+     * Indicates whether a value is contained.
+     *
+     * @param value the value
+     * @return true if the value was added before, false otherwise
+     */
+    boolean contains(long value) {
+        if(value == EMPTY){
+            return containsEmpty;
+        }
+
+        int mask = slots.length - 1;
+        int index = hash(value) & mask;
+        while (slots[index] != EMPTY) {
+            if(slots[index] == value){
+                return true;
+            }
+            index = (index + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the number of values.
+     *
+     * @return the number of values in the set
+     */
+    int size() {
+        return size;
+    }
+
+    private void grow() {
+        long[] previous = slots;
+        slots = new long[previous.length * 2];
+        int mask = slots.length - 1;
+        for (long value : previous) {
+            if(value == EMPTY){
+                continue;
+            }
+            int index = hash(value) & mask;
+            while (slots[index] != EMPTY) {
+                index = (index + 1) & mask;
+            }
+            slots[index] = value;
+        }
+    }
+
+    private static int hash(long value) {
+        long mixed = value * 0x9E3779B97F4A7C15L;
+        return (int) (mixed ^ (mixed >>> 32));
+    }
+}
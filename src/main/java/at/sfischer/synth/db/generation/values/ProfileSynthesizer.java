@@ -0,0 +1,152 @@
+package at.sfischer.synth.db.generation.values;
+
+import at.sfischer.synth.db.generation.columns.ColumnGenerator;
+import at.sfischer.synth.db.generation.columns.ColumnGenerators;
+import at.sfischer.synth.db.generation.columns.SequenceColumnGenerator;
+import at.sfischer.synth.db.generation.profile.ColumnProfile;
+import at.sfischer.synth.db.generation.profile.ProfileColumnGenerator;
+import at.sfischer.synth.db.generation.profile.TableProfile;
+import at.sfischer.synth.db.model.Column;
+import at.sfischer.synth.db.model.InsertStatement;
+import at.sfischer.synth.db.model.Table;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * Synthesizes rows of a table locally from the {@link TableProfile} of the example data, so the
+ * LLM is not needed at all.
+ * <p>
+ * Column values are drawn by a {@link ProfileColumnGenerator}, integer key columns get consecutive
+ * values. Foreign key columns get keys of the referenced table: every key is weighted with a
+ * number of referencing rows drawn from the profiled fan-out, so the generated rows reference the
+ * keys about as unevenly as the example data. Unique foreign key columns get unused keys in order.
+ * </p>
+ */
+class ProfileSynthesizer implements RowSynthesizer {
+
+    private final LocalColumns localColumns;
+
+    private final Map<Column, ReferenceSampler> references;
+
+    private final long randomSeed;
+
+    private ProfileSynthesizer(LocalColumns localColumns, Map<Column, ReferenceSampler> references, long randomSeed) {
+        this.localColumns = localColumns;
+        this.references = references;
+        this.randomSeed = randomSeed;
+    }
+
+    /**
+     * Creates a synthesizer from the profile of a table. The referenced tables have to be filled already.
+     *
+     * @param connection the {@link Connection} to the database
+     * @param table the table to fill
+     * @param profile the profile of the table
+     * @param columnGenerators further generators for columns that cannot be generated from the profile, may be {@code null}
+     * @param rowCount the number of rows in the table
+     * @return the synthesizer
+     * @throws SQLException if a database access error occurs
+     */
+    static ProfileSynthesizer create(Connection connection, Table table, TableProfile profile, ColumnGenerators columnGenerators, long rowCount) throws SQLException {
+        List<ColumnGenerator> generators = new ArrayList<>();
+        generators.add(new ProfileColumnGenerator(table, profile));
+        generators.add(new SequenceColumnGenerator());
+        if(columnGenerators != null){
+            generators.addAll(columnGenerators.getGenerators());
+        }
+        LocalColumns localColumns = LocalColumns.plan(table, new ColumnGenerators(generators), null, connection, rowCount);
+
+        Random random = new Random();
+        long primaryKeyColumns = table.getColumns().stream().filter(Column::isPrimaryKey).count();
+        Map<Column, ReferenceSampler> references = new LinkedHashMap<>();
+        for (Column column : table.getColumns()) {
+            if(column.getReference() == null || column.isAutoIncrement()){
+                continue;
+            }
+
+            boolean unique = column.isPrimaryKey() ? primaryKeyColumns == 1 : column.isUnique();
+            Object[] keys = RowAmplifier.getReferencedValues(connection, column, unique);
+            ColumnProfile columnProfile = profile.getColumn(column.getName());
+            double nullRatio = columnProfile == null ? 0 : columnProfile.getNullRatio();
+            long[] weights = unique || columnProfile == null ? null : getCumulativeWeights(keys.length, columnProfile.getFanOut(), random);
+            references.put(column, new ReferenceSampler(keys, weights, nullRatio, unique));
+        }
+
+        return new ProfileSynthesizer(localColumns, references, random.nextLong());
+    }
+
+    /**
+     * Draws a number of referencing rows for every key from the fan-out distribution.
+     *
+     * @return the cumulative weights of the keys, or {@code null} to draw keys uniformly
+     */
+    private static long[] getCumulativeWeights(int keyCount, SortedMap<Long, Long> fanOut, Random random) {
+        if(fanOut == null || fanOut.isEmpty() || keyCount == 0){
+            return null;
+        }
+
+        long[] referenceCounts = new long[fanOut.size()];
+        long[] cumulativeKeys = new long[fanOut.size()];
+        long totalKeys = 0;
+        int index = 0;
+        for (Map.Entry<Long, Long> entry : fanOut.entrySet()) {
+            totalKeys += entry.getValue();
+            referenceCounts[index] = entry.getKey();
+            cumulativeKeys[index] = totalKeys;
+            index++;
+        }
+
+        long[] weights = new long[keyCount];
+        long total = 0;
+        for (int i = 0; i < keyCount; i++) {
+            int bucket = Arrays.binarySearch(cumulativeKeys, random.nextLong(totalKeys) + 1);
+            total += referenceCounts[bucket >= 0 ? bucket : -bucket - 1];
+            weights[i] = total;
+        }
+        return total == 0 ? null : weights;
+    }
+
+    @Override
+    public List<InsertStatement> synthesize(long firstIndex, int rowCount) {
+        List<InsertStatement> statements = localColumns.generate(rowCount);
+        if(!references.isEmpty()){
+            IntStream.range(0, statements.size()).parallel().forEach(i -> {
+                long index = firstIndex + i;
+                SplittableRandom random = new SplittableRandom(randomSeed ^ (index * 0x9E3779B97F4A7C15L));
+                Map<Column, Object> row = statements.get(i).getRows().getFirst();
+                for (Map.Entry<Column, ReferenceSampler> entry : references.entrySet()) {
+                    row.put(entry.getKey(), entry.getValue().sample(index, random));
+                }
+            });
+        }
+        return statements;
+    }
+
+    private record ReferenceSampler(Object[] keys, long[] cumulativeWeights, double nullRatio, boolean unique) {
+
+        Object sample(long index, SplittableRandom random) {
+            if(keys.length == 0 || (nullRatio > 0 && random.nextDouble() < nullRatio)){
+                return null;
+            }
+            if(unique){
+                // Unused keys in order, rows beyond them are rejected.
+                return index < keys.length ? keys[(int) index] : null;
+            }
+            if(cumulativeWeights == null){
+                return keys[random.nextInt(keys.length)];
+            }
+            int position = Arrays.binarySearch(cumulativeWeights, random.nextLong(cumulativeWeights[cumulativeWeights.length - 1]) + 1);
+            if(position < 0){
+                position = -position - 1;
+            }
+            // Keys with weight 0 share the cumulative weight of their predecessor, the first of them is the drawn key.
+            while (position > 0 && cumulativeWeights[position - 1] == cumulativeWeights[position]) {
+                position--;
+            }
+            return keys[position];
+        }
+    }
+}
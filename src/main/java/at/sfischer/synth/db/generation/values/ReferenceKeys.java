@@ -0,0 +1,330 @@
+package at.sfischer.synth.db.generation.values;
+
+import at.sfischer.synth.db.generation.columns.ColumnGenerator;
+import at.sfischer.synth.db.generation.columns.ColumnGeneratorContext;
+import at.sfischer.synth.db.generation.columns.ColumnGenerators;
+import at.sfischer.synth.db.generation.profile.SchemaProfile;
+import at.sfischer.synth.db.model.Column;
+import at.sfischer.synth.db.model.Table;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory index of the keys of referenced columns, so foreign key columns can be filled
+ * locally with existing keys instead of being copied by the LLM from example rows.
+ * <p>
+ * The index of a referenced column is loaded from the database when a foreign key column
+ * referencing it is first planned, and then kept up to date with the rows inserted into the
+ * referenced table. Integer keys are kept in a primitive {@code long[]} with an open-addressing
+ * {@link LongHashSet} to skip duplicates, other keys in an {@code Object[]} with a {@link HashSet}.
+ * Keys of auto-increment columns, which are generated by the database, are fetched after every insert.
+ * </p>
+ * <p>
+ * Only columns referencing a single column primary key or a unique column are filled locally,
+ * parts of composite keys cannot be sampled independently. A generator is
+ * {@link KeyGenerator#isExhausted() exhausted} if it has no key left to hand out and the
+ * referenced table is not being filled, so no further keys will be added.
+ * This class is thread-safe, keys can be sampled concurrently to their insertion.
+ * </p>
+ */
+class ReferenceKeys {
+
+    private final Map<Column, KeyIndex> indices = new HashMap<>();
+
+    private final Set<Table> fillingTables = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Returns a generator filling a foreign key column with keys of the referenced column.
+     * Unique foreign key columns get every key at most once.
+     *
+     * @param connection the {@link Connection} to the database
+     * @param column the foreign key column
+     * @return the generator, or {@code null} if the column does not reference a single column key
+     * @throws SQLException if a database access error occurs
+     */
+    KeyGenerator getGenerator(Connection connection, Column column) throws SQLException {
+        Column reference = column.getReference();
+        if(reference == null || !isKey(reference)){
+            return null;
+        }
+
+        KeyIndex index = getIndex(connection, reference);
+        long primaryKeyColumns = column.getTable().getColumns().stream().filter(Column::isPrimaryKey).count();
+        boolean unique = column.isPrimaryKey() ? primaryKeyColumns == 1 : column.isUnique();
+        if(!unique){
+            return new SamplingGenerator(this, column, index);
+        }
+
+        KeyIndex used = new KeyIndex(reference, ColumnGenerators.isInteger(reference));
+        used.load(connection, column);
+        return new UniqueGenerator(this, column, index, used);
+    }
+
+    /**
+     * Marks a table as being filled, so keys referencing it are not exhausted while it grows.
+     *
+     * @param table the table
+     */
+    void fillStarted(Table table) {
+        fillingTables.add(table);
+    }
+
+    /**
+     * Marks a table as no longer being filled.
+     *
+     * @param table the table
+     */
+    void fillCompleted(Table table) {
+        fillingTables.remove(table);
+    }
+
+    /**
+     * Indicates whether keys may still be added to the referenced column of a foreign key
+     * column, i.e. the referenced table is a different table that is being filled.
+     */
+    private boolean isGrowing(Column column) {
+        Table referenced = column.getReference().getTable();
+        return !referenced.equals(column.getTable()) && fillingTables.contains(referenced);
+    }
+
+    private static boolean isKey(Column column) {
+        if(column.isUnique()){
+            return true;
+        }
+        return column.isPrimaryKey() && column.getTable().getColumns().stream().filter(Column::isPrimaryKey).count() == 1;
+    }
+
+    private synchronized KeyIndex getIndex(Connection connection, Column reference) throws SQLException {
+        KeyIndex index = indices.get(reference);
+        if(index == null){
+            index = new KeyIndex(reference, ColumnGenerators.isInteger(reference));
+            index.load(connection, reference);
+            indices.put(reference, index);
+        }
+        return index;
+    }
+
+    /**
+     * Adds the keys of rows inserted into a table to the indices of its referenced columns.
+     *
+     * @param connection the {@link Connection} to the database, to fetch keys generated by the database
+     * @param table the table
+     * @param rows the inserted rows
+     * @throws SQLException if a database access error occurs
+     */
+    synchronized void offer(Connection connection, Table table, List<Map<Column, Object>> rows) throws SQLException {
+        if(indices.isEmpty()){
+            return;
+        }
+
+        for (Column column : table.getColumns()) {
+            KeyIndex index = indices.get(column);
+            if(index == null){
+                continue;
+            }
+
+            boolean generated = false;
+            for (Map<Column, Object> row : rows) {
+                Object key = row.get(column);
+                if(key == null){
+                    generated = true;
+                } else {
+                    index.add(key);
+                }
+            }
+            if(generated && column.isAutoIncrement()){
+                index.load(connection, column);
+            }
+        }
+    }
+
+    /**
+     * The keys of a column in insertion order without duplicates. Keys are only appended, under
+     * the lock of the index, and read without locking: the size is published after the key.
+     */
+    private static final class KeyIndex {
+
+        private final Column column;
+
+        private final boolean integer;
+
+        private final LongHashSet longSet;
+
+        private final Set<Object> objectSet;
+
+        private volatile long[] longKeys;
+
+        private volatile Object[] objectKeys;
+
+        private volatile int size;
+
+        private long maxKey = Long.MIN_VALUE;
+
+        KeyIndex(Column column, boolean integer) {
+            this.column = column;
+            this.integer = integer;
+            this.longSet = integer ? new LongHashSet() : null;
+            this.objectSet = integer ? null : new HashSet<>();
+            this.longKeys = integer ? new long[16] : null;
+            this.objectKeys = integer ? null : new Object[16];
+        }
+
+        /**
+         * Adds the values of a column of the database. For integer keys only values larger than
+         * the largest key added so far are queried.
+         */
+        synchronized void load(Connection connection, Column source) throws SQLException {
+            String sql = "SELECT DISTINCT " + source.getName() + " FROM " + source.getTable().getName() +
+                    " WHERE " + source.getName() + " IS NOT NULL";
+            if(integer && source == column && size > 0){
+                sql += " AND " + source.getName() + " > " + maxKey;
+            }
+            try (Statement stmt = connection.createStatement();
+                 ResultSet rs = stmt.executeQuery(sql)) {
+                while (rs.next()) {
+                    add(SchemaProfile.normalize(rs.getObject(1)));
+                }
+            }
+        }
+
+        synchronized boolean add(Object key) {
+            if(integer){
+                Long value = toLong(key);
+                return value != null && add(value.longValue());
+            }
+            if(!objectSet.add(key)){
+                return false;
+            }
+            Object[] keys = objectKeys;
+            if(size == keys.length){
+                keys = Arrays.copyOf(keys, keys.length * 2);
+                objectKeys = keys;
+            }
+            keys[size] = key;
+            size = size + 1;
+            return true;
+        }
+
+        private boolean add(long key) {
+            if(!longSet.add(key)){
+                return false;
+            }
+            long[] keys = longKeys;
+            if(size == keys.length){
+                keys = Arrays.copyOf(keys, keys.length * 2);
+                longKeys = keys;
+            }
+            keys[size] = key;
+            maxKey = Math.max(maxKey, key);
+            size = size + 1;
+            return true;
+        }
+
+        private static Long toLong(Object key) {
+            if(key instanceof Number number){
+                return number.longValue();
+            }
+            try {
+                return Long.parseLong(key.toString().trim());
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        int size() {
+            return size;
+        }
+
+        /**
+         * Returns the key at a position, reading the size before the keys guarantees the arrays
+         * contain at least {@link #size()} keys.
+         */
+        Object get(int position) {
+            return integer ? (Object) longKeys[position] : objectKeys[position];
+        }
+    }
+
+    /**
+     * A generator of keys of a referenced column.
+     */
+    interface KeyGenerator extends ColumnGenerator {
+
+        /**
+         * Indicates whether no key is left to generate and none will be added, so the generator
+         * only returns {@code null} from now on.
+         *
+         * @return true if the keys are exhausted, false otherwise
+         */
+        boolean isExhausted();
+    }
+
+    private record SamplingGenerator(ReferenceKeys referenceKeys, Column column, KeyIndex index) implements KeyGenerator {
+
+        @Override
+        public boolean supports(Column column) {
+            return this.column == column;
+        }
+
+        @Override
+        public Object generate(Column column, ColumnGeneratorContext context) {
+            int size = index.size();
+            return size == 0 ? null : index.get(context.random().nextInt(size));
+        }
+
+        @Override
+        public boolean isExhausted() {
+            return index.size() == 0 && !referenceKeys.isGrowing(column);
+        }
+    }
+
+    /**
+     * Hands out the keys of the referenced column in index order, skipping keys already used.
+     */
+    private static final class UniqueGenerator implements KeyGenerator {
+
+        private final ReferenceKeys referenceKeys;
+
+        private final Column column;
+
+        private final KeyIndex index;
+
+        private final KeyIndex used;
+
+        private int position;
+
+        private UniqueGenerator(ReferenceKeys referenceKeys, Column column, KeyIndex index, KeyIndex used) {
+            this.referenceKeys = referenceKeys;
+            this.column = column;
+            this.index = index;
+            this.used = used;
+        }
+
+        @Override
+        public boolean supports(Column column) {
+            return this.column == column;
+        }
+
+        @Override
+        public synchronized Object generate(Column column, ColumnGeneratorContext context) {
+            int size = index.size();
+            while (position < size) {
+                Object key = index.get(position++);
+                if(used.add(key)){
+                    return key;
+                }
+            }
+            // All keys are used, the row is rejected if the column is not nullable.
+            return null;
+        }
+
+        @Override
+        public synchronized boolean isExhausted() {
+            return position >= index.size() && !referenceKeys.isGrowing(column);
+        }
+    }
+}
@@ -0,0 +1,305 @@
+package at.sfischer.synth.db.generation.values;
+
+import at.sfischer.synth.db.generation.columns.ColumnGenerators;
+import at.sfischer.synth.db.generation.profile.SchemaProfile;
+import at.sfischer.synth.db.model.Column;
+import at.sfischer.synth.db.model.InsertStatement;
+import at.sfischer.synth.db.model.Row;
+import at.sfischer.synth.db.model.Table;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Synthesizes rows of a table locally from the seed rows already in the table, to amplify a
+ * small number of LLM generated rows to a large number of rows.
+ * <p>
+ * Every column has a pool of the values of the seed rows. A synthesized row recombines values
+ * drawn independently from the pools, and numeric values are mutated by up to
+ * {@value #MUTATION_RANGE} of their value. Columns are treated depending on their constraints:
+ * </p>
+ * <ul>
+ *     <li>Auto-increment columns are left to the database.</li>
+ *     <li>Foreign key columns get values of the referenced column, {@code NULL} as often as in the seed rows.</li>
+ *     <li>Integer primary key and unique columns get consecutive values after the largest existing value.</li>
+ *     <li>Character primary key and unique columns get a seed value with a unique suffix.</li>
+ *     <li>Columns generated by {@link LocalColumns} are overwritten by their generators.</li>
+ * </ul>
+ * <p>
+ * Rows are synthesized in parallel with a fork-join task per chunk of rows. Row {@code i} of an
+ * amplification always gets the unique values derived from {@code i}, so chunks do not need to
+ * coordinate. Rows may still violate constraints spanning several columns, e.g. composite keys,
+ * in which case they are rejected by the database.
+ * </p>
+ */
+class RowAmplifier implements RowSynthesizer {
+
+    static final int CHUNK_SIZE = 1024;
+
+    static final double MUTATION_RATE = 0.5;
+
+    static final double MUTATION_RANGE = 0.1;
+
+    private enum Kind {
+        AUTO_INCREMENT,
+        REFERENCE,
+        UNIQUE_INTEGER,
+        UNIQUE_STRING,
+        POOL
+    }
+
+    private final Table table;
+
+    private final LocalColumns localColumns;
+
+    private final int seedCount;
+
+    private final Kind[] kinds;
+
+    private final Object[][] pools;
+
+    private final Object[][] referencedValues;
+
+    private final boolean[] uniqueReferences;
+
+    private final long[] uniqueOffsets;
+
+    private final int[] maxLengths;
+
+    private final long randomSeed;
+
+    private RowAmplifier(Table table, LocalColumns localColumns, int seedCount, Kind[] kinds, Object[][] pools, Object[][] referencedValues, boolean[] uniqueReferences, long[] uniqueOffsets, int[] maxLengths, long randomSeed) {
+        this.table = table;
+        this.localColumns = localColumns;
+        this.seedCount = seedCount;
+        this.kinds = kinds;
+        this.pools = pools;
+        this.referencedValues = referencedValues;
+        this.uniqueReferences = uniqueReferences;
+        this.uniqueOffsets = uniqueOffsets;
+        this.maxLengths = maxLengths;
+        this.randomSeed = randomSeed;
+    }
+
+    /**
+     * Creates an amplifier from the rows currently in the table.
+     *
+     * @param connection the {@link Connection} to the database
+     * @param table the table to amplify
+     * @param localColumns the columns generated locally, applied to every synthesized row
+     * @return the amplifier
+     * @throws SQLException if a database access error occurs
+     */
+    static RowAmplifier create(Connection connection, Table table, LocalColumns localColumns) throws SQLException {
+        List<Column> columns = table.getColumns();
+        int columnCount = columns.size();
+        long primaryKeyColumns = columns.stream().filter(Column::isPrimaryKey).count();
+
+        List<List<Object>> seedValues = new ArrayList<>();
+        for (int i = 0; i < columnCount; i++) {
+            seedValues.add(new ArrayList<>());
+        }
+        int seedCount = 0;
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery(table.generateSelectAll())) {
+            while (rs.next()) {
+                for (int i = 0; i < columnCount; i++) {
+                    seedValues.get(i).add(SchemaProfile.normalize(rs.getObject(i + 1)));
+                }
+                seedCount++;
+            }
+        }
+
+        Kind[] kinds = new Kind[columnCount];
+        Object[][] pools = new Object[columnCount][];
+        Object[][] referencedValues = new Object[columnCount][];
+        boolean[] uniqueReferences = new boolean[columnCount];
+        long[] uniqueOffsets = new long[columnCount];
+        int[] maxLengths = new int[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            Column column = columns.get(i);
+            // Parts of a composite primary key are not unique on their own.
+            boolean unique = column.isPrimaryKey() ? primaryKeyColumns == 1 : column.isUnique();
+            pools[i] = seedValues.get(i).toArray();
+            if(column.isAutoIncrement()){
+                kinds[i] = Kind.AUTO_INCREMENT;
+            } else if(column.getReference() != null){
+                kinds[i] = Kind.REFERENCE;
+                referencedValues[i] = getReferencedValues(connection, column, unique);
+                uniqueReferences[i] = unique;
+            } else if(unique && ColumnGenerators.isInteger(column)){
+                kinds[i] = Kind.UNIQUE_INTEGER;
+                uniqueOffsets[i] = getMaxValue(connection, column) + 1;
+            } else if(unique && isCharacter(column)){
+                kinds[i] = Kind.UNIQUE_STRING;
+                maxLengths[i] = ColumnGenerators.getMaxLength(column);
+            } else {
+                kinds[i] = Kind.POOL;
+            }
+        }
+
+        return new RowAmplifier(table, localColumns, seedCount, kinds, pools, referencedValues, uniqueReferences, uniqueOffsets, maxLengths, new Random().nextLong());
+    }
+
+    /**
+     * Indicates whether the table has rows to amplify.
+     *
+     * @return true if there are seed rows, false otherwise
+     */
+    boolean hasSeeds() {
+        return seedCount > 0;
+    }
+
+    /**
+     * Synthesizes rows in parallel.
+     *
+     * @param firstIndex the index of the first row within this amplification, determining its unique values
+     * @param rowCount the number of rows
+     * @return single row statements of the synthesized rows
+     */
+    @Override
+    public List<InsertStatement> synthesize(long firstIndex, int rowCount) {
+        return ForkJoinPool.commonPool().invoke(new AmplifyTask(firstIndex, firstIndex + rowCount));
+    }
+
+    @SuppressWarnings("serial") // Tasks are never serialized.
+    private class AmplifyTask extends RecursiveTask<List<InsertStatement>> {
+
+        private final long from;
+
+        private final long to;
+
+        private AmplifyTask(long from, long to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected List<InsertStatement> compute() {
+            if(to - from <= CHUNK_SIZE){
+                SplittableRandom random = new SplittableRandom(randomSeed ^ (from * 0x9E3779B97F4A7C15L));
+                List<InsertStatement> rows = new ArrayList<>((int) (to - from));
+                for (long index = from; index < to; index++) {
+                    rows.add(synthesizeRow(index, random));
+                }
+                return rows;
+            }
+
+            long middle = from + (to - from) / 2;
+            AmplifyTask left = new AmplifyTask(from, middle);
+            AmplifyTask right = new AmplifyTask(middle, to);
+            right.fork();
+            List<InsertStatement> rows = left.compute();
+            rows.addAll(right.join());
+            return rows;
+        }
+    }
+
+    private InsertStatement synthesizeRow(long index, SplittableRandom random) {
+        Row row = new Row(table);
+        for (int i = 0; i < kinds.length; i++) {
+            Object[] pool = pools[i];
+            switch (kinds[i]) {
+                case AUTO_INCREMENT -> row.set(i, null);
+                case REFERENCE -> row.set(i, referencedValue(i, index, random));
+                case UNIQUE_INTEGER -> row.set(i, uniqueOffsets[i] + index);
+                case UNIQUE_STRING -> row.set(i, uniqueString(pool[random.nextInt(pool.length)], index, maxLengths[i]));
+                case POOL -> row.set(i, mutate(pool[random.nextInt(pool.length)], random));
+            }
+        }
+
+        InsertStatement insert = new InsertStatement(table, new ArrayList<>(List.of(row)));
+        localColumns.apply(insert);
+        return insert;
+    }
+
+    private Object referencedValue(int column, long index, SplittableRandom random) {
+        Object[] values = referencedValues[column];
+        Object[] pool = pools[column];
+        if(values.length == 0 || pool[random.nextInt(pool.length)] == null){
+            return null;
+        }
+        if(uniqueReferences[column]){
+            // Unused referenced values in order, rows beyond them are rejected.
+            return index < values.length ? values[(int) index] : null;
+        }
+        return values[random.nextInt(values.length)];
+    }
+
+    private static Object uniqueString(Object seed, long index, int maxLength) {
+        String value = seed == null ? "" : seed.toString();
+        String suffix = "-" + (index + 1);
+        int at = value.indexOf('@');
+        if(at > 0){
+            // Keep e-mail addresses valid.
+            suffix = "+" + (index + 1);
+            String domain = value.substring(at);
+            String local = value.substring(0, Math.max(0, Math.min(at, maxLength - domain.length() - suffix.length())));
+            return local + suffix + domain;
+        }
+        return value.substring(0, Math.max(0, Math.min(value.length(), maxLength - suffix.length()))) + suffix;
+    }
+
+    private static Object mutate(Object value, SplittableRandom random) {
+        if(value == null || random.nextDouble() >= MUTATION_RATE){
+            return value;
+        }
+
+        double factor = 1 + random.nextDouble(-MUTATION_RANGE, MUTATION_RANGE);
+        return switch (value) {
+            case Long l -> Math.round(l * factor);
+            case Double d -> Math.round(d * factor * 100) / 100.0;
+            case BigDecimal decimal -> decimal.multiply(BigDecimal.valueOf(factor)).setScale(decimal.scale(), RoundingMode.HALF_UP);
+            default -> value;
+        };
+    }
+
+    /**
+     * Returns the distinct values of the column referenced by a foreign key column.
+     *
+     * @param connection the {@link Connection} to the database
+     * @param column the foreign key column
+     * @param unique whether the foreign key column is unique, so values it already references are excluded
+     * @return the referenced values
+     * @throws SQLException if a database access error occurs
+     */
+    static Object[] getReferencedValues(Connection connection, Column column, boolean unique) throws SQLException {
+        Column reference = column.getReference();
+        String sql = "SELECT DISTINCT " + reference.getName() + " FROM " + reference.getTable().getName() +
+                " WHERE " + reference.getName() + " IS NOT NULL";
+        if(unique){
+            sql += " AND " + reference.getName() + " NOT IN (SELECT " + column.getName() + " FROM " + column.getTable().getName() +
+                    " WHERE " + column.getName() + " IS NOT NULL)";
+        }
+        List<Object> values = new ArrayList<>();
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) {
+                values.add(SchemaProfile.normalize(rs.getObject(1)));
+            }
+        }
+        return values.toArray();
+    }
+
+    private static long getMaxValue(Connection connection, Column column) throws SQLException {
+        String sql = "SELECT MAX(" + column.getName() + ") FROM " + column.getTable().getName();
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    private static boolean isCharacter(Column column) {
+        return switch (ColumnGenerators.getBaseType(column)) {
+            case "CHAR", "VARCHAR", "TEXT", "CHARACTER" -> true;
+            default -> false;
+        };
+    }
+}
@@ -0,0 +1,20 @@
+package at.sfischer.synth.db.generation.values;
+
+import at.sfischer.synth.db.model.InsertStatement;
+
+import java.util.List;
+
+/**
+ * Synthesizes rows of a table locally, without prompting the LLM.
+ */
+interface RowSynthesizer {
+
+    /**
+     * Synthesizes rows.
+     *
+     * @param firstIndex the index of the first row within this synthesis, determining its unique values
+     * @param rowCount the number of rows
+     * @return single row statements of the synthesized rows
+     */
+    List<InsertStatement> synthesize(long firstIndex, int rowCount);
+}
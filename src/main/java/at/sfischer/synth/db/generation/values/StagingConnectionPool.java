@@ -0,0 +1,101 @@
+package at.sfischer.synth.db.generation.values;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.regex.Pattern;
+
+/**
+ * A small pool of connections to the staging database used while filling tables in parallel.
+ * <p>
+ * The pool starts with the connection given by the caller and lazily opens additional
+ * connections with a {@link ConnectionSupplier}. Without a supplier, additional connections
+ * are only opened for a named in-memory H2 database, which can be reopened by its URL without
+ * credentials. Only the additionally opened connections are closed when the pool is closed.
+ * </p>
+ */
+class StagingConnectionPool implements AutoCloseable {
+
+    private static final Pattern NAMED_H2_MEMORY_URL = Pattern.compile("jdbc:h2:mem:[^;]+(;.*)?", Pattern.CASE_INSENSITIVE);
+
+    private final ConnectionSupplier supplier;
+
+    private final int size;
+
+    private final BlockingQueue<Connection> available = new LinkedBlockingQueue<>();
+
+    private final List<Connection> opened = new ArrayList<>();
+
+    private int created;
+
+    /**
+     * Constructs a new pool based on the given connection.
+     *
+     * @param primary the connection provided by the caller, used as the first pooled connection
+     * @param supplier opens the additional connections, {@code null} to reopen the URL of {@code primary}
+     * @param size the maximum number of connections in the pool, including {@code primary}
+     * @throws SQLException if additional connections are needed, but no supplier is given and the
+     *                      URL of the primary connection does not denote a named in-memory H2 database
+     */
+    StagingConnectionPool(Connection primary, ConnectionSupplier supplier, int size) throws SQLException {
+        if(supplier == null && size > 1){
+            String url = primary.getMetaData().getURL();
+            if(url == null || !NAMED_H2_MEMORY_URL.matcher(url).matches()){
+                throw new SQLException("Cannot open further connections to the staging database " + url +
+                        ", a connection supplier is required to fill tables in parallel.");
+            }
+            supplier = () -> DriverManager.getConnection(url);
+        }
+        this.supplier = supplier;
+        this.size = size;
+        this.available.add(primary);
+        this.created = 1;
+    }
+
+    /**
+     * Acquires a connection, opening a new one if the pool is not yet at its maximum size
+     * and waiting for a released connection otherwise.
+     *
+     * @return a connection to the staging database
+     * @throws SQLException if a new connection cannot be opened
+     * @throws InterruptedException if interrupted while waiting for a connection
+     */
+    Connection acquire() throws SQLException, InterruptedException {
+        Connection connection = available.poll();
+        if(connection != null){
+            return connection;
+        }
+
+        synchronized (this) {
+            if(created < size){
+                connection = supplier.get();
+                opened.add(connection);
+                created++;
+                return connection;
+            }
+        }
+
+        return available.take();
+    }
+
+    /**
+     * Returns a previously acquired connection to the pool.
+     *
+     * @param connection the connection to release
+     */
+    void release(Connection connection) {
+        available.add(connection);
+    }
+
+    @Override
+    public synchronized void close() throws SQLException {
+        for (Connection connection : opened) {
+            connection.close();
+        }
+        opened.clear();
+    }
+}
@@ -0,0 +1,144 @@
+package at.sfischer.synth.db.generation.values;
+
+import at.sfischer.synth.db.model.InsertStatement;
+import at.sfischer.synth.db.model.Table;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.LongConsumer;
+
+/**
+ * Fills several tables in parallel while respecting their foreign key dependencies.
+ * <p>
+ * A table is started as soon as all tables it depends on and that are being filled have
+ * completed, so independent tables are filled at the same time and the overall duration
+ * depends on the depth of the dependency graph instead of the number of tables.
+ * Every table is filled with its own connection from a {@link StagingConnectionPool}.
+ * </p>
+ * <p>
+ * If a {@link TableFillerSettings#getPipelineThreshold() pipeline threshold} is set, a table
+ * is already started once each of the tables it depends on contains at least that many
+ * committed rows, so generation overlaps across the levels of the dependency graph.
+ * </p>
+ * <p>
+ * If a table fails, the tables still being filled are interrupted and {@link #fill} only returns
+ * once all of them have stopped, so none of them uses the connections, the listener or the
+ * output sink afterwards.
+ * </p>
+ */
+class TableFillScheduler {
+
+    private final Map<Table, Set<Table>> tableDependencies;
+
+    private final Connection connection;
+
+    private final InsertDataGeneration insertDataGeneration;
+
+    private final TableFillerSettings settings;
+
+    private final TableFillerProgressListener listener;
+
+    private final TableRowCounters rowCounters;
+
+    private final TableValueSamples valueSamples;
+
+    private final ReferenceKeys referenceKeys;
+
+    TableFillScheduler(Map<Table, Set<Table>> tableDependencies, Connection connection, InsertDataGeneration insertDataGeneration, TableFillerSettings settings, TableFillerProgressListener listener, TableRowCounters rowCounters, TableValueSamples valueSamples, ReferenceKeys referenceKeys) {
+        this.tableDependencies = tableDependencies;
+        this.connection = connection;
+        this.insertDataGeneration = insertDataGeneration;
+        this.settings = settings;
+        this.listener = listener;
+        this.rowCounters = rowCounters;
+        this.valueSamples = valueSamples;
+        this.referenceKeys = referenceKeys;
+    }
+
+    /**
+     * Fills the given tables with their respective target row numbers.
+     *
+     * @param targetRowNumbers the tables to fill in insertion order, mapped to their target row numbers
+     * @return a map from each {@link Table} to the list of {@link InsertStatement} objects generated for that table,
+     *         in the same order as {@code targetRowNumbers}
+     * @throws SQLException if a database access error occurs while filling any of the tables
+     */
+    Map<Table, List<InsertStatement>> fill(LinkedHashMap<Table, Integer> targetRowNumbers) throws SQLException {
+        Map<Table, CompletableFuture<List<InsertStatement>>> futures = new LinkedHashMap<>();
+        Map<Table, CompletableFuture<Void>> ready = new HashMap<>();
+        CompletableFuture<Void> failure = new CompletableFuture<>();
+        // The executor is closed first, so the pool is only closed once no table is being filled anymore.
+        try (StagingConnectionPool pool = new StagingConnectionPool(connection, settings.getConnectionSupplier(), settings.getTableParallelism());
+             ExecutorService executor = Executors.newFixedThreadPool(settings.getTableParallelism())) {
+            try {
+                for (Map.Entry<Table, Integer> entry : targetRowNumbers.entrySet()) {
+                    Table table = entry.getKey();
+                    int target = entry.getValue();
+                    CompletableFuture<?>[] parents = tableDependencies.getOrDefault(table, Set.of()).stream()
+                            .filter(parent -> !parent.equals(table))
+                            .map(ready::get)
+                            .filter(Objects::nonNull)
+                            .toArray(CompletableFuture[]::new);
+
+                    CompletableFuture<Void> tableReady = new CompletableFuture<>();
+                    LongConsumer rowCountConsumer = rowCount -> {
+                        if(settings.getPipelineThreshold() > 0 && rowCount >= settings.getPipelineThreshold()){
+                            tableReady.complete(null);
+                        }
+                    };
+                    CompletableFuture<List<InsertStatement>> future = CompletableFuture.allOf(parents)
+                            .thenApplyAsync(_ -> fillTable(pool, table, target, rowCountConsumer), executor);
+                    future.whenComplete((_, throwable) -> {
+                        if(throwable != null){
+                            tableReady.completeExceptionally(throwable);
+                            failure.completeExceptionally(throwable);
+                        } else {
+                            tableReady.complete(null);
+                        }
+                    });
+
+                    futures.put(table, future);
+                    ready.put(table, tableReady);
+                }
+
+                // Fails as soon as any table fails, instead of waiting for the tables before it in insertion order.
+                CompletableFuture.anyOf(CompletableFuture.allOf(futures.values().toArray(CompletableFuture[]::new)), failure).join();
+                Map<Table, List<InsertStatement>> insertStatements = new LinkedHashMap<>();
+                for (Map.Entry<Table, CompletableFuture<List<InsertStatement>>> entry : futures.entrySet()) {
+                    insertStatements.put(entry.getKey(), entry.getValue().join());
+                }
+                return insertStatements;
+            } finally {
+                // Interrupts the tables still being filled, closing the executor then waits until they stopped.
+                futures.values().forEach(future -> future.cancel(true));
+                executor.shutdownNow();
+            }
+        } catch (CompletionException e) {
+            if(e.getCause() instanceof SQLException sqlException){
+                throw sqlException;
+            }
+            throw e;
+        }
+    }
+
+    private List<InsertStatement> fillTable(StagingConnectionPool pool, Table table, int targetRowNumber, LongConsumer rowCountConsumer) {
+        try {
+            Connection tableConnection = pool.acquire();
+            try {
+                return TableFiller.fillTable(table, tableDependencies, tableConnection, insertDataGeneration, targetRowNumber, settings, listener, rowCounters, valueSamples, referenceKeys, rowCountConsumer);
+            } finally {
+                pool.release(tableConnection);
+            }
+        } catch (SQLException e) {
+            throw new CompletionException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CompletionException(new SQLException("Interrupted while filling table: " + table.getName(), e));
+        }
+    }
+}
@@ -1,15 +1,25 @@
 package at.sfischer.synth.db.generation.values;
 
+import at.sfischer.synth.db.generation.columns.ColumnGenerator;
+import at.sfischer.synth.db.generation.columns.ColumnGenerators;
+import at.sfischer.synth.db.generation.columns.ColumnSpecGenerator;
+import at.sfischer.synth.db.generation.profile.TableProfile;
 import at.sfischer.synth.db.model.Column;
 import at.sfischer.synth.db.model.DBSchema;
 import at.sfischer.synth.db.model.InsertStatement;
+import at.sfischer.synth.db.model.Row;
 import at.sfischer.synth.db.model.Table;
+import at.sfischer.synth.db.model.TableData;
+import at.sfischer.synth.db.output.OutputSink;
 import net.sf.jsqlparser.JSQLParserException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.sql.*;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.LongConsumer;
 
 /**
  * Utility class for creating database tables and populating data.
@@ -22,6 +32,20 @@ public class TableFiller {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(TableFiller.class);
 
+    private static final int COLUMN_SPEC_EXAMPLES = 10;
+
+    private static final int LOCAL_BATCH_SIZE = 1000;
+
+    private static final int AMPLIFICATION_WAVE_SIZE = 65536;
+
+    private static final int AMPLIFICATION_BATCH_SIZE = 1000;
+
+    private static final int SAMPLING_ATTEMPTS = 4;
+
+    private static final long SAMPLING_RETRY_DELAY_MILLIS = 50;
+
+    private static final int GENERATION_FAILURE_LIMIT = 10;
+
     /**
      * Creates all tables in the given {@link DBSchema} on the provided {@link Connection}.
      * <p>
@@ -81,19 +105,40 @@ public class TableFiller {
      * @throws SQLException if a database access error occurs or a SQL statement fails
      */
     public static Map<Table, List<InsertStatement>> fillSchema(DBSchema schema, Connection connection, InsertDataGeneration insertDataGeneration, int targetRowNumber, int dependentExampleNumber, TableFillerProgressListener listener) throws SQLException {
-        Map<Table, List<InsertStatement>> insertStatements = new LinkedHashMap<>();
+        return fillSchema(schema, connection, insertDataGeneration, targetRowNumber, new TableFillerSettings().setDependentExampleNumber(dependentExampleNumber), listener);
+    }
+
+    /**
+     * Populates all tables in the given {@link DBSchema} with generated data,
+     * using the given {@link TableFillerSettings} and optional progress tracking.
+     * <p>
+     * This method automatically determines the insertion order of tables based on
+     * foreign key dependencies and fills each table with the specified number of rows.
+     * </p>
+     *
+     * @param schema the {@link DBSchema} containing all tables to fill
+     * @param connection the {@link Connection} to the target database
+     * @param insertDataGeneration the strategy for generating data for each table
+     * @param targetRowNumber the desired number of rows to generate for each table
+     * @param settings the {@link TableFillerSettings} controlling the generation
+     * @param listener optional listener for tracking progress, can be null
+     * @return a map from each {@link Table} to the list of {@link InsertStatement} objects generated for that table,
+     *         empty lists if {@link TableFillerSettings#getOutputSink() an output sink} is set
+     * @throws SQLException if a database access error occurs or a SQL statement fails
+     */
+    public static Map<Table, List<InsertStatement>> fillSchema(DBSchema schema, Connection connection, InsertDataGeneration insertDataGeneration, int targetRowNumber, TableFillerSettings settings, TableFillerProgressListener listener) throws SQLException {
         Map<Table, Set<Table>> tableDependencies = schema.getTableDependencies();
         List<Table> insertions = DBSchema.computeInsertionOrder(tableDependencies);
         if(listener != null){
             listener.setTotalTables(insertions.size());
         }
+
+        LinkedHashMap<Table, Integer> targetRowNumbers = new LinkedHashMap<>();
         for (Table insertion : insertions) {
-            insertStatements.put(insertion,
-                    fillTable(insertion, tableDependencies, connection, insertDataGeneration, targetRowNumber, dependentExampleNumber, listener)
-            );
+            targetRowNumbers.put(insertion, targetRowNumber);
         }
 
-        return insertStatements;
+        return fillTables(targetRowNumbers, tableDependencies, connection, insertDataGeneration, settings, listener);
     }
 
     /**
@@ -137,21 +182,63 @@ public class TableFiller {
      * @throws SQLException if a database access error occurs or a SQL statement fails
      */
     public static Map<Table, List<InsertStatement>> fillSchema(DBSchema schema, Connection connection, InsertDataGeneration insertDataGeneration, Map<String, Integer> tableTargetRowNumbers, int dependentExampleNumber, TableFillerProgressListener listener) throws SQLException {
+        return fillSchema(schema, connection, insertDataGeneration, tableTargetRowNumbers, new TableFillerSettings().setDependentExampleNumber(dependentExampleNumber), listener);
+    }
+
+    /**
+     * Populates selected tables in the given {@link DBSchema} with generated data,
+     * using a map of table names to target row numbers, the given {@link TableFillerSettings}
+     * and optional progress tracking.
+     * <p>
+     * Tables not listed in {@code tableTargetRowNumbers} will be skipped.
+     * </p>
+     *
+     * @param schema the {@link DBSchema} containing all tables
+     * @param connection the {@link Connection} to the target database
+     * @param insertDataGeneration the strategy for generating data for each table
+     * @param tableTargetRowNumbers a map from table names to the desired number of rows to generate
+     * @param settings the {@link TableFillerSettings} controlling the generation
+     * @param listener optional listener for tracking progress, can be null
+     * @return a map from each {@link Table} to the list of {@link InsertStatement} objects generated for that table,
+     *         empty lists if {@link TableFillerSettings#getOutputSink() an output sink} is set
+     * @throws SQLException if a database access error occurs or a SQL statement fails
+     */
+    public static Map<Table, List<InsertStatement>> fillSchema(DBSchema schema, Connection connection, InsertDataGeneration insertDataGeneration, Map<String, Integer> tableTargetRowNumbers, TableFillerSettings settings, TableFillerProgressListener listener) throws SQLException {
         if(listener != null){
             listener.setTotalTables(tableTargetRowNumbers.size());
         }
 
-        Map<Table, List<InsertStatement>> insertStatements = new LinkedHashMap<>();
         Map<Table, Set<Table>> tableDependencies = schema.getTableDependencies();
         List<Table> insertions = DBSchema.computeInsertionOrder(tableDependencies);
+        LinkedHashMap<Table, Integer> targetRowNumbers = new LinkedHashMap<>();
         for (Table insertion : insertions) {
             Integer target = tableTargetRowNumbers.get(insertion.getName());
             if(target == null){
                 continue;
             }
 
-            insertStatements.put(insertion,
-                    fillTable(insertion, tableDependencies, connection, insertDataGeneration, target, dependentExampleNumber, listener)
+            targetRowNumbers.put(insertion, target);
+        }
+
+        return fillTables(targetRowNumbers, tableDependencies, connection, insertDataGeneration, settings, listener);
+    }
+
+    /**
+     * Fills the given tables either one after another in insertion order, or in parallel
+     * along the dependency graph if {@link TableFillerSettings#getTableParallelism()} is larger than 1.
+     */
+    private static Map<Table, List<InsertStatement>> fillTables(LinkedHashMap<Table, Integer> targetRowNumbers, Map<Table, Set<Table>> tableDependencies, Connection connection, InsertDataGeneration insertDataGeneration, TableFillerSettings settings, TableFillerProgressListener listener) throws SQLException {
+        TableRowCounters rowCounters = new TableRowCounters(getStatistics(settings));
+        TableValueSamples valueSamples = createValueSamples(settings);
+        ReferenceKeys referenceKeys = new ReferenceKeys();
+        if(settings.getTableParallelism() > 1){
+            return new TableFillScheduler(tableDependencies, connection, insertDataGeneration, settings, listener, rowCounters, valueSamples, referenceKeys).fill(targetRowNumbers);
+        }
+
+        Map<Table, List<InsertStatement>> insertStatements = new LinkedHashMap<>();
+        for (Map.Entry<Table, Integer> entry : targetRowNumbers.entrySet()) {
+            insertStatements.put(entry.getKey(),
+                    fillTable(entry.getKey(), tableDependencies, connection, insertDataGeneration, entry.getValue(), settings, listener, rowCounters, valueSamples, referenceKeys, null)
             );
         }
 
@@ -199,92 +286,377 @@ public class TableFiller {
      * @throws SQLException if a database access error occurs
      */
     public static List<InsertStatement> fillTable(Table table, Map<Table, Set<Table>> tableDependencies, Connection connection, InsertDataGeneration insertDataGeneration, int targetRowNumber, int dependentExampleNumber, TableFillerProgressListener listener) throws SQLException {
+        return fillTable(table, tableDependencies, connection, insertDataGeneration, targetRowNumber, new TableFillerSettings().setDependentExampleNumber(dependentExampleNumber), listener);
+    }
+
+    /**
+     * Populates a single table with generated data until the target row number is reached,
+     * using the given {@link TableFillerSettings} and optional progress tracking.
+     * <p>
+     * Rows are requested from the {@link InsertDataGeneration} in batches of
+     * {@link TableFillerSettings#getBatchSize()} rows. Each generated row is parsed on its own,
+     * and parsed rows are inserted in JDBC batches as soon as a batch is full or no further rows
+     * are available, so a single invalid row does not discard the rest of the batch.
+     * Up to {@link TableFillerSettings#getConcurrency()} generation requests are kept in flight
+     * using {@link InsertDataGeneration#streamRows}, with virtual threads for blocking
+     * implementations, while parsing and insertion of the generated rows happens sequentially
+     * on the calling thread as soon as the rows arrive.
+     * </p>
+     * <p>
+     * If no {@link TableFillerSettings#getOutputSink() output sink} is set, inserted rows are kept in a
+     * columnar {@link TableData} instead of one object per row and value, and returned as a single
+     * read-only statement backed by it. With an output sink, rows are not retained at all.
+     * </p>
+     *
+     * @param table the {@link Table} to populate
+     * @param tableDependencies a map of tables to the set of tables that depend on them; can be null
+     * @param connection the {@link Connection} to the database where data will be inserted
+     * @param insertDataGeneration the strategy for generating insert statements for the table
+     * @param targetRowNumber the desired total number of rows in the table after insertion
+     * @param settings the {@link TableFillerSettings} controlling the generation
+     * @param listener an optional {@link TableFillerProgressListener} to track progress, can be null
+     * @return a list of {@link InsertStatement} objects representing the inserted rows, empty if
+     *         {@link TableFillerSettings#getOutputSink() an output sink} is set
+     * @throws SQLException if a database access error occurs
+     */
+    public static List<InsertStatement> fillTable(Table table, Map<Table, Set<Table>> tableDependencies, Connection connection, InsertDataGeneration insertDataGeneration, int targetRowNumber, TableFillerSettings settings, TableFillerProgressListener listener) throws SQLException {
+        return fillTable(table, tableDependencies, connection, insertDataGeneration, targetRowNumber, settings, listener, new TableRowCounters(getStatistics(settings)), createValueSamples(settings), new ReferenceKeys(), null);
+    }
+
+    /**
+     * Populates a single table like {@link #fillTable(Table, Map, Connection, InsertDataGeneration, int, TableFillerSettings, TableFillerProgressListener)}
+     * and additionally reports the number of committed rows in the table to {@code rowCountConsumer},
+     * once at the start and after every successful insert.
+     * <p>
+     * The number of rows is taken from {@code rowCounters}, which are only reconciled with the
+     * database when the table is started and completed. Example rows are drawn from
+     * {@code valueSamples}, which are updated with every inserted row. Keys of inserted rows are
+     * added to {@code referenceKeys}, which foreign key columns are filled from if
+     * {@link TableFillerSettings#isLocalForeignKeys() enabled}.
+     * </p>
+     */
+    static List<InsertStatement> fillTable(Table table, Map<Table, Set<Table>> tableDependencies, Connection connection, InsertDataGeneration insertDataGeneration, int targetRowNumber, TableFillerSettings settings, TableFillerProgressListener listener, TableRowCounters rowCounters, TableValueSamples valueSamples, ReferenceKeys referenceKeys, LongConsumer rowCountConsumer) throws SQLException {
+        if(rowCountConsumer == null){
+            rowCountConsumer = _ -> {};
+        }
         if(tableDependencies == null){
             tableDependencies = new LinkedHashMap<>();
         }
 
-        Column autoIncrementKey = table.getAutoIncrementKey();
-        List<InsertStatement> insertStatements = new LinkedList<>();
-        try (Statement stmt = connection.createStatement()) {
-            long count = getRowCount(connection, table);
+        int exampleNumber = settings.getDependentExampleNumber();
+        TableFillerStatistics statistics = getStatistics(settings);
+        TableData data = settings.getOutputSink() == null ? new TableData(table) : null;
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        BlockingQueue<GenerationEvent> events = new LinkedBlockingQueue<>();
+        Map<CompletableFuture<Void>, Integer> requestedRows = new HashMap<>();
+        long pendingRows = 0;
+        long refreshCount = 0;
+        referenceKeys.fillStarted(table);
+        try (TableInserter inserter = new TableInserter(connection, table, statistics)) {
+            long count = rowCounters.seed(connection, table);
+            rowCountConsumer.accept(count);
+            TableProfile profile = settings.getSchemaProfile() == null ? null : settings.getSchemaProfile().getTable(table.getName());
+            boolean fromProfile = profile != null && profile.getRowCount() > 0;
+            ColumnGenerators columnGenerators = settings.getColumnGenerators();
+            if(settings.isCompileColumnSpecs() && !fromProfile && count < targetRowNumber){
+                columnGenerators = compileColumnSpecs(table, connection, insertDataGeneration, columnGenerators, valueSamples, statistics);
+            }
+            ReferenceKeys localReferenceKeys = settings.isLocalForeignKeys() ? referenceKeys : null;
+            LocalColumns localColumns = LocalColumns.plan(table, columnGenerators, localReferenceKeys, connection, count);
+            TextModels textModels = TextModels.plan(table, localColumns, settings.getTextModelThreshold());
+            if(settings.getTextModelThreshold() > 0 && !fromProfile && count < targetRowNumber){
+                textModels.offer(valueSamples.sample(table, connection, settings.getExampleSampleSize()));
+            }
             if(listener != null){
                 listener.nextTable(table, targetRowNumber - count);
                 if(listener.getTotalTables() <= 0){
                     listener.setTotalTables(1);
                 }
             }
-            while (count < targetRowNumber) {
-                try {
-                    String insertStatement = insertDataGeneration.generateInsertStatement(
-                            table,
-                            count,
-                            getTableValues(table, connection, dependentExampleNumber),
-                            getTableValues(tableDependencies.get(table), connection, dependentExampleNumber)
-                    );
-
-                    LOGGER.debug("Insert statement generated: \"{}\"", insertStatement);
-
-                    InsertStatement insert = InsertStatement.parseInsertStatement(table, insertStatement);
-                    if (insert == null) {
+            int seedRows = settings.getSeedRows(table);
+            long generationTarget = fromProfile ? count : seedRows > 0 ? Math.min(targetRowNumber, seedRows) : targetRowNumber;
+            UniqueKeyGuard keyGuard = settings.isUniqueKeyGuard() && count < generationTarget ? UniqueKeyGuard.create(connection, table, settings.isRepairUniqueKeys()) : null;
+            int samplingFailures = 0;
+            int generationFailures = 0;
+            boolean stalled = false;
+            while (count < generationTarget) {
+                while (requestedRows.size() < settings.getConcurrency() && count + pendingRows < generationTarget && localColumns.getExhaustedColumn() == null) {
+                    if(textModels.isReady()){
+                        columnGenerators = textModels.train(columnGenerators);
+                        localColumns = LocalColumns.plan(table, columnGenerators, localReferenceKeys, connection, count);
+                    }
+                    int batchSize = (int) Math.min(settings.getBatchSize(), generationTarget - count - pendingRows);
+                    if(localColumns.coversAllColumns()){
+                        batchSize = (int) Math.min(Math.max(settings.getBatchSize(), LOCAL_BATCH_SIZE), generationTarget - count - pendingRows);
+                        long batchStart = count;
+                        localColumns.generate(batchSize).forEach(inserter::add);
+                        count = flush(table, connection, inserter, data, settings, rowCounters, valueSamples, referenceKeys, keyGuard, listener, rowCountConsumer);
+                        if(count == batchStart){
+                            LOGGER.warn("Locally generated rows of table {} were rejected, stopping at {} rows.", table.getName(), count);
+                            stalled = true;
+                            break;
+                        }
                         continue;
                     }
 
-                    if(autoIncrementKey == null){
-                        stmt.execute(insert.generateInsertStatement());
-                    } else {
-                        long id = insertAndGetAutoIncrement(connection, insert);
-                        if(id > 0) {
-                            insert.setAutoIncrementValuesIncrementing(autoIncrementKey, id);
+                    long rowCount = count;
+                    List<Map<Column, Object>> exampleValues;
+                    Map<Table, List<Map<Column, Object>>> dependentTableValues;
+                    long samplingStart = System.nanoTime();
+                    try {
+                        if(settings.getExampleRefreshInterval() > 0 && count - refreshCount >= settings.getExampleRefreshInterval()){
+                            valueSamples.refresh(connection, table);
+                            refreshCount = count;
+                        }
+                        exampleValues = valueSamples.sample(table, connection, exampleNumber);
+                        dependentTableValues = valueSamples.sample(localColumns.getPromptDependencies(tableDependencies.get(table)), connection, exampleNumber);
+                    } catch (SQLException e) {
+                        // Retry with exponential backoff, e.g. if the database is busy, and give up the table eventually.
+                        if(++samplingFailures >= SAMPLING_ATTEMPTS){
+                            throw e;
                         }
+                        LOGGER.debug("Error retrieving example values, retrying.", e);
+                        Thread.sleep(SAMPLING_RETRY_DELAY_MILLIS << (samplingFailures - 1));
+                        continue;
                     }
-                    insertStatements.add(insert);
+                    samplingFailures = 0;
+                    statistics.record(TableFillerStatistics.Stage.SAMPLING, samplingStart);
 
-                    if(listener != null){
-                        listener.rowGenerated();
+                    long requestStart = System.nanoTime();
+                    CompletableFuture<Void> request = insertDataGeneration.streamRows(localColumns.getPromptTable(), rowCount, batchSize, localColumns.project(exampleValues), dependentTableValues, executor,
+                            insertStatement -> events.add(new GenerationEvent(null, insertStatement, null))
+                    );
+                    requestedRows.put(request, batchSize);
+                    pendingRows += batchSize;
+                    request.whenComplete((_, throwable) -> {
+                        statistics.record(TableFillerStatistics.Stage.GENERATION, requestStart);
+                        events.add(new GenerationEvent(request, null, throwable));
+                    });
+                }
+                if(stalled){
+                    break;
+                }
+                if(requestedRows.isEmpty()){
+                    Column exhaustedColumn = localColumns.getExhaustedColumn();
+                    if(exhaustedColumn != null){
+                        LOGGER.warn("No keys left to reference in column {} of table {}, stopping at {} of {} rows.", exhaustedColumn.getName(), table.getName(), count, generationTarget);
+                        break;
                     }
-                    LOGGER.debug("Insert statement stored: \"{}\"", insert.generateInsertStatement());
-                } catch (JSQLParserException | SQLException e) {
-                    LOGGER.debug("Error processing SQL.", e);
                     continue;
                 }
 
-                count = getRowCount(connection, table);
+                GenerationEvent event = events.take();
+                if(event.completedRequest() != null){
+                    count = flush(table, connection, inserter, data, settings, rowCounters, valueSamples, referenceKeys, keyGuard, listener, rowCountConsumer);
+                    pendingRows -= requestedRows.remove(event.completedRequest());
+                    if(event.failure() == null){
+                        generationFailures = 0;
+                        continue;
+                    }
+                    LOGGER.warn("Insert statement generation failed.", event.failure());
+                    if(++generationFailures >= GENERATION_FAILURE_LIMIT){
+                        throw new SQLException("Insert statement generation for table " + table.getName() + " failed " + generationFailures + " times in a row.", event.failure());
+                    }
+                    continue;
+                }
+                if(count + inserter.getPendingRows() >= generationTarget){
+                    continue;
+                }
+
+                InsertStatement insert = parseGeneratedStatement(table, event.insertStatement(), statistics);
+                if (insert == null) {
+                    continue;
+                }
+                localColumns.apply(insert);
+                if(keyGuard != null){
+                    insert = keyGuard.admit(insert);
+                    if(insert == null){
+                        continue;
+                    }
+                }
+                textModels.offer(insert.getRows());
+                inserter.add(insert);
+                if(inserter.getPendingRows() >= settings.getBatchSize() || events.isEmpty()){
+                    count = flush(table, connection, inserter, data, settings, rowCounters, valueSamples, referenceKeys, keyGuard, listener, rowCountConsumer);
+                }
+            }
+            if(keyGuard != null && (keyGuard.getRejectedRows() > 0 || keyGuard.getRepairedValues() > 0)){
+                LOGGER.debug("Duplicate keys in generated rows of table {}: {} rows rejected, {} values repaired.", table.getName(), keyGuard.getRejectedRows(), keyGuard.getRepairedValues());
+            }
+            if(fromProfile && count < targetRowNumber){
+                ProfileSynthesizer synthesizer = ProfileSynthesizer.create(connection, table, profile, columnGenerators, count);
+                synthesize(table, connection, inserter, data, targetRowNumber, synthesizer, settings, rowCounters, valueSamples, referenceKeys, listener, rowCountConsumer);
+            } else if(seedRows > 0 && count < targetRowNumber){
+                RowAmplifier amplifier = RowAmplifier.create(connection, table, localColumns);
+                if(amplifier.hasSeeds()){
+                    synthesize(table, connection, inserter, data, targetRowNumber, amplifier, settings, rowCounters, valueSamples, referenceKeys, listener, rowCountConsumer);
+                } else {
+                    LOGGER.warn("No seed rows to amplify in table: {}", table.getName());
+                }
             }
+            rowCountConsumer.accept(rowCounters.reconcile(connection, table));
+            if(settings.getOutputSink() != null){
+                settings.getOutputSink().tableCompleted(table);
+            }
+        } catch (IOException e) {
+            throw new SQLException("Could not write generated rows of table: " + table.getName(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while filling table: " + table.getName(), e);
+        } finally {
+            requestedRows.keySet().forEach(request -> request.cancel(true));
+            executor.shutdownNow();
+            referenceKeys.fillCompleted(table);
         }
 
+        List<InsertStatement> insertStatements = new ArrayList<>();
+        if(data != null && data.size() > 0){
+            insertStatements.add(new InsertStatement(table, data.asRows()));
+        }
         return insertStatements;
     }
 
     /**
-     * Executes the given {@link InsertStatement} on the provided {@link Connection}
-     * and returns the auto-generated key for the first inserted row.
-     * <p>
-     * Note:
-     * <ul>
-     *     <li>If the {@link InsertStatement} inserts multiple rows in a single statement,
-     *     this method will return only the first generated key, not the last or all generated keys.</li>
-     *     <li>If the table does not have an auto-increment column, this method will return -1.</li>
-     * </ul>
+     * An event of a generation request, either a generated statement or the completion of the request.
+     */
+    private record GenerationEvent(CompletableFuture<Void> completedRequest, String insertStatement, Throwable failure) {
+    }
+
+    /**
+     * Parses a single generated INSERT statement.
      *
-     * @param connection the JDBC connection to use for executing the insert
-     * @param statement  the {@link InsertStatement} representing the insert to execute
-     * @return the auto-generated key of the first inserted row, or -1 if no auto-generated key is available
-     * @throws SQLException if a database access error occurs or the SQL statement is invalid
+     * @return the parsed {@link InsertStatement}, or {@code null} if the statement could not be parsed
      */
-    private static long insertAndGetAutoIncrement(Connection connection, InsertStatement statement) throws SQLException {
-        Statement stmt = connection.createStatement();
-        stmt.executeUpdate(
-                statement.generateInsertStatement(),
-                Statement.RETURN_GENERATED_KEYS
-        );
-
-        try (ResultSet rs = stmt.getGeneratedKeys()) {
-            if (rs.next()) {
-                return rs.getLong(1);
+    private static InsertStatement parseGeneratedStatement(Table table, String insertStatement, TableFillerStatistics statistics) {
+        LOGGER.debug("Insert statement generated: \"{}\"", insertStatement);
+        long start = System.nanoTime();
+        try {
+            return InsertStatement.parseInsertStatement(table, insertStatement);
+        } catch (JSQLParserException e) {
+            LOGGER.debug("Error processing SQL.", e);
+            return null;
+        } finally {
+            statistics.record(TableFillerStatistics.Stage.PARSE, start);
+        }
+    }
+
+    /**
+     * Asks the {@link InsertDataGeneration} for the column specs of a table and adds a generator
+     * for the columns with valid specs to the given generators.
+     *
+     * @return the generators including the specs, or the given generators if no specs were compiled
+     */
+    private static ColumnGenerators compileColumnSpecs(Table table, Connection connection, InsertDataGeneration insertDataGeneration, ColumnGenerators columnGenerators, TableValueSamples valueSamples, TableFillerStatistics statistics) {
+        List<Map<Column, Object>> exampleValues;
+        try {
+            exampleValues = valueSamples.sample(table, connection, COLUMN_SPEC_EXAMPLES);
+        } catch (SQLException e) {
+            LOGGER.debug("Error retrieving example values.", e);
+            exampleValues = List.of();
+        }
+
+        long start = System.nanoTime();
+        String json = insertDataGeneration.compileColumnSpecs(table, exampleValues);
+        statistics.record(TableFillerStatistics.Stage.GENERATION, start);
+        if(json == null){
+            return columnGenerators;
+        }
+
+        ColumnSpecGenerator specs;
+        try {
+            specs = ColumnSpecGenerator.compile(table, json);
+        } catch (IllegalArgumentException e) {
+            LOGGER.warn("Column specs of table {} could not be compiled.", table.getName(), e);
+            return columnGenerators;
+        }
+        LOGGER.debug("Columns of table {} generated from specs: {}", table.getName(), specs.getColumns().stream().map(Column::getName).toList());
+
+        List<ColumnGenerator> generators = new ArrayList<>();
+        generators.add(specs);
+        if(columnGenerators != null){
+            generators.addAll(columnGenerators.getGenerators());
+        }
+        return new ColumnGenerators(generators);
+    }
+
+    /**
+     * Synthesizes the remaining rows of a table locally with a {@link RowSynthesizer}, e.g. a
+     * {@link RowAmplifier} or a {@link ProfileSynthesizer}. Rows are synthesized in waves and
+     * inserted like generated rows, until the target is reached or a whole wave is rejected by the database.
+     */
+    private static void synthesize(Table table, Connection connection, TableInserter inserter, TableData data, int targetRowNumber, RowSynthesizer synthesizer, TableFillerSettings settings, TableRowCounters rowCounters, TableValueSamples valueSamples, ReferenceKeys referenceKeys, TableFillerProgressListener listener, LongConsumer rowCountConsumer) throws SQLException {
+        TableFillerStatistics statistics = getStatistics(settings);
+        long index = 0;
+        long count = rowCounters.get(table);
+        while (count < targetRowNumber) {
+            int waveSize = (int) Math.min(AMPLIFICATION_WAVE_SIZE, targetRowNumber - count);
+            long generationStart = System.nanoTime();
+            List<InsertStatement> rows = synthesizer.synthesize(index, waveSize);
+            statistics.record(TableFillerStatistics.Stage.GENERATION, generationStart);
+            index += waveSize;
+
+            long waveStart = count;
+            for (InsertStatement row : rows) {
+                inserter.add(row);
+                if(inserter.getPendingRows() >= AMPLIFICATION_BATCH_SIZE){
+                    count = flush(table, connection, inserter, data, settings, rowCounters, valueSamples, referenceKeys, null, listener, rowCountConsumer);
+                }
+            }
+            count = flush(table, connection, inserter, data, settings, rowCounters, valueSamples, referenceKeys, null, listener, rowCountConsumer);
+            if(count == waveStart){
+                LOGGER.warn("Synthesized rows of table {} were rejected, stopping at {} rows.", table.getName(), count);
+                return;
             }
         }
+    }
+
+    /**
+     * Inserts the pending statements of the {@link TableInserter} and records the inserted rows.
+     *
+     * @return the number of rows in the table after the insert
+     */
+    private static long flush(Table table, Connection connection, TableInserter inserter, TableData data, TableFillerSettings settings, TableRowCounters rowCounters, TableValueSamples valueSamples, ReferenceKeys referenceKeys, UniqueKeyGuard keyGuard, TableFillerProgressListener listener, LongConsumer rowCountConsumer) throws SQLException {
+        TableFillerStatistics statistics = getStatistics(settings);
+        OutputSink outputSink = settings.getOutputSink();
+        List<InsertStatement> inserted = inserter.flush();
+        if(keyGuard != null){
+            keyGuard.commit(inserted);
+        }
+        for (InsertStatement insert : inserted) {
+            if(LOGGER.isDebugEnabled()){
+                LOGGER.debug("Insert statement stored: \"{}\"", insert.generateInsertStatement());
+            }
+            if(outputSink != null){
+                try {
+                    outputSink.write(insert);
+                } catch (IOException e) {
+                    throw new SQLException("Could not write generated rows of table: " + table.getName(), e);
+                }
+            } else {
+                data.addAll(List.of(insert));
+            }
+            valueSamples.offer(table, insert.getRows());
+            referenceKeys.offer(connection, table, insert.getRows());
+            statistics.rowsInserted(insert.getRows().size());
+            rowCounters.add(table, insert.getRows().size());
+            if(listener != null){
+                listener.rowsGenerated(table, insert.getRows().size());
+            }
+        }
+
+        long count = rowCounters.get(table);
+        if(!inserted.isEmpty()){
+            rowCountConsumer.accept(count);
+        }
+        return count;
+    }
+
+    private static TableFillerStatistics getStatistics(TableFillerSettings settings) {
+        return settings.getStatistics() != null ? settings.getStatistics() : new TableFillerStatistics();
+    }
 
-        return -1;
+    private static TableValueSamples createValueSamples(TableFillerSettings settings) {
+        return new TableValueSamples(settings.getExampleSampleSize(), getStatistics(settings), new Random());
     }
 
     /**
@@ -371,17 +743,18 @@ public class TableFiller {
      * @throws SQLException if a database access error occurs
      */
     public static List<Map<Column, Object>> getTableValues(Table table, Connection connection, int rowLimit) throws SQLException {
-        List<Map<Column, Object>> values = new LinkedList<>();
+        List<Map<Column, Object>> values = new ArrayList<>();
         String sql = table.generateSelectRandom(rowLimit);
+        int columnCount = table.getColumnCount();
         try (Statement stmt = connection.createStatement();
             ResultSet rs = stmt.executeQuery(sql)) {
             while (rs.next()) {
-                Map<Column, Object> columnValues = new LinkedHashMap<>();
-                for (Column column : table.getColumns()) {
-                    Object value = rs.getObject(column.getName());
-                    columnValues.put(column, value);
+                // The select lists the columns in the order of their ordinals.
+                Row row = new Row(table);
+                for (int i = 0; i < columnCount; i++) {
+                    row.set(i, rs.getObject(i + 1));
                 }
-                values.add(columnValues);
+                values.add(row);
             }
         }
 
@@ -2,15 +2,31 @@ package at.sfischer.synth.db.generation.values;
 
 import at.sfischer.synth.db.model.Table;
 
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Receives progress updates while {@link TableFiller} populates tables.
+ * <p>
+ * Progress is tracked per table, so the listener can be used when several tables are
+ * filled in parallel. All updates are synchronized, {@link #onProgress} is therefore never
+ * called concurrently.
+ * </p>
+ */
 public abstract class TableFillerProgressListener {
 
     private Table currentTable;
-    private long totalRows;
-    private long rowsGenerated;
+
+    private final Map<Table, TableProgress> tableProgress = new HashMap<>();
 
     private long totalTables;
     private long tablesCompleted;
 
+    private static class TableProgress {
+        private long totalRows;
+        private long rowsGenerated;
+    }
+
     /**
      * Called when a table has some progress.
      *
@@ -22,27 +38,36 @@ public abstract class TableFillerProgressListener {
      */
     public abstract void onProgress(Table table, long rowsGenerated, long totalRows, long tablesCompleted, long totalTables);
 
-    public void setTotalTables(long totalTables) {
+    public synchronized void setTotalTables(long totalTables) {
         this.totalTables = totalTables;
     }
 
-    public long getTotalTables() {
+    public synchronized long getTotalTables() {
         return totalTables;
     }
 
-    public void nextTable(Table nextTable, long rowsToGenerate){
+    public synchronized void nextTable(Table nextTable, long rowsToGenerate){
         this.currentTable = nextTable;
-        this.totalRows = rowsToGenerate;
-        this.rowsGenerated = 0;
+        TableProgress progress = new TableProgress();
+        progress.totalRows = rowsToGenerate;
+        this.tableProgress.put(nextTable, progress);
         this.tablesCompleted++;
 
-        onProgress(currentTable, rowsGenerated, totalRows, tablesCompleted, totalTables);
+        onProgress(nextTable, progress.rowsGenerated, progress.totalRows, tablesCompleted, totalTables);
     }
 
-    public void rowGenerated(){
-        this.rowsGenerated++;
+    public synchronized void rowGenerated(){
+        rowGenerated(currentTable);
+    }
 
-        onProgress(currentTable, rowsGenerated, totalRows, tablesCompleted, totalTables);
+    public synchronized void rowGenerated(Table table){
+        rowsGenerated(table, 1);
     }
-}
 
+    public synchronized void rowsGenerated(Table table, long rows){
+        TableProgress progress = this.tableProgress.computeIfAbsent(table, _ -> new TableProgress());
+        progress.rowsGenerated += rows;
+
+        onProgress(table, progress.rowsGenerated, progress.totalRows, tablesCompleted, totalTables);
+    }
+}
@@ -0,0 +1,579 @@
+package at.sfischer.synth.db.generation.values;
+
+import at.sfischer.synth.db.generation.columns.ColumnGenerators;
+import at.sfischer.synth.db.generation.profile.SchemaProfile;
+import at.sfischer.synth.db.model.Table;
+import at.sfischer.synth.db.output.OutputSink;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Settings controlling how {@link TableFiller} populates tables.
+ * <p>
+ * All setters return this instance, so settings can be configured in a chained manner:
+ * {@code new TableFillerSettings().setDependentExampleNumber(5).setBatchSize(10)}.
+ * </p>
+ */
+public class TableFillerSettings {
+
+    private int dependentExampleNumber = 2;
+
+    private int batchSize = 1;
+
+    private int concurrency = 1;
+
+    private int tableParallelism = 1;
+
+    private int pipelineThreshold = 0;
+
+    private ConnectionSupplier connectionSupplier;
+
+    private int exampleSampleSize = 100;
+
+    private int exampleRefreshInterval = 0;
+
+    private TableFillerStatistics statistics;
+
+    private OutputSink outputSink;
+
+    private ColumnGenerators columnGenerators;
+
+    private boolean compileColumnSpecs = false;
+
+    private boolean localForeignKeys = false;
+
+    private boolean uniqueKeyGuard = false;
+
+    private boolean repairUniqueKeys = false;
+
+    private int textModelThreshold = 0;
+
+    private int seedRows = 0;
+
+    private final Map<String, Integer> tableSeedRows = new HashMap<>();
+
+    private SchemaProfile schemaProfile;
+
+    /**
+     * Returns the number of example rows used from the table itself and from each
+     * dependent table to guide the generation.
+     *
+     * @return the number of example rows
+     */
+    public int getDependentExampleNumber() {
+        return dependentExampleNumber;
+    }
+
+    /**
+     * Sets the number of example rows used from the table itself and from each
+     * dependent table to guide the generation.
+     *
+     * @param dependentExampleNumber the number of example rows
+     * @return this settings instance
+     */
+    public TableFillerSettings setDependentExampleNumber(int dependentExampleNumber) {
+        this.dependentExampleNumber = dependentExampleNumber;
+        return this;
+    }
+
+    /**
+     * Returns the number of rows requested from the {@link InsertDataGeneration} per call.
+     *
+     * @return the number of rows per generation call
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Sets the number of rows requested from the {@link InsertDataGeneration} per call.
+     *
+     * @param batchSize the number of rows per generation call, must be at least 1
+     * @return this settings instance
+     * @throws IllegalArgumentException if {@code batchSize} is smaller than 1
+     */
+    public TableFillerSettings setBatchSize(int batchSize) {
+        if(batchSize < 1){
+            throw new IllegalArgumentException("Batch size must be at least 1, but was: " + batchSize);
+        }
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    /**
+     * Returns the maximum number of generation requests that are in flight at the same
+     * time for a single table.
+     *
+     * @return the number of concurrent generation requests per table
+     */
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    /**
+     * Sets the maximum number of generation requests that are in flight at the same
+     * time for a single table.
+     * <p>
+     * Values larger than 1 require the used {@link InsertDataGeneration} to be thread-safe.
+     * </p>
+     *
+     * @param concurrency the number of concurrent generation requests per table, must be at least 1
+     * @return this settings instance
+     * @throws IllegalArgumentException if {@code concurrency} is smaller than 1
+     */
+    public TableFillerSettings setConcurrency(int concurrency) {
+        if(concurrency < 1){
+            throw new IllegalArgumentException("Concurrency must be at least 1, but was: " + concurrency);
+        }
+        this.concurrency = concurrency;
+        return this;
+    }
+
+    /**
+     * Returns the maximum number of tables that are filled at the same time.
+     *
+     * @return the number of tables filled in parallel
+     */
+    public int getTableParallelism() {
+        return tableParallelism;
+    }
+
+    /**
+     * Sets the maximum number of tables that are filled at the same time.
+     * <p>
+     * A table is only started once all tables it depends on are filled. Each table filled
+     * in parallel uses its own connection, opened with the {@link #getConnectionSupplier()
+     * connection supplier}. Without a supplier, the connection passed to {@link TableFiller}
+     * has to be one to a named in-memory H2 database, which is reopened by its URL.
+     * </p>
+     *
+     * @param tableParallelism the number of tables filled in parallel, must be at least 1
+     * @return this settings instance
+     * @throws IllegalArgumentException if {@code tableParallelism} is smaller than 1
+     */
+    public TableFillerSettings setTableParallelism(int tableParallelism) {
+        if(tableParallelism < 1){
+            throw new IllegalArgumentException("Table parallelism must be at least 1, but was: " + tableParallelism);
+        }
+        this.tableParallelism = tableParallelism;
+        return this;
+    }
+
+    /**
+     * Returns the supplier of additional connections to the staging database.
+     *
+     * @return the connection supplier, or {@code null} if connections are reopened by URL
+     */
+    public ConnectionSupplier getConnectionSupplier() {
+        return connectionSupplier;
+    }
+
+    /**
+     * Sets the supplier of additional connections to the staging database, used if
+     * {@link #getTableParallelism()} is larger than 1. The connections have to be to the same
+     * database as the connection passed to {@link TableFiller}.
+     *
+     * @param connectionSupplier the connection supplier, {@code null} to reopen the URL of a named in-memory H2 database
+     * @return this settings instance
+     */
+    public TableFillerSettings setConnectionSupplier(ConnectionSupplier connectionSupplier) {
+        this.connectionSupplier = connectionSupplier;
+        return this;
+    }
+
+    /**
+     * Returns the number of committed rows every referenced table needs before a table
+     * depending on it is started, or 0 if tables wait until their referenced tables are completely filled.
+     *
+     * @return the pipeline threshold, or 0 if pipelining is disabled
+     */
+    public int getPipelineThreshold() {
+        return pipelineThreshold;
+    }
+
+    /**
+     * Sets the number of committed rows every referenced table needs before a table
+     * depending on it is started.
+     * <p>
+     * With a threshold larger than 0, tables are filled in a pipelined manner: a table does
+     * not wait until its referenced tables reached their target row number, but only until
+     * they contain enough rows to sample foreign key values from. This only has an effect if
+     * {@link #getTableParallelism()} is larger than 1.
+     * </p>
+     *
+     * @param pipelineThreshold the number of rows required in referenced tables, 0 to disable pipelining
+     * @return this settings instance
+     * @throws IllegalArgumentException if {@code pipelineThreshold} is negative
+     */
+    public TableFillerSettings setPipelineThreshold(int pipelineThreshold) {
+        if(pipelineThreshold < 0){
+            throw new IllegalArgumentException("Pipeline threshold must not be negative, but was: " + pipelineThreshold);
+        }
+        this.pipelineThreshold = pipelineThreshold;
+        return this;
+    }
+
+    /**
+     * Returns the maximum number of rows per table kept in memory to draw example rows from.
+     *
+     * @return the sample size per table
+     */
+    public int getExampleSampleSize() {
+        return exampleSampleSize;
+    }
+
+    /**
+     * Sets the maximum number of rows per table kept in memory to draw example rows from.
+     * <p>
+     * Example rows for prompts are drawn from a uniform random sample of each table that is
+     * maintained while rows are inserted, instead of selecting random rows from the database
+     * for every generation request. Larger samples give more varied examples.
+     * </p>
+     *
+     * @param exampleSampleSize the sample size per table, must be at least 1
+     * @return this settings instance
+     * @throws IllegalArgumentException if {@code exampleSampleSize} is smaller than 1
+     */
+    public TableFillerSettings setExampleSampleSize(int exampleSampleSize) {
+        if(exampleSampleSize < 1){
+            throw new IllegalArgumentException("Example sample size must be at least 1, but was: " + exampleSampleSize);
+        }
+        this.exampleSampleSize = exampleSampleSize;
+        return this;
+    }
+
+    /**
+     * Returns the number of rows inserted into a table after which its sample of example rows
+     * is scanned from the database again, or 0 if the sample is only maintained in memory.
+     *
+     * @return the refresh interval in rows, or 0 if samples are not refreshed
+     */
+    public int getExampleRefreshInterval() {
+        return exampleRefreshInterval;
+    }
+
+    /**
+     * Sets the number of rows inserted into a table after which its sample of example rows
+     * is scanned from the database again.
+     * <p>
+     * Samples are kept up to date from the inserted rows, so refreshing is only needed if
+     * the database changes otherwise, e.g. by triggers or default values.
+     * </p>
+     *
+     * @param exampleRefreshInterval the refresh interval in rows, 0 to never refresh samples
+     * @return this settings instance
+     * @throws IllegalArgumentException if {@code exampleRefreshInterval} is negative
+     */
+    public TableFillerSettings setExampleRefreshInterval(int exampleRefreshInterval) {
+        if(exampleRefreshInterval < 0){
+            throw new IllegalArgumentException("Example refresh interval must not be negative, but was: " + exampleRefreshInterval);
+        }
+        this.exampleRefreshInterval = exampleRefreshInterval;
+        return this;
+    }
+
+    /**
+     * Returns the statistics the time spent in the stages of generating rows is recorded in.
+     *
+     * @return the statistics, or {@code null} if no statistics are recorded
+     */
+    public TableFillerStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Sets the statistics the time spent in the stages of generating rows is recorded in.
+     *
+     * @param statistics the statistics, or {@code null} to not record statistics
+     * @return this settings instance
+     */
+    public TableFillerSettings setStatistics(TableFillerStatistics statistics) {
+        this.statistics = statistics;
+        return this;
+    }
+
+    /**
+     * Returns the sink generated rows are written to while tables are filled.
+     *
+     * @return the output sink, or {@code null} if generated rows are returned at the end
+     */
+    public OutputSink getOutputSink() {
+        return outputSink;
+    }
+
+    /**
+     * Sets the sink generated rows are written to while tables are filled.
+     * <p>
+     * If a sink is set, generated rows are written to it as soon as they are inserted into the
+     * staging database and are not retained in memory, so {@link TableFiller} returns empty
+     * lists of generated statements.
+     * </p>
+     *
+     * @param outputSink the output sink, or {@code null} to return generated rows at the end
+     * @return this settings instance
+     */
+    public TableFillerSettings setOutputSink(OutputSink outputSink) {
+        this.outputSink = outputSink;
+        return this;
+    }
+
+    /**
+     * Returns the generators used to generate values of non-semantic columns locally.
+     *
+     * @return the column generators, or {@code null} if all columns are generated by the LLM
+     */
+    public ColumnGenerators getColumnGenerators() {
+        return columnGenerators;
+    }
+
+    /**
+     * Sets the generators used to generate values of non-semantic columns locally.
+     * <p>
+     * Columns supported by a generator, such as keys, counters, timestamps and flags, are left out
+     * of the table described to the {@link InsertDataGeneration}, and their values are generated
+     * locally and merged into every generated row. If no column is left, no LLM is used at all.
+     * </p>
+     *
+     * @param columnGenerators the column generators, e.g. {@link ColumnGenerators#load()},
+     *                         or {@code null} to generate all columns with the LLM
+     * @return this settings instance
+     */
+    public TableFillerSettings setColumnGenerators(ColumnGenerators columnGenerators) {
+        this.columnGenerators = columnGenerators;
+        return this;
+    }
+
+    /**
+     * Indicates whether column specs are compiled once per table, see {@link #setCompileColumnSpecs(boolean)}.
+     *
+     * @return true if column specs are compiled, false otherwise
+     */
+    public boolean isCompileColumnSpecs() {
+        return compileColumnSpecs;
+    }
+
+    /**
+     * Sets whether the {@link InsertDataGeneration} is asked once per table to
+     * {@link InsertDataGeneration#compileColumnSpecs compile a spec} for every column, such as a
+     * pattern, a list of values or a range.
+     * <p>
+     * Columns with a valid spec are generated locally like the columns of
+     * {@link #setColumnGenerators(ColumnGenerators) column generators}, only columns marked as free
+     * text and key columns are still generated row by row.
+     * </p>
+     *
+     * @param compileColumnSpecs true to compile column specs, false to generate all columns row by row
+     * @return this settings instance
+     */
+    public TableFillerSettings setCompileColumnSpecs(boolean compileColumnSpecs) {
+        this.compileColumnSpecs = compileColumnSpecs;
+        return this;
+    }
+
+    /**
+     * Indicates whether foreign key columns are filled locally, see {@link #setLocalForeignKeys(boolean)}.
+     *
+     * @return true if foreign key columns are filled locally, false otherwise
+     */
+    public boolean isLocalForeignKeys() {
+        return localForeignKeys;
+    }
+
+    /**
+     * Sets whether foreign key columns are filled locally with keys of the referenced tables
+     * instead of being generated by the {@link InsertDataGeneration}.
+     * <p>
+     * The keys of every referenced column are kept in an in-memory index, updated with every
+     * inserted row. Foreign key columns referencing a single column key are left out of the table
+     * described to the {@link InsertDataGeneration} together with auto-increment columns, and are
+     * filled with keys drawn from the index, unique foreign key columns with unused keys. Example
+     * rows of referenced tables are only added to the prompt for the remaining foreign key columns.
+     * </p>
+     *
+     * @param localForeignKeys true to fill foreign key columns locally, false to generate them with the LLM
+     * @return this settings instance
+     */
+    public TableFillerSettings setLocalForeignKeys(boolean localForeignKeys) {
+        this.localForeignKeys = localForeignKeys;
+        return this;
+    }
+
+    /**
+     * Indicates whether generated rows are checked for duplicate keys before they are inserted,
+     * see {@link #setUniqueKeyGuard(boolean)}.
+     *
+     * @return true if duplicate keys are rejected before the insert, false otherwise
+     */
+    public boolean isUniqueKeyGuard() {
+        return uniqueKeyGuard;
+    }
+
+    /**
+     * Sets whether rows generated by the {@link InsertDataGeneration} are checked for duplicate
+     * primary keys and unique values before they are inserted.
+     * <p>
+     * The keys of every table are kept in memory, integer keys in primitive hash sets, character
+     * and composite keys in a Bloom filter in front of an exact set. Rows with a key that is
+     * already in the table or in the current batch are dropped before the insert, instead of
+     * failing the batch and being found by inserting the rows of the batch one by one.
+     * </p>
+     *
+     * @param uniqueKeyGuard true to check keys before the insert, false to leave duplicates to the database
+     * @return this settings instance
+     */
+    public TableFillerSettings setUniqueKeyGuard(boolean uniqueKeyGuard) {
+        this.uniqueKeyGuard = uniqueKeyGuard;
+        return this;
+    }
+
+    /**
+     * Indicates whether duplicate integer keys are repaired, see {@link #setRepairUniqueKeys(boolean)}.
+     *
+     * @return true if duplicate integer keys are repaired, false if their rows are dropped
+     */
+    public boolean isRepairUniqueKeys() {
+        return repairUniqueKeys;
+    }
+
+    /**
+     * Sets whether duplicate values of integer primary key and unique columns found by the
+     * {@link #setUniqueKeyGuard(boolean) unique key guard} are replaced with the next unused
+     * value instead of dropping the row. Foreign key, auto-increment and non-integer columns
+     * are never repaired.
+     *
+     * @param repairUniqueKeys true to re-sequence duplicate integer keys, false to drop their rows
+     * @return this settings instance
+     */
+    public TableFillerSettings setRepairUniqueKeys(boolean repairUniqueKeys) {
+        this.repairUniqueKeys = repairUniqueKeys;
+        return this;
+    }
+
+    /**
+     * Returns the number of rows generated by the {@link InsertDataGeneration} for a table after
+     * which its free-text columns are generated by local text models.
+     *
+     * @return the number of rows, or 0 if free-text columns are always generated by the {@link InsertDataGeneration}
+     */
+    public int getTextModelThreshold() {
+        return textModelThreshold;
+    }
+
+    /**
+     * Sets the number of rows generated by the {@link InsertDataGeneration} for a table after
+     * which its free-text columns are generated by local text models.
+     * <p>
+     * Values of character columns that are neither keys nor references are collected from the
+     * existing and generated rows. Once this many rows were seen, a character or word n-gram model
+     * is trained per column and generates further values of the column. If no other column is left,
+     * the remaining rows of the table are generated without the {@link InsertDataGeneration}.
+     * </p>
+     *
+     * @param textModelThreshold the number of rows to train the models on, 0 to disable text models
+     * @return this settings instance
+     * @throws IllegalArgumentException if {@code textModelThreshold} is negative
+     */
+    public TableFillerSettings setTextModelThreshold(int textModelThreshold) {
+        if(textModelThreshold < 0){
+            throw new IllegalArgumentException("Text model threshold must not be negative, but was: " + textModelThreshold);
+        }
+        this.textModelThreshold = textModelThreshold;
+        return this;
+    }
+
+    /**
+     * Returns the number of rows generated by the {@link InsertDataGeneration} for every table
+     * before the remaining rows are synthesized locally from them.
+     *
+     * @return the number of seed rows, or 0 if all rows are generated by the {@link InsertDataGeneration}
+     */
+    public int getSeedRows() {
+        return seedRows;
+    }
+
+    /**
+     * Sets the number of rows generated by the {@link InsertDataGeneration} for every table
+     * before the remaining rows are synthesized locally from them.
+     * <p>
+     * Once a table contains this many rows, further rows recombine and mutate the column values
+     * of the existing rows, keeping primary keys and unique columns unique and foreign keys
+     * pointing to existing rows. This scales a few generated rows to millions of rows, at the
+     * cost of less variety.
+     * </p>
+     *
+     * @param seedRows the number of seed rows, 0 to generate all rows with the {@link InsertDataGeneration}
+     * @return this settings instance
+     * @throws IllegalArgumentException if {@code seedRows} is negative
+     */
+    public TableFillerSettings setSeedRows(int seedRows) {
+        if(seedRows < 0){
+            throw new IllegalArgumentException("Seed rows must not be negative, but was: " + seedRows);
+        }
+        this.seedRows = seedRows;
+        return this;
+    }
+
+    /**
+     * Returns the number of seed rows of a table, see {@link #setSeedRows(int)}.
+     *
+     * @param table the table
+     * @return the number of seed rows set for the table, or {@link #getSeedRows()} if none was set
+     */
+    public int getSeedRows(Table table) {
+        return tableSeedRows.getOrDefault(table.getName(), seedRows);
+    }
+
+    /**
+     * Sets the number of seed rows of a single table, overriding {@link #setSeedRows(int)}.
+     *
+     * @param tableName the name of the table
+     * @param seedRows the number of seed rows, 0 to generate all rows of the table with the {@link InsertDataGeneration}
+     * @return this settings instance
+     * @throws IllegalArgumentException if {@code seedRows} is negative
+     */
+    public TableFillerSettings setSeedRows(String tableName, int seedRows) {
+        if(seedRows < 0){
+            throw new IllegalArgumentException("Seed rows must not be negative, but was: " + seedRows);
+        }
+        this.tableSeedRows.put(tableName, seedRows);
+        return this;
+    }
+
+    /**
+     * Sets the number of seed rows of several tables, overriding {@link #setSeedRows(int)}.
+     *
+     * @param tableSeedRows the names of the tables mapped to their number of seed rows
+     * @return this settings instance
+     * @throws IllegalArgumentException if a number of seed rows is negative
+     */
+    public TableFillerSettings setSeedRows(Map<String, Integer> tableSeedRows) {
+        tableSeedRows.forEach(this::setSeedRows);
+        return this;
+    }
+
+    /**
+     * Returns the profile the rows of tables are synthesized from.
+     *
+     * @return the profile, or {@code null} if rows are generated by the {@link InsertDataGeneration}
+     */
+    public SchemaProfile getSchemaProfile() {
+        return schemaProfile;
+    }
+
+    /**
+     * Sets the profile the rows of tables are synthesized from, typically computed from the example data.
+     * <p>
+     * All rows of a table with a profile of at least one row are synthesized locally with the
+     * profiled value distributions, null ratios and foreign key fan-outs, without the
+     * {@link InsertDataGeneration}. Tables without such a profile are generated as usual.
+     * </p>
+     *
+     * @param schemaProfile the profile, {@code null} to generate all rows with the {@link InsertDataGeneration}
+     * @return this settings instance
+     */
+    public TableFillerSettings setSchemaProfile(SchemaProfile schemaProfile) {
+        this.schemaProfile = schemaProfile;
+        return this;
+    }
+}
@@ -0,0 +1,108 @@
+package at.sfischer.synth.db.generation.values;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects the time {@link TableFiller} spends in the stages of generating rows.
+ * <p>
+ * Times are summed over all calls of a stage, also if calls overlap, e.g. concurrent
+ * generation requests. They show where time is spent, not how long a run takes.
+ * This class is thread-safe.
+ * </p>
+ */
+public class TableFillerStatistics {
+
+    /**
+     * The stages of generating rows.
+     */
+    public enum Stage {
+        /** Building prompts, only recorded by {@link InsertDataGeneration} implementations that report it. */
+        PROMPT,
+        /** Generation requests, from submission until the last row of the request was received. */
+        GENERATION,
+        /** Parsing generated INSERT statements. */
+        PARSE,
+        /** Executing generated INSERT statements on the staging database. */
+        INSERT,
+        /** Queries sampling example values from the table and referenced tables. */
+        SAMPLING,
+        /** Queries counting the rows of the table. */
+        COUNT
+    }
+
+    private final Map<Stage, LongAdder> nanos = new EnumMap<>(Stage.class);
+
+    private final Map<Stage, LongAdder> calls = new EnumMap<>(Stage.class);
+
+    private final LongAdder rows = new LongAdder();
+
+    /**
+     * Constructs new, empty statistics.
+     */
+    public TableFillerStatistics() {
+        for (Stage stage : Stage.values()) {
+            nanos.put(stage, new LongAdder());
+            calls.put(stage, new LongAdder());
+        }
+    }
+
+    /**
+     * Records a single call of the given stage.
+     *
+     * @param stage the stage
+     * @param startNanos the value of {@link System#nanoTime()} at the start of the call
+     */
+    public void record(Stage stage, long startNanos) {
+        nanos.get(stage).add(System.nanoTime() - startNanos);
+        calls.get(stage).increment();
+    }
+
+    /**
+     * Records rows that were inserted into the staging database.
+     *
+     * @param count the number of inserted rows
+     */
+    public void rowsInserted(long count) {
+        rows.add(count);
+    }
+
+    /**
+     * Returns the total time spent in the given stage.
+     *
+     * @param stage the stage
+     * @return the total time in nanoseconds
+     */
+    public long getNanos(Stage stage) {
+        return nanos.get(stage).sum();
+    }
+
+    /**
+     * Returns the number of recorded calls of the given stage.
+     *
+     * @param stage the stage
+     * @return the number of calls
+     */
+    public long getCalls(Stage stage) {
+        return calls.get(stage).sum();
+    }
+
+    /**
+     * Returns the number of rows inserted into the staging database.
+     *
+     * @return the number of inserted rows
+     */
+    public long getRows() {
+        return rows.sum();
+    }
+
+    /**
+     * Resets all statistics.
+     */
+    public void reset() {
+        nanos.values().forEach(LongAdder::reset);
+        calls.values().forEach(LongAdder::reset);
+        rows.reset();
+    }
+}
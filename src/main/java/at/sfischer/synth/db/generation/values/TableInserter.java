@@ -0,0 +1,233 @@
+package at.sfischer.synth.db.generation.values;
+
+import at.sfischer.synth.db.model.Column;
+import at.sfischer.synth.db.model.InsertStatement;
+import at.sfischer.synth.db.model.Table;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Inserts generated rows into a single table of the staging database in batches.
+ * <p>
+ * All rows are inserted with one cached {@link PreparedStatement} per table, binding the row
+ * values as parameters, so the database does not have to parse SQL for every row. Added
+ * statements are collected until {@link #flush()} executes them as a single JDBC batch in one
+ * transaction, retrieving the generated keys of all rows at once if the table has an
+ * auto-increment column.
+ * </p>
+ * <p>
+ * Rows without a value for the auto-increment column are inserted with a second statement that
+ * leaves the column out, so the database generates the key. Binding {@code NULL} to the column
+ * instead is rejected by databases such as PostgreSQL.
+ * </p>
+ * <p>
+ * If the batch fails, the transaction is rolled back and the statements are inserted again one
+ * by one, each in its own transaction, so a single invalid row does not discard the rest of the
+ * batch. The rows of a single {@link InsertStatement} are always inserted together.
+ * </p>
+ */
+class TableInserter implements AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TableInserter.class);
+
+    private final Connection connection;
+
+    private final List<Column> columns;
+
+    private final Column autoIncrementKey;
+
+    private final TableFillerStatistics statistics;
+
+    private final PreparedStatement statement;
+
+    private final List<Column> keylessColumns;
+
+    private final PreparedStatement keylessStatement;
+
+    private final boolean autoCommit;
+
+    private final List<InsertStatement> pending = new ArrayList<>();
+
+    private int pendingRows;
+
+    /**
+     * Constructs a new inserter and prepares the INSERT statements of the table.
+     *
+     * @param connection the {@link Connection} to the staging database, used in manual commit mode until closed
+     * @param table the table to insert into
+     * @param statistics the statistics recording the time spent inserting rows
+     * @throws SQLException if the statements cannot be prepared
+     */
+    TableInserter(Connection connection, Table table, TableFillerStatistics statistics) throws SQLException {
+        this.connection = connection;
+        this.columns = table.getColumns();
+        this.autoIncrementKey = table.getAutoIncrementKey();
+        this.statistics = statistics;
+
+        if(autoIncrementKey == null){
+            this.statement = connection.prepareStatement(insertSql(table, columns));
+            this.keylessColumns = null;
+            this.keylessStatement = null;
+        } else {
+            String[] keyColumns = new String[]{autoIncrementKey.getName()};
+            this.statement = connection.prepareStatement(insertSql(table, columns), keyColumns);
+            this.keylessColumns = columns.stream().filter(column -> !column.equals(autoIncrementKey)).toList();
+            this.keylessStatement = connection.prepareStatement(insertSql(table, keylessColumns), keyColumns);
+        }
+
+        this.autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+    }
+
+    private static String insertSql(Table table, List<Column> columns) {
+        return "INSERT INTO " + table.getName() +
+                " (" + columns.stream().map(Column::getName).collect(Collectors.joining(", ")) + ")" +
+                " VALUES (" + columns.stream().map(_ -> "?").collect(Collectors.joining(", ")) + ")";
+    }
+
+    /**
+     * Adds a statement to the next batch.
+     *
+     * @param insert the statement to insert
+     */
+    void add(InsertStatement insert) {
+        pending.add(insert);
+        pendingRows += insert.getRows().size();
+    }
+
+    /**
+     * Returns the number of rows added since the last flush.
+     *
+     * @return the number of pending rows
+     */
+    int getPendingRows() {
+        return pendingRows;
+    }
+
+    /**
+     * Inserts all added statements and commits them.
+     * <p>
+     * Values of the auto-increment column of the inserted rows are set to the generated keys.
+     * </p>
+     *
+     * @return the statements that were inserted, without the statements that failed
+     * @throws SQLException if committing or rolling back fails
+     */
+    List<InsertStatement> flush() throws SQLException {
+        if(pending.isEmpty()){
+            return List.of();
+        }
+
+        long start = System.nanoTime();
+        List<InsertStatement> batch = new ArrayList<>(pending);
+        pending.clear();
+        pendingRows = 0;
+        try {
+            if(execute(batch)){
+                return batch;
+            }
+
+            List<InsertStatement> inserted = new ArrayList<>();
+            for (InsertStatement insert : batch) {
+                if(execute(List.of(insert))){
+                    inserted.add(insert);
+                }
+            }
+            return inserted;
+        } finally {
+            statistics.record(TableFillerStatistics.Stage.INSERT, start);
+        }
+    }
+
+    /**
+     * Executes the given statements as a single transaction, with one batch for the rows with a
+     * value for the auto-increment column and one for the rows without.
+     *
+     * @return {@code true} if the statements were committed, {@code false} if they were rolled back
+     */
+    private boolean execute(List<InsertStatement> inserts) throws SQLException {
+        List<Map<Column, Object>> rows = new ArrayList<>();
+        List<Map<Column, Object>> keylessRows = new ArrayList<>();
+        for (InsertStatement insert : inserts) {
+            for (Map<Column, Object> row : insert.getRows()) {
+                if(autoIncrementKey != null && isNull(row.get(autoIncrementKey))){
+                    keylessRows.add(row);
+                } else {
+                    rows.add(row);
+                }
+            }
+        }
+
+        try {
+            executeBatch(statement, columns, rows);
+            executeBatch(keylessStatement, keylessColumns, keylessRows);
+            connection.commit();
+            return true;
+        } catch (SQLException e) {
+            LOGGER.debug("Error inserting {} statements.", inserts.size(), e);
+            statement.clearBatch();
+            if(keylessStatement != null){
+                keylessStatement.clearBatch();
+            }
+            connection.rollback();
+            return false;
+        }
+    }
+
+    private void executeBatch(PreparedStatement statement, List<Column> columns, List<Map<Column, Object>> rows) throws SQLException {
+        if(rows.isEmpty()){
+            return;
+        }
+
+        for (Map<Column, Object> row : rows) {
+            for (int i = 0; i < columns.size(); i++) {
+                Object value = row.get(columns.get(i));
+                statement.setObject(i + 1, isNull(value) ? null : value);
+            }
+            statement.addBatch();
+        }
+        statement.executeBatch();
+        if(autoIncrementKey != null){
+            setGeneratedKeys(statement, rows);
+        }
+    }
+
+    private static boolean isNull(Object value) {
+        return value == null || "NULL".equals(value);
+    }
+
+    private void setGeneratedKeys(PreparedStatement statement, List<Map<Column, Object>> rows) throws SQLException {
+        try (ResultSet rs = statement.getGeneratedKeys()) {
+            for (Map<Column, Object> row : rows) {
+                if(!rs.next()){
+                    return;
+                }
+                row.put(autoIncrementKey, rs.getLong(1));
+            }
+        }
+    }
+
+    /**
+     * Closes the prepared statements and restores the commit mode of the connection.
+     * Statements that were not flushed are discarded.
+     *
+     * @throws SQLException if a database access error occurs
+     */
+    @Override
+    public void close() throws SQLException {
+        try {
+            statement.close();
+            if(keylessStatement != null){
+                keylessStatement.close();
+            }
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package at.sfischer.synth.db.generation.values;
+
+import at.sfischer.synth.db.model.Table;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps track of the number of rows in the tables of the staging database.
+ * <p>
+ * The counter of a table is seeded once with a {@code COUNT(*)} query and then maintained
+ * by adding the number of rows of every committed insert statement, so filling a table does
+ * not have to query the database after every insert. Counters are only reconciled with the database at table
+ * boundaries, i.e. when a table is started or completed.
+ * This class is thread-safe.
+ * </p>
+ */
+class TableRowCounters {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TableRowCounters.class);
+
+    private final Map<Table, AtomicLong> counters = new ConcurrentHashMap<>();
+
+    private final TableFillerStatistics statistics;
+
+    /**
+     * Constructs new counters.
+     *
+     * @param statistics the statistics recording the time spent counting rows
+     */
+    TableRowCounters(TableFillerStatistics statistics) {
+        this.statistics = statistics;
+    }
+
+    /**
+     * Returns the number of rows in the given table, counting them in the database if
+     * the counter of the table was not seeded yet.
+     *
+     * @param connection the {@link Connection} to the database
+     * @param table the table
+     * @return the number of rows in the table
+     * @throws SQLException if a database access error occurs
+     */
+    long seed(Connection connection, Table table) throws SQLException {
+        AtomicLong counter = counters.get(table);
+        if(counter != null){
+            return counter.get();
+        }
+
+        long count = countRows(connection, table);
+        counter = counters.putIfAbsent(table, new AtomicLong(count));
+        return counter == null ? count : counter.get();
+    }
+
+    /**
+     * Adds inserted rows to the counter of the given table.
+     *
+     * @param table the table
+     * @param rows the number of inserted rows
+     * @return the updated number of rows in the table
+     */
+    long add(Table table, long rows) {
+        return counters.computeIfAbsent(table, _ -> new AtomicLong()).addAndGet(rows);
+    }
+
+    /**
+     * Returns the number of rows in the given table.
+     *
+     * @param table the table
+     * @return the number of rows in the table, 0 if the counter was not seeded yet
+     */
+    long get(Table table) {
+        AtomicLong counter = counters.get(table);
+        return counter == null ? 0 : counter.get();
+    }
+
+    /**
+     * Counts the rows of the given table in the database and corrects the counter if it deviates.
+     *
+     * @param connection the {@link Connection} to the database
+     * @param table the table
+     * @return the number of rows in the table
+     * @throws SQLException if a database access error occurs
+     */
+    long reconcile(Connection connection, Table table) throws SQLException {
+        long count = countRows(connection, table);
+        long previous = counters.computeIfAbsent(table, _ -> new AtomicLong()).getAndSet(count);
+        if(previous != count){
+            LOGGER.debug("Row counter of table {} deviated from the database: {} instead of {}.", table.getName(), previous, count);
+        }
+        return count;
+    }
+
+    private long countRows(Connection connection, Table table) throws SQLException {
+        long start = System.nanoTime();
+        long count = TableFiller.getRowCount(connection, table);
+        statistics.record(TableFillerStatistics.Stage.COUNT, start);
+        return count;
+    }
+}
@@ -0,0 +1,204 @@
+package at.sfischer.synth.db.generation.values;
+
+import at.sfischer.synth.db.model.Column;
+import at.sfischer.synth.db.model.Row;
+import at.sfischer.synth.db.model.Table;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps a uniform random sample of the rows of every table in memory, so example values for
+ * prompts do not have to be selected from the database with {@code ORDER BY RANDOM()}.
+ * <p>
+ * The sample of a table is a reservoir of at most {@link TableFillerSettings#getExampleSampleSize()}
+ * rows. It is seeded once by scanning the table and maintained afterward from the rows that
+ * are inserted, so every row of the table has the same probability of being in the sample.
+ * Serving examples from the sample takes time proportional to the sample size, independent
+ * of the size of the table.
+ * This class is thread-safe.
+ * </p>
+ */
+class TableValueSamples {
+
+    private final Map<Table, Reservoir> reservoirs = new ConcurrentHashMap<>();
+
+    private final int capacity;
+
+    private final TableFillerStatistics statistics;
+
+    private final Random random;
+
+    /**
+     * Constructs new, empty samples.
+     *
+     * @param capacity the maximum number of rows kept per table
+     * @param statistics the statistics recording the time spent sampling rows
+     * @param random the source of randomness
+     */
+    TableValueSamples(int capacity, TableFillerStatistics statistics, Random random) {
+        this.capacity = capacity;
+        this.statistics = statistics;
+        this.random = random;
+    }
+
+    /**
+     * Returns up to {@code rowLimit} random rows from the sample of each of the given tables.
+     *
+     * @param tables the tables to sample; can be null
+     * @param connection the {@link Connection} used to seed samples that were not seeded yet
+     * @param rowLimit the maximum number of rows per table
+     * @return a map from each table to its sampled rows
+     * @throws SQLException if a database access error occurs while seeding a sample
+     */
+    Map<Table, List<Map<Column, Object>>> sample(Collection<Table> tables, Connection connection, int rowLimit) throws SQLException {
+        Map<Table, List<Map<Column, Object>>> values = new LinkedHashMap<>();
+        if(tables == null){
+            return values;
+        }
+
+        for (Table table : tables) {
+            values.put(table, sample(table, connection, rowLimit));
+        }
+        return values;
+    }
+
+    /**
+     * Returns up to {@code rowLimit} random rows from the sample of the given table.
+     *
+     * @param table the table to sample
+     * @param connection the {@link Connection} used to seed the sample if it was not seeded yet
+     * @param rowLimit the maximum number of rows
+     * @return the sampled rows, each row represented as a map from {@link Column} to its value
+     * @throws SQLException if a database access error occurs while seeding the sample
+     */
+    List<Map<Column, Object>> sample(Table table, Connection connection, int rowLimit) throws SQLException {
+        return seed(connection, table).sample(rowLimit);
+    }
+
+    /**
+     * Replaces the sample of the given table with a new sample scanned from the database.
+     *
+     * @param connection the {@link Connection} to the database
+     * @param table the table
+     * @throws SQLException if a database access error occurs
+     */
+    void refresh(Connection connection, Table table) throws SQLException {
+        Reservoir reservoir = reservoirs.computeIfAbsent(table, _ -> new Reservoir());
+        synchronized (reservoir) {
+            reservoir.scan(connection, table);
+        }
+    }
+
+    /**
+     * Adds inserted rows to the sample of the given table.
+     *
+     * @param table the table
+     * @param rows the inserted rows, columns that are missing in a row are added with {@code null} values
+     */
+    void offer(Table table, List<Map<Column, Object>> rows) {
+        Reservoir reservoir = reservoirs.computeIfAbsent(table, _ -> new Reservoir());
+        synchronized (reservoir) {
+            int columnCount = table.getColumnCount();
+            for (Map<Column, Object> row : rows) {
+                Row values = new Row(table);
+                for (int i = 0; i < columnCount; i++) {
+                    values.set(i, row.get(table.getColumn(i)));
+                }
+                reservoir.offer(Collections.unmodifiableMap(values));
+            }
+        }
+    }
+
+    /**
+     * Seeds the sample of the given table by scanning the table, unless it was seeded before.
+     *
+     * @param connection the {@link Connection} to the database
+     * @param table the table
+     * @return the reservoir of the table
+     * @throws SQLException if a database access error occurs
+     */
+    private Reservoir seed(Connection connection, Table table) throws SQLException {
+        Reservoir reservoir = reservoirs.computeIfAbsent(table, _ -> new Reservoir());
+        synchronized (reservoir) {
+            if(!reservoir.seeded){
+                reservoir.scan(connection, table);
+            }
+        }
+        return reservoir;
+    }
+
+    /**
+     * A reservoir sample (algorithm R) of the rows of a single table.
+     */
+    private class Reservoir {
+
+        private final List<Map<Column, Object>> rows = new ArrayList<>();
+
+        private long seen;
+
+        private boolean seeded;
+
+        private void scan(Connection connection, Table table) throws SQLException {
+            long start = System.nanoTime();
+            rows.clear();
+            seen = 0;
+            try (Statement stmt = connection.createStatement();
+                 ResultSet rs = stmt.executeQuery(table.generateSelectAll())) {
+                int columnCount = table.getColumnCount();
+                while (rs.next()) {
+                    // The select lists the columns in the order of their ordinals.
+                    Row values = new Row(table);
+                    for (int i = 0; i < columnCount; i++) {
+                        values.set(i, rs.getObject(i + 1));
+                    }
+                    offer(Collections.unmodifiableMap(values));
+                }
+            }
+            seeded = true;
+            statistics.record(TableFillerStatistics.Stage.SAMPLING, start);
+        }
+
+        private void offer(Map<Column, Object> row) {
+            seen++;
+            if(rows.size() < capacity){
+                rows.add(row);
+                return;
+            }
+
+            long index = nextLong(seen);
+            if(index < capacity){
+                rows.set((int) index, row);
+            }
+        }
+
+        private synchronized List<Map<Column, Object>> sample(int rowLimit) {
+            int size = rows.size();
+            rowLimit = Math.min(rowLimit, size);
+
+            // Partial Fisher-Yates shuffle of the indices, only the first rowLimit positions are drawn.
+            int[] indices = new int[size];
+            for (int i = 0; i < size; i++) {
+                indices[i] = i;
+            }
+            List<Map<Column, Object>> sample = new ArrayList<>(rowLimit);
+            for (int i = 0; i < rowLimit; i++) {
+                int j = i + (int) nextLong(size - i);
+                int index = indices[j];
+                indices[j] = indices[i];
+                sample.add(rows.get(index));
+            }
+            return sample;
+        }
+    }
+
+    private long nextLong(long bound) {
+        synchronized (random) {
+            return random.nextLong(bound);
+        }
+    }
+}
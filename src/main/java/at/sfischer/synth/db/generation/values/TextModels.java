@@ -0,0 +1,94 @@
+package at.sfischer.synth.db.generation.values;
+
+import at.sfischer.synth.db.generation.columns.ColumnGenerator;
+import at.sfischer.synth.db.generation.columns.ColumnGenerators;
+import at.sfischer.synth.db.generation.columns.NgramColumnGenerator;
+import at.sfischer.synth.db.model.Column;
+import at.sfischer.synth.db.model.Table;
+
+import java.util.*;
+
+/**
+ * Collects the values of the free-text columns of a table generated by the LLM, until enough
+ * rows were seen to train {@link NgramColumnGenerator text models} that take over these columns.
+ */
+class TextModels {
+
+    private final Map<Column, List<String>> values;
+
+    private final int threshold;
+
+    private int rowCount;
+
+    private boolean trained;
+
+    private TextModels(Map<Column, List<String>> values, int threshold) {
+        this.values = values;
+        this.threshold = threshold;
+        this.trained = values.isEmpty() || threshold <= 0;
+    }
+
+    /**
+     * Selects the free-text columns of a table that are still generated by the LLM.
+     *
+     * @param table the table to fill
+     * @param localColumns the columns generated locally
+     * @param threshold the number of rows to collect before the models are trained, 0 to never train models
+     * @return the text models of the table
+     */
+    static TextModels plan(Table table, LocalColumns localColumns, int threshold) {
+        Map<Column, List<String>> values = new LinkedHashMap<>();
+        for (Column promptColumn : localColumns.getPromptTable().getColumns()) {
+            Column column = table.getColumn(promptColumn.getName());
+            if(NgramColumnGenerator.isTextColumn(column)){
+                values.put(column, new ArrayList<>());
+            }
+        }
+        return new TextModels(values, threshold);
+    }
+
+    /**
+     * Collects the text values of rows, e.g. generated rows or example rows of the table.
+     *
+     * @param rows rows of the table
+     */
+    void offer(List<Map<Column, Object>> rows) {
+        if(trained || rows == null){
+            return;
+        }
+
+        for (Map<Column, Object> row : rows) {
+            for (Map.Entry<Column, List<String>> entry : values.entrySet()) {
+                Object value = row.get(entry.getKey());
+                entry.getValue().add(value == null || "NULL".equals(value) ? null : value.toString());
+            }
+            rowCount++;
+        }
+    }
+
+    /**
+     * Indicates whether enough rows were collected to train the models.
+     *
+     * @return true if the models can be trained and were not trained yet, false otherwise
+     */
+    boolean isReady() {
+        return !trained && rowCount >= threshold;
+    }
+
+    /**
+     * Trains the models and adds them to the given generators. Values are not collected any more afterwards.
+     *
+     * @param columnGenerators the generators of the table, {@code null} if there are none
+     * @return the generators including the text models
+     */
+    ColumnGenerators train(ColumnGenerators columnGenerators) {
+        trained = true;
+        List<ColumnGenerator> generators = new ArrayList<>();
+        generators.add(NgramColumnGenerator.train(values));
+        if(columnGenerators != null){
+            generators.addAll(columnGenerators.getGenerators());
+        }
+        values.clear();
+        return new ColumnGenerators(generators);
+    }
+}
@@ -0,0 +1,393 @@
+package at.sfischer.synth.db.generation.values;
+
+import at.sfischer.synth.db.generation.columns.ColumnGenerators;
+import at.sfischer.synth.db.generation.profile.SchemaProfile;
+import at.sfischer.synth.db.model.Column;
+import at.sfischer.synth.db.model.InsertStatement;
+import at.sfischer.synth.db.model.Table;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Rejects generated rows that would violate the primary key or a unique column of their table
+ * before they are inserted, so a duplicate does not fail the JDBC batch it is part of.
+ * <p>
+ * The guard holds the keys of the rows in the table, seeded from the database and extended with
+ * every {@link #commit(List) committed} row, and the keys of the rows admitted since the last
+ * commit. Single integer keys are kept in {@link LongHashSet}s, all other keys, e.g. character
+ * or composite keys, in a {@link BloomFilter} in front of an exact {@link HashSet}.
+ * </p>
+ * <p>
+ * If repairs are enabled, a duplicate value of a single integer key column that is neither a
+ * foreign key nor auto-incremented is replaced with the next unused value instead of rejecting
+ * the row. {@code NULL} values never collide. Unique constraints spanning several columns are
+ * only checked for the primary key.
+ * </p>
+ */
+class UniqueKeyGuard {
+
+    private static final double FALSE_POSITIVE_PROBABILITY = 0.01;
+
+    private final Table table;
+
+    private final List<KeySet> keySets;
+
+    private final boolean repair;
+
+    private long rejectedRows;
+
+    private long repairedValues;
+
+    private UniqueKeyGuard(Table table, List<KeySet> keySets, boolean repair) {
+        this.table = table;
+        this.keySets = keySets;
+        this.repair = repair;
+    }
+
+    /**
+     * Creates a guard for the primary key and unique columns of a table, seeded with the keys of
+     * the rows in the table.
+     *
+     * @param connection the {@link Connection} to the database
+     * @param table the table
+     * @param repair whether duplicate integer keys are re-sequenced instead of rejected
+     * @return the guard
+     * @throws SQLException if a database access error occurs
+     */
+    static UniqueKeyGuard create(Connection connection, Table table, boolean repair) throws SQLException {
+        Set<List<Column>> keys = new LinkedHashSet<>();
+        List<Column> primaryKey = table.getColumns().stream().filter(Column::isPrimaryKey).toList();
+        if(!primaryKey.isEmpty()){
+            keys.add(primaryKey);
+        }
+        for (Column column : table.getColumns()) {
+            if(column.isUnique()){
+                keys.add(List.of(column));
+            }
+        }
+
+        List<KeySet> keySets = new ArrayList<>();
+        for (List<Column> columns : keys) {
+            KeySet keySet = columns.size() == 1 && ColumnGenerators.isInteger(columns.getFirst())
+                    ? new IntegerKeySet(columns.getFirst())
+                    : new ObjectKeySet(columns);
+            keySet.load(connection);
+            keySets.add(keySet);
+        }
+        return new UniqueKeyGuard(table, keySets, repair);
+    }
+
+    /**
+     * Checks the rows of a statement against the keys of the table and of the rows admitted
+     * before, and reserves the keys of the admitted rows.
+     *
+     * @param insert a generated statement of the table
+     * @return the statement itself if all rows are admitted, a statement of the admitted rows,
+     *         or {@code null} if no row is admitted
+     */
+    InsertStatement admit(InsertStatement insert) {
+        if(keySets.isEmpty()){
+            return insert;
+        }
+
+        List<Map<Column, Object>> admitted = new ArrayList<>(insert.getRows().size());
+        for (Map<Column, Object> row : insert.getRows()) {
+            if(admit(row)){
+                admitted.add(row);
+            } else {
+                rejectedRows++;
+            }
+        }
+
+        if(admitted.size() == insert.getRows().size()){
+            return insert;
+        }
+        return admitted.isEmpty() ? null : new InsertStatement(table, admitted);
+    }
+
+    private boolean admit(Map<Column, Object> row) {
+        Object[] keys = new Object[keySets.size()];
+        for (int i = 0; i < keys.length; i++) {
+            KeySet keySet = keySets.get(i);
+            Object key = keySet.key(row);
+            if(key == null || !keySet.contains(key)){
+                keys[i] = key;
+                continue;
+            }
+            if(!repair || !keySet.isRepairable()){
+                return false;
+            }
+
+            key = keySet.nextUnused();
+            keySet.set(row, key);
+            keys[i] = key;
+            repairedValues++;
+        }
+
+        for (int i = 0; i < keys.length; i++) {
+            if(keys[i] != null){
+                keySets.get(i).reserve(keys[i]);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Adds the keys of inserted rows to the keys of the table and releases the keys reserved by
+     * admitted rows, so keys of rows the database rejected for other reasons can be used again.
+     *
+     * @param inserted the statements inserted since the last commit
+     */
+    void commit(List<InsertStatement> inserted) {
+        for (KeySet keySet : keySets) {
+            keySet.clearReserved();
+            for (InsertStatement insert : inserted) {
+                for (Map<Column, Object> row : insert.getRows()) {
+                    Object key = keySet.key(row);
+                    if(key != null){
+                        keySet.add(key);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the number of rows rejected as duplicates.
+     *
+     * @return the number of rejected rows
+     */
+    long getRejectedRows() {
+        return rejectedRows;
+    }
+
+    /**
+     * Returns the number of duplicate values replaced with unused values.
+     *
+     * @return the number of repaired values
+     */
+    long getRepairedValues() {
+        return repairedValues;
+    }
+
+    private static Object value(Map<Column, Object> row, Column column) {
+        Object value = row.get(column);
+        return "NULL".equals(value) ? null : value;
+    }
+
+    /**
+     * The keys of one primary key or unique column: those in the table and those reserved by
+     * rows admitted since the last commit.
+     */
+    private interface KeySet {
+
+        /**
+         * Returns the key of a row, {@code null} if it contains a {@code NULL} value and cannot collide.
+         */
+        Object key(Map<Column, Object> row);
+
+        boolean contains(Object key);
+
+        void reserve(Object key);
+
+        void add(Object key);
+
+        void clearReserved();
+
+        boolean isRepairable();
+
+        Object nextUnused();
+
+        void set(Map<Column, Object> row, Object key);
+
+        void load(Connection connection) throws SQLException;
+    }
+
+    private static final class IntegerKeySet implements KeySet {
+
+        private final Column column;
+
+        private final LongHashSet keys = new LongHashSet();
+
+        private LongHashSet reserved = new LongHashSet();
+
+        private long maxKey = 0;
+
+        private IntegerKeySet(Column column) {
+            this.column = column;
+        }
+
+        @Override
+        public Object key(Map<Column, Object> row) {
+            Object value = value(row, column);
+            if(value instanceof Number number){
+                return number.longValue();
+            }
+            if(value == null){
+                return null;
+            }
+            try {
+                return Long.parseLong(value.toString().trim());
+            } catch (NumberFormatException e) {
+                // Rejected by the database anyway.
+                return null;
+            }
+        }
+
+        @Override
+        public boolean contains(Object key) {
+            long value = (Long) key;
+            return keys.contains(value) || reserved.contains(value);
+        }
+
+        @Override
+        public void reserve(Object key) {
+            reserved.add((Long) key);
+            maxKey = Math.max(maxKey, (Long) key);
+        }
+
+        @Override
+        public void add(Object key) {
+            keys.add((Long) key);
+            maxKey = Math.max(maxKey, (Long) key);
+        }
+
+        @Override
+        public void clearReserved() {
+            if(reserved.size() > 0){
+                reserved = new LongHashSet();
+            }
+        }
+
+        @Override
+        public boolean isRepairable() {
+            return column.getReference() == null && !column.isAutoIncrement();
+        }
+
+        @Override
+        public Object nextUnused() {
+            long key = maxKey + 1;
+            while (contains(key)) {
+                key++;
+            }
+            return key;
+        }
+
+        @Override
+        public void set(Map<Column, Object> row, Object key) {
+            row.put(column, key);
+        }
+
+        @Override
+        public void load(Connection connection) throws SQLException {
+            String sql = "SELECT " + column.getName() + " FROM " + column.getTable().getName() +
+                    " WHERE " + column.getName() + " IS NOT NULL";
+            try (Statement stmt = connection.createStatement();
+                 ResultSet rs = stmt.executeQuery(sql)) {
+                while (rs.next()) {
+                    add(rs.getLong(1));
+                }
+            }
+        }
+    }
+
+    private static final class ObjectKeySet implements KeySet {
+
+        private final List<Column> columns;
+
+        private final Set<Object> keys = new HashSet<>();
+
+        private final Set<Object> reserved = new HashSet<>();
+
+        private BloomFilter filter = new BloomFilter(1024, FALSE_POSITIVE_PROBABILITY);
+
+        private ObjectKeySet(List<Column> columns) {
+            this.columns = columns;
+        }
+
+        @Override
+        public Object key(Map<Column, Object> row) {
+            if(columns.size() == 1){
+                Object value = value(row, columns.getFirst());
+                return value == null ? null : value.toString();
+            }
+
+            List<String> key = new ArrayList<>(columns.size());
+            for (Column column : columns) {
+                Object value = value(row, column);
+                if(value == null){
+                    return null;
+                }
+                key.add(value.toString());
+            }
+            return key;
+        }
+
+        @Override
+        public boolean contains(Object key) {
+            return reserved.contains(key) || (filter.mightContain(key) && keys.contains(key));
+        }
+
+        @Override
+        public void reserve(Object key) {
+            reserved.add(key);
+        }
+
+        @Override
+        public void add(Object key) {
+            if(!keys.add(key)){
+                return;
+            }
+            filter.add(key);
+            if(filter.isFull()){
+                // Rebuild a larger filter from the exact keys to keep the false positive probability.
+                filter = new BloomFilter(filter.getCapacity() * 4, FALSE_POSITIVE_PROBABILITY);
+                keys.forEach(filter::add);
+            }
+        }
+
+        @Override
+        public void clearReserved() {
+            reserved.clear();
+        }
+
+        @Override
+        public boolean isRepairable() {
+            return false;
+        }
+
+        @Override
+        public Object nextUnused() {
+            throw new UnsupportedOperationException("Only integer keys can be repaired.");
+        }
+
+        @Override
+        public void set(Map<Column, Object> row, Object key) {
+            throw new UnsupportedOperationException("Only integer keys can be repaired.");
+        }
+
+        @Override
+        public void load(Connection connection) throws SQLException {
+            String names = columns.stream().map(Column::getName).collect(Collectors.joining(", "));
+            String sql = "SELECT " + names + " FROM " + columns.getFirst().getTable().getName();
+            try (Statement stmt = connection.createStatement();
+                 ResultSet rs = stmt.executeQuery(sql)) {
+                while (rs.next()) {
+                    Map<Column, Object> row = new HashMap<>();
+                    for (int i = 0; i < columns.size(); i++) {
+                        row.put(columns.get(i), SchemaProfile.normalize(rs.getObject(i + 1)));
+                    }
+                    Object key = key(row);
+                    if(key != null){
+                        add(key);
+                    }
+                }
+            }
+        }
+    }
+}
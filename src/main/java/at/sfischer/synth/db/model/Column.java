@@ -2,6 +2,7 @@ package at.sfischer.synth.db.model;
 
 import net.sf.jsqlparser.statement.create.table.ColumnDefinition;
 
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -18,6 +19,8 @@ public class Column {
 
     private final ColumnDefinition columnDefinition;
 
+    private final int ordinal;
+
     private Column reference;
 
     private boolean isAutoIncrement;
@@ -26,6 +29,8 @@ public class Column {
 
     private boolean isUnique;
 
+    private boolean isNotNull;
+
     /**
      * Constructs a new Column instance associated with a given table and
      * its SQL definition.
@@ -33,10 +38,12 @@ public class Column {
      * @param table the Table this column belongs to
      * @param columnDefinition the JSQLParser ColumnDefinition object representing
      *                         this column's SQL definition
+     * @param ordinal the position of this column in the table, starting at 0
      */
-    public Column(Table table, ColumnDefinition columnDefinition) {
+    public Column(Table table, ColumnDefinition columnDefinition, int ordinal) {
         this.table = table;
         this.columnDefinition = columnDefinition;
+        this.ordinal = ordinal;
         processColumnDefinition();
     }
 
@@ -62,6 +69,11 @@ public class Column {
                 i++;
                 continue;
             }
+            if (spec.equalsIgnoreCase("NOT") && i + 1 < specs.size() && specs.get(i + 1).equalsIgnoreCase("NULL")) {
+                isNotNull = true;
+                i++;
+                continue;
+            }
             if (spec.equalsIgnoreCase("UNIQUE")) {
                 isUnique = true;
             }
@@ -81,6 +93,15 @@ public class Column {
         return table;
     }
 
+    /**
+     * Returns the position of this column in its table, used to index the values of a {@link Row}.
+     *
+     * @return the ordinal, starting at 0
+     */
+    public int getOrdinal() {
+        return ordinal;
+    }
+
     /**
      * Returns the name of this column.
      *
@@ -99,6 +120,28 @@ public class Column {
         return this.columnDefinition.getColDataType().getDataType();
     }
 
+    /**
+     * Returns the arguments of the SQL data type of this column, e.g. the length of a VARCHAR.
+     *
+     * @return the type arguments, or an empty list if the type has none
+     */
+    public List<String> getTypeArguments(){
+        List<String> arguments = this.columnDefinition.getColDataType().getArgumentsStringList();
+        if(arguments != null && !arguments.isEmpty()){
+            return arguments;
+        }
+
+        String type = getType();
+        int start = type.indexOf('(');
+        int end = type.lastIndexOf(')');
+        if(start < 0 || end < start){
+            return List.of();
+        }
+        return Arrays.stream(type.substring(start + 1, end).split(","))
+                .map(String::trim)
+                .toList();
+    }
+
     /**
      * Indicates whether this column is auto-incremented.
      *
@@ -126,6 +169,16 @@ public class Column {
         return isUnique;
     }
 
+    /**
+     * Indicates whether this column accepts {@code NULL} values, i.e. it is neither declared
+     * {@code NOT NULL} nor part of the primary key.
+     *
+     * @return true if nullable, false otherwise
+     */
+    public boolean isNullable() {
+        return !isNotNull && !isPrimaryKey;
+    }
+
     protected void setAsPrimaryKey() {
         isPrimaryKey = true;
         isUnique = true;
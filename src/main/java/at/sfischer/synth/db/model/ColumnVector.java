@@ -0,0 +1,302 @@
+package at.sfischer.synth.db.model;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+
+/**
+ * The values of a single column of a {@link TableData}, stored in fixed size segments.
+ * <p>
+ * Vectors are chosen by the type of the column. If a value does not fit the representation of
+ * a vector, {@link #add(Object)} returns a more general vector holding all previous values, so
+ * the caller has to replace the vector with the returned one.
+ * </p>
+ */
+abstract class ColumnVector {
+
+    static final int SEGMENT_SIZE = 1 << 12;
+
+    /**
+     * Capacity of a new segment, segments are doubled until they reach {@link #SEGMENT_SIZE}
+     * so small tables do not allocate full segments.
+     */
+    static final int INITIAL_SEGMENT_SIZE = 16;
+
+    /**
+     * Number of distinct strings after which a dictionary is abandoned if it does not pay off.
+     */
+    static final int MAX_DICTIONARY_SIZE = 1 << 12;
+
+    protected int size;
+
+    /**
+     * Creates an empty vector suitable for the type of the given column.
+     */
+    static ColumnVector create(Column column) {
+        String type = column.getType().toUpperCase();
+        int parenthesis = type.indexOf('(');
+        if(parenthesis >= 0){
+            type = type.substring(0, parenthesis).trim();
+        }
+        return switch (type) {
+            case "TINYINT", "SMALLINT", "MEDIUMINT", "INT", "INTEGER", "BIGINT", "SERIAL", "BIGSERIAL" -> new LongVector();
+            case "FLOAT", "DOUBLE", "REAL" -> new DoubleVector();
+            case "DATE" -> new DateVector();
+            case "CHAR", "VARCHAR", "TEXT", "TINYTEXT", "MEDIUMTEXT", "LONGTEXT", "ENUM", "CHARACTER" -> new DictionaryVector();
+            default -> new ObjectVector();
+        };
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Appends a value, {@code null} and {@code "NULL"} are both stored as SQL {@code NULL}.
+     *
+     * @return this vector, or a more general vector containing all values if the value does not fit this vector
+     */
+    abstract ColumnVector add(Object value);
+
+    /**
+     * Returns the value at the given index, {@code null} for SQL {@code NULL}.
+     */
+    abstract Object get(int index);
+
+    /**
+     * Copies all values into a vector storing arbitrary objects, used when a value does not fit.
+     */
+    protected ObjectVector toObjectVector() {
+        ObjectVector vector = new ObjectVector();
+        for (int i = 0; i < size; i++) {
+            vector.add(get(i));
+        }
+        return vector;
+    }
+
+    protected static boolean isNull(Object value) {
+        return value == null || "NULL".equals(value);
+    }
+
+    /**
+     * Null bitmap shared by the primitive vectors.
+     */
+    protected abstract static class PrimitiveVector extends ColumnVector {
+
+        protected final BitSet nulls = new BitSet();
+
+        boolean isNullAt(int index) {
+            return nulls.get(index);
+        }
+    }
+
+    /**
+     * Integers in {@code long[]} segments.
+     */
+    static class LongVector extends PrimitiveVector {
+
+        private final List<long[]> segments = new ArrayList<>();
+
+        @Override
+        ColumnVector add(Object value) {
+            if(isNull(value)){
+                nulls.set(size);
+                append(0);
+                return this;
+            }
+            if(value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte){
+                append(((Number) value).longValue());
+                return this;
+            }
+            return toObjectVector().add(value);
+        }
+
+        protected void append(long value) {
+            int segment = size / SEGMENT_SIZE;
+            if(segment == segments.size()){
+                segments.add(new long[INITIAL_SEGMENT_SIZE]);
+            }
+            long[] array = segments.get(segment);
+            int offset = size % SEGMENT_SIZE;
+            if(offset == array.length){
+                array = Arrays.copyOf(array, array.length * 2);
+                segments.set(segment, array);
+            }
+            array[offset] = value;
+            size++;
+        }
+
+        long getLong(int index) {
+            return segments.get(index / SEGMENT_SIZE)[index % SEGMENT_SIZE];
+        }
+
+        @Override
+        Object get(int index) {
+            return isNullAt(index) ? null : getLong(index);
+        }
+    }
+
+    /**
+     * Dates as days since the epoch in {@code long[]} segments, read back as ISO strings.
+     */
+    static class DateVector extends LongVector {
+
+        @Override
+        ColumnVector add(Object value) {
+            if(isNull(value)){
+                return super.add(null);
+            }
+            if(value instanceof String string){
+                try {
+                    LocalDate date = LocalDate.parse(string);
+                    // Only store dates that are read back exactly as they were written.
+                    if(date.toString().equals(string)){
+                        append(date.toEpochDay());
+                        return this;
+                    }
+                } catch (DateTimeParseException e) {
+                    // Not a plain ISO date, fall back to objects.
+                }
+            }
+            return toObjectVector().add(value);
+        }
+
+        @Override
+        Object get(int index) {
+            return isNullAt(index) ? null : LocalDate.ofEpochDay(getLong(index)).toString();
+        }
+    }
+
+    /**
+     * Floating point numbers in {@code double[]} segments.
+     */
+    static class DoubleVector extends PrimitiveVector {
+
+        private final List<double[]> segments = new ArrayList<>();
+
+        @Override
+        ColumnVector add(Object value) {
+            if(isNull(value)){
+                nulls.set(size);
+                append(0);
+                return this;
+            }
+            if(value instanceof Double || value instanceof Float){
+                append(((Number) value).doubleValue());
+                return this;
+            }
+            return toObjectVector().add(value);
+        }
+
+        private void append(double value) {
+            int segment = size / SEGMENT_SIZE;
+            if(segment == segments.size()){
+                segments.add(new double[INITIAL_SEGMENT_SIZE]);
+            }
+            double[] array = segments.get(segment);
+            int offset = size % SEGMENT_SIZE;
+            if(offset == array.length){
+                array = Arrays.copyOf(array, array.length * 2);
+                segments.set(segment, array);
+            }
+            array[offset] = value;
+            size++;
+        }
+
+        @Override
+        Object get(int index) {
+            return isNullAt(index) ? null : segments.get(index / SEGMENT_SIZE)[index % SEGMENT_SIZE];
+        }
+    }
+
+    /**
+     * Strings encoded as {@code int[]} codes into a dictionary of distinct values, -1 for {@code NULL}.
+     */
+    static class DictionaryVector extends ColumnVector {
+
+        private final List<int[]> segments = new ArrayList<>();
+
+        private final List<String> dictionary = new ArrayList<>();
+
+        private final Map<String, Integer> codes = new HashMap<>();
+
+        @Override
+        ColumnVector add(Object value) {
+            if(isNull(value)){
+                append(-1);
+                return this;
+            }
+            if(!(value instanceof String string)){
+                return toObjectVector().add(value);
+            }
+
+            Integer code = codes.get(string);
+            if(code == null){
+                if(dictionary.size() >= MAX_DICTIONARY_SIZE && dictionary.size() * 2 > size){
+                    // High cardinality, the dictionary does not pay off.
+                    return toObjectVector().add(value);
+                }
+                code = dictionary.size();
+                dictionary.add(string);
+                codes.put(string, code);
+            }
+            append(code);
+            return this;
+        }
+
+        private void append(int code) {
+            int segment = size / SEGMENT_SIZE;
+            if(segment == segments.size()){
+                segments.add(new int[INITIAL_SEGMENT_SIZE]);
+            }
+            int[] array = segments.get(segment);
+            int offset = size % SEGMENT_SIZE;
+            if(offset == array.length){
+                array = Arrays.copyOf(array, array.length * 2);
+                segments.set(segment, array);
+            }
+            array[offset] = code;
+            size++;
+        }
+
+        int getDictionarySize() {
+            return dictionary.size();
+        }
+
+        @Override
+        Object get(int index) {
+            int code = segments.get(index / SEGMENT_SIZE)[index % SEGMENT_SIZE];
+            return code < 0 ? null : dictionary.get(code);
+        }
+    }
+
+    /**
+     * Arbitrary values in {@code Object[]} segments.
+     */
+    static class ObjectVector extends ColumnVector {
+
+        private final List<Object[]> segments = new ArrayList<>();
+
+        @Override
+        ColumnVector add(Object value) {
+            int segment = size / SEGMENT_SIZE;
+            if(segment == segments.size()){
+                segments.add(new Object[INITIAL_SEGMENT_SIZE]);
+            }
+            Object[] array = segments.get(segment);
+            int offset = size % SEGMENT_SIZE;
+            if(offset == array.length){
+                array = Arrays.copyOf(array, array.length * 2);
+                segments.set(segment, array);
+            }
+            array[offset] = isNull(value) ? null : value;
+            size++;
+            return this;
+        }
+
+        @Override
+        Object get(int index) {
+            return segments.get(index / SEGMENT_SIZE)[index % SEGMENT_SIZE];
+        }
+    }
+}
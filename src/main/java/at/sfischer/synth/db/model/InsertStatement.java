@@ -21,7 +21,7 @@ import java.util.stream.Collectors;
  * <p>
  * This class can either wrap an existing {@link net.sf.jsqlparser.statement.insert.Insert} object
  * or be constructed directly from a table and row data. Each row is represented as a map from
- * {@link Column} to its corresponding value.
+ * {@link Column} to its corresponding value, parsed rows are compact {@link Row}s.
  * </p>
  */
 public class InsertStatement {
@@ -53,7 +53,7 @@ public class InsertStatement {
     private InsertStatement(Table table, Insert insert) {
         this.table = table;
         this.insert = insert;
-        this.rows = new LinkedList<>();
+        this.rows = new ArrayList<>();
         initRows();
     }
 
@@ -68,7 +68,7 @@ public class InsertStatement {
                 ExpressionList<?> expressionList = this.insert.getValues().getExpressions();
                 processRows(columns, expressionList);
             } else {
-                Map<Column, Object> row = new LinkedHashMap<>();
+                Row row = new Row(table);
                 for (UpdateSet updateSet : this.insert.getSetUpdateSets()) {
                     String columnName = updateSet.getColumn(0).getColumnName();
                     Expression expression = updateSet.getValue(0);
@@ -85,7 +85,7 @@ public class InsertStatement {
     }
 
     private void processRows(List<Column> columns, ExpressionList<?> expressionList){
-        Map<Column, Object> row = new LinkedHashMap<>();
+        Row row = new Row(table);
         int i = 0;
         for (Expression expression : expressionList) {
             if (expression instanceof ExpressionList<?> exprList) {
@@ -104,7 +104,7 @@ public class InsertStatement {
 
     private Object processExpression(Column column, Expression expression){
         Object rawValue = getRawExpressionValue(expression);
-        if(rawValue instanceof String){
+        if(rawValue instanceof String && !"NULL".equals(rawValue)){
             switch (column.getType().toUpperCase()){
                 case "TINYINT":
                 case "SMALLINT":
@@ -199,7 +199,7 @@ public class InsertStatement {
      * @throws JSQLParserException if any statement cannot be parsed
      */
     public static List<InsertStatement> parseInsertStatements(DBSchema schema, String insertStatements) throws JSQLParserException {
-        List<InsertStatement> inserts = new LinkedList<>();
+        List<InsertStatement> inserts = new ArrayList<>();
         List<Statement> statements = CCJSqlParserUtil.parseStatements(insertStatements);
         if(statements == null){
             return null;
@@ -293,7 +293,7 @@ public class InsertStatement {
                 ? Collections.emptySet()
                 : first.getRows().getFirst().keySet();
 
-        List<Map<Column, Object>> rows = new LinkedList<>();
+        List<Map<Column, Object>> rows = new ArrayList<>();
         for (InsertStatement stmt : statements) {
             if (!stmt.getTable().equals(table)) {
                 throw new IllegalArgumentException("Cannot merge InsertStatements for different tables");
@@ -347,28 +347,45 @@ public class InsertStatement {
             sb.append("\n\t");
         }
 
-        List<String> valueRows = new ArrayList<>();
+        boolean first = true;
         for (Map<Column, Object> row : rows) {
-            List<String> values = new ArrayList<>();
-            for (Column col : columnList) {
-                Object value = row.get(col);
-                if (value == null || "NULL".equals(value)) {
-                    values.add("NULL");
-                } else if (value instanceof String || value instanceof java.sql.Date || value instanceof java.sql.Time) {
-                    values.add("'" + value.toString().replace("'", "''") + "'"); // escape single quotes
-                } else if (value instanceof Boolean) {
-                    values.add(((Boolean) value) ? "TRUE" : "FALSE");
-                } else {
-                    values.add(value.toString());
+            if(!first){
+                sb.append(",\n\t");
+            }
+            first = false;
+
+            sb.append("(");
+            for (int i = 0; i < columnList.size(); i++) {
+                if(i > 0){
+                    sb.append(", ");
                 }
+                Object value = row instanceof Row r && r.getTable() == table ? r.get(i) : row.get(columnList.get(i));
+                sb.append(generateValue(value));
             }
-            valueRows.add("(" + String.join(", ", values) + ")");
+            sb.append(")");
         }
 
-        sb.append(String.join(",\n\t", valueRows)).append(";");
+        sb.append(";");
         return sb.toString();
     }
 
+    /**
+     * Generates the SQL literal of a single value, formatted like in {@link #generateInsertStatement()}.
+     *
+     * @param value the value, {@code null} or {@code "NULL"} for SQL {@code NULL}
+     * @return the SQL literal of the value
+     */
+    public static String generateValue(Object value) {
+        if (value == null || "NULL".equals(value)) {
+            return "NULL";
+        } else if (value instanceof String || value instanceof java.sql.Date || value instanceof java.sql.Time) {
+            return "'" + value.toString().replace("'", "''") + "'"; // escape single quotes
+        } else if (value instanceof Boolean) {
+            return ((Boolean) value) ? "TRUE" : "FALSE";
+        }
+        return value.toString();
+    }
+
     /**
      * Sets the values for an auto-increment column in the rows of this insert statement.
      * <p>
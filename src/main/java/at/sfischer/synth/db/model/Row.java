@@ -0,0 +1,283 @@
+package at.sfischer.synth.db.model;
+
+import java.util.*;
+
+/**
+ * A compact row of a {@link Table}, storing its values in an array indexed by {@link Column#getOrdinal()}.
+ * <p>
+ * A row implements {@link Map} from {@link Column} to value, so it can be used wherever rows are
+ * represented as maps, but avoids the per-entry overhead and hashing of a {@link LinkedHashMap}.
+ * Entries are iterated in the order of the columns in the table. A column can be absent from a row,
+ * which is different from being present with a {@code null} value, just like for other maps.
+ * </p>
+ */
+public final class Row extends AbstractMap<Column, Object> {
+
+    private static final Object ABSENT = new Object();
+
+    private final Table table;
+
+    private final Object[] values;
+
+    private int size;
+
+    /**
+     * Constructs an empty row of the given table.
+     *
+     * @param table the table of the row
+     */
+    public Row(Table table) {
+        this.table = table;
+        this.values = new Object[table.getColumnCount()];
+        Arrays.fill(this.values, ABSENT);
+    }
+
+    /**
+     * Constructs a row of the given table containing the given values.
+     *
+     * @param table the table of the row
+     * @param values the values of the row, all columns must belong to the table
+     * @throws IllegalArgumentException if a column does not belong to the table
+     */
+    public Row(Table table, Map<Column, Object> values) {
+        this(table);
+        putAll(values);
+    }
+
+    /**
+     * Returns the table of this row.
+     *
+     * @return the table
+     */
+    public Table getTable() {
+        return table;
+    }
+
+    /**
+     * Returns the value of the column with the given ordinal.
+     *
+     * @param ordinal the ordinal of the column in the table
+     * @return the value, or {@code null} if the column is absent
+     */
+    public Object get(int ordinal) {
+        Object value = values[ordinal];
+        return value == ABSENT ? null : value;
+    }
+
+    /**
+     * Returns the value of the column with the given ordinal as a string.
+     *
+     * @param ordinal the ordinal of the column in the table
+     * @return the value as string, or {@code null} if the value is {@code null} or the column is absent
+     */
+    public String getString(int ordinal) {
+        Object value = get(ordinal);
+        return value == null ? null : value.toString();
+    }
+
+    /**
+     * Returns the value of the column with the given ordinal as a long.
+     *
+     * @param ordinal the ordinal of the column in the table
+     * @return the value as long, or {@code null} if the value is {@code null}, {@code "NULL"} or the column is absent
+     * @throws NumberFormatException if the value is not a number
+     */
+    public Long getLong(int ordinal) {
+        Object value = get(ordinal);
+        if(value == null || "NULL".equals(value)){
+            return null;
+        }
+        if(value instanceof Number number){
+            return number.longValue();
+        }
+        return Long.parseLong(value.toString());
+    }
+
+    /**
+     * Returns the value of the column with the given ordinal as a double.
+     *
+     * @param ordinal the ordinal of the column in the table
+     * @return the value as double, or {@code null} if the value is {@code null}, {@code "NULL"} or the column is absent
+     * @throws NumberFormatException if the value is not a number
+     */
+    public Double getDouble(int ordinal) {
+        Object value = get(ordinal);
+        if(value == null || "NULL".equals(value)){
+            return null;
+        }
+        if(value instanceof Number number){
+            return number.doubleValue();
+        }
+        return Double.parseDouble(value.toString());
+    }
+
+    /**
+     * Sets the value of the column with the given ordinal.
+     *
+     * @param ordinal the ordinal of the column in the table
+     * @param value the value, may be {@code null}
+     * @return the previous value, or {@code null} if the column was absent
+     */
+    public Object set(int ordinal, Object value) {
+        Object previous = values[ordinal];
+        values[ordinal] = value;
+        if(previous == ABSENT){
+            size++;
+            return null;
+        }
+        return previous;
+    }
+
+    /**
+     * Indicates whether the column with the given ordinal is present in this row.
+     *
+     * @param ordinal the ordinal of the column in the table
+     * @return true if the column is present, false otherwise
+     */
+    public boolean isSet(int ordinal) {
+        return values[ordinal] != ABSENT;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        int ordinal = ordinalOf(key);
+        return ordinal >= 0 && isSet(ordinal);
+    }
+
+    @Override
+    public Object get(Object key) {
+        int ordinal = ordinalOf(key);
+        return ordinal < 0 ? null : get(ordinal);
+    }
+
+    @Override
+    public Object put(Column key, Object value) {
+        int ordinal = ordinalOf(key);
+        if(ordinal < 0){
+            throw new IllegalArgumentException("Column " + (key == null ? null : key.getName()) + " does not belong to table " + table.getName());
+        }
+        return set(ordinal, value);
+    }
+
+    @Override
+    public Object remove(Object key) {
+        int ordinal = ordinalOf(key);
+        if(ordinal < 0 || !isSet(ordinal)){
+            return null;
+        }
+        return removeAt(ordinal);
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(values, ABSENT);
+        size = 0;
+    }
+
+    @Override
+    public Set<Entry<Column, Object>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<Column, Object>> iterator() {
+                return new EntryIterator();
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private Object removeAt(int ordinal) {
+        Object previous = values[ordinal];
+        values[ordinal] = ABSENT;
+        size--;
+        return previous;
+    }
+
+    private int ordinalOf(Object key) {
+        if(key instanceof Column column && column.getTable() == table){
+            return column.getOrdinal();
+        }
+        return -1;
+    }
+
+    private class EntryIterator implements Iterator<Entry<Column, Object>> {
+
+        private int next = advance(0);
+
+        private int last = -1;
+
+        private int advance(int from) {
+            while (from < values.length && values[from] == ABSENT) {
+                from++;
+            }
+            return from;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < values.length;
+        }
+
+        @Override
+        public Entry<Column, Object> next() {
+            if(!hasNext()){
+                throw new NoSuchElementException();
+            }
+            last = next;
+            next = advance(next + 1);
+            return new RowEntry(last);
+        }
+
+        @Override
+        public void remove() {
+            if(last < 0 || !isSet(last)){
+                throw new IllegalStateException();
+            }
+            removeAt(last);
+        }
+    }
+
+    private class RowEntry implements Entry<Column, Object> {
+
+        private final int ordinal;
+
+        private RowEntry(int ordinal) {
+            this.ordinal = ordinal;
+        }
+
+        @Override
+        public Column getKey() {
+            return table.getColumn(ordinal);
+        }
+
+        @Override
+        public Object getValue() {
+            return get(ordinal);
+        }
+
+        @Override
+        public Object setValue(Object value) {
+            return set(ordinal, value);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Entry<?, ?> entry
+                    && Objects.equals(getKey(), entry.getKey())
+                    && Objects.equals(getValue(), entry.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(getKey()) ^ Objects.hashCode(getValue());
+        }
+    }
+}
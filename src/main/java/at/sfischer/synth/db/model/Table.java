@@ -7,9 +7,7 @@ import net.sf.jsqlparser.statement.create.table.NamedConstraint;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.LinkedHashMap;
-import java.util.LinkedList;
-import java.util.List;
+import java.util.*;
 
 /**
  * Represents a database table parsed from a SQL CREATE TABLE statement.
@@ -27,11 +25,14 @@ public class Table {
 
     private final LinkedHashMap<String, Column> columns;
 
+    private final List<Column> columnList;
+
     /**
      * Constructs a Table object from a parsed SQL CREATE TABLE statement.
      * <p>
      * This constructor initializes the columns map by creating a {@link Column}
-     * instance for each column definition in the CREATE TABLE statement.
+     * instance for each column definition in the CREATE TABLE statement,
+     * numbered by their position in the statement.
      * </p>
      *
      * @param createTableStatement the {@link CreateTable} object representing
@@ -40,8 +41,11 @@ public class Table {
     public Table(CreateTable createTableStatement) {
         this.createTableStatement = createTableStatement;
         this.columns = new LinkedHashMap<>();
+        this.columnList = new ArrayList<>();
         createTableStatement.getColumnDefinitions().forEach(col -> {
-            this.columns.put(col.getColumnName(), new Column(this, col));
+            Column column = new Column(this, col, this.columnList.size());
+            this.columns.put(col.getColumnName(), column);
+            this.columnList.add(column);
         });
         parseConstraints();
     }
@@ -97,7 +101,27 @@ public class Table {
      * @return a list of columns
      */
     public List<Column> getColumns() {
-        return new LinkedList<>(columns.values());
+        return new ArrayList<>(columnList);
+    }
+
+    /**
+     * Returns the number of columns of this table.
+     *
+     * @return the number of columns
+     */
+    public int getColumnCount() {
+        return columnList.size();
+    }
+
+    /**
+     * Returns a column by its ordinal.
+     *
+     * @param ordinal the position of the column in the table, starting at 0
+     * @return the Column object
+     * @throws IndexOutOfBoundsException if no column with the given ordinal exists
+     */
+    public Column getColumn(int ordinal) {
+        return columnList.get(ordinal);
     }
 
     /**
@@ -110,6 +134,41 @@ public class Table {
         return columns.get(name);
     }
 
+    /**
+     * Creates a table of the same name containing only the given columns, e.g. to describe
+     * only a part of this table to a generator.
+     * <p>
+     * Constraints are kept if all of their columns are kept, and the kept columns keep their
+     * foreign key references. The columns of the new table are new {@link Column} objects.
+     * </p>
+     *
+     * @param columns the columns of this table to keep
+     * @return the projected table
+     */
+    public Table project(Collection<Column> columns) {
+        Set<String> names = new HashSet<>();
+        for (Column column : columns) {
+            names.add(column.getName());
+        }
+
+        CreateTable projected = new CreateTable();
+        projected.setTable(createTableStatement.getTable());
+        projected.setColumnDefinitions(createTableStatement.getColumnDefinitions().stream()
+                .filter(definition -> names.contains(definition.getColumnName()))
+                .toList());
+        if(createTableStatement.getIndexes() != null){
+            projected.setIndexes(createTableStatement.getIndexes().stream()
+                    .filter(index -> names.containsAll(index.getColumnsNames()))
+                    .toList());
+        }
+
+        Table table = new Table(projected);
+        for (Column column : table.columnList) {
+            column.setReference(getColumn(column.getName()).getReference());
+        }
+        return table;
+    }
+
     /**
      * Returns the column in this table that is defined as auto-increment, if any.
      *
@@ -0,0 +1,209 @@
+package at.sfischer.synth.db.model;
+
+import java.util.*;
+
+/**
+ * A columnar in-memory dataset holding the rows of a single {@link Table}.
+ * <p>
+ * Every column is stored in its own vector chosen by the column type: integers in {@code long[]}
+ * segments and dates as days since the epoch, both with a null bitmap, floating point numbers in
+ * {@code double[]} segments, and strings dictionary-encoded as {@code int[]} codes as long as the
+ * number of distinct values stays low. Values that do not fit a specialized vector, e.g. a string in
+ * an integer column, switch the column to plain object storage.
+ * </p>
+ * <p>
+ * Values are read back like they were added, except that {@code "NULL"} is read as {@code null},
+ * integral values as {@link Long}, floating point values as {@link Double} and dates as ISO strings.
+ * A dataset is not thread-safe.
+ * </p>
+ * <p>
+ * A dataset only holds the generated rows that {@code TableFiller} returns when it is used without an
+ * output sink, e.g. through the API. The command line tool always writes the rows to an output sink
+ * and does not retain them, and neither path reads from a dataset while generating: prompt examples
+ * are drawn from bounded reservoir samples and foreign keys from an in-memory key index.
+ * </p>
+ */
+public final class TableData {
+
+    private final Table table;
+
+    private final ColumnVector[] vectors;
+
+    private int size;
+
+    /**
+     * Constructs an empty dataset for the given table.
+     *
+     * @param table the table of the rows
+     */
+    public TableData(Table table) {
+        this.table = table;
+        this.vectors = new ColumnVector[table.getColumnCount()];
+        for (int i = 0; i < vectors.length; i++) {
+            vectors[i] = ColumnVector.create(table.getColumn(i));
+        }
+    }
+
+    /**
+     * Returns the table of this dataset.
+     *
+     * @return the table
+     */
+    public Table getTable() {
+        return table;
+    }
+
+    /**
+     * Returns the number of rows in this dataset.
+     *
+     * @return the number of rows
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Appends a row. Columns that are missing in the row are stored as {@code NULL}.
+     *
+     * @param row the row, all columns must belong to the table of this dataset
+     */
+    public void add(Map<Column, Object> row) {
+        for (int i = 0; i < vectors.length; i++) {
+            Object value = row instanceof Row r && r.getTable() == table ? r.get(i) : row.get(table.getColumn(i));
+            vectors[i] = vectors[i].add(value);
+        }
+        size++;
+    }
+
+    /**
+     * Appends all rows of the given statements.
+     *
+     * @param inserts the statements, all of the table of this dataset
+     * @throws IllegalArgumentException if a statement is for a different table
+     */
+    public void addAll(Collection<InsertStatement> inserts) {
+        for (InsertStatement insert : inserts) {
+            if(insert.getTable() != table){
+                throw new IllegalArgumentException("Cannot add rows of table " + insert.getTable().getName() + " to data of table " + table.getName());
+            }
+            for (Map<Column, Object> row : insert.getRows()) {
+                add(row);
+            }
+        }
+    }
+
+    /**
+     * Returns a single value.
+     *
+     * @param row the index of the row
+     * @param ordinal the ordinal of the column
+     * @return the value, or {@code null} for SQL {@code NULL}
+     * @throws IndexOutOfBoundsException if the row or column does not exist
+     */
+    public Object get(int row, int ordinal) {
+        Objects.checkIndex(row, size);
+        return vectors[ordinal].get(row);
+    }
+
+    /**
+     * Returns a single value.
+     *
+     * @param row the index of the row
+     * @param column the column, must belong to the table of this dataset
+     * @return the value, or {@code null} for SQL {@code NULL}
+     * @throws IndexOutOfBoundsException if the row does not exist
+     */
+    public Object get(int row, Column column) {
+        return get(row, column.getOrdinal());
+    }
+
+    /**
+     * Indicates whether a value is SQL {@code NULL}.
+     *
+     * @param row the index of the row
+     * @param ordinal the ordinal of the column
+     * @return true if the value is {@code NULL}, false otherwise
+     */
+    public boolean isNull(int row, int ordinal) {
+        Objects.checkIndex(row, size);
+        ColumnVector vector = vectors[ordinal];
+        if(vector instanceof ColumnVector.PrimitiveVector primitive){
+            return primitive.isNullAt(row);
+        }
+        return vector.get(row) == null;
+    }
+
+    /**
+     * Returns a value of an integer column without boxing.
+     *
+     * @param row the index of the row
+     * @param ordinal the ordinal of the column
+     * @return the value, 0 for SQL {@code NULL}
+     * @throws IllegalStateException if the column is not stored as integers
+     */
+    public long getLong(int row, int ordinal) {
+        Objects.checkIndex(row, size);
+        if(vectors[ordinal] instanceof ColumnVector.LongVector vector && !(vector instanceof ColumnVector.DateVector)){
+            return vector.getLong(row);
+        }
+        throw new IllegalStateException("Column " + table.getColumn(ordinal).getName() + " is not stored as integers.");
+    }
+
+    /**
+     * Returns a row as a {@link Row}. The row is a copy, changing it does not change this dataset.
+     *
+     * @param index the index of the row
+     * @return the row containing all columns
+     * @throws IndexOutOfBoundsException if the row does not exist
+     */
+    public Row getRow(int index) {
+        Objects.checkIndex(index, size);
+        Row row = new Row(table);
+        for (int i = 0; i < vectors.length; i++) {
+            row.set(i, vectors[i].get(index));
+        }
+        return row;
+    }
+
+    /**
+     * Returns a read-only list view of the rows. Rows are created when accessed, so the
+     * view does not hold additional memory.
+     *
+     * @return the rows of this dataset
+     */
+    public List<Map<Column, Object>> asRows() {
+        return new RowList();
+    }
+
+    /**
+     * Returns the values of the given column that are used by at least one row, in the order of
+     * their first use, e.g. to look up the keys a foreign key column can reference.
+     *
+     * @param column the column, must belong to the table of this dataset
+     * @return the distinct non-{@code NULL} values
+     */
+    public Set<Object> getDistinctValues(Column column) {
+        ColumnVector vector = vectors[column.getOrdinal()];
+        Set<Object> values = new LinkedHashSet<>();
+        for (int i = 0; i < size; i++) {
+            Object value = vector.get(i);
+            if(value != null){
+                values.add(value);
+            }
+        }
+        return values;
+    }
+
+    private class RowList extends AbstractList<Map<Column, Object>> implements RandomAccess {
+
+        @Override
+        public Map<Column, Object> get(int index) {
+            return Collections.unmodifiableMap(getRow(index));
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
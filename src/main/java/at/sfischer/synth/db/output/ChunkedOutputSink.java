@@ -0,0 +1,175 @@
+package at.sfischer.synth.db.output;
+
+import at.sfischer.synth.db.model.Column;
+import at.sfischer.synth.db.model.InsertStatement;
+import at.sfischer.synth.db.model.Table;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Base class of sinks that write rows to {@link Writer}s in chunks of several rows per table.
+ * <p>
+ * Rows are buffered per table until a chunk reaches the maximum number of rows or bytes,
+ * and are then written at once, so the memory used is bounded by the chunk size per table.
+ * The byte limit applies to the rendered chunk including the statement around its rows, e.g.
+ * to stay below the maximum packet size of the database the output is loaded into. Before a chunk of a table is
+ * written, the buffered rows of all tables it references are written, so the output can be
+ * loaded with foreign key checks enabled.
+ * </p>
+ */
+public abstract class ChunkedOutputSink implements OutputSink {
+
+    private final Map<Table, Set<Table>> tableDependencies;
+
+    private final int chunkRows;
+
+    private final long chunkBytes;
+
+    private final Map<Table, Chunk> chunks = new LinkedHashMap<>();
+
+    private final Set<Table> startedTables = new HashSet<>();
+
+    private static class Chunk {
+        private final List<String> rows = new ArrayList<>();
+        private long bytes;
+    }
+
+    /**
+     * Constructs a new sink.
+     *
+     * @param tableDependencies a map from each table to the set of tables it references
+     * @param chunkRows the maximum number of rows per chunk, must be at least 1
+     * @param chunkBytes the maximum number of bytes per chunk, must be at least 1
+     * @throws IllegalArgumentException if {@code chunkRows} or {@code chunkBytes} is smaller than 1
+     */
+    protected ChunkedOutputSink(Map<Table, Set<Table>> tableDependencies, int chunkRows, long chunkBytes) {
+        if(chunkRows < 1){
+            throw new IllegalArgumentException("Chunk rows must be at least 1, but was: " + chunkRows);
+        }
+        if(chunkBytes < 1){
+            throw new IllegalArgumentException("Chunk bytes must be at least 1, but was: " + chunkBytes);
+        }
+        this.tableDependencies = tableDependencies == null ? Map.of() : tableDependencies;
+        this.chunkRows = chunkRows;
+        this.chunkBytes = chunkBytes;
+    }
+
+    /**
+     * Returns the writer the chunks of the given table are written to.
+     *
+     * @param table the table
+     * @return the writer of the table
+     * @throws IOException if the writer cannot be opened
+     */
+    protected abstract Writer getWriter(Table table) throws IOException;
+
+    /**
+     * Closes all writers returned by {@link #getWriter(Table)}.
+     *
+     * @throws IOException if a writer cannot be closed
+     */
+    protected abstract void closeWriters() throws IOException;
+
+    /**
+     * Renders a single row of a chunk.
+     *
+     * @param table the table of the row
+     * @param row the row, mapping columns to their values
+     * @return the rendered row
+     */
+    protected abstract String formatRow(Table table, Map<Column, Object> row);
+
+    /**
+     * Returns the number of bytes a chunk of the given table needs in addition to its rows,
+     * e.g. for the statement around the rows and separators.
+     *
+     * @param table the table
+     * @param rowCount the number of rows in the chunk
+     * @return the number of additional bytes
+     */
+    protected abstract long getChunkOverhead(Table table, int rowCount);
+
+    /**
+     * Writes a chunk of rendered rows.
+     *
+     * @param writer the writer to write to
+     * @param table the table of the rows
+     * @param rows the rendered rows, never empty
+     * @throws IOException if the chunk cannot be written
+     */
+    protected abstract void writeChunk(Writer writer, Table table, List<String> rows) throws IOException;
+
+    /**
+     * Writes the header preceding the first chunk of a table.
+     *
+     * @param writer the writer to write to
+     * @param table the table
+     * @throws IOException if the header cannot be written
+     */
+    protected void writeTableHeader(Writer writer, Table table) throws IOException {
+    }
+
+    @Override
+    public synchronized void write(InsertStatement insert) throws IOException {
+        Table table = insert.getTable();
+        for (Map<Column, Object> row : insert.getRows()) {
+            String formatted = formatRow(table, row);
+            long bytes = formatted.getBytes(StandardCharsets.UTF_8).length;
+            Chunk chunk = chunks.computeIfAbsent(table, _ -> new Chunk());
+            if(!chunk.rows.isEmpty() && chunk.bytes + bytes + getChunkOverhead(table, chunk.rows.size() + 1) > chunkBytes){
+                flush(table, new HashSet<>());
+                chunk = chunks.computeIfAbsent(table, _ -> new Chunk());
+            }
+
+            chunk.rows.add(formatted);
+            chunk.bytes += bytes;
+            if(chunk.rows.size() >= chunkRows){
+                flush(table, new HashSet<>());
+            }
+        }
+    }
+
+    @Override
+    public synchronized void tableCompleted(Table table) throws IOException {
+        flush(table, new HashSet<>());
+        if(startedTables.contains(table)){
+            getWriter(table).flush();
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            for (Table table : new ArrayList<>(chunks.keySet())) {
+                flush(table, new HashSet<>());
+            }
+        } finally {
+            closeWriters();
+        }
+    }
+
+    /**
+     * Writes the buffered rows of the given table, after the buffered rows of the tables it references.
+     */
+    private void flush(Table table, Set<Table> visited) throws IOException {
+        if(!visited.add(table)){
+            return;
+        }
+        for (Table referenced : tableDependencies.getOrDefault(table, Set.of())) {
+            flush(referenced, visited);
+        }
+
+        Chunk chunk = chunks.remove(table);
+        if(chunk == null || chunk.rows.isEmpty()){
+            return;
+        }
+        Writer writer = getWriter(table);
+        if(startedTables.add(table)){
+            writeTableHeader(writer, table);
+        }
+        writeChunk(writer, table, chunk.rows);
+    }
+}
@@ -0,0 +1,114 @@
+package at.sfischer.synth.db.output;
+
+import at.sfischer.synth.db.model.Column;
+import at.sfischer.synth.db.model.Table;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Writes rows as PostgreSQL {@code COPY ... FROM stdin} blocks in text format, one block per chunk,
+ * which can be loaded with {@code psql}.
+ * <p>
+ * Values are separated by tabs, {@code NULL} is written as {@code \N}, and backslashes, tabs,
+ * carriage returns and line feeds in values are escaped with a backslash.
+ * </p>
+ */
+public class CopyOutputSink extends ChunkedOutputSink {
+
+    private static final String END_OF_DATA = "\\.\n";
+
+    private final Writer writer;
+
+    private final Map<Table, String> statementPrefixes = new HashMap<>();
+
+    /**
+     * Constructs a new sink.
+     *
+     * @param writer the writer to write blocks to, closed when this sink is closed
+     * @param tableDependencies a map from each table to the set of tables it references
+     * @param chunkRows the maximum number of rows per block
+     * @param chunkBytes the maximum number of bytes per block
+     */
+    public CopyOutputSink(Writer writer, Map<Table, Set<Table>> tableDependencies, int chunkRows, long chunkBytes) {
+        super(tableDependencies, chunkRows, chunkBytes);
+        this.writer = writer;
+    }
+
+    @Override
+    protected Writer getWriter(Table table) {
+        return writer;
+    }
+
+    @Override
+    protected void closeWriters() throws IOException {
+        writer.close();
+    }
+
+    @Override
+    protected String formatRow(Table table, Map<Column, Object> row) {
+        List<String> values = new ArrayList<>();
+        for (Column column : table.getColumns()) {
+            values.add(formatValue(row.get(column)));
+        }
+        return String.join("\t", values);
+    }
+
+    @Override
+    protected long getChunkOverhead(Table table, int rowCount) {
+        // Prefix, a line feed per row and the end of data marker.
+        return getStatementPrefix(table).getBytes(StandardCharsets.UTF_8).length + rowCount + END_OF_DATA.length();
+    }
+
+    @Override
+    protected void writeTableHeader(Writer writer, Table table) throws IOException {
+        writer.write("-- Table data: " + table.getName() + "\n");
+    }
+
+    @Override
+    protected void writeChunk(Writer writer, Table table, List<String> rows) throws IOException {
+        writer.write(getStatementPrefix(table));
+        for (String row : rows) {
+            writer.write(row);
+            writer.write('\n');
+        }
+        writer.write(END_OF_DATA);
+    }
+
+    /**
+     * Formats a value for the text format of {@code COPY}.
+     *
+     * @param value the value, {@code null} or {@code "NULL"} for SQL {@code NULL}
+     * @return the formatted value
+     */
+    static String formatValue(Object value) {
+        if(value == null || "NULL".equals(value)){
+            return "\\N";
+        }
+        if(value instanceof Boolean bool){
+            return bool ? "t" : "f";
+        }
+
+        String string = value.toString();
+        StringBuilder sb = new StringBuilder(string.length());
+        for (int i = 0; i < string.length(); i++) {
+            char c = string.charAt(i);
+            switch (c) {
+                case '\\' -> sb.append("\\\\");
+                case '\t' -> sb.append("\\t");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                default -> sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    private String getStatementPrefix(Table table) {
+        return statementPrefixes.computeIfAbsent(table, t -> "COPY " + t.getName() +
+                " (" + t.getColumns().stream().map(Column::getName).collect(Collectors.joining(", ")) + ") FROM stdin;\n");
+    }
+}
@@ -0,0 +1,89 @@
+package at.sfischer.synth.db.output;
+
+import at.sfischer.synth.db.DatabaseType;
+import at.sfischer.synth.db.model.Column;
+import at.sfischer.synth.db.model.Table;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Writes the rows of every table to a separate CSV file with a header row.
+ * <p>
+ * Fields are separated by commas and enclosed in double quotes if needed, double quotes are
+ * escaped by doubling them. {@code NULL} is encoded the way the bulk loader of the database reads it:
+ * <ul>
+ *     <li>{@link DatabaseType#PostgreSQL}: an empty unquoted field, as read by {@code COPY ... WITH (FORMAT csv, HEADER)},
+ *     empty strings are quoted. Booleans are written as {@code true} and {@code false}.</li>
+ *     <li>{@link DatabaseType#MySQL}: the unquoted word {@code NULL}, as read by {@code LOAD DATA} with
+ *     {@code FIELDS ENCLOSED BY '"'}, all other values are quoted and backslashes are escaped.
+ *     Booleans are written as {@code 1} and {@code 0}.</li>
+ * </ul>
+ * </p>
+ */
+public class CsvOutputSink extends TableFilesOutputSink {
+
+    private final DatabaseType databaseType;
+
+    /**
+     * Constructs a new sink.
+     *
+     * @param directory the directory to write the CSV files to, created if it does not exist
+     * @param databaseType the database the files are loaded into
+     * @param tableDependencies a map from each table to the set of tables it references
+     * @param chunkRows the maximum number of rows buffered per table
+     * @param chunkBytes the maximum number of bytes buffered per table
+     * @throws IOException if the directory cannot be created
+     */
+    public CsvOutputSink(Path directory, DatabaseType databaseType, Map<Table, Set<Table>> tableDependencies, int chunkRows, long chunkBytes) throws IOException {
+        super(directory, ".csv", tableDependencies, chunkRows, chunkBytes);
+        this.databaseType = databaseType;
+    }
+
+    @Override
+    protected void writeTableHeader(Writer writer, Table table) throws IOException {
+        writer.write(table.getColumns().stream().map(column -> quote(column.getName())).collect(Collectors.joining(",")));
+        writer.write('\n');
+    }
+
+    @Override
+    protected String formatRow(Table table, Map<Column, Object> row) {
+        List<String> values = new ArrayList<>();
+        for (Column column : table.getColumns()) {
+            values.add(formatValue(row.get(column)));
+        }
+        return String.join(",", values);
+    }
+
+    /**
+     * Formats a single CSV field.
+     *
+     * @param value the value, {@code null} or {@code "NULL"} for SQL {@code NULL}
+     * @return the formatted field
+     */
+    String formatValue(Object value) {
+        boolean mysql = databaseType == DatabaseType.MySQL;
+        if(value == null || "NULL".equals(value)){
+            return mysql ? "NULL" : "";
+        }
+        if(value instanceof Boolean bool){
+            return mysql ? (bool ? "1" : "0") : bool.toString();
+        }
+
+        String string = value.toString();
+        if(mysql){
+            return quote(string.replace("\\", "\\\\"));
+        }
+        if(string.isEmpty() || string.indexOf(',') >= 0 || string.indexOf('"') >= 0 || string.indexOf('\n') >= 0 || string.indexOf('\r') >= 0){
+            return quote(string);
+        }
+        return string;
+    }
+
+    private static String quote(String value) {
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+}
@@ -0,0 +1,81 @@
+package at.sfischer.synth.db.output;
+
+import at.sfischer.synth.db.model.Column;
+import at.sfischer.synth.db.model.InsertStatement;
+import at.sfischer.synth.db.model.Table;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Writes rows as multi-row SQL {@code INSERT} statements, one statement per chunk.
+ * <p>
+ * Values are formatted like in {@link InsertStatement#generateInsertStatement()}.
+ * </p>
+ */
+public class InsertOutputSink extends ChunkedOutputSink {
+
+    private final Writer writer;
+
+    private final Map<Table, String> statementPrefixes = new HashMap<>();
+
+    /**
+     * Constructs a new sink.
+     *
+     * @param writer the writer to write statements to, closed when this sink is closed
+     * @param tableDependencies a map from each table to the set of tables it references
+     * @param chunkRows the maximum number of rows per statement
+     * @param chunkBytes the maximum number of bytes per statement
+     */
+    public InsertOutputSink(Writer writer, Map<Table, Set<Table>> tableDependencies, int chunkRows, long chunkBytes) {
+        super(tableDependencies, chunkRows, chunkBytes);
+        this.writer = writer;
+    }
+
+    @Override
+    protected Writer getWriter(Table table) {
+        return writer;
+    }
+
+    @Override
+    protected void closeWriters() throws IOException {
+        writer.close();
+    }
+
+    @Override
+    protected String formatRow(Table table, Map<Column, Object> row) {
+        List<String> values = new ArrayList<>();
+        for (Column column : table.getColumns()) {
+            values.add(InsertStatement.generateValue(row.get(column)));
+        }
+        return "(" + String.join(", ", values) + ")";
+    }
+
+    @Override
+    protected long getChunkOverhead(Table table, int rowCount) {
+        // Prefix, ",\n\t" between rows and ";\n" at the end.
+        return getStatementPrefix(table).getBytes(StandardCharsets.UTF_8).length + 3L * (rowCount - 1) + 2;
+    }
+
+    @Override
+    protected void writeTableHeader(Writer writer, Table table) throws IOException {
+        writer.write("-- ==========================\n");
+        writer.write("-- Table data: " + table.getName() + "\n");
+        writer.write("-- ==========================\n");
+    }
+
+    @Override
+    protected void writeChunk(Writer writer, Table table, List<String> rows) throws IOException {
+        writer.write(getStatementPrefix(table));
+        writer.write(String.join(",\n\t", rows));
+        writer.write(";\n");
+    }
+
+    private String getStatementPrefix(Table table) {
+        return statementPrefixes.computeIfAbsent(table, t -> "INSERT INTO " + t.getName() +
+                " (" + t.getColumns().stream().map(Column::getName).collect(Collectors.joining(", ")) + ") VALUES \n\t");
+    }
+}
@@ -0,0 +1,300 @@
+package at.sfischer.synth.db.output;
+
+import at.sfischer.synth.db.model.Column;
+import at.sfischer.synth.db.model.InsertStatement;
+import at.sfischer.synth.db.model.Table;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Collectors;
+
+/**
+ * Writes rows directly into the tables of a target database with batched {@link PreparedStatement}s.
+ * <p>
+ * Every table is written with its own connection, so tables that are filled in parallel are
+ * also written in parallel, using at most the given number of connections. The connection of
+ * a table is committed and released when the table is completed. Rows are sent in JDBC batches
+ * of {@code batchSize} rows and committed every {@code commitSize} rows.
+ * </p>
+ * <p>
+ * Before rows of a table are sent, the buffered rows of the tables it references are sent and
+ * committed, so foreign key constraints hold. Alternatively, foreign key checks can be deferred,
+ * i.e. disabled for the connections of this sink, which is supported for MySQL, MariaDB,
+ * PostgreSQL and H2 target databases.
+ * </p>
+ */
+public class JdbcOutputSink implements OutputSink {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(JdbcOutputSink.class);
+
+    private final String url;
+
+    private final Map<Table, Set<Table>> tableDependencies;
+
+    private final int batchSize;
+
+    private final int commitSize;
+
+    private final boolean deferForeignKeys;
+
+    private final Semaphore connections;
+
+    private final Map<Table, TableWriter> writers = new ConcurrentHashMap<>();
+
+    private volatile boolean globalForeignKeyChecksDisabled = false;
+
+    /**
+     * Constructs a new sink. Connections are opened once the first rows of a table are written.
+     *
+     * @param url the JDBC URL of the target database, including credentials if needed
+     * @param tableDependencies a map from each table to the set of tables it references
+     * @param batchSize the number of rows sent per JDBC batch, must be at least 1
+     * @param commitSize the number of rows per transaction, must be at least 1
+     * @param deferForeignKeys whether foreign key checks are disabled for the connections of this sink
+     * @param maxConnections the maximum number of connections used at the same time, must be at least 1
+     * @throws IllegalArgumentException if {@code batchSize}, {@code commitSize} or {@code maxConnections} is smaller than 1
+     */
+    public JdbcOutputSink(String url, Map<Table, Set<Table>> tableDependencies, int batchSize, int commitSize, boolean deferForeignKeys, int maxConnections) {
+        if(batchSize < 1){
+            throw new IllegalArgumentException("Batch size must be at least 1, but was: " + batchSize);
+        }
+        if(commitSize < 1){
+            throw new IllegalArgumentException("Commit size must be at least 1, but was: " + commitSize);
+        }
+        if(maxConnections < 1){
+            throw new IllegalArgumentException("Max connections must be at least 1, but was: " + maxConnections);
+        }
+        this.url = url;
+        this.tableDependencies = tableDependencies == null ? Map.of() : tableDependencies;
+        this.batchSize = batchSize;
+        this.commitSize = commitSize;
+        this.deferForeignKeys = deferForeignKeys;
+        this.connections = new Semaphore(maxConnections);
+    }
+
+    @Override
+    public void write(InsertStatement insert) throws IOException {
+        Table table = insert.getTable();
+        TableWriter writer = writers.computeIfAbsent(table, TableWriter::new);
+        try {
+            boolean full;
+            synchronized (writer) {
+                for (Map<Column, Object> row : insert.getRows()) {
+                    writer.add(row);
+                }
+                full = writer.pendingRows >= batchSize;
+            }
+            if(full){
+                send(table, false, new HashSet<>());
+            }
+        } catch (SQLException e) {
+            throw new IOException("Could not write rows of table " + table.getName() + " to " + url, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while writing rows of table " + table.getName(), e);
+        }
+    }
+
+    @Override
+    public void tableCompleted(Table table) throws IOException {
+        TableWriter writer = writers.get(table);
+        if(writer == null){
+            return;
+        }
+
+        try {
+            send(table, true, new HashSet<>());
+            synchronized (writer) {
+                writer.release();
+            }
+        } catch (SQLException e) {
+            throw new IOException("Could not write rows of table " + table.getName() + " to " + url, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while writing rows of table " + table.getName(), e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        IOException exception = null;
+        for (Table table : writers.keySet()) {
+            try {
+                tableCompleted(table);
+            } catch (IOException e) {
+                if(exception == null){
+                    exception = e;
+                } else {
+                    exception.addSuppressed(e);
+                }
+            }
+        }
+        for (TableWriter writer : writers.values()) {
+            synchronized (writer) {
+                writer.release();
+            }
+        }
+        if(globalForeignKeyChecksDisabled){
+            // Session settings end with their connection, global settings have to be restored.
+            try (Connection connection = DriverManager.getConnection(url)) {
+                setForeignKeyChecks(connection, true);
+                globalForeignKeyChecksDisabled = false;
+            } catch (SQLException e) {
+                IOException restoreException = new IOException("Could not enable foreign key checks of " + url + " again", e);
+                if(exception == null){
+                    exception = restoreException;
+                } else {
+                    exception.addSuppressed(restoreException);
+                }
+            }
+        }
+        if(exception != null){
+            throw exception;
+        }
+    }
+
+    /**
+     * Sends the buffered rows of the given table, after the buffered rows of the tables it
+     * references were sent and committed, unless foreign key checks are deferred.
+     */
+    private void send(Table table, boolean commit, Set<Table> visited) throws SQLException, InterruptedException {
+        if(!visited.add(table)){
+            return;
+        }
+        if(!deferForeignKeys){
+            for (Table referenced : tableDependencies.getOrDefault(table, Set.of())) {
+                send(referenced, true, visited);
+            }
+        }
+
+        TableWriter writer = writers.get(table);
+        if(writer == null){
+            return;
+        }
+        synchronized (writer) {
+            writer.send(commit);
+        }
+    }
+
+    /**
+     * The connection, statement and buffered rows of a single table.
+     */
+    private class TableWriter {
+
+        private final Table table;
+
+        private final List<Column> columns;
+
+        private Connection connection;
+
+        private PreparedStatement statement;
+
+        private int pendingRows;
+
+        private int uncommittedRows;
+
+        private final List<Map<Column, Object>> rows = new ArrayList<>();
+
+        private TableWriter(Table table) {
+            this.table = table;
+            this.columns = table.getColumns();
+        }
+
+        private void add(Map<Column, Object> row) {
+            rows.add(row);
+            pendingRows++;
+        }
+
+        private void send(boolean commit) throws SQLException, InterruptedException {
+            if(!rows.isEmpty()){
+                open();
+                for (Map<Column, Object> row : rows) {
+                    for (int i = 0; i < columns.size(); i++) {
+                        Object value = row.get(columns.get(i));
+                        statement.setObject(i + 1, "NULL".equals(value) ? null : value);
+                    }
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                uncommittedRows += rows.size();
+                rows.clear();
+                pendingRows = 0;
+            }
+
+            if(connection != null && uncommittedRows > 0 && (commit || uncommittedRows >= commitSize)){
+                connection.commit();
+                uncommittedRows = 0;
+            }
+        }
+
+        private void open() throws SQLException, InterruptedException {
+            if(connection != null){
+                return;
+            }
+
+            connections.acquire();
+            try {
+                connection = DriverManager.getConnection(url);
+                connection.setAutoCommit(false);
+                if(deferForeignKeys && setForeignKeyChecks(connection, false)){
+                    globalForeignKeyChecksDisabled = true;
+                }
+                String sql = "INSERT INTO " + table.getName() +
+                        " (" + columns.stream().map(Column::getName).collect(Collectors.joining(", ")) + ")" +
+                        " VALUES (" + columns.stream().map(column -> "?").collect(Collectors.joining(", ")) + ")";
+                statement = connection.prepareStatement(sql);
+            } catch (SQLException e) {
+                release();
+                throw e;
+            }
+        }
+
+        private void release() {
+            if(connection == null){
+                return;
+            }
+
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                LOGGER.warn("Could not close connection to {}.", url, e);
+            } finally {
+                connection = null;
+                statement = null;
+                connections.release();
+            }
+        }
+    }
+
+    /**
+     * Enables or disables foreign key checks, for the session of the given connection or, for H2, globally.
+     *
+     * @return {@code true} if the setting is global and not reset when the connection is closed
+     */
+    private static boolean setForeignKeyChecks(Connection connection, boolean enabled) throws SQLException {
+        String product = connection.getMetaData().getDatabaseProductName();
+        String sql = switch (product) {
+            case "MySQL", "MariaDB" -> "SET FOREIGN_KEY_CHECKS = " + (enabled ? 1 : 0);
+            case "PostgreSQL" -> "SET session_replication_role = " + (enabled ? "DEFAULT" : "replica");
+            case "H2" -> "SET REFERENTIAL_INTEGRITY " + (enabled ? "TRUE" : "FALSE");
+            default -> null;
+        };
+        if(sql == null){
+            LOGGER.warn("Deferring foreign key checks is not supported for {}.", product);
+            return false;
+        }
+
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute(sql);
+        }
+        if(!connection.getAutoCommit()){
+            connection.commit();
+        }
+        return "H2".equals(product);
+    }
+}
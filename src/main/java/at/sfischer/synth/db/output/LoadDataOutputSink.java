@@ -0,0 +1,95 @@
+package at.sfischer.synth.db.output;
+
+import at.sfischer.synth.db.model.Column;
+import at.sfischer.synth.db.model.Table;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Writes the rows of every table to a separate tab-separated file in the default format of
+ * MySQL {@code LOAD DATA}, and a driver script {@value #SCRIPT_FILE_NAME} loading all files.
+ * <p>
+ * {@code NULL} is written as {@code \N}, backslashes, tabs, carriage returns, line feeds and
+ * zero bytes in values are escaped with a backslash. Booleans are written as {@code 1} and {@code 0}.
+ * The driver script loads the tables in the order their first rows were written, which respects
+ * their foreign key dependencies, and is run from the output directory, e.g. with
+ * {@code mysql --local-infile=1 database < load.sql}.
+ * </p>
+ */
+public class LoadDataOutputSink extends TableFilesOutputSink {
+
+    /**
+     * The name of the driver script loading all files.
+     */
+    public static final String SCRIPT_FILE_NAME = "load.sql";
+
+    /**
+     * Constructs a new sink.
+     *
+     * @param directory the directory to write the files and the driver script to, created if it does not exist
+     * @param tableDependencies a map from each table to the set of tables it references
+     * @param chunkRows the maximum number of rows buffered per table
+     * @param chunkBytes the maximum number of bytes buffered per table
+     * @throws IOException if the directory cannot be created
+     */
+    public LoadDataOutputSink(Path directory, Map<Table, Set<Table>> tableDependencies, int chunkRows, long chunkBytes) throws IOException {
+        super(directory, ".tsv", tableDependencies, chunkRows, chunkBytes);
+    }
+
+    @Override
+    protected String formatRow(Table table, Map<Column, Object> row) {
+        List<String> values = new ArrayList<>();
+        for (Column column : table.getColumns()) {
+            values.add(formatValue(row.get(column)));
+        }
+        return String.join("\t", values);
+    }
+
+    /**
+     * Formats a value for the default field and line handling of {@code LOAD DATA}.
+     *
+     * @param value the value, {@code null} or {@code "NULL"} for SQL {@code NULL}
+     * @return the formatted value
+     */
+    static String formatValue(Object value) {
+        if(value == null || "NULL".equals(value)){
+            return "\\N";
+        }
+        if(value instanceof Boolean bool){
+            return bool ? "1" : "0";
+        }
+
+        String string = value.toString();
+        StringBuilder sb = new StringBuilder(string.length());
+        for (int i = 0; i < string.length(); i++) {
+            char c = string.charAt(i);
+            switch (c) {
+                case '\\' -> sb.append("\\\\");
+                case '\t' -> sb.append("\\t");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\0' -> sb.append("\\0");
+                default -> sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        super.close();
+
+        try (Writer writer = Files.newBufferedWriter(getDirectory().resolve(SCRIPT_FILE_NAME))) {
+            for (Table table : getWrittenTables()) {
+                String columns = table.getColumns().stream().map(Column::getName).collect(Collectors.joining(", "));
+                writer.write("LOAD DATA LOCAL INFILE '" + getFileName(table).replace("'", "''") + "' INTO TABLE " + table.getName() +
+                        " CHARACTER SET utf8mb4 FIELDS TERMINATED BY '\\t' ESCAPED BY '\\\\' LINES TERMINATED BY '\\n' (" + columns + ");\n");
+            }
+        }
+    }
+}
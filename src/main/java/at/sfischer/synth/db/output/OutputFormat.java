@@ -0,0 +1,15 @@
+package at.sfischer.synth.db.output;
+
+/**
+ * The formats generated rows can be written in.
+ */
+public enum OutputFormat {
+    /** Multi-row SQL {@code INSERT} statements, see {@link InsertOutputSink}. */
+    INSERT,
+    /** PostgreSQL {@code COPY ... FROM stdin} blocks, see {@link CopyOutputSink}. */
+    COPY,
+    /** A CSV file per table, see {@link CsvOutputSink}. */
+    CSV,
+    /** A tab-separated file per table and a MySQL {@code LOAD DATA} driver script, see {@link LoadDataOutputSink}. */
+    LOADDATA
+}
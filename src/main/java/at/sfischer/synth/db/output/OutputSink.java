@@ -0,0 +1,44 @@
+package at.sfischer.synth.db.output;
+
+import at.sfischer.synth.db.model.InsertStatement;
+import at.sfischer.synth.db.model.Table;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Receives the generated rows while tables are being filled, so they do not have to be
+ * kept in memory until all tables are complete.
+ * <p>
+ * Rows of a table are only written after the rows of the tables it references were written,
+ * as rows are only generated after the rows they reference were inserted into the staging database.
+ * Implementations must be thread-safe, as several tables may be filled in parallel.
+ * </p>
+ */
+public interface OutputSink extends Closeable {
+
+    /**
+     * Writes the rows of an inserted statement.
+     *
+     * @param insert the inserted statement
+     * @throws IOException if the rows cannot be written
+     */
+    void write(InsertStatement insert) throws IOException;
+
+    /**
+     * Called once all rows of the given table were written.
+     *
+     * @param table the completed table
+     * @throws IOException if buffered rows cannot be written
+     */
+    default void tableCompleted(Table table) throws IOException {
+    }
+
+    /**
+     * Writes all buffered rows and releases the resources of this sink.
+     *
+     * @throws IOException if buffered rows cannot be written
+     */
+    @Override
+    void close() throws IOException;
+}
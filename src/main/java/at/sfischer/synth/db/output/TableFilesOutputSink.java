@@ -0,0 +1,115 @@
+package at.sfischer.synth.db.output;
+
+import at.sfischer.synth.db.model.Table;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Base class of sinks that write the rows of every table to a separate file in a directory.
+ * <p>
+ * Files are named after their table and created once the first chunk of the table is written.
+ * </p>
+ */
+public abstract class TableFilesOutputSink extends ChunkedOutputSink {
+
+    private final Path directory;
+
+    private final String extension;
+
+    private final Map<Table, Writer> writers = new LinkedHashMap<>();
+
+    /**
+     * Constructs a new sink.
+     *
+     * @param directory the directory to write the files to, created if it does not exist
+     * @param extension the file extension including the dot, e.g. {@code ".csv"}
+     * @param tableDependencies a map from each table to the set of tables it references
+     * @param chunkRows the maximum number of rows buffered per table
+     * @param chunkBytes the maximum number of bytes buffered per table
+     * @throws IOException if the directory cannot be created
+     */
+    protected TableFilesOutputSink(Path directory, String extension, Map<Table, Set<Table>> tableDependencies, int chunkRows, long chunkBytes) throws IOException {
+        super(tableDependencies, chunkRows, chunkBytes);
+        this.directory = Files.createDirectories(directory);
+        this.extension = extension;
+    }
+
+    /**
+     * Returns the directory the files are written to.
+     *
+     * @return the output directory
+     */
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Returns the name of the file the rows of the given table are written to.
+     *
+     * @param table the table
+     * @return the file name, relative to {@link #getDirectory()}
+     */
+    public String getFileName(Table table) {
+        return table.getName() + extension;
+    }
+
+    /**
+     * Returns the tables files were written for, in the order their first rows were written.
+     *
+     * @return the written tables
+     */
+    protected synchronized List<Table> getWrittenTables() {
+        return new ArrayList<>(writers.keySet());
+    }
+
+    @Override
+    protected Writer getWriter(Table table) throws IOException {
+        Writer writer = writers.get(table);
+        if(writer == null){
+            writer = Files.newBufferedWriter(directory.resolve(getFileName(table)));
+            writers.put(table, writer);
+        }
+        return writer;
+    }
+
+    @Override
+    protected void closeWriters() throws IOException {
+        IOException exception = null;
+        for (Writer writer : writers.values()) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                if(exception == null){
+                    exception = e;
+                } else {
+                    exception.addSuppressed(e);
+                }
+            }
+        }
+        if(exception != null){
+            throw exception;
+        }
+    }
+
+    @Override
+    protected long getChunkOverhead(Table table, int rowCount) {
+        // A line feed per row.
+        return rowCount;
+    }
+
+    @Override
+    protected void writeChunk(Writer writer, Table table, List<String> rows) throws IOException {
+        for (String row : rows) {
+            writer.write(row);
+            writer.write('\n');
+        }
+    }
+}
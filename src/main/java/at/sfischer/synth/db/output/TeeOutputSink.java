@@ -0,0 +1,57 @@
+package at.sfischer.synth.db.output;
+
+import at.sfischer.synth.db.model.InsertStatement;
+import at.sfischer.synth.db.model.Table;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Writes rows to several sinks, e.g. to a file and to a target database at the same time.
+ */
+public class TeeOutputSink implements OutputSink {
+
+    private final List<OutputSink> sinks;
+
+    /**
+     * Constructs a new sink.
+     *
+     * @param sinks the sinks to write to, closed when this sink is closed
+     */
+    public TeeOutputSink(List<OutputSink> sinks) {
+        this.sinks = List.copyOf(sinks);
+    }
+
+    @Override
+    public void write(InsertStatement insert) throws IOException {
+        for (OutputSink sink : sinks) {
+            sink.write(insert);
+        }
+    }
+
+    @Override
+    public void tableCompleted(Table table) throws IOException {
+        for (OutputSink sink : sinks) {
+            sink.tableCompleted(table);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        IOException exception = null;
+        for (OutputSink sink : sinks) {
+            try {
+                sink.close();
+            } catch (IOException e) {
+                if(exception == null){
+                    exception = e;
+                } else {
+                    exception.addSuppressed(e);
+                }
+            }
+        }
+        if(exception != null){
+            throw exception;
+        }
+    }
+}
@@ -2,6 +2,10 @@ package at.sfischer.synth.db;
 
 import kotlin.Pair;
 
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
@@ -14,4 +18,11 @@ public class Utils {
         }
         return map;
     }
+
+    public static long count(Connection conn, String sql) throws SQLException {
+        try (Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery(sql)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
 }
@@ -0,0 +1,95 @@
+package at.sfischer.synth.db.generation.cache;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ResponseCacheTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void reopenCacheTest() throws IOException {
+        try (ResponseCache cache = ResponseCache.open(directory, 1024)) {
+            cache.put("a", "[\"INSERT INTO t VALUES (1);\"]");
+            cache.put("b", "[\"INSERT INTO t VALUES (2);\"]");
+            cache.put("a", "[\"INSERT INTO t VALUES (3);\"]");
+        }
+
+        try (ResponseCache cache = ResponseCache.open(directory, 1024)) {
+            assertEquals(2, cache.size());
+            assertEquals("[\"INSERT INTO t VALUES (3);\"]", cache.get("a"));
+            assertEquals("[\"INSERT INTO t VALUES (2);\"]", cache.get("b"));
+            assertNull(cache.get("c"));
+        }
+    }
+
+    @Test
+    public void evictLeastRecentlyUsedTest() throws IOException {
+        try (ResponseCache cache = ResponseCache.open(directory, 20)) {
+            cache.put("a", "aaaaaaaaaa");
+            cache.put("b", "bbbbbbbbbb");
+            assertEquals("aaaaaaaaaa", cache.get("a"));
+            cache.put("c", "cccccccccc");
+
+            assertNull(cache.get("b"));
+            assertEquals("aaaaaaaaaa", cache.get("a"));
+            assertEquals("cccccccccc", cache.get("c"));
+        }
+
+        try (ResponseCache cache = ResponseCache.open(directory, 20)) {
+            assertEquals(2, cache.size());
+            assertNull(cache.get("b"));
+            assertEquals("aaaaaaaaaa", cache.get("a"));
+        }
+    }
+
+    @Test
+    public void compactCacheTest() throws IOException {
+        String value = "x".repeat(64 * 1024);
+        try (ResponseCache cache = ResponseCache.open(directory, 4 * value.length())) {
+            for (int i = 0; i < 64; i++) {
+                cache.put("key" + i, value + i);
+            }
+            assertEquals(3, cache.size());
+        }
+
+        assertTrue(Files.size(directory.resolve("responses.dat")) < 16L * value.length());
+        try (ResponseCache cache = ResponseCache.open(directory, 4 * value.length())) {
+            assertEquals(3, cache.size());
+            assertEquals(value + 63, cache.get("key63"));
+            assertNull(cache.get("key0"));
+        }
+    }
+
+    @Test
+    public void compactIndexTest() throws IOException {
+        try (ResponseCache cache = ResponseCache.open(directory, 1024)) {
+            cache.put("a", "aaaaaaaaaa");
+            cache.put("b", "bbbbbbbbbb");
+            for (int i = 0; i < 20_000; i++) {
+                assertEquals("aaaaaaaaaa", cache.get("a"));
+            }
+            assertEquals("bbbbbbbbbb", cache.get("b"));
+        }
+
+        // Every access appends a record, the index is rewritten before it grows without bound.
+        assertTrue(Files.size(directory.resolve("responses.idx")) < 20_000L * 48, "Index size: " + Files.size(directory.resolve("responses.idx")));
+        try (ResponseCache cache = ResponseCache.open(directory, 10)) {
+            // The order of use is kept, "a" is evicted first.
+            cache.put("c", "cccccccccc");
+            assertNull(cache.get("a"));
+        }
+        try (ResponseCache cache = ResponseCache.open(directory, 1024)) {
+            assertNull(cache.get("a"));
+            assertNull(cache.get("b"));
+            assertEquals("cccccccccc", cache.get("c"));
+        }
+    }
+}
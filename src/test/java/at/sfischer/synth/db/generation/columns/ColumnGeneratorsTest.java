@@ -0,0 +1,155 @@
+package at.sfischer.synth.db.generation.columns;
+
+import at.sfischer.synth.db.Utils;
+import at.sfischer.synth.db.generation.mock.InsertDataGenerationStub;
+import at.sfischer.synth.db.generation.values.TableFiller;
+import at.sfischer.synth.db.generation.values.TableFillerSettings;
+import at.sfischer.synth.db.model.Column;
+import at.sfischer.synth.db.model.DBSchema;
+import at.sfischer.synth.db.model.Table;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ColumnGeneratorsTest {
+
+    private static final String DDL = """
+            CREATE TABLE department (
+                id INT PRIMARY KEY,
+                name VARCHAR(50) NOT NULL
+            );
+            CREATE TABLE employee (
+                id INT PRIMARY KEY,
+                uuid CHAR(36) NOT NULL,
+                name VARCHAR(50) NOT NULL,
+                salary DECIMAL(8,2) NOT NULL,
+                hired DATE NOT NULL,
+                updated TIMESTAMP NOT NULL,
+                active BOOLEAN NOT NULL,
+                level ENUM('junior','senior') NOT NULL,
+                department_id INT NOT NULL,
+                FOREIGN KEY (department_id) REFERENCES department(id)
+            );
+            CREATE TABLE audit (
+                id INT AUTO_INCREMENT PRIMARY KEY,
+                created TIMESTAMP NOT NULL,
+                deleted TINYINT(1) NOT NULL
+            );
+            """;
+
+    @Test
+    public void selectionTest() throws Exception {
+        DBSchema schema = DBSchema.parseSchema(DDL);
+        Table employee = schema.getTable("employee");
+        ColumnGenerators generators = ColumnGenerators.load();
+
+        assertInstanceOf(SequenceColumnGenerator.class, generators.getGenerator(employee.getColumn("id")));
+        assertInstanceOf(UuidColumnGenerator.class, generators.getGenerator(employee.getColumn("uuid")));
+        assertNull(generators.getGenerator(employee.getColumn("name")));
+        assertInstanceOf(NumericRangeColumnGenerator.class, generators.getGenerator(employee.getColumn("salary")));
+        assertInstanceOf(TemporalColumnGenerator.class, generators.getGenerator(employee.getColumn("hired")));
+        assertInstanceOf(TemporalColumnGenerator.class, generators.getGenerator(employee.getColumn("updated")));
+        assertInstanceOf(BooleanColumnGenerator.class, generators.getGenerator(employee.getColumn("active")));
+        assertInstanceOf(EnumColumnGenerator.class, generators.getGenerator(employee.getColumn("level")));
+        assertNull(generators.getGenerator(employee.getColumn("department_id")));
+
+        Table audit = schema.getTable("audit");
+        assertNull(generators.getGenerator(audit.getColumn("id")));
+        assertInstanceOf(BooleanColumnGenerator.class, generators.getGenerator(audit.getColumn("deleted")));
+    }
+
+    @Test
+    public void priorityTest() throws Exception {
+        Table employee = DBSchema.parseSchema(DDL).getTable("employee");
+        ColumnGenerator custom = new ColumnGenerator() {
+            @Override
+            public boolean supports(Column column) {
+                return column.getName().equals("name");
+            }
+
+            @Override
+            public Object generate(Column column, ColumnGeneratorContext context) {
+                return "Name " + context.rowIndex();
+            }
+
+            @Override
+            public int getPriority() {
+                return 1;
+            }
+        };
+        ColumnGenerators generators = new ColumnGenerators(List.of(new SequenceColumnGenerator(), custom));
+
+        assertSame(custom, generators.getGenerators().getFirst());
+        assertSame(custom, generators.getGenerator(employee.getColumn("name")));
+    }
+
+    @Test
+    public void valuesTest() throws Exception {
+        Table employee = DBSchema.parseSchema(DDL).getTable("employee");
+        ColumnGeneratorContext context = new ColumnGeneratorContext(41, new Random(1));
+
+        assertEquals(42L, new SequenceColumnGenerator().generate(employee.getColumn("id"), context));
+        String uuid = (String) new UuidColumnGenerator().generate(employee.getColumn("uuid"), context);
+        assertEquals(4, UUID.fromString(uuid).version());
+        Object salary = new NumericRangeColumnGenerator().generate(employee.getColumn("salary"), context);
+        assertEquals(2, ((java.math.BigDecimal) salary).scale());
+        assertTrue(((String) new TemporalColumnGenerator().generate(employee.getColumn("hired"), context)).matches("\\d{4}-\\d{2}-\\d{2}"));
+        assertTrue(((String) new TemporalColumnGenerator().generate(employee.getColumn("updated"), context)).matches("\\d{4}-\\d{2}-\\d{2} \\d{2}:\\d{2}:\\d{2}"));
+        assertTrue(Set.of("junior", "senior").contains((String) new EnumColumnGenerator().generate(employee.getColumn("level"), context)));
+    }
+
+    @Test
+    public void fillTest() throws Exception {
+        DBSchema schema = DBSchema.parseSchema(DDL);
+        List<String> promptedColumns = Collections.synchronizedList(new ArrayList<>());
+        InsertDataGenerationStub stub = new InsertDataGenerationStub() {
+            @Override
+            public CompletableFuture<Void> streamRows(Table table, long rowCount, int batchSize, List<Map<Column, Object>> exampleValues, Map<Table, List<Map<Column, Object>>> dependentTableValues, Executor executor, Consumer<String> rowConsumer) {
+                table.getColumns().forEach(column -> promptedColumns.add(table.getName() + "." + column.getName()));
+                return super.streamRows(table, rowCount, batchSize, exampleValues, dependentTableValues, executor, rowConsumer);
+            }
+        };
+
+        try (Connection conn = DriverManager.getConnection("jdbc:h2:mem:columnGenerators;MODE=MySQL")) {
+            TableFiller.createSchema(schema, conn);
+            TableFillerSettings settings = new TableFillerSettings()
+                    .setBatchSize(5)
+                    .setColumnGenerators(ColumnGenerators.load());
+            TableFiller.fillSchema(schema, conn, stub, 20, settings, null);
+
+            for (Table table : schema.getTables()) {
+                assertEquals(20, TableFiller.getRowCount(conn, table));
+            }
+            assertEquals(20, Utils.count(conn, "SELECT COUNT(DISTINCT id) FROM employee"));
+            assertEquals(0, Utils.count(conn, "SELECT COUNT(*) FROM employee WHERE department_id NOT IN (SELECT id FROM department)"));
+        }
+
+        assertEquals(Set.of("department.name", "employee.name", "employee.department_id"), new HashSet<>(promptedColumns));
+    }
+
+    @Test
+    public void rejectedLocalRowsTest() throws Exception {
+        DBSchema schema = DBSchema.parseSchema(DDL);
+        Table audit = schema.getTable("audit");
+        try (Connection conn = DriverManager.getConnection("jdbc:h2:mem:columnGeneratorsRejected;MODE=MySQL")) {
+            TableFiller.createSchema(schema, conn);
+            try (Statement stmt = conn.createStatement()) {
+                // A column the generators do not know about, every generated row is rejected.
+                stmt.execute("ALTER TABLE audit ADD COLUMN reason VARCHAR(20) NOT NULL");
+            }
+            TableFillerSettings settings = new TableFillerSettings().setColumnGenerators(ColumnGenerators.load());
+            assertTimeoutPreemptively(Duration.ofSeconds(30), () -> TableFiller.fillTable(audit, null, conn, new InsertDataGenerationStub(), 20, settings, null));
+
+            assertEquals(0, TableFiller.getRowCount(conn, audit));
+        }
+    }
+}
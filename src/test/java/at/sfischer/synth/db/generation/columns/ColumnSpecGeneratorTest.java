@@ -0,0 +1,155 @@
+package at.sfischer.synth.db.generation.columns;
+
+import at.sfischer.synth.db.generation.mock.InsertDataGenerationStub;
+import at.sfischer.synth.db.generation.values.TableFiller;
+import at.sfischer.synth.db.generation.values.TableFillerSettings;
+import at.sfischer.synth.db.model.Column;
+import at.sfischer.synth.db.model.DBSchema;
+import at.sfischer.synth.db.model.Table;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ColumnSpecGeneratorTest {
+
+    private static final String DDL = """
+            CREATE TABLE customer (
+                id INT PRIMARY KEY,
+                name VARCHAR(50) NOT NULL,
+                email VARCHAR(60) NOT NULL,
+                postal_code CHAR(5) NOT NULL,
+                country VARCHAR(20) NOT NULL,
+                discount DECIMAL(4,2),
+                born DATE
+            );
+            """;
+
+    private static final String SPECS = """
+            {"columns": [
+                {"column": "id", "kind": "RANGE", "min": "1", "max": "10"},
+                {"column": "name", "kind": "FREE_TEXT"},
+                {"column": "email", "kind": "TEMPLATE", "template": "{first}.{last}{#}@example.com",
+                 "parts": {"first": ["jane", "john"], "last": ["doe", "roe"]}},
+                {"column": "postal_code", "kind": "PATTERN", "pattern": "[1-9]\\\\d{4}"},
+                {"column": "country", "kind": "VALUES", "values": ["Austria", "Germany"]},
+                {"column": "discount", "kind": "RANGE", "min": "0", "max": "0.5"},
+                {"column": "born", "kind": "DATE_RANGE", "min": "1950-01-01", "max": "2005-12-31"},
+                {"column": "unknown", "kind": "VALUES", "values": ["x"]}
+            ]}
+            """;
+
+    @Test
+    public void patternTest() {
+        Random random = new Random(1);
+        for (String pattern : List.of("[A-Z]{3}-\\d{4}", "(ab|cd)+x?", "^\\+43 \\d{3} \\d{4,7}$", "[a-z0-9._-]{1,8}@(example|test)\\.com", "v\\d+(\\.\\d+){2}")) {
+            PatternGenerator generator = new PatternGenerator(pattern);
+            Pattern regex = Pattern.compile(pattern);
+            for (int i = 0; i < 100; i++) {
+                String value = generator.generate(random);
+                assertTrue(regex.matcher(value).matches(), value + " does not match " + pattern);
+            }
+        }
+
+        assertThrows(IllegalArgumentException.class, () -> new PatternGenerator("[^a]"));
+        assertThrows(IllegalArgumentException.class, () -> new PatternGenerator("(?=a)b"));
+        assertThrows(IllegalArgumentException.class, () -> new PatternGenerator("a{3,1}"));
+        assertThrows(IllegalArgumentException.class, () -> new PatternGenerator("(ab"));
+        assertThrows(IllegalArgumentException.class, () -> new PatternGenerator("a{2000000000}"));
+        assertThrows(IllegalArgumentException.class, () -> new PatternGenerator("a{1,2000000000}"));
+        assertThrows(IllegalArgumentException.class, () -> new PatternGenerator("((a{1000}){1000}){1000}"));
+    }
+
+    @Test
+    public void compileTest() throws Exception {
+        Table customer = DBSchema.parseSchema(DDL).getTable("customer");
+        ColumnSpecGenerator generator = ColumnSpecGenerator.compile(customer, SPECS);
+
+        assertEquals(Set.of("email", "postal_code", "country", "discount", "born"),
+                generator.getColumns().stream().map(Column::getName).collect(Collectors.toSet()));
+        assertFalse(generator.supports(customer.getColumn("id")));
+        assertFalse(generator.supports(customer.getColumn("name")));
+
+        ColumnGeneratorContext context = new ColumnGeneratorContext(0, new Random(1));
+        for (int i = 0; i < 100; i++) {
+            assertTrue(((String) generator.generate(customer.getColumn("email"), context)).matches("(jane|john)\\.(doe|roe)\\d@example\\.com"));
+            assertTrue(((String) generator.generate(customer.getColumn("postal_code"), context)).matches("[1-9]\\d{4}"));
+            assertTrue(Set.of("Austria", "Germany").contains((String) generator.generate(customer.getColumn("country"), context)));
+            BigDecimal discount = (BigDecimal) generator.generate(customer.getColumn("discount"), context);
+            assertEquals(2, discount.scale());
+            assertTrue(discount.compareTo(new BigDecimal("0.5")) <= 0);
+            String born = (String) generator.generate(customer.getColumn("born"), context);
+            assertTrue(born.compareTo("1950-01-01") >= 0 && born.compareTo("2005-12-31") <= 0);
+        }
+    }
+
+    @Test
+    public void invalidSpecsTest() throws Exception {
+        Table customer = DBSchema.parseSchema(DDL).getTable("customer");
+        ColumnSpecGenerator generator = ColumnSpecGenerator.compile(customer, """
+                [
+                    {"column": "postal_code", "kind": "PATTERN", "pattern": "\\\\d{6}"},
+                    {"column": "country", "kind": "RANGE", "min": "1", "max": "2"},
+                    {"column": "discount", "kind": "RANGE", "min": "2", "max": "1"},
+                    {"column": "born", "kind": "DATE_RANGE", "min": "yesterday", "max": "today"},
+                    {"column": "email", "kind": "TEMPLATE", "template": "{user}@example.com"},
+                    {"column": "name", "kind": "SOMETHING_ELSE"}
+                ]
+                """);
+
+        assertTrue(generator.getColumns().isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> ColumnSpecGenerator.compile(customer, "{columns"));
+
+        // A single listed value that is too long is found, even if validation samples would likely miss it.
+        List<String> countries = new ArrayList<>(Collections.nCopies(999, "\"Austria\""));
+        countries.add("\"The Republic of Austria\"");
+        generator = ColumnSpecGenerator.compile(customer, "[{\"column\": \"country\", \"kind\": \"VALUES\", \"values\": [" + String.join(", ", countries) + "]}]");
+        assertTrue(generator.getColumns().isEmpty());
+    }
+
+    @Test
+    public void fillTest() throws Exception {
+        DBSchema schema = DBSchema.parseSchema(DDL);
+        List<String> promptedColumns = Collections.synchronizedList(new ArrayList<>());
+        InsertDataGenerationStub stub = new InsertDataGenerationStub() {
+            @Override
+            public String compileColumnSpecs(Table table, List<Map<Column, Object>> exampleValues) {
+                return SPECS;
+            }
+
+            @Override
+            public CompletableFuture<Void> streamRows(Table table, long rowCount, int batchSize, List<Map<Column, Object>> exampleValues, Map<Table, List<Map<Column, Object>>> dependentTableValues, Executor executor, Consumer<String> rowConsumer) {
+                table.getColumns().forEach(column -> promptedColumns.add(column.getName()));
+                return super.streamRows(table, rowCount, batchSize, exampleValues, dependentTableValues, executor, rowConsumer);
+            }
+        };
+
+        try (Connection conn = DriverManager.getConnection("jdbc:h2:mem:columnSpecs;MODE=MySQL")) {
+            TableFiller.createSchema(schema, conn);
+            TableFillerSettings settings = new TableFillerSettings()
+                    .setBatchSize(5)
+                    .setCompileColumnSpecs(true);
+            TableFiller.fillSchema(schema, conn, stub, 30, settings, null);
+
+            assertEquals(30, TableFiller.getRowCount(conn, schema.getTable("customer")));
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM customer WHERE country NOT IN ('Austria', 'Germany') OR email NOT LIKE '%@example.com'")) {
+                rs.next();
+                assertEquals(0, rs.getLong(1));
+            }
+        }
+
+        assertEquals(Set.of("id", "name"), new HashSet<>(promptedColumns));
+    }
+}
@@ -0,0 +1,103 @@
+package at.sfischer.synth.db.generation.columns;
+
+import at.sfischer.synth.db.generation.mock.InsertDataGenerationStub;
+import at.sfischer.synth.db.generation.values.TableFiller;
+import at.sfischer.synth.db.generation.values.TableFillerSettings;
+import at.sfischer.synth.db.model.Column;
+import at.sfischer.synth.db.model.DBSchema;
+import at.sfischer.synth.db.model.Table;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NgramTextModelTest {
+
+    private static final List<String> CITIES = List.of("Vienna", "Linz", "Graz", "Salzburg", "Innsbruck",
+            "Klagenfurt", "Villach", "Wels", "Sankt Poelten", "Dornbirn", "Steyr", "Feldkirch", "Bregenz", "Leoben");
+
+    @Test
+    public void characterModelTest() {
+        NgramTextModel model = NgramTextModel.train(CITIES, 10);
+        assertFalse(model.isWordModel());
+
+        Random random = new Random(1);
+        Set<String> values = new HashSet<>();
+        for (int i = 0; i < 500; i++) {
+            String value = model.generate(random);
+            assertFalse(value.isEmpty());
+            assertTrue(value.length() <= 10, value);
+            values.add(value);
+        }
+        assertTrue(values.stream().anyMatch(value -> !CITIES.contains(value)));
+    }
+
+    @Test
+    public void wordModelTest() {
+        List<String> descriptions = List.of(
+                "A small and quiet room with a view of the garden",
+                "A large and bright room with a view of the lake",
+                "A quiet apartment with a balcony and a view of the mountains",
+                "A bright studio with a small kitchen and a balcony");
+        NgramTextModel model = NgramTextModel.train(descriptions, 80);
+        assertTrue(model.isWordModel());
+
+        Set<String> vocabulary = new HashSet<>();
+        descriptions.forEach(description -> vocabulary.addAll(List.of(description.split(" "))));
+        Random random = new Random(1);
+        for (int i = 0; i < 100; i++) {
+            String value = model.generate(random);
+            assertTrue(value.length() <= 80, value);
+            assertTrue(vocabulary.containsAll(List.of(value.split(" "))), value);
+        }
+
+        assertThrows(IllegalArgumentException.class, () -> NgramTextModel.train(Arrays.asList(null, null), 10));
+        assertThrows(IllegalArgumentException.class, () -> NgramTextModel.train(CITIES, 0));
+    }
+
+    @Test
+    public void fillTest() throws Exception {
+        DBSchema schema = DBSchema.parseSchema("""
+                CREATE TABLE location (
+                    id INT PRIMARY KEY,
+                    city VARCHAR(12) NOT NULL,
+                    note VARCHAR(30)
+                );
+                """);
+        AtomicLong requestedRows = new AtomicLong();
+        InsertDataGenerationStub stub = new InsertDataGenerationStub() {
+            @Override
+            public CompletableFuture<Void> streamRows(Table table, long rowCount, int batchSize, List<Map<Column, Object>> exampleValues, Map<Table, List<Map<Column, Object>>> dependentTableValues, Executor executor, Consumer<String> rowConsumer) {
+                requestedRows.addAndGet(batchSize);
+                return super.streamRows(table, rowCount, batchSize, exampleValues, dependentTableValues, executor, rowConsumer);
+            }
+        };
+
+        try (Connection conn = DriverManager.getConnection("jdbc:h2:mem:textModels;MODE=MySQL")) {
+            TableFiller.createSchema(schema, conn);
+            TableFillerSettings settings = new TableFillerSettings()
+                    .setBatchSize(10)
+                    .setColumnGenerators(ColumnGenerators.load())
+                    .setTextModelThreshold(20);
+            TableFiller.fillSchema(schema, conn, stub, 2000, settings, null);
+
+            assertEquals(2000, TableFiller.getRowCount(conn, schema.getTable("location")));
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT COUNT(DISTINCT city) FROM location")) {
+                rs.next();
+                assertTrue(rs.getLong(1) > 1);
+            }
+        }
+
+        assertTrue(requestedRows.get() < 100, "LLM rows requested: " + requestedRows.get());
+    }
+}
@@ -0,0 +1,160 @@
+package at.sfischer.synth.db.generation.mock;
+
+import at.sfischer.synth.db.Utils;
+import at.sfischer.synth.db.generation.columns.ColumnGenerators;
+import at.sfischer.synth.db.generation.ollama.OllamaStructuredHelper;
+import at.sfischer.synth.db.generation.values.InsertDataGeneration;
+import at.sfischer.synth.db.generation.values.InsertDataGenerationOllama;
+import at.sfischer.synth.db.generation.values.InsertDataGenerationOpenAI;
+import at.sfischer.synth.db.generation.values.TableFiller;
+import at.sfischer.synth.db.generation.values.TableFillerSettings;
+import at.sfischer.synth.db.model.DBSchema;
+import at.sfischer.synth.db.model.Table;
+import org.junit.jupiter.api.Test;
+
+import java.net.http.HttpClient;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MockLlmServerTest {
+
+    private static final String DDL = """
+            CREATE TABLE department (
+                id INT PRIMARY KEY AUTO_INCREMENT,
+                name VARCHAR(100) NOT NULL UNIQUE,
+                budget DECIMAL(10, 2)
+            );
+            CREATE TABLE employee (
+                id INT PRIMARY KEY,
+                first_name VARCHAR(20) NOT NULL,
+                hire_date DATE NOT NULL,
+                active BOOLEAN,
+                department_id INT REFERENCES department(id)
+            );
+            """;
+
+    @Test
+    public void fillWithOllamaTest() throws Exception {
+        DBSchema schema = DBSchema.parseSchema(DDL);
+        MockLlmSettings settings = new MockLlmSettings()
+                .setLatency(LatencyDistribution.uniform(Duration.ofMillis(1), Duration.ofMillis(5)))
+                .setErrorRate(0.1)
+                .setMalformedRate(0.1);
+        try (MockLlmServer server = new MockLlmServer(schema, settings)) {
+            InsertDataGeneration generation = new InsertDataGenerationOllama(server.getOllamaUrl(), "mock", createHelper(), false);
+            fillAndCheck(schema, generation, "ollama");
+            assertTrue(server.getRequestCount() > 0);
+        }
+    }
+
+    @Test
+    public void fillWithStreamingOllamaTest() throws Exception {
+        DBSchema schema = DBSchema.parseSchema(DDL);
+        MockLlmSettings settings = new MockLlmSettings()
+                .setRowLatency(LatencyDistribution.exponential(Duration.ofMillis(2)))
+                .setErrorRate(0.1)
+                .setMalformedRate(0.1);
+        try (MockLlmServer server = new MockLlmServer(schema, settings)) {
+            InsertDataGeneration generation = new InsertDataGenerationOllama(server.getOllamaUrl(), "mock", createHelper(), true);
+            fillAndCheck(schema, generation, "ollamaStream");
+        }
+    }
+
+    @Test
+    public void fillWithLocalColumnsTest() throws Exception {
+        DBSchema schema = DBSchema.parseSchema(DDL);
+        try (MockLlmServer server = new MockLlmServer(schema, new MockLlmSettings().setMalformedRate(0.1))) {
+            InsertDataGeneration generation = new InsertDataGenerationOllama(server.getOllamaUrl(), "mock", createHelper(), true);
+            // The prompts only contain the columns that are not generated locally.
+            TableFillerSettings settings = new TableFillerSettings()
+                    .setBatchSize(4)
+                    .setConcurrency(3)
+                    .setColumnGenerators(ColumnGenerators.load())
+                    .setLocalForeignKeys(true);
+            fillAndCheck(schema, generation, settings, "ollamaLocalColumns");
+            assertTrue(server.getRequestCount() > 0);
+        }
+    }
+
+    @Test
+    public void fillWithOpenAITest() throws Exception {
+        DBSchema schema = DBSchema.parseSchema(DDL);
+        try (MockLlmServer server = new MockLlmServer(schema, new MockLlmSettings().setMalformedRate(0.1))) {
+            InsertDataGeneration generation = new InsertDataGenerationOpenAI(server.getOpenAIUrl(), "mock-key", "mock");
+            fillAndCheck(schema, generation, "openAI");
+        }
+    }
+
+    @Test
+    public void fillWithStubTest() throws Exception {
+        DBSchema schema = DBSchema.parseSchema(DDL);
+        MockLlmSettings settings = new MockLlmSettings()
+                .setLatency(LatencyDistribution.logNormal(Duration.ofMillis(1), 0.5))
+                .setErrorRate(0.2)
+                .setMalformedRate(0.2);
+        fillAndCheck(schema, new InsertDataGenerationStub(settings), "stub");
+    }
+
+    @Test
+    public void failingOllamaTest() throws Exception {
+        DBSchema schema = DBSchema.parseSchema(DDL);
+        try (MockLlmServer server = new MockLlmServer(schema, new MockLlmSettings().setErrorRate(1));
+             Connection conn = DriverManager.getConnection("jdbc:h2:mem:ollamaFailing;MODE=MySQL")) {
+            TableFiller.createSchema(schema, conn);
+            for (boolean stream : new boolean[]{false, true}) {
+                InsertDataGeneration generation = new InsertDataGenerationOllama(server.getOllamaUrl(), "mock", createHelper(), stream);
+                TableFillerSettings settings = new TableFillerSettings().setBatchSize(4).setConcurrency(3);
+
+                // Failed requests are not taken for empty responses, the table fails instead of requesting rows forever.
+                assertTimeoutPreemptively(Duration.ofSeconds(30), () -> assertThrows(SQLException.class,
+                        () -> TableFiller.fillSchema(schema, conn, generation, 20, settings, null)));
+            }
+            assertEquals(0, Utils.count(conn, "SELECT COUNT(*) FROM department"));
+        }
+    }
+
+    @Test
+    public void stalledStreamingOllamaTest() throws Exception {
+        DBSchema schema = DBSchema.parseSchema(DDL);
+        MockLlmSettings mockSettings = new MockLlmSettings().setRowLatency(LatencyDistribution.constant(Duration.ofHours(1)));
+        try (MockLlmServer server = new MockLlmServer(schema, mockSettings);
+             Connection conn = DriverManager.getConnection("jdbc:h2:mem:ollamaStalled;MODE=MySQL")) {
+            TableFiller.createSchema(schema, conn);
+            OllamaStructuredHelper helper = new OllamaStructuredHelper(Duration.ofSeconds(5), Duration.ofMillis(200), HttpClient.Version.HTTP_1_1);
+            InsertDataGeneration generation = new InsertDataGenerationOllama(server.getOllamaUrl(), "mock", helper, true);
+            TableFillerSettings settings = new TableFillerSettings().setBatchSize(2).setConcurrency(3);
+
+            // The server sends the headers and then stalls, the idle timeout fails the requests instead of waiting forever.
+            assertTimeoutPreemptively(Duration.ofSeconds(30), () -> assertThrows(SQLException.class,
+                    () -> TableFiller.fillSchema(schema, conn, generation, 20, settings, null)));
+            assertEquals(0, Utils.count(conn, "SELECT COUNT(*) FROM department"));
+        }
+    }
+
+    private static OllamaStructuredHelper createHelper() {
+        return new OllamaStructuredHelper(Duration.ofSeconds(5), Duration.ofSeconds(5), HttpClient.Version.HTTP_1_1);
+    }
+
+    private static void fillAndCheck(DBSchema schema, InsertDataGeneration generation, String databaseName) throws Exception {
+        TableFillerSettings settings = new TableFillerSettings()
+                .setBatchSize(4)
+                .setConcurrency(3);
+        fillAndCheck(schema, generation, settings, databaseName);
+    }
+
+    private static void fillAndCheck(DBSchema schema, InsertDataGeneration generation, TableFillerSettings settings, String databaseName) throws Exception {
+        try (Connection conn = DriverManager.getConnection("jdbc:h2:mem:" + databaseName + ";MODE=MySQL")) {
+            TableFiller.createSchema(schema, conn);
+            TableFiller.fillSchema(schema, conn, generation, 20, settings, null);
+
+            for (Table table : schema.getTables()) {
+                assertEquals(20, TableFiller.getRowCount(conn, table));
+            }
+            assertEquals(0, Utils.count(conn, "SELECT COUNT(*) FROM employee WHERE department_id IS NULL OR department_id NOT IN (SELECT id FROM department)"));
+        }
+    }
+}
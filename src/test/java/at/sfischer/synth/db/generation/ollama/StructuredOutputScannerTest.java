@@ -0,0 +1,52 @@
+package at.sfischer.synth.db.generation.ollama;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StructuredOutputScannerTest {
+
+    @Test
+    public void scanSingleQueryTest() {
+        List<String> values = new ArrayList<>();
+        StructuredOutputScanner scanner = new StructuredOutputScanner(values::add);
+
+        scanner.accept("{\"que");
+        scanner.accept("ry\": \"INSERT INTO employee (id, name) VALUES (1, 'John \\\"JD\\\" Doe');");
+        assertTrue(values.isEmpty());
+        assertFalse(scanner.isComplete());
+
+        scanner.accept("\"}");
+        assertEquals(List.of("INSERT INTO employee (id, name) VALUES (1, 'John \"JD\" Doe');"), values);
+        assertTrue(scanner.isComplete());
+    }
+
+    @Test
+    public void scanMultipleQueriesTest() {
+        List<String> values = new ArrayList<>();
+        StructuredOutputScanner scanner = new StructuredOutputScanner(values::add);
+
+        scanner.accept("{ \"queries\": [\"INSERT INTO employee (id) VALUES (1);\", \"INSERT INTO emp");
+        assertEquals(List.of("INSERT INTO employee (id) VALUES (1);"), values);
+
+        scanner.accept("loyee (id) VALUES (2);\"");
+        assertEquals(2, values.size());
+        assertFalse(scanner.isComplete());
+
+        scanner.accept("] }\n\n");
+        assertTrue(scanner.isComplete());
+    }
+
+    @Test
+    public void ignoreOtherFieldsTest() {
+        List<String> values = new ArrayList<>();
+        StructuredOutputScanner scanner = new StructuredOutputScanner(values::add);
+
+        scanner.accept("{\"comment\": \"query\", \"nested\": {\"query\": \"x\"}, \"query\": \"INSERT INTO t (a) VALUES ('[{,}]');\"}");
+        assertEquals(List.of("INSERT INTO t (a) VALUES ('[{,}]');"), values);
+        assertTrue(scanner.isComplete());
+    }
+}
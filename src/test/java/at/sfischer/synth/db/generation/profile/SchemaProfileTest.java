@@ -0,0 +1,129 @@
+package at.sfischer.synth.db.generation.profile;
+
+import at.sfischer.synth.db.Utils;
+import at.sfischer.synth.db.generation.mock.InsertDataGenerationStub;
+import at.sfischer.synth.db.generation.values.TableFiller;
+import at.sfischer.synth.db.generation.values.TableFillerSettings;
+import at.sfischer.synth.db.model.DBSchema;
+import at.sfischer.synth.db.model.Table;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SchemaProfileTest {
+
+    private static final String DDL = """
+            CREATE TABLE department (
+                id INT PRIMARY KEY,
+                name VARCHAR(20) NOT NULL UNIQUE
+            );
+            CREATE TABLE employee (
+                id INT PRIMARY KEY,
+                status VARCHAR(10) NOT NULL,
+                salary DECIMAL(8,2),
+                hired DATE,
+                note VARCHAR(40),
+                department_id INT,
+                FOREIGN KEY (department_id) REFERENCES department(id)
+            );
+            """;
+
+    private static final String[] STATUSES = {"active", "on leave", "retired"};
+
+    @Test
+    public void profileTest() throws Exception {
+        DBSchema schema = DBSchema.parseSchema(DDL);
+        try (Connection conn = DriverManager.getConnection("jdbc:h2:mem:schemaProfile;MODE=MySQL")) {
+            TableFiller.createSchema(schema, conn);
+            insertExamples(conn);
+
+            SchemaProfile profile = SchemaProfile.profile(schema, conn);
+            TableProfile employee = profile.getTable("employee");
+            assertEquals(200, employee.getRowCount());
+
+            ColumnProfile status = employee.getColumn("status");
+            assertEquals(3, status.getDistinctCount());
+            assertEquals("active", status.getTopValues().getFirst().value());
+            assertEquals(0, status.getNullRatio());
+
+            ColumnProfile salary = employee.getColumn("salary");
+            assertEquals(200, salary.getDistinctCount());
+            assertEquals(0, ((Number) salary.getMin()).doubleValue(), 1e-9);
+            assertEquals(1990, ((Number) salary.getMax()).doubleValue(), 1e-9);
+            assertEquals(2, salary.getScale());
+            assertEquals(200, Arrays.stream(salary.getHistogram().counts()).sum());
+
+            assertEquals(0.25, employee.getColumn("note").getNullRatio(), 1e-9);
+            assertEquals("2020-01-01", employee.getColumn("hired").getMin());
+
+            // Department 1 is referenced by 100 employees, departments 2 to 5 by 25 each.
+            ColumnProfile department = employee.getColumn("department_id");
+            assertEquals(Long.valueOf(4), department.getFanOut().get(25L));
+            assertEquals(Long.valueOf(1), department.getFanOut().get(100L));
+
+            String json = profile.toJson();
+            assertTrue(json.contains("\"topValues\""));
+            assertFalse(json.contains("\"frequencies\""));
+        }
+    }
+
+    @Test
+    public void fillFromProfileTest() throws Exception {
+        DBSchema schema = DBSchema.parseSchema(DDL);
+        try (Connection conn = DriverManager.getConnection("jdbc:h2:mem:fillFromProfile;MODE=MySQL")) {
+            TableFiller.createSchema(schema, conn);
+            insertExamples(conn);
+
+            TableFillerSettings settings = new TableFillerSettings().setSchemaProfile(SchemaProfile.profile(schema, conn));
+            TableFiller.fillSchema(schema, conn, new InsertDataGenerationStub(), 2000, settings, null);
+
+            for (Table table : schema.getTables()) {
+                assertEquals(2000, TableFiller.getRowCount(conn, table));
+            }
+            assertEquals(2000, Utils.count(conn, "SELECT COUNT(DISTINCT name) FROM department"));
+            assertEquals(0, Utils.count(conn, "SELECT COUNT(*) FROM employee WHERE status NOT IN ('active', 'on leave', 'retired')"));
+            assertEquals(0, Utils.count(conn, "SELECT COUNT(*) FROM employee WHERE salary < 0 OR salary > 1990"));
+            assertTrue(Utils.count(conn, "SELECT COUNT(DISTINCT salary) FROM employee") > 200);
+            assertEquals(0, Utils.count(conn, "SELECT COUNT(*) FROM employee WHERE hired < DATE '2020-01-01' OR hired > DATE '2020-07-18'"));
+            assertEquals(0, Utils.count(conn, "SELECT COUNT(*) FROM employee WHERE department_id IS NULL OR department_id NOT IN (SELECT id FROM department)"));
+
+            long notes = Utils.count(conn, "SELECT COUNT(*) FROM employee WHERE note IS NULL");
+            assertTrue(notes > 300 && notes < 700, "Null notes: " + notes);
+        }
+    }
+
+    private static void insertExamples(Connection conn) throws Exception {
+        StringBuilder departments = new StringBuilder("INSERT INTO department VALUES ");
+        for (int i = 1; i <= 5; i++) {
+            departments.append(i > 1 ? ", " : "").append("(").append(i).append(", 'Department ").append(i).append("')");
+        }
+        execute(conn, departments.toString());
+
+        StringBuilder employees = new StringBuilder("INSERT INTO employee VALUES ");
+        LocalDate start = LocalDate.of(2020, 1, 1);
+        for (int i = 0; i < 200; i++) {
+            String note = i % 4 == 0 ? "NULL" : "'Note " + i + "'";
+            int department = i < 100 ? 1 : 2 + i % 4;
+            employees.append(i > 0 ? ", " : "")
+                    .append("(").append(i + 1)
+                    .append(", '").append(STATUSES[i % 10 < 6 ? 0 : i % 10 < 9 ? 1 : 2]).append("'")
+                    .append(", ").append(i * 10).append(".00")
+                    .append(", DATE '").append(start.plusDays(i)).append("'")
+                    .append(", ").append(note)
+                    .append(", ").append(department).append(")");
+        }
+        execute(conn, employees.toString());
+    }
+
+    private static void execute(Connection conn, String sql) throws Exception {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute(sql);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package at.sfischer.synth.db.generation.values;
+
+import at.sfischer.synth.db.Utils;
+import at.sfischer.synth.db.generation.columns.ColumnGenerators;
+import at.sfischer.synth.db.generation.mock.InsertDataGenerationStub;
+import at.sfischer.synth.db.model.Column;
+import at.sfischer.synth.db.model.DBSchema;
+import at.sfischer.synth.db.model.Table;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReferenceKeysTest {
+
+    private static final String DDL = """
+            CREATE TABLE department (
+                id INT AUTO_INCREMENT PRIMARY KEY,
+                name VARCHAR(20) NOT NULL
+            );
+            CREATE TABLE manager (
+                id INT PRIMARY KEY,
+                department_id INT NOT NULL UNIQUE,
+                FOREIGN KEY (department_id) REFERENCES department(id)
+            );
+            CREATE TABLE employee (
+                id INT PRIMARY KEY,
+                name VARCHAR(20) NOT NULL,
+                department_id INT NOT NULL,
+                FOREIGN KEY (department_id) REFERENCES department(id)
+            );
+            """;
+
+    @Test
+    public void fillTest() throws Exception {
+        DBSchema schema = DBSchema.parseSchema(DDL);
+        Map<String, Set<String>> promptColumns = new ConcurrentHashMap<>();
+        Set<String> promptDependencies = ConcurrentHashMap.newKeySet();
+        InsertDataGenerationStub generation = new InsertDataGenerationStub() {
+            @Override
+            public CompletableFuture<Void> streamRows(Table table, long rowCount, int batchSize, List<Map<Column, Object>> exampleValues, Map<Table, List<Map<Column, Object>>> dependentTableValues, Executor executor, Consumer<String> rowConsumer) {
+                table.getColumns().forEach(column -> promptColumns.computeIfAbsent(table.getName(), _ -> ConcurrentHashMap.newKeySet()).add(column.getName()));
+                dependentTableValues.keySet().forEach(dependency -> promptDependencies.add(dependency.getName()));
+                return super.streamRows(table, rowCount, batchSize, exampleValues, dependentTableValues, executor, rowConsumer);
+            }
+        };
+
+        try (Connection conn = DriverManager.getConnection("jdbc:h2:mem:referenceKeys;MODE=MySQL")) {
+            TableFiller.createSchema(schema, conn);
+            TableFillerSettings settings = new TableFillerSettings().setLocalForeignKeys(true).setBatchSize(10);
+            TableFiller.fillSchema(schema, conn, generation, 50, settings, null);
+
+            for (Table table : schema.getTables()) {
+                assertEquals(50, TableFiller.getRowCount(conn, table));
+            }
+            assertEquals(Set.of("name"), promptColumns.get("department"));
+            assertEquals(Set.of("id"), promptColumns.get("manager"));
+            assertEquals(Set.of("id", "name"), promptColumns.get("employee"));
+            assertTrue(promptDependencies.isEmpty());
+
+            assertEquals(50, Utils.count(conn, "SELECT COUNT(DISTINCT department_id) FROM manager"));
+            assertEquals(0, Utils.count(conn, "SELECT COUNT(*) FROM employee WHERE department_id NOT IN (SELECT id FROM department)"));
+            assertTrue(Utils.count(conn, "SELECT COUNT(DISTINCT department_id) FROM employee") > 1);
+        }
+    }
+
+    @Test
+    public void exhaustedUniqueKeysTest() throws Exception {
+        DBSchema schema = DBSchema.parseSchema("""
+                CREATE TABLE dept (
+                    id INT PRIMARY KEY
+                );
+                CREATE TABLE emp (
+                    id INT PRIMARY KEY,
+                    dept_id INT NOT NULL UNIQUE,
+                    FOREIGN KEY (dept_id) REFERENCES dept(id)
+                );
+                """);
+        try (Connection conn = DriverManager.getConnection("jdbc:h2:mem:referenceKeysExhausted;MODE=MySQL")) {
+            TableFiller.createSchema(schema, conn);
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("INSERT INTO dept (id) VALUES (1), (2), (3)");
+            }
+            TableFillerSettings settings = new TableFillerSettings().setColumnGenerators(ColumnGenerators.load()).setLocalForeignKeys(true);
+            Table emp = schema.getTable("emp");
+            AtomicLong reportedRows = new AtomicLong();
+            TableFillerProgressListener listener = new TableFillerProgressListener() {
+                @Override
+                public void onProgress(Table table, long rowsGenerated, long totalRows, long tablesCompleted, long totalTables) {
+                    reportedRows.set(rowsGenerated);
+                }
+            };
+            assertTimeoutPreemptively(Duration.ofSeconds(30), () -> TableFiller.fillTable(emp, null, conn, new InsertDataGenerationStub(), 4, settings, listener));
+
+            // The rows that got a key are inserted, although they were generated in one batch with the rejected row.
+            assertEquals(3, TableFiller.getRowCount(conn, emp));
+            assertEquals(3, reportedRows.get());
+            assertEquals(3, Utils.count(conn, "SELECT COUNT(DISTINCT dept_id) FROM emp"));
+        }
+    }
+
+    @Test
+    public void emptyReferencedTableTest() throws Exception {
+        DBSchema schema = DBSchema.parseSchema("""
+                CREATE TABLE dept (
+                    id INT PRIMARY KEY
+                );
+                CREATE TABLE emp (
+                    id INT PRIMARY KEY,
+                    name VARCHAR(20),
+                    dept_id INT NOT NULL,
+                    FOREIGN KEY (dept_id) REFERENCES dept(id)
+                );
+                """);
+        try (Connection conn = DriverManager.getConnection("jdbc:h2:mem:referenceKeysEmpty;MODE=MySQL")) {
+            TableFiller.createSchema(schema, conn);
+            TableFillerSettings settings = new TableFillerSettings().setLocalForeignKeys(true);
+            Table emp = schema.getTable("emp");
+            assertTimeoutPreemptively(Duration.ofSeconds(30), () -> TableFiller.fillTable(emp, null, conn, new InsertDataGenerationStub(), 4, settings, null));
+
+            assertEquals(0, TableFiller.getRowCount(conn, emp));
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package at.sfischer.synth.db.generation.values;
+
+import at.sfischer.synth.db.Utils;
+import at.sfischer.synth.db.generation.mock.InsertDataGenerationStub;
+import at.sfischer.synth.db.model.DBSchema;
+import at.sfischer.synth.db.model.Table;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RowAmplifierTest {
+
+    private static final String DDL = """
+            CREATE TABLE department (
+                id INT PRIMARY KEY,
+                name VARCHAR(12) NOT NULL UNIQUE
+            );
+            CREATE TABLE employee (
+                id INT PRIMARY KEY,
+                email VARCHAR(40) NOT NULL UNIQUE,
+                salary DECIMAL(8,2),
+                department_id INT,
+                FOREIGN KEY (department_id) REFERENCES department(id)
+            );
+            """;
+
+    @Test
+    public void fillTest() throws Exception {
+        DBSchema schema = DBSchema.parseSchema(DDL);
+        try (Connection conn = DriverManager.getConnection("jdbc:h2:mem:rowAmplifier;MODE=MySQL")) {
+            TableFiller.createSchema(schema, conn);
+            execute(conn, "INSERT INTO department VALUES (1, 'Sales'), (2, 'Research')");
+            execute(conn, "INSERT INTO employee VALUES (1, 'jane@example.com', 1000.50, 1), (2, 'john@example.com', NULL, NULL), (3, 'anna@example.com', 2000, 2)");
+
+            TableFillerSettings settings = new TableFillerSettings().setSeedRows(3);
+            TableFiller.fillSchema(schema, conn, new InsertDataGenerationStub(), 3000, settings, null);
+
+            for (Table table : schema.getTables()) {
+                assertEquals(3000, TableFiller.getRowCount(conn, table));
+            }
+            assertEquals(3000, Utils.count(conn, "SELECT COUNT(DISTINCT name) FROM department"));
+            assertEquals(0, Utils.count(conn, "SELECT COUNT(*) FROM department WHERE LENGTH(name) > 12"));
+            assertEquals(3000, Utils.count(conn, "SELECT COUNT(DISTINCT email) FROM employee"));
+            assertEquals(0, Utils.count(conn, "SELECT COUNT(*) FROM employee WHERE email NOT LIKE '%@example.com'"));
+            assertEquals(0, Utils.count(conn, "SELECT COUNT(*) FROM employee WHERE department_id NOT IN (SELECT id FROM department)"));
+            assertTrue(Utils.count(conn, "SELECT COUNT(*) FROM employee WHERE department_id IS NULL") > 0);
+            assertTrue(Utils.count(conn, "SELECT COUNT(*) FROM employee WHERE department_id > 2") > 0);
+            assertTrue(Utils.count(conn, "SELECT COUNT(DISTINCT salary) FROM employee") > 3);
+        }
+    }
+
+    @Test
+    public void seedRowsTest() throws Exception {
+        Table department = DBSchema.parseSchema(DDL).getTable("department");
+        TableFillerSettings settings = new TableFillerSettings().setSeedRows(10).setSeedRows("department", 2);
+
+        assertEquals(2, settings.getSeedRows(department));
+        assertEquals(10, settings.getSeedRows(DBSchema.parseSchema(DDL).getTable("employee")));
+        assertThrows(IllegalArgumentException.class, () -> settings.setSeedRows(-1));
+    }
+
+    private static void execute(Connection conn, String sql) throws Exception {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute(sql);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package at.sfischer.synth.db.generation.values;
+
+import at.sfischer.synth.db.Utils;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StagingConnectionPoolTest {
+
+    @Test
+    public void supplierTest() throws Exception {
+        String url = "jdbc:h2:mem:stagingPoolSupplier;MODE=MySQL";
+        AtomicInteger opened = new AtomicInteger();
+        try (Connection primary = DriverManager.getConnection(url, "synth", "secret");
+             StagingConnectionPool pool = new StagingConnectionPool(primary, () -> {
+                 opened.incrementAndGet();
+                 return DriverManager.getConnection(url, "synth", "secret");
+             }, 2)) {
+            execute(primary, "CREATE TABLE t (id INT PRIMARY KEY)");
+            execute(primary, "INSERT INTO t (id) VALUES (1)");
+
+            assertSame(primary, pool.acquire());
+            Connection second = pool.acquire();
+            assertNotSame(primary, second);
+            assertEquals(1, opened.get());
+            assertEquals(1, Utils.count(second, "SELECT COUNT(*) FROM t"));
+
+            pool.release(second);
+            assertSame(second, pool.acquire());
+            assertEquals(1, opened.get());
+        }
+    }
+
+    @Test
+    public void reopenUrlTest() throws Exception {
+        try (Connection primary = DriverManager.getConnection("jdbc:h2:mem:stagingPoolUrl;MODE=MySQL");
+             StagingConnectionPool pool = new StagingConnectionPool(primary, null, 2)) {
+            execute(primary, "CREATE TABLE t (id INT PRIMARY KEY)");
+
+            pool.acquire();
+            assertEquals(0, Utils.count(pool.acquire(), "SELECT COUNT(*) FROM t"));
+        }
+    }
+
+    @Test
+    public void unnamedDatabaseTest() throws Exception {
+        try (Connection primary = DriverManager.getConnection("jdbc:h2:mem:;MODE=MySQL")) {
+            // An unnamed in-memory database cannot be reopened, a new connection would open an empty database.
+            assertThrows(SQLException.class, () -> new StagingConnectionPool(primary, null, 2));
+            try (StagingConnectionPool pool = new StagingConnectionPool(primary, null, 1)) {
+                assertSame(primary, pool.acquire());
+            }
+        }
+    }
+
+    private static void execute(Connection conn, String sql) throws Exception {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute(sql);
+        }
+    }
+}
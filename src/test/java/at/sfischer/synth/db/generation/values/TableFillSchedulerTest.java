@@ -0,0 +1,214 @@
+package at.sfischer.synth.db.generation.values;
+
+import at.sfischer.synth.db.Utils;
+import at.sfischer.synth.db.generation.mock.InsertDataGenerationStub;
+import at.sfischer.synth.db.model.Column;
+import at.sfischer.synth.db.model.DBSchema;
+import at.sfischer.synth.db.model.InsertStatement;
+import at.sfischer.synth.db.model.Table;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TableFillSchedulerTest {
+
+    private static final String DDL = """
+            CREATE TABLE department (
+                id INT PRIMARY KEY,
+                name VARCHAR(20) NOT NULL
+            );
+            CREATE TABLE project (
+                id INT PRIMARY KEY,
+                name VARCHAR(20) NOT NULL
+            );
+            CREATE TABLE employee (
+                id INT PRIMARY KEY,
+                name VARCHAR(20) NOT NULL,
+                department_id INT NOT NULL,
+                FOREIGN KEY (department_id) REFERENCES department(id)
+            );
+            CREATE TABLE assignment (
+                id INT PRIMARY KEY,
+                employee_id INT NOT NULL,
+                project_id INT NOT NULL,
+                FOREIGN KEY (employee_id) REFERENCES employee(id),
+                FOREIGN KEY (project_id) REFERENCES project(id)
+            );
+            """;
+
+    @Test
+    public void fillTest() throws Exception {
+        DBSchema schema = DBSchema.parseSchema(DDL);
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        InsertDataGenerationStub generation = new InsertDataGenerationStub() {
+            @Override
+            public CompletableFuture<Void> streamRows(Table table, long rowCount, int batchSize, List<Map<Column, Object>> exampleValues, Map<Table, List<Map<Column, Object>>> dependentTableValues, Executor executor, Consumer<String> rowConsumer) {
+                threads.add(Thread.currentThread().getName());
+                return super.streamRows(table, rowCount, batchSize, exampleValues, dependentTableValues, executor, rowConsumer);
+            }
+        };
+
+        try (Connection conn = DriverManager.getConnection("jdbc:h2:mem:schedulerFill;MODE=MySQL")) {
+            TableFiller.createSchema(schema, conn);
+            TableFillerSettings settings = new TableFillerSettings().setTableParallelism(3).setBatchSize(5);
+            Map<Table, List<InsertStatement>> statements = TableFiller.fillSchema(schema, conn, generation, 30, settings, null);
+
+            for (Table table : schema.getTables()) {
+                assertEquals(30, TableFiller.getRowCount(conn, table));
+                assertEquals(30, statements.get(table).stream().mapToInt(insert -> insert.getRows().size()).sum());
+            }
+            assertEquals(0, Utils.count(conn, "SELECT COUNT(*) FROM employee WHERE department_id NOT IN (SELECT id FROM department)"));
+            assertEquals(0, Utils.count(conn, "SELECT COUNT(*) FROM assignment WHERE employee_id NOT IN (SELECT id FROM employee)"));
+            assertEquals(0, Utils.count(conn, "SELECT COUNT(*) FROM assignment WHERE project_id NOT IN (SELECT id FROM project)"));
+            assertTrue(threads.size() > 1, "Tables were filled by a single thread.");
+        }
+    }
+
+    @Test
+    public void pipelineTest() throws Exception {
+        DBSchema schema = DBSchema.parseSchema(DDL);
+        AtomicLong departmentRows = new AtomicLong();
+        AtomicLong departmentRowsAtEmployeeStart = new AtomicLong(-1);
+        CountDownLatch employeeStarted = new CountDownLatch(1);
+        AtomicBoolean startedBeforeParentCompleted = new AtomicBoolean();
+        InsertDataGenerationStub generation = new InsertDataGenerationStub() {
+            @Override
+            public CompletableFuture<Void> streamRows(Table table, long rowCount, int batchSize, List<Map<Column, Object>> exampleValues, Map<Table, List<Map<Column, Object>>> dependentTableValues, Executor executor, Consumer<String> rowConsumer) {
+                if(table.getName().equals("department")){
+                    departmentRows.set(rowCount);
+                    if(rowCount >= 40){
+                        // Holds back the parent until the child started, which deadlocks without pipelining.
+                        try {
+                            startedBeforeParentCompleted.compareAndSet(false, employeeStarted.await(10, TimeUnit.SECONDS));
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                } else if(table.getName().equals("employee") && employeeStarted.getCount() > 0){
+                    departmentRowsAtEmployeeStart.set(departmentRows.get());
+                    employeeStarted.countDown();
+                }
+                return super.streamRows(table, rowCount, batchSize, exampleValues, dependentTableValues, executor, rowConsumer);
+            }
+        };
+
+        try (Connection conn = DriverManager.getConnection("jdbc:h2:mem:schedulerPipeline;MODE=MySQL")) {
+            TableFiller.createSchema(schema, conn);
+            TableFillerSettings settings = new TableFillerSettings().setTableParallelism(3).setBatchSize(10).setPipelineThreshold(20);
+            TableFiller.fillSchema(schema, conn, generation, 100, settings, null);
+
+            assertTrue(startedBeforeParentCompleted.get(), "The child table was not started before its parent was completed.");
+            assertTrue(departmentRowsAtEmployeeStart.get() >= 20, "The child table was started at " + departmentRowsAtEmployeeStart.get() + " parent rows.");
+            for (Table table : schema.getTables()) {
+                assertEquals(100, TableFiller.getRowCount(conn, table));
+            }
+            assertEquals(0, Utils.count(conn, "SELECT COUNT(*) FROM employee WHERE department_id NOT IN (SELECT id FROM department)"));
+        }
+    }
+
+    @Test
+    public void parentFailureTest() throws Exception {
+        DBSchema schema = DBSchema.parseSchema(DDL);
+        Set<String> startedTables = ConcurrentHashMap.newKeySet();
+        InsertDataGenerationStub generation = new InsertDataGenerationStub() {
+            @Override
+            public CompletableFuture<Void> streamRows(Table table, long rowCount, int batchSize, List<Map<Column, Object>> exampleValues, Map<Table, List<Map<Column, Object>>> dependentTableValues, Executor executor, Consumer<String> rowConsumer) {
+                startedTables.add(table.getName());
+                return super.streamRows(table, rowCount, batchSize, exampleValues, dependentTableValues, executor, rowConsumer);
+            }
+        };
+
+        try (Connection conn = DriverManager.getConnection("jdbc:h2:mem:schedulerFailure;MODE=MySQL")) {
+            TableFiller.createSchema(schema, conn);
+            try (Statement stmt = conn.createStatement()) {
+                // Filling the department table fails, as it does not exist in the database.
+                stmt.execute("DROP TABLE department CASCADE");
+            }
+            TableFillerSettings settings = new TableFillerSettings().setTableParallelism(3).setBatchSize(5).setPipelineThreshold(5);
+            SQLException e = assertThrows(SQLException.class, () -> TableFiller.fillSchema(schema, conn, generation, 30, settings, null));
+            assertTrue(e.getMessage().toUpperCase().contains("DEPARTMENT"), e.getMessage());
+
+            // Tables depending on the failed table are never started.
+            assertFalse(startedTables.contains("employee"));
+            assertFalse(startedTables.contains("assignment"));
+        }
+    }
+
+    @Test
+    public void failureStopsRunningTablesTest() throws Exception {
+        DBSchema schema = DBSchema.parseSchema(DDL);
+        CountDownLatch projectStarted = new CountDownLatch(1);
+        AtomicBoolean returned = new AtomicBoolean();
+        AtomicLong callsAfterReturn = new AtomicLong();
+        AtomicLong runningCalls = new AtomicLong();
+        InsertDataGenerationStub generation = new InsertDataGenerationStub() {
+            @Override
+            public CompletableFuture<Void> streamRows(Table table, long rowCount, int batchSize, List<Map<Column, Object>> exampleValues, Map<Table, List<Map<Column, Object>>> dependentTableValues, Executor executor, Consumer<String> rowConsumer) {
+                if(table.getName().equals("department")){
+                    // Fails only once the independent project table is being filled.
+                    try {
+                        projectStarted.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return CompletableFuture.failedFuture(new IllegalStateException("Generation failed."));
+                }
+                runningCalls.incrementAndGet();
+                projectStarted.countDown();
+                try {
+                    // A slow request that does not react to interrupts, e.g. blocked on I/O.
+                    long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(500);
+                    while (System.nanoTime() < end) {
+                        Thread.onSpinWait();
+                    }
+                    if(returned.get()){
+                        callsAfterReturn.incrementAndGet();
+                    }
+                    return super.streamRows(table, rowCount, batchSize, exampleValues, dependentTableValues, executor, rowConsumer);
+                } finally {
+                    runningCalls.decrementAndGet();
+                }
+            }
+        };
+        TableFillerProgressListener listener = new TableFillerProgressListener() {
+            @Override
+            public void onProgress(Table table, long rowsGenerated, long totalRows, long tablesCompleted, long totalTables) {
+                if(returned.get()){
+                    callsAfterReturn.incrementAndGet();
+                }
+            }
+        };
+
+        try (Connection conn = DriverManager.getConnection("jdbc:h2:mem:schedulerStop;MODE=MySQL")) {
+            TableFiller.createSchema(schema, conn);
+            TableFillerSettings settings = new TableFillerSettings().setTableParallelism(3).setBatchSize(5);
+            assertThrows(SQLException.class, () -> TableFiller.fillSchema(schema, conn, generation, 10_000, settings, listener));
+            returned.set(true);
+            long projectRows = TableFiller.getRowCount(conn, schema.getTable("project"));
+
+            // The project table was still being filled when the department table failed, it is stopped before fill returns.
+            long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (runningCalls.get() > 0 && System.nanoTime() < end) {
+                Thread.sleep(10);
+            }
+            Thread.sleep(100);
+            assertEquals(0, callsAfterReturn.get());
+            assertEquals(projectRows, TableFiller.getRowCount(conn, schema.getTable("project")));
+            assertTrue(projectRows < 10_000);
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package at.sfischer.synth.db.generation.values;
+
+import at.sfischer.synth.db.model.DBSchema;
+import at.sfischer.synth.db.model.InsertStatement;
+import at.sfischer.synth.db.model.Table;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TableInserterTest {
+
+    private static final String DDL = """
+            CREATE TABLE department (
+                id INT PRIMARY KEY AUTO_INCREMENT,
+                name VARCHAR(20) NOT NULL UNIQUE,
+                floor INT
+            );
+            """;
+
+    @Test
+    public void batchWithGeneratedKeysTest() throws Exception {
+        DBSchema schema = DBSchema.parseSchema(DDL);
+        Table table = schema.getTable("department");
+        try (Connection conn = DriverManager.getConnection("jdbc:h2:mem:inserterKeys;MODE=MySQL")) {
+            TableFiller.createSchema(schema, conn);
+
+            List<InsertStatement> inserted;
+            try (TableInserter inserter = new TableInserter(conn, table, new TableFillerStatistics())) {
+                inserter.add(InsertStatement.parseInsertStatement(table, "INSERT INTO department (name, floor) VALUES ('Sales', 1)"));
+                inserter.add(InsertStatement.parseInsertStatement(table, "INSERT INTO department (name, floor) VALUES ('Research', NULL), ('Support', 3)"));
+                assertEquals(3, inserter.getPendingRows());
+
+                inserted = inserter.flush();
+                assertEquals(0, inserter.getPendingRows());
+            }
+
+            assertEquals(2, inserted.size());
+            assertEquals(1L, inserted.get(0).getRows().getFirst().get(table.getColumn("id")));
+            assertEquals(2L, inserted.get(1).getRows().get(0).get(table.getColumn("id")));
+            assertEquals(3L, inserted.get(1).getRows().get(1).get(table.getColumn("id")));
+            assertEquals(3, TableFiller.getRowCount(conn, table));
+            assertTrue(conn.getAutoCommit());
+        }
+    }
+
+    @Test
+    public void failingRowDoesNotDiscardBatchTest() throws Exception {
+        DBSchema schema = DBSchema.parseSchema(DDL);
+        Table table = schema.getTable("department");
+        try (Connection conn = DriverManager.getConnection("jdbc:h2:mem:inserterFailure;MODE=MySQL")) {
+            TableFiller.createSchema(schema, conn);
+
+            List<InsertStatement> inserted;
+            try (TableInserter inserter = new TableInserter(conn, table, new TableFillerStatistics())) {
+                inserter.add(InsertStatement.parseInsertStatement(table, "INSERT INTO department (name, floor) VALUES ('Sales', 1)"));
+                inserter.add(InsertStatement.parseInsertStatement(table, "INSERT INTO department (name, floor) VALUES ('Sales', 2)"));
+                inserter.add(InsertStatement.parseInsertStatement(table, "INSERT INTO department (name, floor) VALUES ('Research', 3)"));
+                inserted = inserter.flush();
+            }
+
+            assertEquals(2, inserted.size());
+            assertEquals(1L, inserted.get(0).getRows().getFirst().get(table.getColumn("floor")));
+            assertEquals(3L, inserted.get(1).getRows().getFirst().get(table.getColumn("floor")));
+            assertEquals(2, TableFiller.getRowCount(conn, table));
+        }
+    }
+
+    @Test
+    public void fallbackKeepsStatementRowsTogetherTest() throws Exception {
+        DBSchema schema = DBSchema.parseSchema(DDL);
+        Table table = schema.getTable("department");
+        try (Connection conn = DriverManager.getConnection("jdbc:h2:mem:inserterFallback;MODE=MySQL")) {
+            TableFiller.createSchema(schema, conn);
+
+            List<InsertStatement> inserted;
+            try (TableInserter inserter = new TableInserter(conn, table, new TableFillerStatistics())) {
+                assertTrue(inserter.flush().isEmpty());
+
+                inserter.add(InsertStatement.parseInsertStatement(table, "INSERT INTO department (name, floor) VALUES ('Sales', 1)"));
+                // The second row of this statement is a duplicate, so its valid first row is not inserted either.
+                inserter.add(InsertStatement.parseInsertStatement(table, "INSERT INTO department (name, floor) VALUES ('Research', 2), ('Sales', 2)"));
+                inserter.add(InsertStatement.parseInsertStatement(table, "INSERT INTO department (name, floor) VALUES ('Support', NULL), ('Legal', 4)"));
+                inserted = inserter.flush();
+                assertEquals(0, inserter.getPendingRows());
+            }
+
+            assertEquals(2, inserted.size());
+            assertEquals(List.of("Sales"), names(table, inserted.get(0)));
+            assertEquals(List.of("Support", "Legal"), names(table, inserted.get(1)));
+            assertEquals(3, TableFiller.getRowCount(conn, table));
+
+            // Keys generated by the statement by statement inserts are set on the rows, the rolled back batch used up keys.
+            List<Object> keys = new ArrayList<>();
+            inserted.forEach(insert -> insert.getRows().forEach(row -> keys.add(row.get(table.getColumn("id")))));
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT id FROM department ORDER BY id")) {
+                List<Object> databaseKeys = new ArrayList<>();
+                while (rs.next()) {
+                    databaseKeys.add(rs.getLong(1));
+                }
+                assertEquals(databaseKeys, keys);
+            }
+            // Parsed NULL values are inserted as SQL NULL.
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM department WHERE floor IS NULL")) {
+                rs.next();
+                assertEquals(1, rs.getLong(1));
+            }
+            assertTrue(conn.getAutoCommit());
+        }
+    }
+
+    @Test
+    public void missingSerialKeyTest() throws Exception {
+        DBSchema schema = DBSchema.parseSchema("""
+                CREATE TABLE department (
+                    id SERIAL PRIMARY KEY,
+                    name VARCHAR(20) NOT NULL
+                );
+                """);
+        Table table = schema.getTable("department");
+        try (Connection conn = DriverManager.getConnection("jdbc:h2:mem:inserterSerial;MODE=PostgreSQL")) {
+            TableFiller.createSchema(schema, conn);
+
+            List<InsertStatement> inserted;
+            try (TableInserter inserter = new TableInserter(conn, table, new TableFillerStatistics())) {
+                inserter.add(InsertStatement.parseInsertStatement(table, "INSERT INTO department (name) VALUES ('Sales')"));
+                inserter.add(InsertStatement.parseInsertStatement(table, "INSERT INTO department (id, name) VALUES (NULL, 'Research')"));
+                inserter.add(InsertStatement.parseInsertStatement(table, "INSERT INTO department (id, name) VALUES (10, 'Support')"));
+                inserted = inserter.flush();
+            }
+
+            // PostgreSQL rejects NULL for a SERIAL column, the column is left out for rows without a key.
+            assertEquals(3, inserted.size());
+            assertEquals(3, TableFiller.getRowCount(conn, table));
+            assertEquals(10L, ((Number) inserted.get(2).getRows().getFirst().get(table.getColumn("id"))).longValue());
+            Object salesKey = inserted.get(0).getRows().getFirst().get(table.getColumn("id"));
+            Object researchKey = inserted.get(1).getRows().getFirst().get(table.getColumn("id"));
+            assertNotNull(salesKey);
+            assertNotNull(researchKey);
+            assertNotEquals(salesKey, researchKey);
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT id FROM department WHERE name = 'Sales'")) {
+                assertTrue(rs.next());
+                assertEquals(salesKey, rs.getLong(1));
+            }
+        }
+    }
+
+    private static List<Object> names(Table table, InsertStatement insert) {
+        return insert.getRows().stream().map(row -> row.get(table.getColumn("name"))).toList();
+    }
+}
@@ -0,0 +1,108 @@
+package at.sfischer.synth.db.generation.values;
+
+import at.sfischer.synth.db.model.DBSchema;
+import at.sfischer.synth.db.model.Table;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TableRowCountersTest {
+
+    private static final String DDL = """
+            CREATE TABLE item (
+                id INT PRIMARY KEY,
+                name VARCHAR(20)
+            );
+            CREATE TABLE tag (
+                id INT PRIMARY KEY
+            );
+            """;
+
+    @Test
+    public void seedAndAddTest() throws Exception {
+        DBSchema schema = DBSchema.parseSchema(DDL);
+        Table item = schema.getTable("item");
+        Table tag = schema.getTable("tag");
+        try (Connection conn = DriverManager.getConnection("jdbc:h2:mem:rowCountersSeed;MODE=MySQL")) {
+            TableFiller.createSchema(schema, conn);
+            execute(conn, "INSERT INTO item (id, name) VALUES (1, 'a'), (2, 'b'), (3, 'c')");
+
+            TableRowCounters counters = new TableRowCounters(new TableFillerStatistics());
+            assertEquals(0, counters.get(item));
+            assertEquals(3, counters.seed(conn, item));
+            assertEquals(0, counters.seed(conn, tag));
+
+            // Seeding again does not query the database, the counter is kept.
+            execute(conn, "INSERT INTO item (id, name) VALUES (4, 'd')");
+            assertEquals(3, counters.seed(conn, item));
+
+            assertEquals(5, counters.add(item, 2));
+            assertEquals(5, counters.get(item));
+            assertEquals(0, counters.get(tag));
+        }
+    }
+
+    @Test
+    public void concurrentAddTest() throws Exception {
+        DBSchema schema = DBSchema.parseSchema(DDL);
+        Table item = schema.getTable("item");
+        TableRowCounters counters = new TableRowCounters(new TableFillerStatistics());
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < 1000; j++) {
+                        counters.add(item, 1);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(4000, counters.get(item));
+    }
+
+    @Test
+    public void reconcileTest() throws Exception {
+        DBSchema schema = DBSchema.parseSchema(DDL);
+        Table item = schema.getTable("item");
+        Table tag = schema.getTable("tag");
+        try (Connection conn = DriverManager.getConnection("jdbc:h2:mem:rowCountersReconcile;MODE=MySQL")) {
+            TableFiller.createSchema(schema, conn);
+            execute(conn, "INSERT INTO item (id, name) VALUES (1, 'a'), (2, 'b')");
+
+            TableRowCounters counters = new TableRowCounters(new TableFillerStatistics());
+            assertEquals(2, counters.seed(conn, item));
+            // The counter deviates, e.g. after rows were inserted by another connection or counted twice.
+            counters.add(item, 5);
+            assertEquals(7, counters.get(item));
+
+            assertEquals(2, counters.reconcile(conn, item));
+            assertEquals(2, counters.get(item));
+
+            // Reconciling a table that was never seeded starts its counter.
+            execute(conn, "INSERT INTO tag (id) VALUES (1)");
+            assertEquals(1, counters.reconcile(conn, tag));
+            assertEquals(2, counters.add(tag, 1));
+        }
+    }
+
+    private static void execute(Connection conn, String sql) throws Exception {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute(sql);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package at.sfischer.synth.db.generation.values;
+
+import at.sfischer.synth.db.generation.mock.InsertDataGenerationStub;
+import at.sfischer.synth.db.model.Column;
+import at.sfischer.synth.db.model.DBSchema;
+import at.sfischer.synth.db.model.Table;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TableValueSamplesTest {
+
+    private static final String DDL = """
+            CREATE TABLE item (
+                id INT PRIMARY KEY,
+                name VARCHAR(20)
+            );
+            """;
+
+    @Test
+    public void seedFromDatabaseTest() throws Exception {
+        DBSchema schema = DBSchema.parseSchema(DDL);
+        Table table = schema.getTable("item");
+        try (Connection conn = DriverManager.getConnection("jdbc:h2:mem:samplesSeed;MODE=MySQL")) {
+            TableFiller.createSchema(schema, conn);
+            try (Statement stmt = conn.createStatement()) {
+                for (int i = 1; i <= 50; i++) {
+                    stmt.execute("INSERT INTO item (id, name) VALUES (" + i + ", 'item" + i + "')");
+                }
+            }
+
+            TableValueSamples samples = new TableValueSamples(10, new TableFillerStatistics(), new Random(42));
+            List<Map<Column, Object>> sample = samples.sample(table, conn, 5);
+            assertEquals(5, sample.size());
+            assertEquals(5, new HashSet<>(sample).size());
+            for (Map<Column, Object> row : sample) {
+                assertEquals(List.of(table.getColumn("id"), table.getColumn("name")), new ArrayList<>(row.keySet()));
+                assertEquals("item" + row.get(table.getColumn("id")), row.get(table.getColumn("name")));
+            }
+
+            assertEquals(10, samples.sample(table, conn, 20).size());
+        }
+    }
+
+    @Test
+    public void offerKeepsUniformSampleTest() throws Exception {
+        DBSchema schema = DBSchema.parseSchema(DDL);
+        Table table = schema.getTable("item");
+        Column id = table.getColumn("id");
+        try (Connection conn = DriverManager.getConnection("jdbc:h2:mem:samplesOffer;MODE=MySQL")) {
+            TableFiller.createSchema(schema, conn);
+
+            int[] hits = new int[2];
+            for (int run = 0; run < 200; run++) {
+                TableValueSamples samples = new TableValueSamples(10, new TableFillerStatistics(), new Random(run));
+                assertTrue(samples.sample(table, conn, 5).isEmpty());
+                for (long i = 0; i < 100; i++) {
+                    samples.offer(table, List.of(Map.of(id, i)));
+                }
+
+                List<Map<Column, Object>> sample = samples.sample(table, conn, 100);
+                assertEquals(10, sample.size());
+                for (Map<Column, Object> row : sample) {
+                    assertNull(row.get(table.getColumn("name")));
+                    hits[(Long) row.get(id) < 50 ? 0 : 1]++;
+                }
+            }
+
+            // Early and late rows are equally likely to be in the sample.
+            assertTrue(Math.abs(hits[0] - hits[1]) < 200, Arrays.toString(hits));
+        }
+    }
+
+    @Test
+    public void samplingFailureTest() throws Exception {
+        DBSchema schema = DBSchema.parseSchema(DDL + """
+                CREATE TABLE category (
+                    id INT PRIMARY KEY
+                );
+                """);
+        Table item = schema.getTable("item");
+        try (Connection conn = DriverManager.getConnection("jdbc:h2:mem:samplesFailure;MODE=MySQL")) {
+            TableFiller.createSchema(schema, conn);
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("DROP TABLE category");
+            }
+
+            // Example rows of the dependency cannot be sampled, the table fails after a few retries.
+            Map<Table, Set<Table>> dependencies = Map.of(item, Set.of(schema.getTable("category")));
+            assertTimeoutPreemptively(Duration.ofSeconds(30), () -> assertThrows(SQLException.class,
+                    () -> TableFiller.fillTable(item, dependencies, conn, new InsertDataGenerationStub(), 10, new TableFillerSettings(), null)));
+            assertEquals(0, TableFiller.getRowCount(conn, item));
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package at.sfischer.synth.db.generation.values;
+
+import at.sfischer.synth.db.model.DBSchema;
+import at.sfischer.synth.db.model.InsertStatement;
+import at.sfischer.synth.db.model.Table;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UniqueKeyGuardTest {
+
+    private static final String DDL = """
+            CREATE TABLE employee (
+                id INT PRIMARY KEY,
+                email VARCHAR(40) UNIQUE,
+                name VARCHAR(20)
+            );
+            """;
+
+    @Test
+    public void admitTest() throws Exception {
+        DBSchema schema = DBSchema.parseSchema(DDL);
+        Table table = schema.getTable("employee");
+        try (Connection conn = DriverManager.getConnection("jdbc:h2:mem:uniqueKeyGuard;MODE=MySQL")) {
+            TableFiller.createSchema(schema, conn);
+            execute(conn, "INSERT INTO employee (id, email, name) VALUES (1, 'jane@example.com', 'Jane'), (2, NULL, 'John')");
+
+            UniqueKeyGuard guard = UniqueKeyGuard.create(conn, table, false);
+            InsertStatement admitted = guard.admit(InsertStatement.parseInsertStatement(table,
+                    "INSERT INTO employee (id, email, name) VALUES (1, 'anna@example.com', 'Anna'), (3, 'jane@example.com', 'Jane'), " +
+                            "(4, NULL, 'Max'), (5, NULL, 'Eva'), (6, 'lea@example.com', 'Lea'), (6, 'tom@example.com', 'Tom')"));
+            assertEquals(List.of(4L, 5L, 6L), admitted.getRows().stream().map(row -> row.get(table.getColumn("id"))).toList());
+            assertEquals(3, guard.getRejectedRows());
+            assertNull(guard.admit(InsertStatement.parseInsertStatement(table, "INSERT INTO employee (id, email, name) VALUES (4, NULL, 'Max')")));
+
+            // Keys of rows that were not inserted are released on commit.
+            guard.commit(List.of());
+            assertNotNull(guard.admit(InsertStatement.parseInsertStatement(table, "INSERT INTO employee (id, email, name) VALUES (4, 'max@example.com', 'Max')")));
+            guard.commit(List.of(InsertStatement.parseInsertStatement(table, "INSERT INTO employee (id, email, name) VALUES (4, 'max@example.com', 'Max')")));
+            assertNull(guard.admit(InsertStatement.parseInsertStatement(table, "INSERT INTO employee (id, email, name) VALUES (7, 'max@example.com', 'Max')")));
+        }
+    }
+
+    @Test
+    public void repairTest() throws Exception {
+        DBSchema schema = DBSchema.parseSchema(DDL);
+        Table table = schema.getTable("employee");
+        try (Connection conn = DriverManager.getConnection("jdbc:h2:mem:uniqueKeyGuardRepair;MODE=MySQL")) {
+            TableFiller.createSchema(schema, conn);
+            execute(conn, "INSERT INTO employee (id, email, name) VALUES (1, 'jane@example.com', 'Jane'), (2, NULL, 'John')");
+
+            UniqueKeyGuard guard = UniqueKeyGuard.create(conn, table, true);
+            InsertStatement admitted = guard.admit(InsertStatement.parseInsertStatement(table,
+                    "INSERT INTO employee (id, email, name) VALUES (1, 'anna@example.com', 'Anna'), (1, 'lea@example.com', 'Lea'), (5, 'jane@example.com', 'Jane')"));
+            assertEquals(List.of(3L, 4L), admitted.getRows().stream().map(row -> row.get(table.getColumn("id"))).toList());
+            assertEquals(2, guard.getRepairedValues());
+            assertEquals(1, guard.getRejectedRows());
+        }
+    }
+
+    @Test
+    public void primitiveSetsTest() {
+        LongHashSet set = new LongHashSet(4);
+        for (long i = -1000; i < 1000; i++) {
+            assertTrue(set.add(i * 31));
+        }
+        assertFalse(set.add(0));
+        assertFalse(set.add(-31));
+        assertTrue(set.contains(31 * 999));
+        assertFalse(set.contains(1));
+        assertEquals(2000, set.size());
+
+        BloomFilter filter = new BloomFilter(1000, 0.01);
+        for (int i = 0; i < 1000; i++) {
+            filter.add("user" + i + "@example.com");
+        }
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(filter.mightContain("user" + i + "@example.com"));
+        }
+        long falsePositives = 0;
+        for (int i = 1000; i < 11000; i++) {
+            if(filter.mightContain("user" + i + "@example.com")){
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 300, "False positives: " + falsePositives);
+        assertFalse(filter.isFull());
+    }
+
+    private static void execute(Connection conn, String sql) throws Exception {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute(sql);
+        }
+    }
+}
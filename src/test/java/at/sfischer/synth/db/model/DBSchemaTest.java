@@ -29,6 +29,8 @@ public class DBSchemaTest {
         assertTrue(id.isAutoIncrement());
         assertTrue(id.isPrimaryKey());
         assertTrue(id.isUnique());
+        assertFalse(id.isNullable());
+        assertTrue(users.getColumn("name").isNullable());
     }
 
     @Test
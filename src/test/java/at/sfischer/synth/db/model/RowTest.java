@@ -0,0 +1,86 @@
+package at.sfischer.synth.db.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RowTest {
+
+    private static final String DDL = """
+            CREATE TABLE employee (
+                id INT PRIMARY KEY,
+                name VARCHAR(20),
+                salary DOUBLE
+            );
+            CREATE TABLE department (
+                id INT PRIMARY KEY
+            );
+            """;
+
+    @Test
+    public void mapSemanticsTest() throws Exception {
+        DBSchema schema = DBSchema.parseSchema(DDL);
+        Table employee = schema.getTable("employee");
+        Column id = employee.getColumn("id");
+        Column name = employee.getColumn("name");
+        Column salary = employee.getColumn("salary");
+
+        Row row = new Row(employee);
+        row.put(salary, 1.5);
+        row.put(id, 1L);
+        row.put(name, null);
+
+        assertEquals(3, row.size());
+        assertEquals(List.of(id, name, salary), List.copyOf(row.keySet()));
+        assertTrue(row.containsKey(name));
+        assertNull(row.get(name));
+
+        Map<Column, Object> expected = new LinkedHashMap<>();
+        expected.put(id, 1L);
+        expected.put(name, null);
+        expected.put(salary, 1.5);
+        assertEquals(expected, row);
+        assertEquals(row, expected);
+        assertEquals(expected.hashCode(), row.hashCode());
+
+        assertNull(row.remove(name));
+        assertFalse(row.containsKey(name));
+        assertEquals(2, row.size());
+        assertFalse(row.containsKey(schema.getTable("department").getColumn("id")));
+        assertThrows(IllegalArgumentException.class, () -> row.put(schema.getTable("department").getColumn("id"), 1L));
+    }
+
+    @Test
+    public void typedGettersTest() throws Exception {
+        DBSchema schema = DBSchema.parseSchema(DDL);
+        Table employee = schema.getTable("employee");
+
+        Row row = new Row(employee);
+        row.set(employee.getColumn("id").getOrdinal(), "42");
+        row.set(employee.getColumn("name").getOrdinal(), "NULL");
+        row.set(employee.getColumn("salary").getOrdinal(), 3L);
+
+        assertEquals(42L, row.getLong(0));
+        assertNull(row.getLong(1));
+        assertEquals("NULL", row.getString(1));
+        assertEquals(3.0, row.getDouble(2));
+    }
+
+    @Test
+    public void parsedRowsTest() throws Exception {
+        DBSchema schema = DBSchema.parseSchema(DDL);
+        Table employee = schema.getTable("employee");
+
+        InsertStatement insert = InsertStatement.parseInsertStatement(employee,
+                "INSERT INTO employee (name, id) VALUES ('Jane', 1), ('John', 2)");
+        assertEquals(2, insert.getRows().size());
+        assertInstanceOf(Row.class, insert.getRows().getFirst());
+        assertFalse(insert.getRows().getFirst().containsKey(employee.getColumn("salary")));
+        assertEquals("INSERT INTO employee (id, name, salary) VALUES \n\t(1, 'Jane', NULL),\n\t(2, 'John', NULL);",
+                insert.generateInsertStatement());
+    }
+}
@@ -0,0 +1,110 @@
+package at.sfischer.synth.db.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TableDataTest {
+
+    private static final String DDL = """
+            CREATE TABLE employee (
+                id INT PRIMARY KEY,
+                name VARCHAR(20),
+                salary DOUBLE,
+                hired DATE,
+                active BOOLEAN
+            );
+            """;
+
+    @Test
+    public void valuesTest() throws Exception {
+        Table employee = DBSchema.parseSchema(DDL).getTable("employee");
+        TableData data = new TableData(employee);
+        data.add(row(employee, 1L, "Jane", 1.5, "2024-02-29", true));
+        data.add(row(employee, 2L, "NULL", null, "NULL", "NULL"));
+        data.add(row(employee, 3L, "Jane"));
+
+        assertEquals(3, data.size());
+        assertEquals(1L, data.get(0, 0));
+        assertEquals(1L, data.getLong(0, 0));
+        assertEquals("Jane", data.get(0, employee.getColumn("name")));
+        assertEquals(1.5, data.get(0, 2));
+        assertEquals("2024-02-29", data.get(0, 3));
+        assertEquals(true, data.get(0, 4));
+
+        for (int i = 1; i < 5; i++) {
+            assertTrue(data.isNull(1, i));
+        }
+        assertFalse(data.isNull(2, 1));
+        assertTrue(data.isNull(2, 2));
+        assertThrows(IllegalStateException.class, () -> data.getLong(0, 3));
+        assertThrows(IndexOutOfBoundsException.class, () -> data.get(3, 0));
+
+        assertEquals(Set.of("Jane"), data.getDistinctValues(employee.getColumn("name")));
+    }
+
+    @Test
+    public void fallbackTest() throws Exception {
+        Table employee = DBSchema.parseSchema(DDL).getTable("employee");
+        TableData data = new TableData(employee);
+        data.add(row(employee, 1L, "Jane", 1.5, "2024-01-01"));
+        data.add(row(employee, "x", 7, 2L, "01/02/2024"));
+
+        assertEquals(1L, data.get(0, 0));
+        assertEquals("x", data.get(1, 0));
+        assertEquals(7, data.get(1, 1));
+        assertEquals(2L, data.get(1, 2));
+        assertEquals("2024-01-01", data.get(0, 3));
+        assertEquals("01/02/2024", data.get(1, 3));
+    }
+
+    @Test
+    public void manyRowsTest() throws Exception {
+        Table employee = DBSchema.parseSchema(DDL).getTable("employee");
+        TableData data = new TableData(employee);
+        int rows = ColumnVector.SEGMENT_SIZE * 2 + 10;
+        for (int i = 0; i < rows; i++) {
+            // Names become unique after the first rows, so the dictionary is abandoned.
+            data.add(row(employee, (long) i, i < 100 ? "N" + (i % 3) : "N" + i, i * 0.5));
+        }
+
+        assertEquals(rows, data.size());
+        for (int i = 0; i < rows; i += 97) {
+            assertEquals((long) i, data.get(i, 0));
+            assertEquals(i < 100 ? "N" + (i % 3) : "N" + i, data.get(i, 1));
+            assertEquals(i * 0.5, data.get(i, 2));
+        }
+    }
+
+    @Test
+    public void asRowsTest() throws Exception {
+        Table employee = DBSchema.parseSchema(DDL).getTable("employee");
+        TableData data = new TableData(employee);
+        data.addAll(List.of(InsertStatement.parseInsertStatement(employee,
+                "INSERT INTO employee (id, name, salary, hired, active) VALUES (1, 'Jane', 2.5, '2024-01-01', TRUE), (2, 'John', NULL, NULL, FALSE)")));
+
+        List<Map<Column, Object>> rows = data.asRows();
+        assertEquals(2, rows.size());
+        assertEquals(data.getRow(0), rows.getFirst());
+        assertThrows(UnsupportedOperationException.class, () -> rows.getFirst().put(employee.getColumn("id"), 3L));
+
+        assertEquals("INSERT INTO employee (id, name, salary, hired, active) VALUES \n\t" +
+                        "(1, 'Jane', 2.5, '2024-01-01', TRUE),\n\t" +
+                        "(2, 'John', NULL, NULL, FALSE);",
+                new InsertStatement(employee, rows).generateInsertStatement());
+    }
+
+    private static Map<Column, Object> row(Table table, Object... values) {
+        Map<Column, Object> row = new LinkedHashMap<>();
+        List<Column> columns = table.getColumns();
+        for (int i = 0; i < values.length; i++) {
+            row.put(columns.get(i), values[i]);
+        }
+        return row;
+    }
+}
@@ -0,0 +1,117 @@
+package at.sfischer.synth.db.output;
+
+import at.sfischer.synth.db.DatabaseType;
+import at.sfischer.synth.db.model.Column;
+import at.sfischer.synth.db.model.DBSchema;
+import at.sfischer.synth.db.model.InsertStatement;
+import at.sfischer.synth.db.model.Table;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BulkOutputSinkTest {
+
+    private static final String DDL = """
+            CREATE TABLE department (
+                id INT PRIMARY KEY,
+                name VARCHAR(50),
+                active BOOLEAN
+            );
+            CREATE TABLE employee (
+                id INT PRIMARY KEY,
+                department_id INT REFERENCES department(id)
+            );
+            """;
+
+    @Test
+    public void copyTest() throws Exception {
+        DBSchema schema = DBSchema.parseSchema(DDL);
+        Table department = schema.getTable("department");
+        StringWriter out = new StringWriter();
+        try (OutputSink sink = new CopyOutputSink(out, schema.getTableDependencies(), 2, Long.MAX_VALUE)) {
+            sink.write(statement(department, row(department, 1L, "R&D\tLab", true)));
+            sink.write(statement(department, row(department, 2L, "C:\\data\nline", false)));
+            sink.write(statement(department, row(department, 3L, null, "NULL")));
+        }
+
+        assertEquals("""
+                -- Table data: department
+                COPY department (id, name, active) FROM stdin;
+                1\tR&D\\tLab\tt
+                2\tC:\\\\data\\nline\tf
+                \\.
+                COPY department (id, name, active) FROM stdin;
+                3\t\\N\t\\N
+                \\.
+                """, out.toString());
+    }
+
+    @Test
+    public void csvPostgreSQLTest(@TempDir Path directory) throws Exception {
+        DBSchema schema = DBSchema.parseSchema(DDL);
+        Table department = schema.getTable("department");
+        try (OutputSink sink = new CsvOutputSink(directory, DatabaseType.PostgreSQL, schema.getTableDependencies(), 10, Long.MAX_VALUE)) {
+            sink.write(statement(department, row(department, 1L, "Sales, \"North\"", true)));
+            sink.write(statement(department, row(department, 2L, "", null)));
+        }
+
+        assertEquals("\"id\",\"name\",\"active\"\n" +
+                "1,\"Sales, \"\"North\"\"\",true\n" +
+                "2,\"\",\n", Files.readString(directory.resolve("department.csv")));
+        assertFalse(Files.exists(directory.resolve("employee.csv")));
+    }
+
+    @Test
+    public void csvMySQLTest(@TempDir Path directory) throws Exception {
+        DBSchema schema = DBSchema.parseSchema(DDL);
+        Table department = schema.getTable("department");
+        try (OutputSink sink = new CsvOutputSink(directory, DatabaseType.MySQL, schema.getTableDependencies(), 10, Long.MAX_VALUE)) {
+            sink.write(statement(department, row(department, 1L, "NULL \\ \"x\"", false)));
+            sink.write(statement(department, row(department, 2L, null, true)));
+        }
+
+        assertEquals("\"id\",\"name\",\"active\"\n" +
+                "\"1\",\"NULL \\\\ \"\"x\"\"\",0\n" +
+                "\"2\",NULL,1\n", Files.readString(directory.resolve("department.csv")));
+    }
+
+    @Test
+    public void loadDataTest(@TempDir Path directory) throws Exception {
+        DBSchema schema = DBSchema.parseSchema(DDL);
+        Table department = schema.getTable("department");
+        Table employee = schema.getTable("employee");
+        try (OutputSink sink = new LoadDataOutputSink(directory, schema.getTableDependencies(), 10, Long.MAX_VALUE)) {
+            sink.write(statement(department, row(department, 1L, "a\tb\\c", true)));
+            sink.write(statement(employee, row(employee, 1L, 1L)));
+            sink.write(statement(employee, row(employee, 2L, null)));
+        }
+
+        assertEquals("1\ta\\tb\\\\c\t1\n", Files.readString(directory.resolve("department.tsv")));
+        assertEquals("1\t1\n2\t\\N\n", Files.readString(directory.resolve("employee.tsv")));
+
+        List<String> script = Files.readAllLines(directory.resolve(LoadDataOutputSink.SCRIPT_FILE_NAME));
+        assertEquals(2, script.size());
+        assertTrue(script.get(0).startsWith("LOAD DATA LOCAL INFILE 'department.tsv' INTO TABLE department"));
+        assertTrue(script.get(0).endsWith("(id, name, active);"));
+        assertTrue(script.get(1).startsWith("LOAD DATA LOCAL INFILE 'employee.tsv' INTO TABLE employee"));
+    }
+
+    private static InsertStatement statement(Table table, Map<Column, Object> row) {
+        return new InsertStatement(table, List.of(row));
+    }
+
+    private static Map<Column, Object> row(Table table, Object... values) {
+        Map<Column, Object> row = new LinkedHashMap<>();
+        List<Column> columns = table.getColumns();
+        for (int i = 0; i < values.length; i++) {
+            row.put(columns.get(i), values[i]);
+        }
+        return row;
+    }
+}
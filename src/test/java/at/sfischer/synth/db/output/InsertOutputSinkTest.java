@@ -0,0 +1,91 @@
+package at.sfischer.synth.db.output;
+
+import at.sfischer.synth.db.model.DBSchema;
+import at.sfischer.synth.db.model.InsertStatement;
+import at.sfischer.synth.db.model.Table;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InsertOutputSinkTest {
+
+    private static final String DDL = """
+            CREATE TABLE department (
+                id INT PRIMARY KEY,
+                name VARCHAR(20)
+            );
+            CREATE TABLE employee (
+                id INT PRIMARY KEY,
+                name VARCHAR(20),
+                department_id INT REFERENCES department(id)
+            );
+            """;
+
+    @Test
+    public void chunkByRowsTest() throws Exception {
+        DBSchema schema = DBSchema.parseSchema(DDL);
+        Table department = schema.getTable("department");
+        StringWriter out = new StringWriter();
+        try (OutputSink sink = new InsertOutputSink(out, schema.getTableDependencies(), 2, Long.MAX_VALUE)) {
+            for (int i = 1; i <= 5; i++) {
+                sink.write(InsertStatement.parseInsertStatement(department, "INSERT INTO department (id, name) VALUES (" + i + ", 'D" + i + "')"));
+            }
+            assertEquals(2, count(out.toString(), "INSERT INTO"));
+        }
+
+        String output = out.toString();
+        assertEquals(1, count(output, "-- Table data: department"));
+        assertEquals(3, count(output, "INSERT INTO"));
+        assertTrue(output.contains("INSERT INTO department (id, name) VALUES \n\t(1, 'D1'),\n\t(2, 'D2');\n"));
+        assertTrue(output.endsWith("INSERT INTO department (id, name) VALUES \n\t(5, 'D5');\n"));
+        assertEquals(5, InsertStatement.parseInsertStatements(schema, output).stream().mapToInt(insert -> insert.getRows().size()).sum());
+    }
+
+    @Test
+    public void chunkByBytesTest() throws Exception {
+        DBSchema schema = DBSchema.parseSchema(DDL);
+        Table department = schema.getTable("department");
+        StringWriter out = new StringWriter();
+        long chunkBytes = 100;
+        try (OutputSink sink = new InsertOutputSink(out, schema.getTableDependencies(), Integer.MAX_VALUE, chunkBytes)) {
+            for (int i = 1; i <= 20; i++) {
+                sink.write(InsertStatement.parseInsertStatement(department, "INSERT INTO department (id, name) VALUES (" + i + ", 'Department')"));
+            }
+        }
+
+        List<InsertStatement> inserts = InsertStatement.parseInsertStatements(schema, out.toString());
+        assertTrue(inserts.size() > 1);
+        assertEquals(20, inserts.stream().mapToInt(insert -> insert.getRows().size()).sum());
+        for (InsertStatement insert : inserts) {
+            assertTrue(insert.generateInsertStatement().length() <= chunkBytes, insert.generateInsertStatement());
+        }
+    }
+
+    @Test
+    public void referencedTablesFirstTest() throws Exception {
+        DBSchema schema = DBSchema.parseSchema(DDL);
+        Table department = schema.getTable("department");
+        Table employee = schema.getTable("employee");
+        StringWriter out = new StringWriter();
+        try (OutputSink sink = new InsertOutputSink(out, schema.getTableDependencies(), 10, Long.MAX_VALUE)) {
+            sink.write(InsertStatement.parseInsertStatement(department, "INSERT INTO department (id, name) VALUES (1, 'Sales')"));
+            sink.write(InsertStatement.parseInsertStatement(employee, "INSERT INTO employee (id, name, department_id) VALUES (1, 'Jane', 1)"));
+            sink.tableCompleted(employee);
+
+            String output = out.toString();
+            assertTrue(output.indexOf("INSERT INTO department") >= 0);
+            assertTrue(output.indexOf("INSERT INTO department") < output.indexOf("INSERT INTO employee"));
+        }
+    }
+
+    private static int count(String text, String part) {
+        int count = 0;
+        for (int index = text.indexOf(part); index >= 0; index = text.indexOf(part, index + 1)) {
+            count++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,151 @@
+package at.sfischer.synth.db.output;
+
+import at.sfischer.synth.db.generation.values.TableFiller;
+import at.sfischer.synth.db.model.Column;
+import at.sfischer.synth.db.model.DBSchema;
+import at.sfischer.synth.db.model.InsertStatement;
+import at.sfischer.synth.db.model.Table;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.StringWriter;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JdbcOutputSinkTest {
+
+    private static final String DDL = """
+            CREATE TABLE department (
+                id INT PRIMARY KEY,
+                name VARCHAR(50)
+            );
+            CREATE TABLE employee (
+                id INT PRIMARY KEY,
+                name VARCHAR(50),
+                department_id INT REFERENCES department(id)
+            );
+            """;
+
+    @Test
+    public void referencedRowsWrittenFirstTest(@TempDir Path directory) throws Exception {
+        DBSchema schema = DBSchema.parseSchema(DDL);
+        Table department = schema.getTable("department");
+        Table employee = schema.getTable("employee");
+        String url = createTarget(schema, directory);
+
+        try (OutputSink sink = new JdbcOutputSink(url, schema.getTableDependencies(), 2, 3, false, 2)) {
+            for (int i = 1; i <= 5; i++) {
+                sink.write(statement(department, row(department, i, "D" + i)));
+            }
+            // Department 5 is still buffered and must be written before employee 1.
+            sink.write(statement(employee, row(employee, 1, "Jane", 5), row(employee, 2, null, "NULL")));
+            sink.tableCompleted(employee);
+
+            assertEquals(5, count(url, "department"));
+            assertEquals(2, count(url, "employee"));
+        }
+
+        try (Connection connection = DriverManager.getConnection(url);
+             Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT name, department_id FROM employee WHERE id = 2")) {
+            assertTrue(rs.next());
+            assertNull(rs.getObject(1));
+            assertNull(rs.getObject(2));
+        }
+    }
+
+    @Test
+    public void commitSizeTest(@TempDir Path directory) throws Exception {
+        DBSchema schema = DBSchema.parseSchema(DDL);
+        Table department = schema.getTable("department");
+        String url = createTarget(schema, directory);
+
+        try (OutputSink sink = new JdbcOutputSink(url, schema.getTableDependencies(), 2, 4, false, 1)) {
+            for (int i = 1; i <= 5; i++) {
+                sink.write(statement(department, row(department, i, "D" + i)));
+            }
+            // Two batches were sent and committed, the fifth row is still buffered.
+            assertEquals(4, count(url, "department"));
+        }
+        assertEquals(5, count(url, "department"));
+    }
+
+    @Test
+    public void deferForeignKeysTest(@TempDir Path directory) throws Exception {
+        DBSchema schema = DBSchema.parseSchema(DDL);
+        Table department = schema.getTable("department");
+        Table employee = schema.getTable("employee");
+        String url = createTarget(schema, directory);
+
+        try (OutputSink sink = new JdbcOutputSink(url, schema.getTableDependencies(), 10, 10, true, 2)) {
+            sink.write(statement(department, row(department, 1, "Sales")));
+            sink.write(statement(employee, row(employee, 1, "Jane", 1)));
+            sink.tableCompleted(employee);
+
+            assertEquals(0, count(url, "department"));
+            assertEquals(1, count(url, "employee"));
+        }
+        assertEquals(1, count(url, "department"));
+    }
+
+    @Test
+    public void teeTest(@TempDir Path directory) throws Exception {
+        DBSchema schema = DBSchema.parseSchema(DDL);
+        Table department = schema.getTable("department");
+        String url = createTarget(schema, directory);
+
+        StringWriter out = new StringWriter();
+        try (OutputSink sink = new TeeOutputSink(List.of(
+                new InsertOutputSink(out, schema.getTableDependencies(), 10, Long.MAX_VALUE),
+                new JdbcOutputSink(url, schema.getTableDependencies(), 10, 10, false, 1)))) {
+            sink.write(statement(department, row(department, 1, "Sales")));
+        }
+
+        assertTrue(out.toString().contains("INSERT INTO department"));
+        assertEquals(1, count(url, "department"));
+    }
+
+    @Test
+    public void invalidSettingsTest() {
+        assertThrows(IllegalArgumentException.class, () -> new JdbcOutputSink("jdbc:h2:mem:", Map.of(), 0, 1, false, 1));
+        assertThrows(IllegalArgumentException.class, () -> new JdbcOutputSink("jdbc:h2:mem:", Map.of(), 1, 0, false, 1));
+        assertThrows(IllegalArgumentException.class, () -> new JdbcOutputSink("jdbc:h2:mem:", Map.of(), 1, 1, false, 0));
+    }
+
+    private static String createTarget(DBSchema schema, Path directory) throws Exception {
+        String url = "jdbc:h2:file:" + directory.resolve("target").toAbsolutePath();
+        try (Connection connection = DriverManager.getConnection(url)) {
+            TableFiller.createSchema(schema, connection);
+        }
+        return url;
+    }
+
+    private static long count(String url, String table) throws Exception {
+        try (Connection connection = DriverManager.getConnection(url);
+             Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM " + table)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    @SafeVarargs
+    private static InsertStatement statement(Table table, Map<Column, Object>... rows) {
+        return new InsertStatement(table, List.of(rows));
+    }
+
+    private static Map<Column, Object> row(Table table, Object... values) {
+        Map<Column, Object> row = new LinkedHashMap<>();
+        List<Column> columns = table.getColumns();
+        for (int i = 0; i < values.length; i++) {
+            row.put(columns.get(i), values[i]);
+        }
+        return row;
+    }
+}